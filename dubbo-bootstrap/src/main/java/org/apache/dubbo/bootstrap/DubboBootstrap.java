@@ -16,23 +16,64 @@
  */
 package org.apache.dubbo.bootstrap;
 
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.extension.ExtensionLoader;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.utils.NamedThreadFactory;
 import org.apache.dubbo.config.DubboShutdownHook;
+import org.apache.dubbo.config.ReferenceConfig;
 import org.apache.dubbo.config.ServiceConfig;
+import org.apache.dubbo.registry.Registry;
+import org.apache.dubbo.registry.RegistryFactory;
+import org.apache.dubbo.registry.support.ProviderConsumerRegTable;
+import org.apache.dubbo.registry.support.ProviderInvokerWrapper;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A bootstrap class to easily start and stop Dubbo via programmatic API.
  * The bootstrap class will be responsible to cleanup the resources during stop.
+ * <p>
+ * Services are exported and references are initialized concurrently on a bounded pool, registry
+ * registrations of the exported services are deferred until every service is exported and then
+ * flushed per registry, and the time spent in each startup phase is recorded.
  */
 public class DubboBootstrap {
 
+    private static final Logger logger = LoggerFactory.getLogger(DubboBootstrap.class);
+
+    public static final String PHASE_EXPORT = "export";
+
+    public static final String PHASE_REGISTER = "register";
+
+    public static final String PHASE_REFER = "refer";
+
+    public static final String PHASE_TOTAL = "total";
+
+    private static final int DEFAULT_PARALLELISM = Math.min(Runtime.getRuntime().availableProcessors() * 2, 32);
+
     /**
      * The list of ServiceConfig
      */
     private List<ServiceConfig> serviceConfigList;
 
+    /**
+     * The list of ReferenceConfig
+     */
+    private List<ReferenceConfig> referenceConfigList;
+
     /**
      * Whether register the shutdown hook during start?
      */
@@ -43,6 +84,21 @@ public class DubboBootstrap {
      */
     private DubboShutdownHook shutdownHook;
 
+    /**
+     * Max number of services / references initialized at the same time, 1 means in the caller thread
+     */
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    /**
+     * Whether registering the exported services is deferred until all services are exported
+     */
+    private boolean deferRegistration = true;
+
+    /**
+     * Cost in milliseconds of each startup phase, in the order the phases ran
+     */
+    private final Map<String, Long> phaseTimings = Collections.synchronizedMap(new LinkedHashMap<String, Long>());
+
     public DubboBootstrap() {
         this(true, DubboShutdownHook.getDubboShutdownHook());
     }
@@ -53,6 +109,7 @@ public class DubboBootstrap {
 
     public DubboBootstrap(boolean registerShutdownHookOnStart, DubboShutdownHook shutdownHook) {
         this.serviceConfigList = new ArrayList<ServiceConfig>();
+        this.referenceConfigList = new ArrayList<ReferenceConfig>();
         this.shutdownHook = shutdownHook;
         this.registerShutdownHookOnStart = registerShutdownHookOnStart;
     }
@@ -67,6 +124,38 @@ public class DubboBootstrap {
         return this;
     }
 
+    /**
+     * Register reference config to bootstrap, which will be initialized during {@link DubboBootstrap#start()}
+     * and destroyed during {@link DubboBootstrap#stop()}
+     * @param referenceConfig the reference
+     * @return the bootstrap instance
+     */
+    public DubboBootstrap registerReferenceConfig(ReferenceConfig referenceConfig) {
+        referenceConfigList.add(referenceConfig);
+        return this;
+    }
+
+    /**
+     * @param parallelism max number of services / references initialized at the same time
+     * @return the bootstrap instance
+     */
+    public DubboBootstrap parallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive, but was " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * @param deferRegistration whether to register the exported services only after all of them are exported
+     * @return the bootstrap instance
+     */
+    public DubboBootstrap deferRegistration(boolean deferRegistration) {
+        this.deferRegistration = deferRegistration;
+        return this;
+    }
+
     public void start() {
         if (registerShutdownHookOnStart) {
             registerShutdownHook();
@@ -75,8 +164,60 @@ public class DubboBootstrap {
             // we need to remove it explicitly
             removeShutdownHook();
         }
-        for (ServiceConfig serviceConfig: serviceConfigList) {
-            serviceConfig.export();
+        phaseTimings.clear();
+        long start = System.currentTimeMillis();
+        ExecutorService executor = parallelism > 1 && serviceConfigList.size() + referenceConfigList.size() > 1
+                ? new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("DubboBootstrap", true))
+                : null;
+        try {
+            long phaseStart = System.currentTimeMillis();
+            List<ServiceConfig> deferred = deferRegistration ? prepareDeferredRegistration() : Collections.<ServiceConfig>emptyList();
+            List<Callable<Object>> exports = new ArrayList<Callable<Object>>(serviceConfigList.size());
+            for (final ServiceConfig serviceConfig : serviceConfigList) {
+                exports.add(new Callable<Object>() {
+                    @Override
+                    public Object call() {
+                        serviceConfig.export();
+                        return null;
+                    }
+                });
+            }
+            try {
+                invokeAll(executor, exports);
+            } finally {
+                for (ServiceConfig serviceConfig : deferred) {
+                    serviceConfig.setRegister(null);
+                }
+            }
+            recordPhase(PHASE_EXPORT, phaseStart);
+
+            phaseStart = System.currentTimeMillis();
+            registerDeferred(executor, deferred);
+            recordPhase(PHASE_REGISTER, phaseStart);
+
+            phaseStart = System.currentTimeMillis();
+            List<Callable<Object>> refers = new ArrayList<Callable<Object>>(referenceConfigList.size());
+            for (final ReferenceConfig referenceConfig : referenceConfigList) {
+                refers.add(new Callable<Object>() {
+                    @Override
+                    public Object call() {
+                        return referenceConfig.get();
+                    }
+                });
+            }
+            invokeAll(executor, refers);
+            recordPhase(PHASE_REFER, phaseStart);
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+        recordPhase(PHASE_TOTAL, start);
+        if (logger.isInfoEnabled()) {
+            logger.info("Dubbo bootstrap started " + serviceConfigList.size() + " services and "
+                    + referenceConfigList.size() + " references with parallelism " + parallelism
+                    + ", phase cost in ms: " + phaseTimings);
         }
     }
 
@@ -84,12 +225,25 @@ public class DubboBootstrap {
         for (ServiceConfig serviceConfig: serviceConfigList) {
             serviceConfig.unexport();
         }
+        for (ReferenceConfig referenceConfig : referenceConfigList) {
+            referenceConfig.destroy();
+        }
         shutdownHook.destroyAll();
         if (registerShutdownHookOnStart) {
             removeShutdownHook();
         }
     }
 
+    /**
+     * @return the cost in milliseconds of each phase of the last {@link DubboBootstrap#start()},
+     * keyed by {@link #PHASE_EXPORT}, {@link #PHASE_REGISTER}, {@link #PHASE_REFER} and {@link #PHASE_TOTAL}
+     */
+    public Map<String, Long> getPhaseTimings() {
+        synchronized (phaseTimings) {
+            return new LinkedHashMap<String, Long>(phaseTimings);
+        }
+    }
+
     /**
      * Register the shutdown hook
      */
@@ -108,4 +262,114 @@ public class DubboBootstrap {
             // ignore - VM is already shutting down
         }
     }
+
+    private void recordPhase(String phase, long phaseStart) {
+        phaseTimings.put(phase, System.currentTimeMillis() - phaseStart);
+    }
+
+    /**
+     * Export the services which would register themselves right away with register=false, the same way
+     * the qos offline state works, so that they can be brought online together once all of them are exported.
+     * Services exported with a delay are left untouched since they are not exported during start.
+     */
+    private List<ServiceConfig> prepareDeferredRegistration() {
+        List<ServiceConfig> deferred = new ArrayList<ServiceConfig>();
+        for (ServiceConfig serviceConfig : serviceConfigList) {
+            if (serviceConfig.isRegister() != null || isDelayed(serviceConfig)) {
+                continue;
+            }
+            serviceConfig.setRegister(false);
+            deferred.add(serviceConfig);
+        }
+        return deferred;
+    }
+
+    private static boolean isDelayed(ServiceConfig serviceConfig) {
+        Integer delay = serviceConfig.getDelay();
+        if (delay == null && serviceConfig.getProvider() != null) {
+            delay = serviceConfig.getProvider().getDelay();
+        }
+        return delay != null && delay > 0;
+    }
+
+    /**
+     * Register the deferred providers, grouped by registry so that each registry receives all of its
+     * registrations in one pass and the registries are written concurrently.
+     */
+    private void registerDeferred(ExecutorService executor, List<ServiceConfig> deferred) {
+        if (deferred.isEmpty()) {
+            return;
+        }
+        Map<URL, List<ProviderInvokerWrapper>> byRegistry = new LinkedHashMap<URL, List<ProviderInvokerWrapper>>();
+        for (ServiceConfig serviceConfig : deferred) {
+            for (ProviderInvokerWrapper wrapper : ProviderConsumerRegTable.getProviderInvoker(serviceConfig.getUniqueServiceName())) {
+                if (wrapper.isReg()) {
+                    continue;
+                }
+                List<ProviderInvokerWrapper> wrappers = byRegistry.get(wrapper.getRegistryUrl());
+                if (wrappers == null) {
+                    wrappers = new ArrayList<ProviderInvokerWrapper>();
+                    byRegistry.put(wrapper.getRegistryUrl(), wrappers);
+                }
+                wrappers.add(wrapper);
+            }
+        }
+        final RegistryFactory registryFactory = ExtensionLoader.getExtensionLoader(RegistryFactory.class).getAdaptiveExtension();
+        List<Callable<Object>> registrations = new ArrayList<Callable<Object>>(byRegistry.size());
+        for (final Map.Entry<URL, List<ProviderInvokerWrapper>> entry : byRegistry.entrySet()) {
+            registrations.add(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    Registry registry = registryFactory.getRegistry(entry.getKey());
+                    for (ProviderInvokerWrapper wrapper : entry.getValue()) {
+                        registry.register(wrapper.getProviderUrl());
+                        wrapper.setReg(true);
+                    }
+                    return null;
+                }
+            });
+        }
+        invokeAll(executor, registrations);
+    }
+
+    /**
+     * Run the tasks on the executor, or in the caller thread if there is none, wait for all of them to finish
+     * and rethrow the first failure.
+     */
+    private static void invokeAll(ExecutorService executor, List<Callable<Object>> tasks) {
+        RuntimeException failure = null;
+        if (executor == null || tasks.size() < 2) {
+            for (Callable<Object> task : tasks) {
+                try {
+                    task.call();
+                } catch (RuntimeException e) {
+                    failure = failure == null ? e : failure;
+                } catch (Exception e) {
+                    failure = failure == null ? new IllegalStateException(e.getMessage(), e) : failure;
+                }
+            }
+        } else {
+            List<Future<Object>> futures = new ArrayList<Future<Object>>(tasks.size());
+            for (Callable<Object> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<Object> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while starting dubbo", e);
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        Throwable cause = e.getCause();
+                        failure = cause instanceof RuntimeException ? (RuntimeException) cause
+                                : new IllegalStateException(cause.getMessage(), cause);
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
 }
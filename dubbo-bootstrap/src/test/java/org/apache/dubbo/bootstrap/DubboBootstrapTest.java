@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.bootstrap;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.utils.NetUtils;
+import org.apache.dubbo.config.ApplicationConfig;
+import org.apache.dubbo.config.ProtocolConfig;
+import org.apache.dubbo.config.ReferenceConfig;
+import org.apache.dubbo.config.RegistryConfig;
+import org.apache.dubbo.config.ServiceConfig;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class DubboBootstrapTest {
+
+    private static final int COUNT = 8;
+
+    private DubboBootstrap bootstrap;
+
+    private int port;
+
+    @Before
+    public void setUp() {
+        RecordingRegistryFactory.REGISTERED.clear();
+        port = NetUtils.getAvailablePort();
+        bootstrap = new DubboBootstrap(false);
+    }
+
+    @After
+    public void tearDown() {
+        bootstrap.stop();
+        ProtocolConfig.destroyAll();
+    }
+
+    @Test
+    public void testParallelStart() {
+        List<ServiceConfig<DemoService>> services = prepareServices();
+        List<ReferenceConfig<DemoService>> references = new ArrayList<ReferenceConfig<DemoService>>();
+        for (int i = 0; i < COUNT; i++) {
+            ReferenceConfig<DemoService> reference = new ReferenceConfig<DemoService>();
+            reference.setApplication(new ApplicationConfig("bootstrap-consumer"));
+            reference.setInterface(DemoService.class);
+            reference.setVersion("1.0." + i);
+            reference.setUrl("dubbo://127.0.0.1:" + port + "?version=1.0." + i);
+            references.add(reference);
+            bootstrap.registerReferenceConfig(reference);
+        }
+
+        bootstrap.parallelism(4).start();
+
+        for (int i = 0; i < COUNT; i++) {
+            Assert.assertTrue(services.get(i).isExported());
+            Assert.assertNull(services.get(i).isRegister());
+            Assert.assertEquals("say:" + i, references.get(i).get().sayName(String.valueOf(i)));
+        }
+        Set<String> versions = new HashSet<String>();
+        for (URL url : RecordingRegistryFactory.REGISTERED) {
+            Assert.assertEquals(port, url.getPort());
+            versions.add(url.getParameter("version"));
+        }
+        Assert.assertEquals(COUNT, versions.size());
+
+        Map<String, Long> timings = bootstrap.getPhaseTimings();
+        Assert.assertTrue(timings.containsKey(DubboBootstrap.PHASE_EXPORT));
+        Assert.assertTrue(timings.containsKey(DubboBootstrap.PHASE_REGISTER));
+        Assert.assertTrue(timings.containsKey(DubboBootstrap.PHASE_REFER));
+        Assert.assertTrue(timings.get(DubboBootstrap.PHASE_TOTAL) >= timings.get(DubboBootstrap.PHASE_EXPORT));
+    }
+
+    @Test
+    public void testSequentialStartWithoutDeferredRegistration() {
+        List<ServiceConfig<DemoService>> services = prepareServices();
+        services.get(0).setRegister(false);
+
+        bootstrap.parallelism(1).deferRegistration(false).start();
+
+        Assert.assertEquals(COUNT - 1, RecordingRegistryFactory.REGISTERED.size());
+        Assert.assertFalse(services.get(0).isRegister());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIllegalParallelism() {
+        bootstrap.parallelism(0);
+    }
+
+    private List<ServiceConfig<DemoService>> prepareServices() {
+        List<ServiceConfig<DemoService>> services = new ArrayList<ServiceConfig<DemoService>>();
+        for (int i = 0; i < COUNT; i++) {
+            ServiceConfig<DemoService> service = new ServiceConfig<DemoService>();
+            service.setApplication(new ApplicationConfig("bootstrap-provider"));
+            service.setRegistry(new RegistryConfig("recording://127.0.0.1:2181"));
+            service.setProtocol(new ProtocolConfig("dubbo", port));
+            service.setInterface(DemoService.class);
+            service.setVersion("1.0." + i);
+            service.setRef(new DemoServiceImpl());
+            services.add(service);
+            bootstrap.registerServiceConfig(service);
+        }
+        return services;
+    }
+
+}
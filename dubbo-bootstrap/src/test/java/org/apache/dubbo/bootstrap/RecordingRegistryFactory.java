@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.bootstrap;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.registry.NotifyListener;
+import org.apache.dubbo.registry.Registry;
+import org.apache.dubbo.registry.RegistryFactory;
+import org.apache.dubbo.registry.support.AbstractRegistry;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registry which only records the registered urls
+ */
+public class RecordingRegistryFactory implements RegistryFactory {
+
+    static final List<URL> REGISTERED = new CopyOnWriteArrayList<URL>();
+
+    @Override
+    public Registry getRegistry(URL url) {
+        return new AbstractRegistry(url) {
+            @Override
+            public boolean isAvailable() {
+                return true;
+            }
+
+            @Override
+            public void register(URL url) {
+                super.register(url);
+                REGISTERED.add(url);
+            }
+
+            @Override
+            public void unregister(URL url) {
+                super.unregister(url);
+                REGISTERED.remove(url);
+            }
+
+            @Override
+            public void subscribe(URL url, NotifyListener listener) {
+            }
+        };
+    }
+
+}
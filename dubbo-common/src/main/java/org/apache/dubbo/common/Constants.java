@@ -56,6 +56,8 @@ public class Constants {
 
     public static final String CACHE_KEY = "cache";
 
+    public static final String COALESCE_KEY = "coalesce";
+
     public static final String DYNAMIC_KEY = "dynamic";
 
     public static final String DUBBO_PROPERTIES_KEY = "dubbo.properties.file";
@@ -188,6 +190,8 @@ public class Constants {
 
     public static final String APPLICATION_KEY = "application";
 
+    public static final String REMOTE_APPLICATION_KEY = "remote.application";
+
     public static final String LOCAL_KEY = "local";
 
     public static final String STUB_KEY = "stub";
@@ -236,6 +240,14 @@ public class Constants {
 
     public static final String ACCESS_LOG_KEY = "accesslog";
 
+    public static final String ACCESS_LOG_BUFFER_SIZE_KEY = "accesslog.buffer.size";
+
+    public static final int DEFAULT_ACCESS_LOG_BUFFER_SIZE = 8192;
+
+    public static final String ACCESS_LOG_MAX_FILE_SIZE_KEY = "accesslog.max.file.size";
+
+    public static final String ACCESS_LOG_LOSSLESS_KEY = "accesslog.lossless";
+
     public static final String ACTIVES_KEY = "actives";
 
     public static final String CONNECTIONS_KEY = "connections";
@@ -481,10 +493,43 @@ public class Constants {
 
     public static final int DEFAULT_REGISTRY_RECONNECT_PERIOD = 3 * 1000;
 
+    /**
+     * Whether the register and unregister events published by the redis registry carry the changed url
+     */
+    public static final String REGISTRY_PUBLISH_DELTA_KEY = "publish.delta";
+
     public static final String SESSION_TIMEOUT_KEY = "session";
 
     public static final int DEFAULT_SESSION_TIMEOUT = 60 * 1000;
 
+    /**
+     * Subscribe mode of register center, e.g. "tree" makes zookeeper registry watch the whole registry tree
+     * with a single tree cache instead of one child watch per category path
+     */
+    public static final String SUBSCRIBE_MODE_KEY = "subscribe.mode";
+
+    public static final String TREE_SUBSCRIBE_MODE = "tree";
+
+    /**
+     * Delay in milliseconds to coalesce change notifications of the same path, e.g. bursts after reconnect
+     */
+    public static final String NOTIFY_DELAY_KEY = "notify.delay";
+
+    public static final int DEFAULT_NOTIFY_DELAY = 100;
+
+    /**
+     * Whether consumers boot from the provider snapshot in the registry cache file and reconcile with the
+     * register center in background
+     */
+    public static final String SNAPSHOT_STARTUP_KEY = "snapshot.startup";
+
+    /**
+     * Max age in milliseconds of a provider snapshot usable at startup
+     */
+    public static final String SNAPSHOT_STALENESS_KEY = "snapshot.staleness";
+
+    public static final long DEFAULT_SNAPSHOT_STALENESS = 24 * 60 * 60 * 1000L;
+
     /**
      * The key name for export URL in register center
      */
@@ -597,10 +642,72 @@ public class Constants {
 
     public static final long DEFAULT_TPS_LIMIT_INTERVAL = 60 * 1000;
 
+    public static final String TPS_LIMIT_MODE_KEY = "tps.mode";
+
+    public static final String TPS_LIMIT_MODE_BUCKET = "bucket";
+
+    public static final String TPS_LIMIT_MODE_WINDOW = "window";
+
+    public static final String TPS_LIMIT_MODE_FIXED = "fixed";
+
+    public static final String DEFAULT_TPS_LIMIT_MODE = TPS_LIMIT_MODE_FIXED;
+
+    public static final String TPS_LIMIT_WINDOW_BUCKETS_KEY = "tps.window.buckets";
+
+    public static final int DEFAULT_TPS_LIMIT_WINDOW_BUCKETS = 10;
+
+    public static final String TPS_LIMIT_APPLICATIONS_KEY = "tps.applications";
+
     public static final String DECODE_IN_IO_THREAD_KEY = "decode.in.io";
 
     public static final boolean DEFAULT_DECODE_IN_IO_THREAD = true;
 
+    public static final String CODEC_DICTIONARY_KEY = "codec.dictionary";
+
+    public static final boolean DEFAULT_CODEC_DICTIONARY = true;
+
+    public static final String LAZY_ARGUMENTS_KEY = "lazy.arguments";
+
+    public static final String COMPACT_ATTACHMENTS_KEY = "compact.attachments";
+
+    public static final String COMPRESSOR_KEY = "compressor";
+
+    public static final String COMPRESS_THRESHOLD_KEY = "compress.threshold";
+
+    public static final int DEFAULT_COMPRESS_THRESHOLD = 32 * 1024;
+
+    public static final String STREAM_KEY = "stream";
+
+    public static final String STREAM_CREDITS_KEY = "stream.credits";
+
+    public static final int DEFAULT_STREAM_CREDITS = 16;
+
+    public static final String STREAM_CHUNK_SIZE_KEY = "stream.chunk.size";
+
+    public static final int DEFAULT_STREAM_CHUNK_SIZE = 256;
+
+    public static final String STREAM_SEQUENCE_KEY = "stream.sequence";
+
+    public static final String STREAM_CHUNKS_KEY = "stream.chunks";
+
+    public static final String ETAG_KEY = "etag";
+
+    public static final String ETAG_MATCH_KEY = "etag.match";
+
+    public static final String NOT_MODIFIED_KEY = "not.modified";
+
+    public static final String ETAG_SIZE_KEY = "etag.size";
+
+    public static final int DEFAULT_ETAG_SIZE = 1000;
+
+    public static final String SERIALIZATION_PROFILE_KEY = "serialization.profile";
+
+    public static final String SERIALIZATION_PROFILE_SAMPLE_KEY = "serialization.profile.sample";
+
+    public static final int DEFAULT_SERIALIZATION_PROFILE_SAMPLE = 1;
+
+    public static final String METRICS_GROUP = "dubbo";
+
     public static final String INPUT_KEY = "input";
 
     public static final String OUTPUT_KEY = "output";
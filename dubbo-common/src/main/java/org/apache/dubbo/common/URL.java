@@ -174,6 +174,14 @@ public /**final**/ class URL implements Serializable {
     }
 
     public URL(String protocol, String username, String password, String host, int port, String path, Map<String, String> parameters) {
+        this(protocol, username, password, host, port, path, parameters, true);
+    }
+
+    /**
+     * @param copyParameters false only if <code>parameters</code> is a fresh map owned by the new instance,
+     *                       e.g. built by {@link #valueOf(String)}
+     */
+    private URL(String protocol, String username, String password, String host, int port, String path, Map<String, String> parameters, boolean copyParameters) {
         if ((username == null || username.length() == 0)
                 && password != null && password.length() > 0) {
             throw new IllegalArgumentException("Invalid url, password without username!");
@@ -190,7 +198,7 @@ public /**final**/ class URL implements Serializable {
         this.path = path;
         if (parameters == null) {
             parameters = new HashMap<String, String>();
-        } else {
+        } else if (copyParameters) {
             parameters = new HashMap<String, String>(parameters);
         }
         /**
@@ -213,6 +221,7 @@ public /**final**/ class URL implements Serializable {
         if (url == null || (url = url.trim()).length() == 0) {
             throw new IllegalArgumentException("url == null");
         }
+        // single pass over the raw string with indexes, no intermediate substrings of the body are created
         String protocol = null;
         String username = null;
         String password = null;
@@ -220,84 +229,186 @@ public /**final**/ class URL implements Serializable {
         int port = 0;
         String path = null;
         Map<String, String> parameters = null;
-        int i = url.indexOf("?"); // seperator between body and parameters 
+        int start = 0;
+        int end = url.length();
+        int i = url.indexOf('?'); // seperator between body and parameters
         if (i >= 0) {
-            String[] parts = url.substring(i + 1).split("\\&");
-            parameters = new HashMap<String, String>();
-            for (String part : parts) {
-                part = part.trim();
-                if (part.length() > 0) {
-                    int j = part.indexOf('=');
-                    if (j >= 0) {
-                        parameters.put(part.substring(0, j), part.substring(j + 1));
-                    } else {
-                        parameters.put(part, part);
-                    }
-                }
-            }
-            url = url.substring(0, i);
+            parameters = parseParameters(url, i + 1, end);
+            end = i;
         }
         i = url.indexOf("://");
-        if (i >= 0) {
-            if (i == 0) throw new IllegalStateException("url missing protocol: \"" + url + "\"");
+        if (i >= 0 && i < end) {
+            if (i == 0) throw new IllegalStateException("url missing protocol: \"" + url.substring(0, end) + "\"");
             protocol = url.substring(0, i);
-            url = url.substring(i + 3);
+            start = i + 3;
         } else {
             // case: file:/path/to/file.txt
             i = url.indexOf(":/");
-            if (i >= 0) {
-                if (i == 0) throw new IllegalStateException("url missing protocol: \"" + url + "\"");
+            if (i >= 0 && i < end) {
+                if (i == 0) throw new IllegalStateException("url missing protocol: \"" + url.substring(0, end) + "\"");
                 protocol = url.substring(0, i);
-                url = url.substring(i + 1);
+                start = i + 1;
             }
         }
 
-        i = url.indexOf("/");
-        if (i >= 0) {
-            path = url.substring(i + 1);
-            url = url.substring(0, i);
+        i = url.indexOf('/', start);
+        if (i >= 0 && i < end) {
+            path = url.substring(i + 1, end);
+            end = i;
         }
-        i = url.lastIndexOf("@");
-        if (i >= 0) {
-            username = url.substring(0, i);
-            int j = username.indexOf(":");
-            if (j >= 0) {
-                password = username.substring(j + 1);
-                username = username.substring(0, j);
+        i = url.lastIndexOf('@', end - 1);
+        if (i >= start) {
+            int j = url.indexOf(':', start);
+            if (j >= 0 && j < i) {
+                username = url.substring(start, j);
+                password = url.substring(j + 1, i);
+            } else {
+                username = url.substring(start, i);
             }
-            url = url.substring(i + 1);
+            start = i + 1;
         }
-        i = url.lastIndexOf(":");
-        if (i >= 0 && i < url.length() - 1) {
-            if (url.lastIndexOf("%") > i) {
+        i = url.lastIndexOf(':', end - 1);
+        if (i >= start && i < end - 1) {
+            if (url.lastIndexOf('%', end - 1) > i) {
                 // ipv6 address with scope id
                 // e.g. fe80:0:0:0:894:aeec:f37d:23e1%en0
                 // see https://howdoesinternetwork.com/2013/ipv6-zone-id
                 // ignore
             } else {
-                port = Integer.parseInt(url.substring(i+1));
-                url = url.substring(0, i);
+                port = Integer.parseInt(url.substring(i + 1, end));
+                end = i;
             }
         }
-        if (url.length() > 0) host = url;
-        return new URL(protocol, username, password, host, port, path, parameters);
+        if (end > start) host = url.substring(start, end);
+        return new URL(protocol, username, password, host, port, path, parameters, false);
     }
 
+    /**
+     * Parse the "key1=value1&amp;key2=value2" part of url string between <code>from</code> and <code>to</code>,
+     * blank pairs are skipped and a key without value is mapped to itself.
+     */
+    private static Map<String, String> parseParameters(String url, int from, int to) {
+        Map<String, String> parameters = new HashMap<String, String>();
+        int partStart = from;
+        while (partStart < to) {
+            int partEnd = url.indexOf('&', partStart);
+            if (partEnd < 0 || partEnd > to) {
+                partEnd = to;
+            }
+            int s = partStart;
+            int e = partEnd;
+            while (s < e && url.charAt(s) <= ' ') {
+                s++;
+            }
+            while (e > s && url.charAt(e - 1) <= ' ') {
+                e--;
+            }
+            if (s < e) {
+                int j = url.indexOf('=', s);
+                if (j >= 0 && j < e) {
+                    parameters.put(url.substring(s, j), url.substring(j + 1, e));
+                } else {
+                    String key = url.substring(s, e);
+                    parameters.put(key, key);
+                }
+            }
+            partStart = partEnd + 1;
+        }
+        return parameters;
+    }
+
+    /**
+     * Same as {@link URLEncoder#encode(String, String)} with UTF-8, but returns the given string itself when
+     * nothing has to be escaped and encodes ascii strings in one pass without going through byte arrays.
+     */
     public static String encode(String value) {
         if (value == null || value.length() == 0) {
             return "";
         }
-        try {
-            return URLEncoder.encode(value, "UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e.getMessage(), e);
+        int len = value.length();
+        int i = 0;
+        while (i < len && isUnreservedChar(value.charAt(i))) {
+            i++;
+        }
+        if (i == len) {
+            return value;
+        }
+        StringBuilder buf = new StringBuilder(len + 32);
+        buf.append(value, 0, i);
+        for (; i < len; i++) {
+            char c = value.charAt(i);
+            if (isUnreservedChar(c)) {
+                buf.append(c);
+            } else if (c == ' ') {
+                buf.append('+');
+            } else if (c < 0x80) {
+                buf.append('%').append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+            } else {
+                // multi-bytes characters, leave it to jdk
+                return encodeByJdk(value);
+            }
         }
+        return buf.toString();
     }
 
+    /**
+     * Same as {@link URLDecoder#decode(String, String)} with UTF-8, but returns the given string itself when
+     * there is no escaped character and decodes ascii escapes in one pass.
+     */
     public static String decode(String value) {
         if (value == null || value.length() == 0) {
             return "";
         }
+        int len = value.length();
+        int i = 0;
+        char c;
+        while (i < len && (c = value.charAt(i)) != '%' && c != '+') {
+            i++;
+        }
+        if (i == len) {
+            return value;
+        }
+        char[] buf = new char[len];
+        value.getChars(0, i, buf, 0);
+        int n = i;
+        while (i < len) {
+            c = value.charAt(i);
+            if (c == '+') {
+                buf[n++] = ' ';
+                i++;
+            } else if (c == '%') {
+                int hi = i + 2 < len ? Character.digit(value.charAt(i + 1), 16) : -1;
+                int lo = hi >= 0 ? Character.digit(value.charAt(i + 2), 16) : -1;
+                if (lo < 0 || hi >= 8) {
+                    // malformed escape or multi-bytes character, leave it to jdk
+                    return decodeByJdk(value);
+                }
+                buf[n++] = (char) ((hi << 4) | lo);
+                i += 3;
+            } else {
+                buf[n++] = c;
+                i++;
+            }
+        }
+        return new String(buf, 0, n);
+    }
+
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private static boolean isUnreservedChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '.' || c == '-' || c == '*' || c == '_';
+    }
+
+    private static String encodeByJdk(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    private static String decodeByJdk(String value) {
         try {
             return URLDecoder.decode(value, "UTF-8");
         } catch (UnsupportedEncodingException e) {
@@ -24,6 +24,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -89,6 +90,15 @@ public abstract class Wrapper {
     };
     private static AtomicLong WRAPPER_CLASS_COUNTER = new AtomicLong(0);
 
+    private static final int[] NO_INDEX = new int[0];
+
+    /**
+     * method name to the indexes of the methods of that name, see {@link #getMethodIndex(String, Class[])}
+     */
+    private Map<String, int[]> methodIndexes = Collections.emptyMap();
+
+    private Class<?>[][] indexedParameterTypes = new Class<?>[0][];
+
     /**
      * get wrapper.
      *
@@ -120,15 +130,18 @@ public abstract class Wrapper {
         StringBuilder c1 = new StringBuilder("public void setPropertyValue(Object o, String n, Object v){ ");
         StringBuilder c2 = new StringBuilder("public Object getPropertyValue(Object o, String n){ ");
         StringBuilder c3 = new StringBuilder("public Object invokeMethod(Object o, String n, Class[] p, Object[] v) throws " + InvocationTargetException.class.getName() + "{ ");
+        StringBuilder c4 = new StringBuilder("public Object invokeMethod(Object o, int i, Object[] v) throws " + NoSuchMethodException.class.getName() + ", " + InvocationTargetException.class.getName() + "{ ");
 
         c1.append(name).append(" w; try{ w = ((").append(name).append(")$1); }catch(Throwable e){ throw new IllegalArgumentException(e); }");
         c2.append(name).append(" w; try{ w = ((").append(name).append(")$1); }catch(Throwable e){ throw new IllegalArgumentException(e); }");
         c3.append(name).append(" w; try{ w = ((").append(name).append(")$1); }catch(Throwable e){ throw new IllegalArgumentException(e); }");
+        c4.append(name).append(" w; try{ w = ((").append(name).append(")$1); }catch(Throwable e){ throw new IllegalArgumentException(e); }");
 
         Map<String, Class<?>> pts = new HashMap<String, Class<?>>(); // <property name, property types>
         Map<String, Method> ms = new LinkedHashMap<String, Method>(); // <method desc, Method instance>
         List<String> mns = new ArrayList<String>(); // method names.
         List<String> dmns = new ArrayList<String>(); // declaring method names.
+        List<Method> ims = new ArrayList<Method>(); // methods by index.
 
         // get all public field.
         for (Field f : c.getFields()) {
@@ -147,6 +160,7 @@ public abstract class Wrapper {
         boolean hasMethod = hasMethods(methods);
         if (hasMethod) {
             c3.append(" try{");
+            c4.append(" try{ switch( $2 ){");
         }
         for (Method m : methods) {
             if (m.getDeclaringClass() == Object.class) //ignore Object's method.
@@ -182,6 +196,13 @@ public abstract class Wrapper {
 
             c3.append(" }");
 
+            c4.append(" case ").append(ims.size()).append(":");
+            if (m.getReturnType() == Void.TYPE)
+                c4.append(" w.").append(mn).append('(').append(args(m.getParameterTypes(), "$3")).append(");").append(" return null;");
+            else
+                c4.append(" return ($w)w.").append(mn).append('(').append(args(m.getParameterTypes(), "$3")).append(");");
+            ims.add(m);
+
             mns.add(mn);
             if (m.getDeclaringClass() == c)
                 dmns.add(mn);
@@ -191,9 +212,13 @@ public abstract class Wrapper {
             c3.append(" } catch(Throwable e) { ");
             c3.append("     throw new java.lang.reflect.InvocationTargetException(e); ");
             c3.append(" }");
+            c4.append(" } } catch(Throwable e) { ");
+            c4.append("     throw new java.lang.reflect.InvocationTargetException(e); ");
+            c4.append(" }");
         }
 
         c3.append(" throw new " + NoSuchMethodException.class.getName() + "(\"Not found method \\\"\"+$2+\"\\\" in class " + c.getName() + ".\"); }");
+        c4.append(" throw new " + NoSuchMethodException.class.getName() + "(\"Not found method index \"+$2+\" in class " + c.getName() + ".\"); }");
 
         // deal with get/set method.
         Matcher matcher;
@@ -240,6 +265,7 @@ public abstract class Wrapper {
         cc.addMethod(c1.toString());
         cc.addMethod(c2.toString());
         cc.addMethod(c3.toString());
+        cc.addMethod(c4.toString());
 
         try {
             Class<?> wc = cc.toClass();
@@ -251,7 +277,9 @@ public abstract class Wrapper {
             int ix = 0;
             for (Method m : ms.values())
                 wc.getField("mts" + ix++).set(null, m.getParameterTypes());
-            return (Wrapper) wc.newInstance();
+            Wrapper wrapper = (Wrapper) wc.newInstance();
+            wrapper.setIndexedMethods(ims.toArray(new Method[0]));
+            return wrapper;
         } catch (RuntimeException e) {
             throw e;
         } catch (Throwable e) {
@@ -261,6 +289,7 @@ public abstract class Wrapper {
             ms.clear();
             mns.clear();
             dmns.clear();
+            ims.clear();
         }
     }
 
@@ -421,4 +450,67 @@ public abstract class Wrapper {
      * @return return value.
      */
     abstract public Object invokeMethod(Object instance, String mn, Class<?>[] types, Object[] args) throws NoSuchMethodException, InvocationTargetException;
+
+    /**
+     * invoke method by index, without comparing the method names.
+     *
+     * @param instance instance.
+     * @param index    method index, see {@link #getMethodIndex(String, Class[])}.
+     * @param args     argument array.
+     * @return return value.
+     */
+    public Object invokeMethod(Object instance, int index, Object[] args) throws NoSuchMethodException, InvocationTargetException {
+        throw new NoSuchMethodException("Not found method index " + index + ".");
+    }
+
+    /**
+     * get the index of a method, matched like {@link #invokeMethod(Object, String, Class[], Object[])} does:
+     * by name and parameter count, and by parameter types when the method is overloaded.
+     *
+     * @param mn    method name.
+     * @param types parameter types.
+     * @return method index, or -1 if the method is not found.
+     */
+    public int getMethodIndex(String mn, Class<?>[] types) {
+        int[] indexes = methodIndexes.get(mn);
+        if (indexes == null) {
+            return -1;
+        }
+        int len = types == null ? 0 : types.length;
+        for (int index : indexes) {
+            Class<?>[] pts = indexedParameterTypes[index];
+            if (pts.length != len) {
+                continue;
+            }
+            if (indexes.length == 1) {
+                return index;
+            }
+            boolean match = true;
+            for (int i = 0; i < len && match; i++) {
+                match = pts[i].getName().equals(types[i].getName());
+            }
+            if (match) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private void setIndexedMethods(Method[] methods) {
+        Map<String, int[]> indexes = new HashMap<String, int[]>();
+        Class<?>[][] types = new Class<?>[methods.length][];
+        for (int i = 0; i < methods.length; i++) {
+            int[] old = indexes.get(methods[i].getName());
+            if (old == null) {
+                old = NO_INDEX;
+            }
+            int[] current = new int[old.length + 1];
+            System.arraycopy(old, 0, current, 0, old.length);
+            current[old.length] = i;
+            indexes.put(methods[i].getName(), current);
+            types[i] = methods[i].getParameterTypes();
+        }
+        this.indexedParameterTypes = types;
+        this.methodIndexes = indexes;
+    }
 }
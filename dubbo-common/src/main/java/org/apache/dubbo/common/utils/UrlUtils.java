@@ -32,6 +32,53 @@ public class UrlUtils {
      */
     private final static String URL_PARAM_STARTING_SYMBOL = "?";
 
+    /**
+     * max size of the parsed url caches, registries notify the same provider urls again and again
+     */
+    private final static int URL_CACHE_SIZE = Integer.getInteger("dubbo.url.cache.size", 10000);
+
+    /**
+     * raw url string -> parsed url
+     */
+    private final static LRUCache<String, URL> PARSED_URL_CACHE = new LRUCache<String, URL>(URL_CACHE_SIZE);
+
+    /**
+     * url encoded url string (e.g. zookeeper child node) -> parsed url
+     */
+    private final static LRUCache<String, URL> DECODED_URL_CACHE = new LRUCache<String, URL>(URL_CACHE_SIZE);
+
+    /**
+     * Same as {@link URL#valueOf(String)}, but the parsed instance is cached by the url string.
+     * URL is immutable so the cached instance is shared between notifications.
+     */
+    public static URL valueOfCached(String url) {
+        URL parsed = PARSED_URL_CACHE.get(url);
+        if (parsed == null) {
+            parsed = URL.valueOf(url);
+            PARSED_URL_CACHE.put(url, parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * Decode and parse an url encoded full url string, the parsed instance is cached by the encoded string.
+     *
+     * @param encoded url encoded url string, e.g. zookeeper child node name
+     * @return parsed url, or null if the decoded string is not an url with protocol
+     */
+    public static URL decodeAndValueOfCached(String encoded) {
+        URL parsed = DECODED_URL_CACHE.get(encoded);
+        if (parsed == null) {
+            String decoded = URL.decode(encoded);
+            if (!decoded.contains(Constants.PROTOCOL_SEPARATOR)) {
+                return null;
+            }
+            parsed = URL.valueOf(decoded);
+            DECODED_URL_CACHE.put(encoded, parsed);
+        }
+        return parsed;
+    }
+
     public static URL parseURL(String address, Map<String, String> defaults) {
         if (address == null || address.length() == 0) {
             return null;
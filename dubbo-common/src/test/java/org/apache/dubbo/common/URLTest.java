@@ -680,4 +680,37 @@ public class URLTest {
         assertEquals("1.0.0", url.getParameter("version"));
         assertEquals("morgan", url.getParameter("application"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testEncodeAndDecodeSameAsJdk() throws Exception {
+        String[] values = new String[]{"org.apache.dubbo.demo.DemoService", "a b+c", "dubbo://10.20.130.230:20880/path?a=1&b=2",
+                "~!@#$%^&*()_+`-={}|[]\\:\";'<>?,./", "\u4e2d\u6587 chinese", "\ud83d\ude00"};
+        for (String value : values) {
+            String encoded = java.net.URLEncoder.encode(value, "UTF-8");
+            assertEquals(encoded, URL.encode(value));
+            assertEquals(value, URL.decode(encoded));
+            assertEquals(java.net.URLDecoder.decode(encoded, "UTF-8"), URL.decode(encoded));
+        }
+        String unescaped = "org.apache.dubbo.demo.DemoService";
+        assertSame(unescaped, URL.encode(unescaped));
+        assertSame(unescaped, URL.decode(unescaped));
+        assertEquals("", URL.encode(null));
+        assertEquals("", URL.decode(null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeIncompleteEscape() throws Exception {
+        URL.decode("abc%2");
+    }
+
+    @Test
+    public void testValueOfParameters() throws Exception {
+        URL url = URL.valueOf("dubbo://1.2.3.4:20880/path?&a=1& b = 2 &&c&d==&e=x=y&");
+        assertEquals(5, url.getParameters().size());
+        assertEquals("1", url.getParameter("a"));
+        assertEquals(" 2", url.getParameter("b "));
+        assertEquals("c", url.getParameter("c"));
+        assertEquals("=", url.getParameter("d"));
+        assertEquals("x=y", url.getParameter("e"));
+    }
+}
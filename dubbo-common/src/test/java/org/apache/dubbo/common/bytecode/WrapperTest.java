@@ -19,6 +19,8 @@ package org.apache.dubbo.common.bytecode;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.lang.reflect.InvocationTargetException;
+
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
@@ -107,6 +109,45 @@ public class WrapperTest {
         w.invokeMethod(new Object(), "__XX__", null, null);
     }
 
+    @Test
+    public void testInvokeMethodByIndex() throws Exception {
+        Wrapper w = Wrapper.getWrapper(I1.class);
+        Object obj = new Impl1();
+        int index = w.getMethodIndex("showInt", new Class<?>[]{int.class});
+        Assert.assertTrue(index >= 0);
+        assertEquals(3, w.invokeMethod(obj, index, new Object[]{3}));
+        assertEquals(null, w.invokeMethod(obj, w.getMethodIndex("setName", new Class<?>[]{String.class}), new Object[]{"changed"}));
+        assertEquals("changed", w.invokeMethod(obj, w.getMethodIndex("getName", new Class<?>[0]), new Object[0]));
+        assertEquals(-1, w.getMethodIndex("hello", new Class<?>[]{String.class, String.class}));
+        assertEquals(-1, w.getMethodIndex("__XX__", null));
+    }
+
+    @Test
+    public void testInvokeOverloadedMethodByIndex() throws Exception {
+        Wrapper w = Wrapper.getWrapper(Overloaded.class);
+        Object obj = new OverloadedImpl();
+        assertEquals("string", w.invokeMethod(obj, w.getMethodIndex("say", new Class<?>[]{String.class}), new Object[]{"a"}));
+        assertEquals("int", w.invokeMethod(obj, w.getMethodIndex("say", new Class<?>[]{int.class}), new Object[]{1}));
+        assertEquals("none", w.invokeMethod(obj, w.getMethodIndex("say", null), null));
+        assertEquals(-1, w.getMethodIndex("say", new Class<?>[]{long.class}));
+    }
+
+    @Test
+    public void testInvokeMethodByIndexThrows() throws Exception {
+        Wrapper w = Wrapper.getWrapper(Overloaded.class);
+        try {
+            w.invokeMethod(new OverloadedImpl(), w.getMethodIndex("fail", null), null);
+            fail();
+        } catch (InvocationTargetException expected) {
+            Assert.assertTrue(expected.getTargetException() instanceof IllegalStateException);
+        }
+        try {
+            w.invokeMethod(new OverloadedImpl(), 100, null);
+            fail();
+        } catch (NoSuchMethodException expected) {
+        }
+    }
+
     /**
      * see http://code.alibabatech.com/jira/browse/DUBBO-571
      */
@@ -193,4 +234,32 @@ public class WrapperTest {
 
     public static class EmptyServiceImpl implements EmptyService {
     }
+
+    public static interface Overloaded {
+        String say(String s);
+
+        String say(int i);
+
+        String say();
+
+        void fail();
+    }
+
+    public static class OverloadedImpl implements Overloaded {
+        public String say(String s) {
+            return "string";
+        }
+
+        public String say(int i) {
+            return "int";
+        }
+
+        public String say() {
+            return "none";
+        }
+
+        public void fail() {
+            throw new IllegalStateException();
+        }
+    }
 }
\ No newline at end of file
@@ -361,4 +361,18 @@ public class UrlUtilsTest {
         assertTrue(UrlUtils.isMatchGlobPattern("v*e", "value"));
         assertTrue(UrlUtils.isMatchGlobPattern("$key", "value", URL.valueOf("dubbo://localhost:8080/Foo?key=v*e")));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDecodeAndValueOfCached() {
+        URL provider = URL.valueOf("dubbo://10.20.153.10:20880/org.apache.dubbo.demo.DemoService?anyhost=true&application=demo&interface=org.apache.dubbo.demo.DemoService&methods=sayHello&side=provider");
+        String encoded = URL.encode(provider.toFullString());
+        URL parsed = UrlUtils.decodeAndValueOfCached(encoded);
+        assertEquals(provider, parsed);
+        assertTrue(parsed == UrlUtils.decodeAndValueOfCached(encoded));
+        assertNull(UrlUtils.decodeAndValueOfCached("not-an-url"));
+
+        URL raw = UrlUtils.valueOfCached(provider.toFullString());
+        assertEquals(provider, raw);
+        assertTrue(raw == UrlUtils.valueOfCached(provider.toFullString()));
+    }
+}
@@ -16,6 +16,7 @@
  */
 package org.apache.dubbo.config;
 
+import org.apache.dubbo.cache.CacheFactory;
 import org.apache.dubbo.common.extension.ExtensionLoader;
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
@@ -59,7 +60,7 @@ public class DubboShutdownHook extends Thread {
     }
 
     /**
-     * Destroy all the resources, including registries and protocols.
+     * Destroy all the resources, including registries, protocols and result caches.
      */
     public void destroyAll() {
         if (!destroyed.compareAndSet(false, true)) {
@@ -69,6 +70,8 @@ public class DubboShutdownHook extends Thread {
         AbstractRegistryFactory.destroyAll();
         // destroy all the protocols
         destroyProtocols();
+        // destroy all the result caches
+        destroyCaches();
     }
 
     /**
@@ -88,4 +91,21 @@ public class DubboShutdownHook extends Thread {
         }
     }
 
+    /**
+     * Destroy the caches of all the cache factories, releasing the memory kept outside of the heap.
+     */
+    private void destroyCaches() {
+        ExtensionLoader<CacheFactory> loader = ExtensionLoader.getExtensionLoader(CacheFactory.class);
+        for (String cacheName : loader.getLoadedExtensions()) {
+            try {
+                CacheFactory cacheFactory = loader.getLoadedExtension(cacheName);
+                if (cacheFactory != null) {
+                    cacheFactory.destroy();
+                }
+            } catch (Throwable t) {
+                logger.warn(t.getMessage(), t);
+            }
+        }
+    }
+
 }
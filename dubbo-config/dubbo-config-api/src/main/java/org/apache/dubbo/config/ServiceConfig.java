@@ -52,6 +52,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -75,7 +77,7 @@ public class ServiceConfig<T> extends AbstractServiceConfig {
 
     private static final ProxyFactory proxyFactory = ExtensionLoader.getExtensionLoader(ProxyFactory.class).getAdaptiveExtension();
 
-    private static final Map<String, Integer> RANDOM_PORT_MAP = new HashMap<String, Integer>();
+    private static final ConcurrentMap<String, Integer> RANDOM_PORT_MAP = new ConcurrentHashMap<String, Integer>();
 
     private static final ScheduledExecutorService delayExportExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("DubboServiceDelayExporter", true));
     private final List<URL> urls = new ArrayList<URL>();
@@ -174,17 +176,17 @@ public class ServiceConfig<T> extends AbstractServiceConfig {
 
     private static Integer getRandomPort(String protocol) {
         protocol = protocol.toLowerCase();
-        if (RANDOM_PORT_MAP.containsKey(protocol)) {
-            return RANDOM_PORT_MAP.get(protocol);
-        }
-        return Integer.MIN_VALUE;
+        Integer port = RANDOM_PORT_MAP.get(protocol);
+        return port != null ? port : Integer.MIN_VALUE;
     }
 
-    private static void putRandomPort(String protocol, Integer port) {
+    /**
+     * @return the random port bound to the protocol, which may be the one put by a concurrent export
+     */
+    private static Integer putRandomPort(String protocol, Integer port) {
         protocol = protocol.toLowerCase();
-        if (!RANDOM_PORT_MAP.containsKey(protocol)) {
-            RANDOM_PORT_MAP.put(protocol, port);
-        }
+        Integer previous = RANDOM_PORT_MAP.putIfAbsent(protocol, port);
+        return previous != null ? previous : port;
     }
 
     public URL toUrl() {
@@ -734,8 +736,7 @@ public class ServiceConfig<T> extends AbstractServiceConfig {
             if (portToBind == null || portToBind <= 0) {
                 portToBind = getRandomPort(name);
                 if (portToBind == null || portToBind < 0) {
-                    portToBind = getAvailablePort(defaultPort);
-                    putRandomPort(name, portToBind);
+                    portToBind = putRandomPort(name, getAvailablePort(defaultPort));
                 }
                 logger.warn("Use random available port(" + portToBind + ") for protocol " + name);
             }
@@ -25,4 +25,10 @@ public interface Cache {
 
     Object get(Object key);
 
+    /**
+     * Release the resources held by the cache, it is not used any more afterwards.
+     */
+    default void destroy() {
+    }
+
 }
@@ -30,4 +30,10 @@ public interface CacheFactory {
     @Adaptive("cache")
     Cache getCache(URL url, Invocation invocation);
 
+    /**
+     * Destroy the caches created so far.
+     */
+    default void destroy() {
+    }
+
 }
@@ -23,16 +23,19 @@ import org.apache.dubbo.cache.CacheFactory;
 import org.apache.dubbo.common.Constants;
 import org.apache.dubbo.common.extension.Activate;
 import org.apache.dubbo.common.utils.ConfigUtils;
-import org.apache.dubbo.common.utils.StringUtils;
 import org.apache.dubbo.rpc.Filter;
 import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.Result;
 import org.apache.dubbo.rpc.RpcException;
 import org.apache.dubbo.rpc.RpcResult;
+import org.apache.dubbo.rpc.support.CacheKey;
 
 /**
  * CacheFilter
+ * <p>
+ * The arguments of the invocation make the key of the cached result, copied into a {@link CacheKey} when invoked,
+ * so changing them afterwards does not affect the cached entry.
  */
 @Activate(group = {Constants.CONSUMER, Constants.PROVIDER}, value = Constants.CACHE_KEY)
 public class CacheFilter implements Filter {
@@ -48,7 +51,7 @@ public class CacheFilter implements Filter {
         if (cacheFactory != null && ConfigUtils.isNotEmpty(invoker.getUrl().getMethodParameter(invocation.getMethodName(), Constants.CACHE_KEY))) {
             Cache cache = cacheFactory.getCache(invoker.getUrl(), invocation);
             if (cache != null) {
-                String key = StringUtils.toArgumentString(invocation.getArguments());
+                CacheKey key = new CacheKey(invocation.getArguments());
                 Object value = cache.get(key);
                 if (value != null) {
                     if (value instanceof ValueWrapper) {
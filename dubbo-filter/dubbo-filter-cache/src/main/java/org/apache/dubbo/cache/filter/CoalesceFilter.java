@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.cache.filter;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcResult;
+import org.apache.dubbo.rpc.SimpleAsyncRpcResult;
+import org.apache.dubbo.rpc.support.CacheKey;
+import org.apache.dubbo.rpc.support.RpcUtils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * CoalesceFilter collapses identical invocations that are in flight at the same time into one remote call.
+ * <p>
+ * The first invocation of a method with some arguments goes on down the chain, the ones arriving with equal
+ * arguments before it completes wait for its result instead. Each of them gets its own result with its own
+ * attachments, but the value is the very same object, which callers must therefore not modify. Arguments
+ * are compared with {@link CacheKey}. The attachments of the invocation and of the {@link RpcContext}, such as
+ * tenant, authentication or routing tag, must be equal too; an attachment that changes with every call, like a
+ * trace id, thus prevents any collapsing. Invocations of the same service are collapsed whichever provider they
+ * were routed to, so it must only be enabled on idempotent methods, e.g.
+ * <pre>
+ *     &lt;dubbo:method name="getConfig"&gt;
+ *         &lt;dubbo:parameter key="coalesce" value="true"/&gt;
+ *     &lt;/dubbo:method&gt;
+ * </pre>
+ * It runs inside {@link CacheFilter}, so only cache misses are collapsed. Async invocations wait on the result
+ * future of the call in flight without blocking, one way and stream invocations are never collapsed.
+ */
+@Activate(group = Constants.CONSUMER, value = Constants.COALESCE_KEY, order = 1)
+public class CoalesceFilter implements Filter {
+
+    private final ConcurrentMap<FlightKey, CompletableFuture<Result>> flights = new ConcurrentHashMap<FlightKey, CompletableFuture<Result>>();
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        URL url = invoker.getUrl();
+        String methodName = invocation.getMethodName();
+        if (!url.getMethodParameter(methodName, Constants.COALESCE_KEY, false)
+                || RpcUtils.isOneway(url, invocation)
+                || url.getMethodParameter(methodName, Constants.STREAM_KEY, false)) {
+            return invoker.invoke(invocation);
+        }
+
+        FlightKey key = new FlightKey(url.getServiceKey(), methodName, invocation.getParameterTypes(),
+                new CacheKey(invocation.getArguments()), getAttachments(invocation));
+        CompletableFuture<Result> flight = new CompletableFuture<Result>();
+        CompletableFuture<Result> current = flights.putIfAbsent(key, flight);
+        if (current != null) {
+            return follow(current, url, invocation);
+        }
+
+        Result result;
+        try {
+            result = invoker.invoke(invocation);
+        } catch (RuntimeException e) {
+            land(key, flight, null, e);
+            throw e;
+        }
+        if (result instanceof AsyncRpcResult) {
+            ((AsyncRpcResult) result).getResultFuture().whenComplete((r, t) -> land(key, flight, r, t));
+        } else {
+            land(key, flight, result, null);
+        }
+        return result;
+    }
+
+    int getFlightCount() {
+        return flights.size();
+    }
+
+    private void land(FlightKey key, CompletableFuture<Result> flight, Result result, Throwable t) {
+        // removed first, so that invocations arriving from now on start a new flight instead of sharing a result
+        // which may be already outdated for them
+        flights.remove(key, flight);
+        if (t != null) {
+            flight.completeExceptionally(t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+        } else {
+            flight.complete(result);
+        }
+    }
+
+    private Result follow(CompletableFuture<Result> flight, URL url, Invocation invocation) {
+        if (RpcUtils.isAsync(url, invocation)) {
+            CompletableFuture<Object> valueFuture = new CompletableFuture<Object>();
+            CompletableFuture<Result> resultFuture = new CompletableFuture<Result>();
+            flight.whenComplete((r, t) -> {
+                if (t != null) {
+                    valueFuture.completeExceptionally(t);
+                    resultFuture.complete(new RpcResult(t));
+                    return;
+                }
+                Result copy = copyOf(r);
+                if (copy.hasException()) {
+                    valueFuture.completeExceptionally(copy.getException());
+                } else {
+                    valueFuture.complete(copy.getValue());
+                }
+                resultFuture.complete(copy);
+            });
+            RpcContext.getContext().setFuture(valueFuture);
+            if (RpcUtils.isGeneratedFuture(invocation) || RpcUtils.isFutureReturnType(invocation)) {
+                return new AsyncRpcResult(valueFuture, resultFuture, false);
+            }
+            return new SimpleAsyncRpcResult(valueFuture, resultFuture, false);
+        }
+
+        RpcContext.getContext().setFuture(null);
+        String methodName = invocation.getMethodName();
+        int timeout = url.getMethodParameter(methodName, Constants.TIMEOUT_KEY, Constants.DEFAULT_TIMEOUT);
+        try {
+            return copyOf(flight.get(timeout, TimeUnit.MILLISECONDS));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RpcException) {
+                throw (RpcException) cause;
+            }
+            throw new RpcException("Failed to invoke coalesced method " + methodName + ", cause: " + cause.getMessage(), cause);
+        } catch (TimeoutException e) {
+            throw new RpcException(RpcException.TIMEOUT_EXCEPTION, "Waiting for coalesced method " + methodName + " timeout, timeout: " + timeout + "ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RpcException("Interrupted while waiting for coalesced method " + methodName, e);
+        }
+    }
+
+    // the attachments the invocation is going to carry, the context ones win as in AbstractInvoker
+    private static Map<String, String> getAttachments(Invocation invocation) {
+        Map<String, String> attachments = new HashMap<String, String>();
+        if (invocation.getAttachments() != null) {
+            attachments.putAll(invocation.getAttachments());
+        }
+        Map<String, String> contextAttachments = RpcContext.getContext().getAttachments();
+        if (contextAttachments != null) {
+            attachments.putAll(contextAttachments);
+        }
+        return attachments;
+    }
+
+    // a result of its own for each follower, the value is shared
+    private static Result copyOf(Result result) {
+        RpcResult copy = new RpcResult();
+        copy.setValue(result.getValue());
+        copy.setException(result.getException());
+        copy.setAttachments(new HashMap<String, String>(result.getAttachments()));
+        return copy;
+    }
+
+    static final class FlightKey {
+
+        private final String serviceKey;
+
+        private final String methodName;
+
+        private final Class<?>[] parameterTypes;
+
+        private final CacheKey arguments;
+
+        private final Map<String, String> attachments;
+
+        private final int hash;
+
+        FlightKey(String serviceKey, String methodName, Class<?>[] parameterTypes, CacheKey arguments,
+                  Map<String, String> attachments) {
+            this.serviceKey = serviceKey;
+            this.methodName = methodName;
+            this.parameterTypes = parameterTypes;
+            this.arguments = arguments;
+            this.attachments = attachments;
+            int h = serviceKey == null ? 0 : serviceKey.hashCode();
+            h = 31 * h + (methodName == null ? 0 : methodName.hashCode());
+            h = 31 * h + Arrays.hashCode(parameterTypes);
+            h = 31 * h + attachments.hashCode();
+            this.hash = 31 * h + arguments.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof FlightKey)) {
+                return false;
+            }
+            FlightKey other = (FlightKey) obj;
+            return hash == other.hash
+                    && (serviceKey == null ? other.serviceKey == null : serviceKey.equals(other.serviceKey))
+                    && (methodName == null ? other.methodName == null : methodName.equals(other.methodName))
+                    && Arrays.equals(parameterTypes, other.parameterTypes)
+                    && attachments.equals(other.attachments)
+                    && arguments.equals(other.arguments);
+        }
+    }
+}
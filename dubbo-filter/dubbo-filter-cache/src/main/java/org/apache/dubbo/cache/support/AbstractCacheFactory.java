@@ -44,6 +44,16 @@ public abstract class AbstractCacheFactory implements CacheFactory {
         return cache;
     }
 
+    @Override
+    public void destroy() {
+        for (String key : caches.keySet()) {
+            Cache cache = caches.remove(key);
+            if (cache != null) {
+                cache.destroy();
+            }
+        }
+    }
+
     protected abstract Cache createCache(URL url);
 
 }
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.cache.support;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.metrics.Gauge;
+import org.apache.dubbo.metrics.MetricManager;
+import org.apache.dubbo.metrics.MetricName;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Publish the counts of a cache as the gauges <code>dubbo.cache.hit</code>, <code>dubbo.cache.miss</code> and
+ * <code>dubbo.cache.eviction</code>, tagged with the service and method of the cache url.
+ */
+public final class CacheMetrics {
+
+    private CacheMetrics() {
+    }
+
+    public static void register(URL url, LongAdder hits, LongAdder misses, LongAdder evictions) {
+        MetricName name = new MetricName("dubbo.cache")
+                .tag("service", String.valueOf(url.getServiceKey()))
+                .tag("method", url.getParameter(Constants.METHOD_KEY, ""));
+        MetricManager.register(Constants.METRICS_GROUP, name.resolve("hit"), new CountGauge(hits));
+        MetricManager.register(Constants.METRICS_GROUP, name.resolve("miss"), new CountGauge(misses));
+        MetricManager.register(Constants.METRICS_GROUP, name.resolve("eviction"), new CountGauge(evictions));
+    }
+
+    private static final class CountGauge implements Gauge<Long> {
+
+        private final LongAdder count;
+
+        CountGauge(LongAdder count) {
+            this.count = count;
+        }
+
+        @Override
+        public Long getValue() {
+            return count.sum();
+        }
+
+        @Override
+        public long lastUpdateTime() {
+            return System.currentTimeMillis();
+        }
+
+    }
+
+}
@@ -0,0 +1,387 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.cache.support.offheap;
+
+import org.apache.dubbo.cache.Cache;
+import org.apache.dubbo.cache.support.CacheMetrics;
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.io.UnsafeByteArrayInputStream;
+import org.apache.dubbo.common.io.UnsafeByteArrayOutputStream;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.serialize.ObjectOutput;
+import org.apache.dubbo.common.serialize.Serialization;
+import org.apache.dubbo.remoting.transport.CodecSupport;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Cache keeping the values serialized outside of the java heap, so that large results do not stay in the old
+ * generation. Values are written with the serialization configured on the url and only read back on a hit.
+ * <ul>
+ * <li><code>cache.max.bytes</code>: bytes of memory used for the values of the method, default 8MB; every method
+ * cached this way takes its own, so size it explicitly for methods with large or many results</li>
+ * <li><code>cache.segments</code>: number of segments the memory is split into, default 4</li>
+ * <li><code>cache.seconds</code>: time to live of the values, default 180, 0 for no expiration</li>
+ * <li><code>cache.dir</code>: directory of a file to map the segments from, direct memory when not set</li>
+ * </ul>
+ * Values are appended to the current segment, which is replaced once it is full or has been written for its share
+ * of the time to live. The oldest segment is then reused and all its values are dropped at once, so there is no
+ * per entry bookkeeping besides the key index and nothing to scan to expire them.
+ * <p>
+ * The memory, and the file if any, are released when the cache is destroyed.
+ */
+public class OffHeapCache implements Cache {
+
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapCache.class);
+
+    private static final long DEFAULT_MAX_BYTES = 8L * 1024 * 1024;
+
+    private final URL url;
+
+    private final Serialization serialization;
+
+    private final ConcurrentHashMap<Object, Slot> index = new ConcurrentHashMap<Object, Slot>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Segment[] segments;
+
+    private final int segmentBytes;
+
+    private final long ttlNanos;
+
+    private final long windowNanos;
+
+    private final File file;
+
+    private final FileChannel channel;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    // guarded by the write lock
+
+    private int current;
+
+    private long generation;
+
+    private boolean destroyed;
+
+    public OffHeapCache(URL url) {
+        this.url = url;
+        this.serialization = CodecSupport.getSerialization(url);
+        long maxBytes = Math.max(1, url.getParameter("cache.max.bytes", DEFAULT_MAX_BYTES));
+        int count = (int) Math.min(Math.max(1, url.getParameter("cache.segments", 4)), maxBytes);
+        this.segmentBytes = (int) Math.min(Integer.MAX_VALUE, maxBytes / count);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(url.getParameter("cache.seconds", 180L));
+        this.windowNanos = ttlNanos / count;
+        this.file = createFile(url.getParameter("cache.dir"));
+        this.channel = openChannel(file);
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(i);
+        }
+        segments[0].reset(generation, System.nanoTime());
+        CacheMetrics.register(url, hits, misses, evictions);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        byte[] bytes = serialize(value);
+        if (bytes == null || bytes.length > segmentBytes) {
+            // the value previously cached must not be returned after it was replaced
+            index.remove(key);
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (destroyed) {
+                return;
+            }
+            long now = System.nanoTime();
+            Segment segment = segments[current];
+            if (segment.position + bytes.length > segmentBytes || segment.isOlderThan(windowNanos, now)) {
+                segment = rotate(now);
+            }
+            Slot slot = new Slot(key, segment, segment.generation, segment.append(bytes), bytes.length);
+            segment.slots.add(slot);
+            index.put(key, slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object get(Object key) {
+        Slot slot = index.get(key);
+        if (slot == null) {
+            misses.increment();
+            return null;
+        }
+        byte[] bytes = null;
+        lock.readLock().lock();
+        try {
+            Segment segment = slot.segment;
+            if (!destroyed && segment.generation == slot.generation && !segment.isOlderThan(ttlNanos, System.nanoTime())) {
+                bytes = segment.read(slot.offset, slot.length);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Object value = bytes == null ? null : deserialize(bytes);
+        if (value == null) {
+            misses.increment();
+            index.remove(key, slot);
+            return null;
+        }
+        hits.increment();
+        return value;
+    }
+
+    @Override
+    public void destroy() {
+        lock.writeLock().lock();
+        try {
+            if (destroyed) {
+                return;
+            }
+            destroyed = true;
+            index.clear();
+            for (Segment segment : segments) {
+                segment.release();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close cache file " + file.getPath() + ", cause: " + e.getMessage(), e);
+            }
+            if (!file.delete()) {
+                logger.warn("Failed to delete cache file " + file.getPath());
+            }
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    private Segment rotate(long now) {
+        current = (current + 1) % segments.length;
+        Segment segment = segments[current];
+        for (Slot slot : segment.slots) {
+            if (index.remove(slot.key, slot)) {
+                evictions.increment();
+            }
+        }
+        segment.reset(++generation, now);
+        return segment;
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            UnsafeByteArrayOutputStream os = new UnsafeByteArrayOutputStream(256);
+            ObjectOutput out = serialization.serialize(url, os);
+            out.writeObject(value);
+            out.flushBuffer();
+            return os.toByteArray();
+        } catch (Exception e) {
+            logger.warn("Failed to serialize cache value of " + url.getServiceKey() + "." + url.getParameter(Constants.METHOD_KEY)
+                    + " with " + url.getParameter(Constants.SERIALIZATION_KEY, Constants.DEFAULT_REMOTING_SERIALIZATION)
+                    + ", cause: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private Object deserialize(byte[] bytes) {
+        try {
+            return serialization.deserialize(url, new UnsafeByteArrayInputStream(bytes)).readObject();
+        } catch (Exception e) {
+            logger.warn("Failed to deserialize cache value of " + url.getServiceKey() + "." + url.getParameter(Constants.METHOD_KEY)
+                    + ", cause: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static File createFile(String dir) {
+        if (dir == null || dir.length() == 0) {
+            return null;
+        }
+        try {
+            File file = File.createTempFile("dubbo-cache-", ".data", new File(dir));
+            file.deleteOnExit();
+            return file;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to create cache file in " + dir + ", cause: " + e.getMessage(), e);
+        }
+    }
+
+    private static FileChannel openChannel(File file) {
+        if (file == null) {
+            return null;
+        }
+        try {
+            return new RandomAccessFile(file, "rw").getChannel();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to open cache file " + file.getPath() + ", cause: " + e.getMessage(), e);
+        }
+    }
+
+    private ByteBuffer allocate(int index) {
+        if (channel == null) {
+            return ByteBuffer.allocateDirect(segmentBytes);
+        }
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, (long) index * segmentBytes, segmentBytes);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to map cache segment " + index + ", cause: " + e.getMessage(), e);
+        }
+    }
+
+    private static void release(ByteBuffer buffer) {
+        try {
+            // java 9 and later
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            return;
+        } catch (NoSuchMethodException e) {
+            // java 8, see below
+        } catch (Throwable t) {
+            return;
+        }
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (Throwable t) {
+            // left to the garbage collector
+        }
+    }
+
+    private final class Segment {
+
+        private final int index;
+
+        private final List<Slot> slots = new ArrayList<Slot>();
+
+        private ByteBuffer buffer;
+
+        private long generation;
+
+        private long openedAt;
+
+        private int position;
+
+        Segment(int index) {
+            this.index = index;
+        }
+
+        void reset(long generation, long now) {
+            if (buffer == null) {
+                // memory is only taken once a segment is first written
+                buffer = allocate(index);
+            }
+            this.generation = generation;
+            this.openedAt = now;
+            this.position = 0;
+            slots.clear();
+        }
+
+        void release() {
+            if (buffer != null) {
+                OffHeapCache.release(buffer);
+                buffer = null;
+            }
+            slots.clear();
+        }
+
+        boolean isOlderThan(long nanos, long now) {
+            return nanos > 0 && now - openedAt >= nanos;
+        }
+
+        int append(byte[] bytes) {
+            int offset = position;
+            buffer.position(offset);
+            buffer.put(bytes);
+            position += bytes.length;
+            return offset;
+        }
+
+        byte[] read(int offset, int length) {
+            byte[] bytes = new byte[length];
+            ByteBuffer view = buffer.duplicate();
+            view.position(offset);
+            view.get(bytes);
+            return bytes;
+        }
+    }
+
+    private static final class Slot {
+
+        private final Object key;
+
+        private final Segment segment;
+
+        private final long generation;
+
+        private final int offset;
+
+        private final int length;
+
+        Slot(Object key, Segment segment, long generation, int offset, int length) {
+            this.key = key;
+            this.segment = segment;
+            this.generation = generation;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
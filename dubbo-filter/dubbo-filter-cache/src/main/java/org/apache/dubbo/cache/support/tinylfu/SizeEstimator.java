@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.cache.support.tinylfu;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Approximate retained size in bytes of an object graph, assuming a 64-bit jvm with compressed references.
+ * <p>
+ * The graph is walked through reflection, every object counted once, up to {@link #MAX_OBJECTS} objects; the
+ * layout of each class is resolved once. Meant to bound a cache by memory, not to be exact.
+ * <p>
+ * When the graph holds objects whose fields the jvm does not let us read, such as strings, lists and maps of the
+ * jdk on java 16 and later, what they refer to cannot be walked, and the size of the whole graph serialized is
+ * taken instead if it is larger. The values cached are the results of remote calls, serializable therefore; one
+ * that is not is left with the size that could be walked.
+ */
+final class SizeEstimator {
+
+    private static final int OBJECT_HEADER = 12;
+
+    private static final int ARRAY_HEADER = 16;
+
+    private static final int REFERENCE = 4;
+
+    private static final int MAX_OBJECTS = 10000;
+
+    private static final ConcurrentMap<Class<?>, ClassLayout> LAYOUTS = new ConcurrentHashMap<Class<?>, ClassLayout>();
+
+    private SizeEstimator() {
+    }
+
+    static long estimate(Object root) {
+        if (root == null) {
+            return 0;
+        }
+        Map<Object, Object> visited = new IdentityHashMap<Object, Object>();
+        Deque<Object> pending = new ArrayDeque<Object>();
+        pending.push(root);
+        long size = 0;
+        boolean partial = false;
+        while (!pending.isEmpty() && visited.size() < MAX_OBJECTS) {
+            Object value = pending.pop();
+            if (visited.put(value, value) != null) {
+                continue;
+            }
+            Class<?> type = value.getClass();
+            if (type.isArray()) {
+                Class<?> component = type.getComponentType();
+                int length = Array.getLength(value);
+                if (component.isPrimitive()) {
+                    size += align(ARRAY_HEADER + (long) length * primitiveSize(component));
+                } else {
+                    size += align(ARRAY_HEADER + (long) length * REFERENCE);
+                    for (Object element : (Object[]) value) {
+                        if (element != null) {
+                            pending.push(element);
+                        }
+                    }
+                }
+                continue;
+            }
+            ClassLayout layout = getLayout(type);
+            size += layout.shallowSize;
+            partial |= layout.partial;
+            for (Field field : layout.references) {
+                Object child = get(field, value);
+                if (child != null && !(child instanceof Class)) {
+                    pending.push(child);
+                }
+            }
+        }
+        return partial ? Math.max(size, serializedSize(root)) : size;
+    }
+
+    private static long serializedSize(Object root) {
+        CountingOutputStream counter = new CountingOutputStream();
+        try {
+            ObjectOutputStream out = new ObjectOutputStream(counter);
+            out.writeObject(root);
+            out.flush();
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+        return counter.count;
+    }
+
+    private static ClassLayout getLayout(Class<?> type) {
+        ClassLayout layout = LAYOUTS.get(type);
+        if (layout == null) {
+            LAYOUTS.putIfAbsent(type, new ClassLayout(type));
+            layout = LAYOUTS.get(type);
+        }
+        return layout;
+    }
+
+    private static Object get(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == char.class || type == short.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    private static final class ClassLayout {
+
+        private final long shallowSize;
+
+        private final Field[] references;
+
+        // whether some of the reference fields cannot be read
+        private final boolean partial;
+
+        ClassLayout(Class<?> type) {
+            long size = OBJECT_HEADER;
+            List<Field> fields = new ArrayList<Field>();
+            boolean inaccessible = false;
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    Class<?> fieldType = field.getType();
+                    if (fieldType.isPrimitive()) {
+                        size += primitiveSize(fieldType);
+                        continue;
+                    }
+                    size += REFERENCE;
+                    try {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    } catch (RuntimeException e) {
+                        // not accessible on this jvm
+                        inaccessible = true;
+                    }
+                }
+            }
+            this.shallowSize = align(size);
+            this.references = fields.toArray(new Field[fields.size()]);
+            this.partial = inaccessible;
+        }
+
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+    }
+
+}
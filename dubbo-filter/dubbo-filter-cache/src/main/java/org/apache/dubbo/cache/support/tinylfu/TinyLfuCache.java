@@ -0,0 +1,429 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.cache.support.tinylfu;
+
+import org.apache.dubbo.cache.Cache;
+import org.apache.dubbo.cache.support.CacheMetrics;
+import org.apache.dubbo.common.URL;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent cache evicting with the W-TinyLFU policy: new entries go through a small LRU window, then have to
+ * beat the least recently used entry of the main segmented LRU on the frequency estimated by a
+ * {@link FrequencySketch} to be kept.
+ * <ul>
+ * <li><code>cache.size</code>: expected number of entries, the bound when there is no byte bound, default 1000</li>
+ * <li><code>cache.max.bytes</code>: bound on the approximate retained size of the values</li>
+ * <li><code>cache.seconds</code>: time to live of each entry from its write, no expiration by default</li>
+ * </ul>
+ * Entries live in a {@link ConcurrentHashMap}, reads never block: they are recorded into lossy striped buffers and
+ * writes into a queue, both replayed against the policy by whichever thread gets its lock, never waiting for it.
+ */
+public class TinyLfuCache implements Cache {
+
+    private static final int WINDOW = 1;
+
+    private static final int PROBATION = 2;
+
+    private static final int PROTECTED = 3;
+
+    private static final int READ_BUFFER_SIZE = 32;
+
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+
+    private static final int READ_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 2;
+
+    private final ConcurrentHashMap<Object, Node> data = new ConcurrentHashMap<Object, Node>();
+
+    private final ReadBuffer[] readBuffers;
+
+    private final Queue<Node> writeBuffer = new ConcurrentLinkedQueue<Node>();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final boolean weighBytes;
+
+    private final long maximum;
+
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    // the state below is guarded by the eviction lock
+
+    private final FrequencySketch sketch;
+
+    private final AccessOrder window = new AccessOrder();
+
+    private final AccessOrder probation = new AccessOrder();
+
+    private final AccessOrder protectedOrder = new AccessOrder();
+
+    private final long windowMaximum;
+
+    private final long protectedMaximum;
+
+    private long windowWeight;
+
+    private long mainWeight;
+
+    private long protectedWeight;
+
+    public TinyLfuCache(URL url) {
+        int size = url.getParameter("cache.size", 1000);
+        long maxBytes = url.getParameter("cache.max.bytes", 0L);
+        this.weighBytes = maxBytes > 0;
+        this.maximum = weighBytes ? maxBytes : Math.max(size, 1);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(url.getParameter("cache.seconds", 0L));
+        this.windowMaximum = Math.max(1, maximum / 100);
+        this.protectedMaximum = (maximum - windowMaximum) * 8 / 10;
+        this.sketch = new FrequencySketch(size);
+        int stripes = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1) << 1;
+        this.readBuffers = new ReadBuffer[stripes];
+        for (int i = 0; i < stripes; i++) {
+            readBuffers[i] = new ReadBuffer();
+        }
+        CacheMetrics.register(url, hits, misses, evictions);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        int weight = weighBytes ? (int) Math.min(Integer.MAX_VALUE, SizeEstimator.estimate(value)) : 1;
+        Node node = new Node(key, value, weight, ttlNanos > 0 ? System.nanoTime() + ttlNanos : 0);
+        Node prior = data.put(key, node);
+        if (prior != null) {
+            prior.retire();
+            writeBuffer.add(prior);
+        }
+        writeBuffer.add(node);
+        drainBuffers();
+    }
+
+    @Override
+    public Object get(Object key) {
+        Node node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        if (node.expireAt != 0 && node.isExpired(System.nanoTime())) {
+            misses.increment();
+            if (data.remove(key, node)) {
+                node.retire();
+                writeBuffer.add(node);
+                drainBuffers();
+            }
+            return null;
+        }
+        hits.increment();
+        ReadBuffer buffer = readBuffers[(int) Thread.currentThread().getId() & (readBuffers.length - 1)];
+        if (buffer.offer(node) >= READ_DRAIN_THRESHOLD) {
+            drainBuffers();
+        }
+        return node.value;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * @return the weight of the entries known to the policy, in bytes when bounded by bytes
+     */
+    public long getWeightedSize() {
+        evictionLock.lock();
+        try {
+            return mainWeight + windowWeight;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Replay the buffered reads and writes if nobody else is, until there are no writes left. The thread holding
+     * the lock checks again after releasing it, so a write buffered meanwhile is never left behind.
+     */
+    void drainBuffers() {
+        do {
+            if (!evictionLock.tryLock()) {
+                return;
+            }
+            try {
+                for (ReadBuffer buffer : readBuffers) {
+                    buffer.drainTo(this);
+                }
+                Node node;
+                while ((node = writeBuffer.poll()) != null) {
+                    onWrite(node);
+                }
+                evict();
+            } finally {
+                evictionLock.unlock();
+            }
+        } while (!writeBuffer.isEmpty());
+    }
+
+    private void onAccess(Node node) {
+        sketch.increment(node.key);
+        if (node.queue == WINDOW) {
+            window.moveToHead(node);
+        } else if (node.queue == PROBATION) {
+            probation.remove(node);
+            protectedOrder.addHead(node);
+            node.queue = PROTECTED;
+            protectedWeight += node.weight;
+            while (protectedWeight > protectedMaximum) {
+                Node demoted = protectedOrder.tail;
+                protectedOrder.remove(demoted);
+                protectedWeight -= demoted.weight;
+                probation.addHead(demoted);
+                demoted.queue = PROBATION;
+            }
+        } else if (node.queue == PROTECTED) {
+            protectedOrder.moveToHead(node);
+        }
+    }
+
+    private void onWrite(Node node) {
+        if (node.isRetired()) {
+            // replaced or removed, possibly before it was ever added
+            unlink(node);
+            return;
+        }
+        if (node.queue != 0) {
+            return;
+        }
+        sketch.increment(node.key);
+        window.addHead(node);
+        node.queue = WINDOW;
+        windowWeight += node.weight;
+    }
+
+    private void evict() {
+        while (windowWeight > windowMaximum) {
+            Node candidate = window.tail;
+            window.remove(candidate);
+            windowWeight -= candidate.weight;
+            candidate.queue = 0;
+            admit(candidate);
+        }
+    }
+
+    /**
+     * Move the candidate leaving the window into the main space, at the expense of the least recently used entries
+     * there as long as it is used more often than them.
+     */
+    private void admit(Node candidate) {
+        long mainMaximum = maximum - windowMaximum;
+        if (candidate.weight > mainMaximum) {
+            evict(candidate);
+            return;
+        }
+        int frequency = -1;
+        while (mainWeight + candidate.weight > mainMaximum) {
+            Node victim = probation.tail != null ? probation.tail : protectedOrder.tail;
+            if (frequency < 0) {
+                frequency = sketch.frequency(candidate.key);
+            }
+            if (frequency > sketch.frequency(victim.key)) {
+                evict(victim);
+            } else {
+                evict(candidate);
+                return;
+            }
+        }
+        probation.addHead(candidate);
+        candidate.queue = PROBATION;
+        mainWeight += candidate.weight;
+    }
+
+    private void evict(Node node) {
+        unlink(node);
+        node.retire();
+        if (data.remove(node.key, node)) {
+            evictions.increment();
+        }
+    }
+
+    private void unlink(Node node) {
+        if (node.queue == WINDOW) {
+            window.remove(node);
+            windowWeight -= node.weight;
+        } else if (node.queue == PROBATION) {
+            probation.remove(node);
+            mainWeight -= node.weight;
+        } else if (node.queue == PROTECTED) {
+            protectedOrder.remove(node);
+            mainWeight -= node.weight;
+            protectedWeight -= node.weight;
+        }
+        node.queue = 0;
+    }
+    static final class Node {
+
+        final Object key;
+
+        final Object value;
+
+        final int weight;
+
+        final long expireAt;
+
+        private volatile boolean retired;
+
+        // guarded by the eviction lock
+        int queue;
+
+        Node prev;
+
+        Node next;
+
+        Node(Object key, Object value, int weight, long expireAt) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expireAt = expireAt;
+        }
+
+        boolean isExpired(long now) {
+            return expireAt != 0 && now - expireAt >= 0;
+        }
+
+        void retire() {
+            retired = true;
+        }
+
+        boolean isRetired() {
+            return retired;
+        }
+
+    }
+
+    /**
+     * Doubly linked list from the most to the least recently used node.
+     */
+    private static final class AccessOrder {
+
+        private Node head;
+
+        private Node tail;
+
+        void addHead(Node node) {
+            node.prev = null;
+            node.next = head;
+            if (head != null) {
+                head.prev = node;
+            } else {
+                tail = node;
+            }
+            head = node;
+        }
+
+        void remove(Node node) {
+            if (node.prev != null) {
+                node.prev.next = node.next;
+            } else {
+                head = node.next;
+            }
+            if (node.next != null) {
+                node.next.prev = node.prev;
+            } else {
+                tail = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+        }
+
+        void moveToHead(Node node) {
+            if (head != node) {
+                remove(node);
+                addHead(node);
+            }
+        }
+
+    }
+
+    /**
+     * Lossy ring of recent reads, written by any thread and drained under the eviction lock. Reads are dropped
+     * when it is full or contended, they only feed the frequency estimates and the recency order.
+     */
+    private static final class ReadBuffer {
+
+        private final AtomicReferenceArray<Node> slots = new AtomicReferenceArray<Node>(READ_BUFFER_SIZE);
+
+        private final AtomicLong writeCounter = new AtomicLong();
+
+        private volatile long readCounter;
+
+        /**
+         * @return the number of reads pending
+         */
+        long offer(Node node) {
+            long write = writeCounter.get();
+            long pending = write - readCounter;
+            if (pending < READ_BUFFER_SIZE && writeCounter.compareAndSet(write, write + 1)) {
+                slots.lazySet((int) write & READ_BUFFER_MASK, node);
+                return pending + 1;
+            }
+            return pending;
+        }
+
+        void drainTo(TinyLfuCache cache) {
+            long read = readCounter;
+            long write = writeCounter.get();
+            for (; read < write; read++) {
+                int index = (int) read & READ_BUFFER_MASK;
+                Node node = slots.get(index);
+                if (node == null) {
+                    // claimed but not written yet
+                    break;
+                }
+                slots.lazySet(index, null);
+                if (!node.isRetired()) {
+                    cache.onAccess(node);
+                }
+            }
+            readCounter = read;
+        }
+
+    }
+
+}
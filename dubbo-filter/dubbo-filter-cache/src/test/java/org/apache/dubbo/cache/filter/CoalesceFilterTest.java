@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.cache.filter;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.RpcResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class CoalesceFilterTest {
+
+    private CoalesceFilter coalesceFilter = new CoalesceFilter();
+
+    private static RpcInvocation invocation(Object argument) {
+        return new RpcInvocation("getConfig", new Class<?>[]{String.class}, new Object[]{argument});
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Invoker<Object> invoker(String query) {
+        Invoker<Object> invoker = mock(Invoker.class);
+        given(invoker.getUrl()).willReturn(URL.valueOf("test://test:11/test?" + query));
+        return invoker;
+    }
+
+    @Test
+    public void testDisabled() {
+        Invoker<Object> invoker = invoker("cache=lru");
+        CompletableFuture<Object> future = new CompletableFuture<Object>();
+        given(invoker.invoke(any(Invocation.class))).willReturn(new AsyncRpcResult(future));
+
+        coalesceFilter.invoke(invoker, invocation("key"));
+        coalesceFilter.invoke(invoker, invocation("key"));
+
+        verify(invoker, times(2)).invoke(any(Invocation.class));
+    }
+
+    @Test
+    public void testAsyncFollowers() throws Exception {
+        Invoker<Object> invoker = invoker("getConfig.coalesce=true&getConfig.async=true");
+        CompletableFuture<Object> future = new CompletableFuture<Object>();
+        given(invoker.invoke(any(Invocation.class))).willReturn(new AsyncRpcResult(future));
+
+        Result leader = coalesceFilter.invoke(invoker, invocation("key"));
+        Result follower = coalesceFilter.invoke(invoker, invocation(new String("key")));
+        Result other = coalesceFilter.invoke(invoker, invocation("other"));
+        verify(invoker, times(2)).invoke(any(Invocation.class));
+        Assert.assertEquals(2, coalesceFilter.getFlightCount());
+        Assert.assertFalse(((AsyncRpcResult) follower).getResultFuture().isDone());
+
+        future.complete("value");
+        Assert.assertEquals("value", leader.getValue());
+        Assert.assertEquals("value", follower.getValue());
+        Assert.assertEquals("value", ((AsyncRpcResult) follower).getValueFuture().get());
+        Assert.assertEquals("value", other.getValue());
+        Assert.assertEquals(0, coalesceFilter.getFlightCount());
+
+        coalesceFilter.invoke(invoker, invocation("key"));
+        verify(invoker, times(3)).invoke(any(Invocation.class));
+    }
+
+    @Test
+    public void testAttachmentsSeparateFlights() {
+        Invoker<Object> invoker = invoker("coalesce=true&async=true");
+        given(invoker.invoke(any(Invocation.class))).willReturn(new AsyncRpcResult(new CompletableFuture<Object>()));
+        try {
+            RpcContext.getContext().setAttachment("tenant", "a");
+            coalesceFilter.invoke(invoker, invocation("key"));
+            RpcContext.getContext().setAttachment("tenant", "b");
+            coalesceFilter.invoke(invoker, invocation("key"));
+            verify(invoker, times(2)).invoke(any(Invocation.class));
+
+            RpcContext.getContext().setAttachment("tenant", "a");
+            RpcInvocation invocation = invocation("key");
+            coalesceFilter.invoke(invoker, invocation);
+            invocation = invocation("key");
+            invocation.setAttachment("tag", "gray");
+            coalesceFilter.invoke(invoker, invocation);
+            verify(invoker, times(3)).invoke(any(Invocation.class));
+            Assert.assertEquals(3, coalesceFilter.getFlightCount());
+        } finally {
+            RpcContext.removeContext();
+        }
+    }
+
+    @Test
+    public void testSyncFollower() throws Exception {
+        Invoker<Object> invoker = invoker("coalesce=true");
+        CompletableFuture<Object> future = new CompletableFuture<Object>();
+        given(invoker.invoke(any(Invocation.class))).willReturn(new AsyncRpcResult(future));
+        coalesceFilter.invoke(invoker, invocation("key"));
+
+        AtomicReference<Result> result = new AtomicReference<Result>();
+        Thread follower = new Thread(() -> result.set(coalesceFilter.invoke(invoker, invocation("key"))));
+        follower.start();
+        while (follower.getState() != Thread.State.TIMED_WAITING && follower.isAlive()) {
+            Thread.sleep(1);
+        }
+        future.complete("value");
+        follower.join();
+
+        verify(invoker, times(1)).invoke(any(Invocation.class));
+        Assert.assertTrue(result.get() instanceof RpcResult);
+        Assert.assertEquals("value", result.get().getValue());
+    }
+
+    @Test
+    public void testFollowerSeesException() throws Exception {
+        Invoker<Object> invoker = invoker("coalesce=true&async=true");
+        CompletableFuture<Object> future = new CompletableFuture<Object>();
+        given(invoker.invoke(any(Invocation.class))).willReturn(new AsyncRpcResult(future));
+        coalesceFilter.invoke(invoker, invocation("key"));
+        Result follower = coalesceFilter.invoke(invoker, invocation("key"));
+
+        future.completeExceptionally(new RpcException("failed"));
+        Assert.assertTrue(follower.hasException());
+        Assert.assertEquals("failed", follower.getException().getMessage());
+        Assert.assertTrue(((AsyncRpcResult) follower).getValueFuture().isCompletedExceptionally());
+    }
+
+    @Test
+    public void testLeaderThrows() {
+        Invoker<Object> invoker = invoker("coalesce=true");
+        AtomicInteger count = new AtomicInteger();
+        given(invoker.invoke(any(Invocation.class))).willAnswer(invocation -> {
+            count.incrementAndGet();
+            throw new RpcException("failed");
+        });
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                coalesceFilter.invoke(invoker, invocation("key"));
+                Assert.fail();
+            } catch (RpcException expected) {
+            }
+        }
+        Assert.assertEquals(2, count.get());
+        Assert.assertEquals(0, coalesceFilter.getFlightCount());
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.cache.support.offheap;
+
+import org.apache.dubbo.common.URL;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class OffHeapCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static OffHeapCache newCache(String parameters) {
+        return new OffHeapCache(URL.valueOf("test://test:11/test?method=sayHello&" + parameters));
+    }
+
+    private static String value(int i) {
+        StringBuilder builder = new StringBuilder();
+        for (int j = 0; j < 100; j++) {
+            builder.append((char) ('a' + j % 26));
+        }
+        return builder.append(i).toString();
+    }
+
+    @Test
+    public void testGetDeserializesValue() {
+        OffHeapCache cache = newCache("cache=offheap");
+        Map<String, Object> value = new HashMap<String, Object>();
+        value.put("name", "dubbo");
+        value.put("port", 20880);
+        cache.put("key", value);
+
+        Object cached = cache.get("key");
+        assertThat(cached, equalTo((Object) value));
+        assertThat(cached, not(sameInstance((Object) value)));
+        assertThat(cache.get("none"), nullValue());
+        assertThat(cache.getHitCount(), equalTo(1L));
+        assertThat(cache.getMissCount(), equalTo(1L));
+
+        cache.put("key", "replaced");
+        assertThat(cache.get("key"), equalTo((Object) "replaced"));
+    }
+
+    @Test
+    public void testOldestSegmentIsDropped() {
+        OffHeapCache cache = newCache("cache.max.bytes=1024&cache.segments=2");
+        for (int i = 0; i < 20; i++) {
+            cache.put(i, value(i));
+        }
+        assertThat(cache.get(0), nullValue());
+        assertThat(cache.get(19), equalTo((Object) value(19)));
+        assertThat(cache.getEvictionCount() > 0, equalTo(true));
+    }
+
+    @Test
+    public void testValueLargerThanSegment() {
+        OffHeapCache cache = newCache("cache.max.bytes=256&cache.segments=2");
+        cache.put("key", "small");
+        assertThat(cache.get("key"), equalTo((Object) "small"));
+
+        cache.put("key", value(0) + value(1));
+        assertThat(cache.get("key"), nullValue());
+    }
+
+    @Test
+    public void testNotSerializable() {
+        OffHeapCache cache = newCache("serialization=hessian2");
+        cache.put("key", new Object());
+        assertThat(cache.get("key"), nullValue());
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        OffHeapCache cache = newCache("cache.seconds=1");
+        cache.put("key", "value");
+        assertThat(cache.get("key"), equalTo((Object) "value"));
+
+        Thread.sleep(1100);
+        assertThat(cache.get("key"), nullValue());
+        cache.put("key", "value");
+        assertThat(cache.get("key"), equalTo((Object) "value"));
+    }
+
+    @Test
+    public void testMappedSegments() throws Exception {
+        OffHeapCache cache = newCache("cache.max.bytes=1024&cache.segments=2&cache.dir=" + folder.getRoot().getAbsolutePath());
+        for (int i = 0; i < 20; i++) {
+            cache.put(i, value(i));
+        }
+        assertThat(cache.get(19), equalTo((Object) value(19)));
+        assertThat(folder.getRoot().list().length, equalTo(1));
+    }
+
+    @Test
+    public void testDestroy() throws Exception {
+        OffHeapCache cache = newCache("cache.max.bytes=1024&cache.segments=2&cache.dir=" + folder.getRoot().getAbsolutePath());
+        cache.put("key", value(1));
+        cache.destroy();
+
+        assertThat(cache.get("key"), nullValue());
+        cache.put("key", value(1));
+        assertThat(cache.get("key"), nullValue());
+        assertThat(folder.getRoot().list().length, equalTo(0));
+        cache.destroy();
+    }
+}
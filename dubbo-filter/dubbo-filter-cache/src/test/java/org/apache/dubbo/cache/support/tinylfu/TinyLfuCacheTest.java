@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.cache.support.tinylfu;
+
+import org.apache.dubbo.common.URL;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.ReflectPermission;
+import java.security.Permission;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class TinyLfuCacheTest {
+
+    @Test
+    public void testPutAndGet() throws Exception {
+        TinyLfuCache cache = new TinyLfuCache(URL.valueOf("test://test:11/test?cache=tinylfu"));
+        cache.put("a", "1");
+        cache.put("a", "2");
+        assertThat(cache.get("a"), equalTo((Object) "2"));
+        assertThat(cache.get("b"), nullValue());
+        assertThat(cache.getHitCount(), equalTo(1L));
+        assertThat(cache.getMissCount(), equalTo(1L));
+        assertThat(cache.size(), equalTo(1));
+        assertThat(cache.getWeightedSize(), equalTo(1L));
+    }
+
+    @Test
+    public void testFrequentEntriesSurviveScan() throws Exception {
+        TinyLfuCache cache = new TinyLfuCache(URL.valueOf("test://test:11/test?cache=tinylfu&cache.size=100"));
+        for (int i = 0; i < 50; i++) {
+            cache.put("hot" + i, i);
+        }
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 50; i++) {
+                cache.get("hot" + i);
+            }
+            cache.drainBuffers();
+        }
+        // a one-off scan much larger than the cache, an lru would lose every hot entry
+        for (int i = 0; i < 10000; i++) {
+            cache.put("cold" + i, i);
+        }
+        int hot = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.get("hot" + i) != null) {
+                hot++;
+            }
+        }
+        assertThat(hot, greaterThan(45));
+        assertThat(cache.size(), lessThanOrEqualTo(100));
+        assertThat(cache.getEvictionCount(), greaterThan(9000L));
+    }
+
+    @Test
+    public void testBytesBound() throws Exception {
+        TinyLfuCache cache = new TinyLfuCache(URL.valueOf("test://test:11/test?cache=tinylfu&cache.max.bytes=100000"));
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, new byte[1000]);
+        }
+        assertThat(cache.getWeightedSize(), lessThanOrEqualTo(100000L));
+        assertThat(cache.size(), lessThanOrEqualTo(100));
+        // larger than the whole cache
+        cache.put("huge", new byte[200000]);
+        assertThat(cache.get("huge"), nullValue());
+    }
+
+    @Test
+    public void testBytesBoundWithInaccessibleFields() throws Exception {
+        // serialization is not subject to the module system, resolve it before access is denied
+        new ObjectOutputStream(new ByteArrayOutputStream()).writeObject(new Sealed(new byte[0]));
+        // deny reflective access the way the module system does for the jdk classes on java 16 and later
+        try {
+            System.setSecurityManager(new SecurityManager() {
+                @Override
+                public void checkPermission(Permission perm) {
+                    if (perm instanceof ReflectPermission && "suppressAccessChecks".equals(perm.getName())) {
+                        throw new SecurityException(perm.getName());
+                    }
+                }
+            });
+        } catch (UnsupportedOperationException e) {
+            Assume.assumeNoException(e);
+        }
+        try {
+            SizeEstimator.estimate(new Sealed(new byte[0]));
+        } finally {
+            System.setSecurityManager(null);
+        }
+        // the layout is resolved without the bytes referred to, the serialized size accounts for them
+        TinyLfuCache cache = new TinyLfuCache(URL.valueOf("test://test:11/test?cache=tinylfu&cache.max.bytes=100000"));
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, new Sealed(new byte[1000]));
+        }
+        assertThat(cache.getWeightedSize(), lessThanOrEqualTo(100000L));
+        assertThat(cache.size(), lessThanOrEqualTo(100));
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+        TinyLfuCache cache = new TinyLfuCache(URL.valueOf("test://test:11/test?cache=tinylfu&cache.seconds=1"));
+        cache.put("a", "1");
+        assertThat(cache.get("a"), equalTo((Object) "1"));
+        Thread.sleep(1100);
+        assertThat(cache.get("a"), nullValue());
+        assertThat(cache.size(), equalTo(0));
+        assertThat(cache.getWeightedSize(), equalTo(0L));
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final TinyLfuCache cache = new TinyLfuCache(URL.valueOf("test://test:11/test?cache=tinylfu&cache.size=64"));
+        int threads = 8;
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        for (int t = 0; t < threads; t++) {
+            final int seed = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 20000; i++) {
+                            Integer key = (i * 31 + seed) % 200;
+                            if (cache.get(key) == null) {
+                                cache.put(key, key);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.set(e);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        done.await();
+        assertThat(failure.get(), nullValue());
+        cache.drainBuffers();
+        assertThat(cache.size(), lessThanOrEqualTo(64));
+        assertThat(cache.getWeightedSize(), equalTo((long) cache.size()));
+    }
+
+    static class Sealed implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] bytes;
+
+        Sealed(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+    }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.metrics;
+
+/**
+ * An interface for metric types which record the distribution of their values, such as response times.
+ */
+public interface Sampling {
+
+    /**
+     * @return how many values have been recorded
+     */
+    long getCount();
+
+    /**
+     * @return the sum of the recorded values
+     */
+    long getSum();
+
+    /**
+     * @return the largest recorded value
+     */
+    long getMax();
+
+    /**
+     * @param percentile between 0 and 100
+     * @return the value below or at which the given percentage of the recorded values fall
+     */
+    long getValueAtPercentile(double percentile);
+
+    /**
+     * @param value the upper bound
+     * @return how many recorded values are less than or equal to the given value
+     */
+    long getCountAtOrBelow(long value);
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.metrics.support;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed ring of time buckets, each slot holds the start time of its bucket and the value added during it.
+ * <p>
+ * Adding is one array read plus one atomic add and never allocates. A slot is recycled by the first
+ * writer that sees it still holding an older bucket, updates racing with that recycling may be lost,
+ * which is accepted for statistics.
+ */
+class BucketRing {
+
+    private final long intervalMillis;
+
+    private final int length;
+
+    private final AtomicLongArray starts;
+
+    private final AtomicLongArray values;
+
+    BucketRing(long intervalMillis, int length) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("bucket interval must be positive: " + intervalMillis);
+        }
+        if (length <= 0) {
+            throw new IllegalArgumentException("number of buckets must be positive: " + length);
+        }
+        this.intervalMillis = intervalMillis;
+        this.length = length;
+        this.starts = new AtomicLongArray(length);
+        this.values = new AtomicLongArray(length);
+        for (int i = 0; i < length; i++) {
+            starts.set(i, -1L);
+        }
+    }
+
+    long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    void add(long now, long delta) {
+        long bucket = now / intervalMillis;
+        long start = bucket * intervalMillis;
+        int index = (int) (bucket % length);
+        long current = starts.get(index);
+        if (current != start) {
+            if (current > start) {
+                // the slot has already moved to a later bucket, this update comes too late
+                return;
+            }
+            if (starts.compareAndSet(index, current, start)) {
+                values.set(index, 0);
+            }
+        }
+        values.getAndAdd(index, delta);
+    }
+
+    /**
+     * Visit the buckets still held by the ring which start at or after the given time.
+     */
+    void forEach(long now, long startTime, BucketVisitor visitor) {
+        long oldest = (now / intervalMillis - length + 1) * intervalMillis;
+        for (int i = 0; i < length; i++) {
+            long start = starts.get(i);
+            long value = values.get(i);
+            if (start < 0 || start < oldest || start < startTime || start != starts.get(i)) {
+                continue;
+            }
+            visitor.visit(start, value);
+        }
+    }
+
+    Map<Long, Long> toMap(long now, long startTime, final long shift, final long mask) {
+        final Map<Long, Long> result = new TreeMap<Long, Long>();
+        forEach(now, startTime, new BucketVisitor() {
+            @Override
+            public void visit(long start, long value) {
+                result.put(start, (value >>> shift) & mask);
+            }
+        });
+        return result;
+    }
+
+    interface BucketVisitor {
+
+        void visit(long start, long value);
+
+    }
+
+}
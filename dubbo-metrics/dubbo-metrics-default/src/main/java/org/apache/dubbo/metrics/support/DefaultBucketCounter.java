@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.metrics.support;
+
+import org.apache.dubbo.metrics.BucketCounter;
+
+import java.util.Map;
+
+/**
+ * BucketCounter on a ring of time buckets, see {@link BucketRing}.
+ */
+public class DefaultBucketCounter implements BucketCounter {
+
+    private final BucketRing ring;
+
+    private final int interval;
+
+    private volatile long lastUpdateTime;
+
+    /**
+     * @param interval        bucket interval in seconds
+     * @param numberOfBuckets how many buckets are kept
+     */
+    public DefaultBucketCounter(int interval, int numberOfBuckets) {
+        this.interval = interval;
+        this.ring = new BucketRing(interval * 1000L, numberOfBuckets);
+    }
+
+    @Override
+    public void update() {
+        update(1);
+    }
+
+    @Override
+    public void update(long n) {
+        long now = System.currentTimeMillis();
+        ring.add(now, n);
+        if (lastUpdateTime != now) {
+            lastUpdateTime = now;
+        }
+    }
+
+    @Override
+    public Map<Long, Long> getBucketCounts() {
+        return getBucketCounts(0);
+    }
+
+    @Override
+    public Map<Long, Long> getBucketCounts(long startTime) {
+        return ring.toMap(System.currentTimeMillis(), startTime, 0, -1L);
+    }
+
+    @Override
+    public int getBucketInterval() {
+        return interval;
+    }
+
+    @Override
+    public long lastUpdateTime() {
+        return lastUpdateTime;
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.metrics.support;
+
+import org.apache.dubbo.metrics.Compass;
+import org.apache.dubbo.metrics.Sampling;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compass keeping count and response time per category on a ring of time buckets, plus a
+ * {@link Histogram} of all the recorded durations, exposed as {@link Sampling}.
+ * <p>
+ * Count and response time of a bucket share one long, the count in the high bits above
+ * {@link #COUNT_OFFSET} and the sum of the durations in the low bits, so a record is a single atomic add.
+ * {@link #getCountAndRtPerCategory()} returns the values in that combined form.
+ */
+public class DefaultCompass implements Compass, Sampling {
+
+    /**
+     * Bit offset of the count in the combined count and rt values.
+     */
+    public static final int COUNT_OFFSET = 38;
+
+    /**
+     * Mask of the rt sum in the combined count and rt values.
+     */
+    public static final long RT_MASK = (1L << COUNT_OFFSET) - 1;
+
+    private static final long COUNT_MASK = (1L << (64 - COUNT_OFFSET)) - 1;
+
+    private static final long COUNT_UNIT = 1L << COUNT_OFFSET;
+
+    private final ConcurrentMap<String, BucketRing> categories = new ConcurrentHashMap<String, BucketRing>();
+
+    private final Histogram histogram = new Histogram();
+
+    private final int interval;
+
+    private final int numberOfBuckets;
+
+    private volatile long lastUpdateTime;
+
+    /**
+     * @param interval        bucket interval in seconds
+     * @param numberOfBuckets how many buckets are kept
+     */
+    public DefaultCompass(int interval, int numberOfBuckets) {
+        this.interval = interval;
+        this.numberOfBuckets = numberOfBuckets;
+    }
+
+    @Override
+    public void record(long duration, String subCategory) {
+        if (duration < 0) {
+            duration = 0;
+        }
+        long now = System.currentTimeMillis();
+        getRing(subCategory).add(now, COUNT_UNIT + Math.min(duration, RT_MASK));
+        histogram.record(duration);
+        if (lastUpdateTime != now) {
+            lastUpdateTime = now;
+        }
+    }
+
+    private BucketRing getRing(String category) {
+        BucketRing ring = categories.get(category);
+        if (ring == null) {
+            categories.putIfAbsent(category, new BucketRing(interval * 1000L, numberOfBuckets));
+            ring = categories.get(category);
+        }
+        return ring;
+    }
+
+    public Histogram getHistogram() {
+        return histogram;
+    }
+
+    @Override
+    public long getCount() {
+        return histogram.getCount();
+    }
+
+    @Override
+    public long getSum() {
+        return histogram.getSum();
+    }
+
+    @Override
+    public long getMax() {
+        return histogram.getMax();
+    }
+
+    @Override
+    public long getValueAtPercentile(double percentile) {
+        return histogram.getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public long getCountAtOrBelow(long value) {
+        return histogram.getCountAtOrBelow(value);
+    }
+
+    @Override
+    public Map<String, Map<Long, Long>> getMethodCountPerCategory() {
+        return getMethodCountPerCategory(0);
+    }
+
+    @Override
+    public Map<String, Map<Long, Long>> getMethodCountPerCategory(long startTime) {
+        return perCategory(startTime, COUNT_OFFSET, COUNT_MASK);
+    }
+
+    @Override
+    public Map<String, Map<Long, Long>> getMethodRtPerCategory() {
+        return getMethodRtPerCategory(0);
+    }
+
+    @Override
+    public Map<String, Map<Long, Long>> getMethodRtPerCategory(long startTime) {
+        return perCategory(startTime, 0, RT_MASK);
+    }
+
+    @Override
+    public Map<String, Map<Long, Long>> getCountAndRtPerCategory() {
+        return getCountAndRtPerCategory(0);
+    }
+
+    @Override
+    public Map<String, Map<Long, Long>> getCountAndRtPerCategory(long startTime) {
+        return perCategory(startTime, 0, -1L);
+    }
+
+    private Map<String, Map<Long, Long>> perCategory(long startTime, long shift, long mask) {
+        long now = System.currentTimeMillis();
+        Map<String, Map<Long, Long>> result = new HashMap<String, Map<Long, Long>>();
+        for (Map.Entry<String, BucketRing> entry : categories.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().toMap(now, startTime, shift, mask));
+        }
+        return result;
+    }
+
+    @Override
+    public int getBucketInterval() {
+        return interval;
+    }
+
+    @Override
+    public long lastUpdateTime() {
+        return lastUpdateTime;
+    }
+
+}
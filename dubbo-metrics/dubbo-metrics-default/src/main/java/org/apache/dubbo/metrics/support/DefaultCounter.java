@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.metrics.support;
+
+import org.apache.dubbo.metrics.Counter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counter striped over a {@link LongAdder}, so that concurrent updates do not contend on one cas.
+ */
+public class DefaultCounter implements Counter {
+
+    private final LongAdder count = new LongAdder();
+
+    private volatile long lastUpdateTime;
+
+    @Override
+    public void inc() {
+        inc(1);
+    }
+
+    @Override
+    public void inc(long n) {
+        count.add(n);
+        touch();
+    }
+
+    @Override
+    public void dec() {
+        dec(1);
+    }
+
+    @Override
+    public void dec(long n) {
+        count.add(-n);
+        touch();
+    }
+
+    // only write the shared field when the clock moves, at most once per millisecond
+    private void touch() {
+        long now = System.currentTimeMillis();
+        if (lastUpdateTime != now) {
+            lastUpdateTime = now;
+        }
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long lastUpdateTime() {
+        return lastUpdateTime;
+    }
+
+}
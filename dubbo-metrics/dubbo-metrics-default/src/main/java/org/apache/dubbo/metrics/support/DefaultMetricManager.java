@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.metrics.support;
+
+import org.apache.dubbo.metrics.BucketCounter;
+import org.apache.dubbo.metrics.Compass;
+import org.apache.dubbo.metrics.Counter;
+import org.apache.dubbo.metrics.IMetricManager;
+import org.apache.dubbo.metrics.Metric;
+import org.apache.dubbo.metrics.MetricFilter;
+import org.apache.dubbo.metrics.MetricName;
+import org.apache.dubbo.metrics.MetricRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-process IMetricManager, one {@link DefaultMetricRegistry} per group. (Singleton, ThreadSafe)
+ * <p>
+ * The bucket interval (seconds) and the number of buckets of the bucket counters and compasses can be set
+ * with the system properties {@value #BUCKET_INTERVAL_KEY} and {@value #BUCKET_COUNT_KEY}.
+ */
+public class DefaultMetricManager implements IMetricManager {
+
+    public static final String BUCKET_INTERVAL_KEY = "dubbo.metrics.bucket.interval";
+
+    public static final String BUCKET_COUNT_KEY = "dubbo.metrics.bucket.count";
+
+    public static final int DEFAULT_BUCKET_INTERVAL = 5;
+
+    public static final int DEFAULT_BUCKET_COUNT = 12;
+
+    private final ConcurrentMap<String, DefaultMetricRegistry> registries = new ConcurrentHashMap<String, DefaultMetricRegistry>();
+
+    private final int interval;
+
+    private final int numberOfBuckets;
+
+    public DefaultMetricManager() {
+        this(Integer.getInteger(BUCKET_INTERVAL_KEY, DEFAULT_BUCKET_INTERVAL), Integer.getInteger(BUCKET_COUNT_KEY, DEFAULT_BUCKET_COUNT));
+    }
+
+    public DefaultMetricManager(int interval, int numberOfBuckets) {
+        this.interval = interval > 0 ? interval : DEFAULT_BUCKET_INTERVAL;
+        this.numberOfBuckets = numberOfBuckets > 0 ? numberOfBuckets : DEFAULT_BUCKET_COUNT;
+    }
+
+    private DefaultMetricRegistry getRegistry(String group) {
+        DefaultMetricRegistry registry = registries.get(group);
+        if (registry == null) {
+            registries.putIfAbsent(group, new DefaultMetricRegistry(interval, numberOfBuckets));
+            registry = registries.get(group);
+        }
+        return registry;
+    }
+
+    @Override
+    public Counter getCounter(String group, MetricName name) {
+        return getRegistry(group).counter(name);
+    }
+
+    @Override
+    public BucketCounter getBucketCounter(String group, MetricName name) {
+        return getRegistry(group).bucketCounter(name);
+    }
+
+    @Override
+    public Compass getCompass(String group, MetricName name) {
+        return getRegistry(group).compass(name);
+    }
+
+    /**
+     * Unlike {@link MetricRegistry#register(MetricName, Metric)}, a metric registered again under the same
+     * name replaces the previous one, so that a re-created component can re-register its gauges.
+     */
+    @Override
+    public void register(String group, MetricName name, Metric metric) {
+        getRegistry(group).replace(name, metric);
+    }
+
+    @Override
+    public List<String> listMetricGroups() {
+        List<String> groups = new ArrayList<String>(registries.keySet());
+        Collections.sort(groups);
+        return groups;
+    }
+
+    @Override
+    public Map<String, Set<MetricName>> listMetricNamesByGroup() {
+        Map<String, Set<MetricName>> result = new TreeMap<String, Set<MetricName>>();
+        for (Map.Entry<String, DefaultMetricRegistry> entry : registries.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().getNames());
+        }
+        return result;
+    }
+
+    @Override
+    public MetricRegistry getMetricRegistryByGroup(String group) {
+        return registries.get(group);
+    }
+
+    @Override
+    public Map<MetricName, Counter> getCounters(String group, MetricFilter filter) {
+        DefaultMetricRegistry registry = registries.get(group);
+        if (registry == null) {
+            return Collections.emptyMap();
+        }
+        return registry.getCounters(filter);
+    }
+
+    @Override
+    public Map<MetricName, Compass> getCompasses(String group, MetricFilter filter) {
+        DefaultMetricRegistry registry = registries.get(group);
+        if (registry == null) {
+            return Collections.emptyMap();
+        }
+        return registry.getCompasses(filter);
+    }
+
+    @Override
+    public Map<MetricName, Metric> getMetrics(String group) {
+        DefaultMetricRegistry registry = registries.get(group);
+        if (registry == null) {
+            return Collections.emptyMap();
+        }
+        return registry.getMetrics();
+    }
+
+}
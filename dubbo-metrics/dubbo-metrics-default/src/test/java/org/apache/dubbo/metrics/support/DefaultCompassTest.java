@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.metrics.support;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class DefaultCompassTest {
+
+    @Test
+    public void testRecord() {
+        DefaultCompass compass = new DefaultCompass(60, 2);
+        compass.record(10, "success");
+        compass.record(20, "success");
+        compass.record(5, "error");
+
+        Map<String, Map<Long, Long>> counts = compass.getMethodCountPerCategory();
+        Map<String, Map<Long, Long>> rts = compass.getMethodRtPerCategory();
+        Map<String, Map<Long, Long>> combined = compass.getCountAndRtPerCategory();
+        Assert.assertEquals(2, counts.size());
+        Assert.assertEquals(2L, sum(counts.get("success")));
+        Assert.assertEquals(1L, sum(counts.get("error")));
+        Assert.assertEquals(30L, sum(rts.get("success")));
+        Assert.assertEquals(5L, sum(rts.get("error")));
+        long value = sum(combined.get("success"));
+        Assert.assertEquals(2L, value >>> DefaultCompass.COUNT_OFFSET);
+        Assert.assertEquals(30L, value & DefaultCompass.RT_MASK);
+
+        Assert.assertEquals(3, compass.getHistogram().getCount());
+        Assert.assertEquals(20, compass.getHistogram().getMax());
+        Assert.assertEquals(60, compass.getBucketInterval());
+        Assert.assertTrue(compass.lastUpdateTime() > 0);
+        Assert.assertTrue(compass.getMethodCountPerCategory(System.currentTimeMillis() + 60000).get("success").isEmpty());
+    }
+
+    @Test
+    public void testBucketCounter() {
+        DefaultBucketCounter counter = new DefaultBucketCounter(60, 3);
+        counter.update();
+        counter.update(4);
+        Map<Long, Long> buckets = counter.getBucketCounts();
+        Assert.assertEquals(1, buckets.size());
+        Map.Entry<Long, Long> bucket = buckets.entrySet().iterator().next();
+        Assert.assertEquals(0, bucket.getKey() % 60000);
+        Assert.assertEquals(5L, (long) bucket.getValue());
+    }
+
+    @Test
+    public void testBucketRingRotation() {
+        BucketRing ring = new BucketRing(1000, 2);
+        ring.add(1000, 1);
+        ring.add(1500, 1);
+        ring.add(2000, 3);
+        Assert.assertEquals(2, ring.toMap(2000, 0, 0, -1L).size());
+        Assert.assertEquals(2L, (long) ring.toMap(2000, 0, 0, -1L).get(1000L));
+        // the slot of the first bucket is recycled
+        ring.add(3200, 7);
+        Map<Long, Long> buckets = ring.toMap(3200, 0, 0, -1L);
+        Assert.assertEquals(2, buckets.size());
+        Assert.assertEquals(3L, (long) buckets.get(2000L));
+        Assert.assertEquals(7L, (long) buckets.get(3000L));
+        // late updates for a recycled bucket are dropped
+        ring.add(1100, 5);
+        Assert.assertEquals(7L, (long) ring.toMap(3200, 0, 0, -1L).get(3000L));
+        // buckets older than the ring are not reported
+        Assert.assertEquals(0, ring.toMap(10000, 0, 0, -1L).size());
+    }
+
+    private static long sum(Map<Long, Long> buckets) {
+        long sum = 0;
+        for (Long value : buckets.values()) {
+            sum += value;
+        }
+        return sum;
+    }
+
+}
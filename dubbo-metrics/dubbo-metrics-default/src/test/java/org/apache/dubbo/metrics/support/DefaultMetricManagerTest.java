@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.metrics.support;
+
+import org.apache.dubbo.metrics.Compass;
+import org.apache.dubbo.metrics.Counter;
+import org.apache.dubbo.metrics.Gauge;
+import org.apache.dubbo.metrics.MetricFilter;
+import org.apache.dubbo.metrics.MetricManager;
+import org.apache.dubbo.metrics.MetricName;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DefaultMetricManagerTest {
+
+    @Test
+    public void testBinder() {
+        Assert.assertTrue(MetricManager.getIMetricManager() instanceof DefaultMetricManager);
+        Counter counter = MetricManager.getCounter("test", MetricName.build("binder.counter"));
+        counter.inc();
+        Assert.assertEquals(1, counter.getCount());
+    }
+
+    @Test
+    public void testMetrics() {
+        DefaultMetricManager manager = new DefaultMetricManager(5, 3);
+        MetricName name = new MetricName("dubbo.test").tag("service", "DemoService");
+        Counter counter = manager.getCounter("dubbo", name);
+        Assert.assertSame(counter, manager.getCounter("dubbo", new MetricName("dubbo.test").tag("service", "DemoService")));
+        counter.inc(3);
+        counter.dec();
+        Assert.assertEquals(2, counter.getCount());
+
+        Compass compass = manager.getCompass("dubbo", MetricName.build("dubbo.compass"));
+        compass.record(1, "success");
+        Assert.assertEquals(5, compass.getBucketInterval());
+        Assert.assertEquals(5, manager.getBucketCounter("dubbo", MetricName.build("dubbo.bucket")).getBucketInterval());
+
+        manager.register("dubbo", MetricName.build("dubbo.gauge"), new TestGauge(1));
+        manager.register("dubbo", MetricName.build("dubbo.gauge"), new TestGauge(2));
+        Assert.assertEquals(2, manager.getMetricRegistryByGroup("dubbo").getGauges().get(MetricName.build("dubbo.gauge")).getValue());
+
+        Assert.assertEquals(1, manager.listMetricGroups().size());
+        Assert.assertEquals(4, manager.listMetricNamesByGroup().get("dubbo").size());
+        Assert.assertEquals(1, manager.getCounters("dubbo", MetricFilter.ALL).size());
+        Assert.assertEquals(1, manager.getCompasses("dubbo", MetricFilter.ALL).size());
+        Assert.assertEquals(4, manager.getMetrics("dubbo").size());
+        Assert.assertTrue(manager.getMetrics("absent").isEmpty());
+        Assert.assertNull(manager.getMetricRegistryByGroup("absent"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTypeConflict() {
+        DefaultMetricManager manager = new DefaultMetricManager();
+        manager.getCounter("dubbo", MetricName.build("dubbo.conflict"));
+        manager.getCompass("dubbo", MetricName.build("dubbo.conflict"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterTwice() {
+        DefaultMetricRegistry registry = new DefaultMetricRegistry(5, 3);
+        registry.register("dubbo.gauge", new TestGauge(1));
+        registry.register("dubbo.gauge", new TestGauge(2));
+    }
+
+    private static class TestGauge implements Gauge<Integer> {
+
+        private final int value;
+
+        TestGauge(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public Integer getValue() {
+            return value;
+        }
+
+        @Override
+        public long lastUpdateTime() {
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.metrics.support;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HistogramTest {
+
+    @Test
+    public void testBuckets() {
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 33, 100, 1000, 123456789L, Long.MAX_VALUE}) {
+            int index = Histogram.indexOf(value);
+            Assert.assertTrue(index < Histogram.BUCKET_COUNT);
+            long upper = Histogram.upperBoundOf(index);
+            Assert.assertTrue(value + " <= " + upper, value <= upper);
+            // relative error stays within one sub-bucket
+            Assert.assertTrue(value + " ~ " + upper, upper - value <= Math.max(0, value / 16));
+            if (index > 0) {
+                Assert.assertTrue(Histogram.upperBoundOf(index - 1) < value);
+            }
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        Histogram histogram = new Histogram();
+        Assert.assertEquals(0, histogram.getValueAtPercentile(99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(500500, histogram.getSum());
+        Assert.assertEquals(1000, histogram.getMax());
+        assertNear(500, histogram.getValueAtPercentile(50));
+        assertNear(990, histogram.getValueAtPercentile(99));
+        Assert.assertEquals(1000, histogram.getValueAtPercentile(100));
+        Assert.assertEquals(1, histogram.getValueAtPercentile(0));
+        Assert.assertEquals(10, histogram.getCountAtOrBelow(10));
+        Assert.assertEquals(1000, histogram.getCountAtOrBelow(5000));
+    }
+
+    private static void assertNear(long expected, long actual) {
+        Assert.assertTrue(expected + " ~ " + actual, Math.abs(expected - actual) <= expected / 16);
+    }
+
+}
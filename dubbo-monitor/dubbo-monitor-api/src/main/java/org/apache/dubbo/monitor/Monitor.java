@@ -17,6 +17,7 @@
 package org.apache.dubbo.monitor;
 
 import org.apache.dubbo.common.Node;
+import org.apache.dubbo.common.URL;
 
 /**
  * Monitor. (SPI, Prototype, ThreadSafe)
@@ -25,4 +26,26 @@ import org.apache.dubbo.common.Node;
  */
 public interface Monitor extends Node, MonitorService {
 
+    /**
+     * Collect one invocation against a pre-resolved key.
+     * <p>
+     * Implementations are expected to aggregate the numbers in memory and only build the
+     * statistics URL when reporting. The default implementation falls back to {@link #collect(URL)}.
+     *
+     * @param key        statistics key, resolved once per service, method and peer
+     * @param success    whether the invocation succeeded
+     * @param elapsed    invocation cost in milliseconds
+     * @param concurrent concurrent invocations of the method when this one completed
+     * @param input      request size in bytes, 0 if unknown
+     * @param output     response size in bytes, 0 if unknown
+     */
+    default void collect(MonitorKey key, boolean success, long elapsed, int concurrent, long input, long output) {
+        collect(key.getUrl().addParameters(
+                success ? MonitorService.SUCCESS : MonitorService.FAILURE, "1",
+                MonitorService.ELAPSED, String.valueOf(elapsed),
+                MonitorService.CONCURRENT, String.valueOf(concurrent),
+                MonitorService.INPUT, String.valueOf(input),
+                MonitorService.OUTPUT, String.valueOf(output)));
+    }
+
 }
\ No newline at end of file
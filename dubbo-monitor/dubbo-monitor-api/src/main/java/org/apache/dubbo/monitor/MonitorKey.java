@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.monitor;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.utils.NetUtils;
+
+/**
+ * MonitorKey. (API, Immutable, ThreadSafe)
+ * <p>
+ * Identity of one statistics row: application, service, method, group, version, client and server.
+ * It is resolved once per service/method/peer and reused for every call, so a {@link Monitor} can
+ * aggregate invocations without building and parsing a statistics URL each time.
+ *
+ * @see Monitor#collect(MonitorKey, boolean, long, int, long, long)
+ */
+public final class MonitorKey {
+
+    private final URL url;
+
+    private final String application;
+
+    private final String service;
+
+    private final String method;
+
+    private final String group;
+
+    private final String version;
+
+    private final String client;
+
+    private final String server;
+
+    private final int hashCode;
+
+    public MonitorKey(URL url) {
+        this.url = url;
+        this.application = url.getParameter(MonitorService.APPLICATION);
+        this.service = url.getParameter(MonitorService.INTERFACE);
+        this.method = url.getParameter(MonitorService.METHOD);
+        this.group = url.getParameter(MonitorService.GROUP);
+        this.version = url.getParameter(MonitorService.VERSION);
+        this.client = url.getParameter(MonitorService.CONSUMER, url.getAddress());
+        this.server = url.getParameter(MonitorService.PROVIDER, url.getAddress());
+        this.hashCode = computeHashCode();
+    }
+
+    /**
+     * @param localPort   local port, 0 for the consumer side
+     * @param remoteKey   {@link MonitorService#PROVIDER} for the consumer side, {@link MonitorService#CONSUMER} for the provider side
+     * @param remoteValue address of the remote peer
+     */
+    public static MonitorKey of(String application, String service, String method, String group, String version,
+                                int localPort, String remoteKey, String remoteValue) {
+        return new MonitorKey(new URL(Constants.COUNT_PROTOCOL,
+                NetUtils.getLocalHost(), localPort,
+                service + "/" + method,
+                MonitorService.APPLICATION, application,
+                MonitorService.INTERFACE, service,
+                MonitorService.METHOD, method,
+                remoteKey, remoteValue,
+                MonitorService.GROUP, group,
+                MonitorService.VERSION, version));
+    }
+
+    /**
+     * The statistics url without counters, to be completed with the aggregated numbers at report time.
+     */
+    public URL getUrl() {
+        return url;
+    }
+
+    public String getApplication() {
+        return application;
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getClient() {
+        return client;
+    }
+
+    public String getServer() {
+        return server;
+    }
+
+    private int computeHashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + ((application == null) ? 0 : application.hashCode());
+        result = prime * result + ((client == null) ? 0 : client.hashCode());
+        result = prime * result + ((group == null) ? 0 : group.hashCode());
+        result = prime * result + ((method == null) ? 0 : method.hashCode());
+        result = prime * result + ((server == null) ? 0 : server.hashCode());
+        result = prime * result + ((service == null) ? 0 : service.hashCode());
+        result = prime * result + ((version == null) ? 0 : version.hashCode());
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MonitorKey)) {
+            return false;
+        }
+        MonitorKey other = (MonitorKey) obj;
+        return hashCode == other.hashCode
+                && equals(application, other.application)
+                && equals(service, other.service)
+                && equals(method, other.method)
+                && equals(group, other.group)
+                && equals(version, other.version)
+                && equals(client, other.client)
+                && equals(server, other.server);
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    @Override
+    public String toString() {
+        return url.toString();
+    }
+
+}
@@ -21,9 +21,9 @@ import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.extension.Activate;
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
-import org.apache.dubbo.common.utils.NetUtils;
 import org.apache.dubbo.monitor.Monitor;
 import org.apache.dubbo.monitor.MonitorFactory;
+import org.apache.dubbo.monitor.MonitorKey;
 import org.apache.dubbo.monitor.MonitorService;
 import org.apache.dubbo.rpc.Filter;
 import org.apache.dubbo.rpc.Invocation;
@@ -45,31 +45,67 @@ public class MonitorFilter implements Filter {
 
     private static final Logger logger = LoggerFactory.getLogger(MonitorFilter.class);
 
-    private final ConcurrentMap<String, AtomicInteger> concurrents = new ConcurrentHashMap<String, AtomicInteger>();
+    // concurrent counters, Map<Interface, Map<Method, Counter>>
+    private final ConcurrentMap<String, ConcurrentMap<String, AtomicInteger>> concurrents;
+
+    // the keys, monitor and counters of the invoker this filter is bound to, null when not bound;
+    // they live and die with the bound filter, so nothing is kept for invokers that have been destroyed
+    private final InvokerKeys boundKeys;
+
+    private final ConcurrentMap<String, AtomicInteger> boundConcurrents;
+
+    // the keys of the invokers an unbound filter is invoked with, Map<Invoker, Keys>; those of invokers
+    // that are no longer available are dropped whenever another invoker comes in
+    private final ConcurrentMap<Invoker<?>, InvokerKeys> unboundKeys;
 
     private MonitorFactory monitorFactory;
 
+    public MonitorFilter() {
+        this.concurrents = new ConcurrentHashMap<String, ConcurrentMap<String, AtomicInteger>>();
+        this.boundKeys = null;
+        this.boundConcurrents = null;
+        this.unboundKeys = new ConcurrentHashMap<Invoker<?>, InvokerKeys>();
+    }
+
+    private MonitorFilter(MonitorFilter filter, Invoker<?> invoker) {
+        // the concurrent counters are per service, shared with the other invokers of the service
+        this.concurrents = filter.concurrents;
+        this.monitorFactory = filter.monitorFactory;
+        this.boundKeys = new InvokerKeys(invoker);
+        this.boundConcurrents = getConcurrents(invoker.getInterface().getName());
+        this.unboundKeys = null;
+    }
+
     public void setMonitorFactory(MonitorFactory monitorFactory) {
         this.monitorFactory = monitorFactory;
     }
 
+    @Override
+    public Filter bind(Invoker<?> invoker) {
+        if (!invoker.getUrl().hasParameter(Constants.MONITOR_KEY)) {
+            return null;
+        }
+        return new MonitorFilter(this, invoker);
+    }
+
     // intercepting invocation
     @Override
     public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
-        if (invoker.getUrl().hasParameter(Constants.MONITOR_KEY)) {
+        if (boundKeys != null || invoker.getUrl().hasParameter(Constants.MONITOR_KEY)) {
             RpcContext context = RpcContext.getContext(); // provider must fetch context before invoke() gets called
             String remoteHost = context.getRemoteHost();
             long start = System.currentTimeMillis(); // record start timestamp
-            getConcurrent(invoker, invocation).incrementAndGet(); // count up
+            AtomicInteger concurrent = getConcurrent(invoker, invocation);
+            concurrent.incrementAndGet(); // count up
             try {
                 Result result = invoker.invoke(invocation); // proceed invocation chain
-                collect(invoker, invocation, result, remoteHost, start, false);
+                collect(invoker, invocation, result, remoteHost, start, concurrent, false);
                 return result;
             } catch (RpcException e) {
-                collect(invoker, invocation, null, remoteHost, start, true);
+                collect(invoker, invocation, null, remoteHost, start, concurrent, true);
                 throw e;
             } finally {
-                getConcurrent(invoker, invocation).decrementAndGet(); // count down
+                concurrent.decrementAndGet(); // count down
             }
         } else {
             return invoker.invoke(invocation);
@@ -77,70 +113,145 @@ public class MonitorFilter implements Filter {
     }
 
     // collect info
-    private void collect(Invoker<?> invoker, Invocation invocation, Result result, String remoteHost, long start, boolean error) {
+    private void collect(Invoker<?> invoker, Invocation invocation, Result result, String remoteHost, long start, AtomicInteger concurrent, boolean error) {
         try {
             // ---- service statistics ----
             long elapsed = System.currentTimeMillis() - start; // invocation cost
-            int concurrent = getConcurrent(invoker, invocation).get(); // current concurrent count
-            String application = invoker.getUrl().getParameter(Constants.APPLICATION_KEY);
-            String service = invoker.getInterface().getName(); // service name
-            String method = RpcUtils.getMethodName(invocation); // method name
-            String group = invoker.getUrl().getParameter(Constants.GROUP_KEY);
-            String version = invoker.getUrl().getParameter(Constants.VERSION_KEY);
-            URL url = invoker.getUrl().getUrlParameter(Constants.MONITOR_KEY);
-            Monitor monitor = monitorFactory.getMonitor(url);
+            InvokerKeys keys = boundKeys != null ? boundKeys : getUnboundKeys(invoker);
+            Monitor monitor = keys.getMonitor();
             if (monitor == null) {
                 return;
             }
-            int localPort;
-            String remoteKey;
-            String remoteValue;
-            if (Constants.CONSUMER_SIDE.equals(invoker.getUrl().getParameter(Constants.SIDE_KEY))) {
-                // ---- for service consumer ----
-                localPort = 0;
-                remoteKey = MonitorService.PROVIDER;
-                remoteValue = invoker.getUrl().getAddress();
-            } else {
-                // ---- for service provider ----
-                localPort = invoker.getUrl().getPort();
-                remoteKey = MonitorService.CONSUMER;
-                remoteValue = remoteHost;
-            }
-            String input = "", output = "";
-            if (invocation.getAttachment(Constants.INPUT_KEY) != null) {
-                input = invocation.getAttachment(Constants.INPUT_KEY);
-            }
-            if (result != null && result.getAttachment(Constants.OUTPUT_KEY) != null) {
-                output = result.getAttachment(Constants.OUTPUT_KEY);
-            }
-            monitor.collect(new URL(Constants.COUNT_PROTOCOL,
-                    NetUtils.getLocalHost(), localPort,
-                    service + "/" + method,
-                    MonitorService.APPLICATION, application,
-                    MonitorService.INTERFACE, service,
-                    MonitorService.METHOD, method,
-                    remoteKey, remoteValue,
-                    error ? MonitorService.FAILURE : MonitorService.SUCCESS, "1",
-                    MonitorService.ELAPSED, String.valueOf(elapsed),
-                    MonitorService.CONCURRENT, String.valueOf(concurrent),
-                    Constants.INPUT_KEY, input,
-                    Constants.OUTPUT_KEY, output,
-                    Constants.GROUP_KEY, group,
-                    Constants.VERSION_KEY, version));
+            MonitorKey key = keys.getKey(RpcUtils.getMethodName(invocation), remoteHost);
+            monitor.collect(key, !error, elapsed, concurrent.get(),
+                    parseSize(invocation.getAttachment(Constants.INPUT_KEY)),
+                    result == null ? 0 : parseSize(result.getAttachment(Constants.OUTPUT_KEY)));
         } catch (Throwable t) {
             logger.error("Failed to monitor count service " + invoker.getUrl() + ", cause: " + t.getMessage(), t);
         }
     }
 
+    private static long parseSize(String size) {
+        if (size == null || size.length() == 0) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(size);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private InvokerKeys getUnboundKeys(Invoker<?> invoker) {
+        InvokerKeys keys = unboundKeys.get(invoker);
+        if (keys == null) {
+            for (Invoker<?> cached : unboundKeys.keySet()) {
+                if (!cached.isAvailable()) {
+                    // destroyed, or resolved again when it comes back
+                    unboundKeys.remove(cached);
+                }
+            }
+            unboundKeys.putIfAbsent(invoker, new InvokerKeys(invoker));
+            keys = unboundKeys.get(invoker);
+        }
+        return keys;
+    }
+
     // concurrent counter
     private AtomicInteger getConcurrent(Invoker<?> invoker, Invocation invocation) {
-        String key = invoker.getInterface().getName() + "." + invocation.getMethodName();
-        AtomicInteger concurrent = concurrents.get(key);
+        ConcurrentMap<String, AtomicInteger> methods = boundConcurrents != null ? boundConcurrents
+                : getConcurrents(invoker.getInterface().getName());
+        String method = invocation.getMethodName();
+        AtomicInteger concurrent = methods.get(method);
         if (concurrent == null) {
-            concurrents.putIfAbsent(key, new AtomicInteger());
-            concurrent = concurrents.get(key);
+            methods.putIfAbsent(method, new AtomicInteger());
+            concurrent = methods.get(method);
         }
         return concurrent;
     }
 
+    private ConcurrentMap<String, AtomicInteger> getConcurrents(String service) {
+        ConcurrentMap<String, AtomicInteger> methods = concurrents.get(service);
+        if (methods == null) {
+            concurrents.putIfAbsent(service, new ConcurrentHashMap<String, AtomicInteger>());
+            methods = concurrents.get(service);
+        }
+        return methods;
+    }
+
+    /**
+     * Everything about an invoker that does not change between calls: the monitor it reports to and
+     * the statistics keys of its methods and peers.
+     */
+    private class InvokerKeys {
+
+        private final URL monitorUrl;
+
+        private final String application;
+
+        private final String service;
+
+        private final String group;
+
+        private final String version;
+
+        private final int localPort;
+
+        private final String remoteKey;
+
+        // the provider address on the consumer side, null on the provider side
+        private final String remoteAddress;
+
+        // Map<Method, Map<Remote, Key>>
+        private final ConcurrentMap<String, ConcurrentMap<String, MonitorKey>> keys = new ConcurrentHashMap<String, ConcurrentMap<String, MonitorKey>>();
+
+        private volatile Monitor monitor;
+
+        InvokerKeys(Invoker<?> invoker) {
+            URL url = invoker.getUrl();
+            this.monitorUrl = url.getUrlParameter(Constants.MONITOR_KEY);
+            this.application = url.getParameter(Constants.APPLICATION_KEY);
+            this.service = invoker.getInterface().getName();
+            this.group = url.getParameter(Constants.GROUP_KEY);
+            this.version = url.getParameter(Constants.VERSION_KEY);
+            if (Constants.CONSUMER_SIDE.equals(url.getParameter(Constants.SIDE_KEY))) {
+                // ---- for service consumer ----
+                this.localPort = 0;
+                this.remoteKey = MonitorService.PROVIDER;
+                this.remoteAddress = url.getAddress();
+            } else {
+                // ---- for service provider ----
+                this.localPort = url.getPort();
+                this.remoteKey = MonitorService.CONSUMER;
+                this.remoteAddress = null;
+            }
+        }
+
+        Monitor getMonitor() {
+            Monitor m = monitor;
+            if (m == null) {
+                // the factory returns null until the monitor is connected, keep asking until then
+                m = monitorFactory.getMonitor(monitorUrl);
+                monitor = m;
+            }
+            return m;
+        }
+
+        MonitorKey getKey(String method, String remoteHost) {
+            String remoteValue = remoteAddress != null ? remoteAddress : remoteHost;
+            String remote = remoteValue == null ? "" : remoteValue;
+            ConcurrentMap<String, MonitorKey> remotes = keys.get(method);
+            if (remotes == null) {
+                keys.putIfAbsent(method, new ConcurrentHashMap<String, MonitorKey>());
+                remotes = keys.get(method);
+            }
+            MonitorKey key = remotes.get(remote);
+            if (key == null) {
+                remotes.putIfAbsent(remote, MonitorKey.of(application, service, method, group, version, localPort, remoteKey, remoteValue));
+                key = remotes.get(remote);
+            }
+            return key;
+        }
+    }
+
 }
@@ -21,7 +21,9 @@ import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.utils.NetUtils;
 import org.apache.dubbo.monitor.Monitor;
 import org.apache.dubbo.monitor.MonitorFactory;
+import org.apache.dubbo.monitor.MonitorKey;
 import org.apache.dubbo.monitor.MonitorService;
+import org.apache.dubbo.rpc.Filter;
 import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.Result;
@@ -30,6 +32,7 @@ import org.apache.dubbo.rpc.RpcException;
 import org.apache.dubbo.rpc.RpcInvocation;
 import org.junit.Assert;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import java.io.UnsupportedEncodingException;
@@ -38,9 +41,12 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -180,4 +186,78 @@ public class MonitorFilterTest {
 
         monitorFilter.invoke(serviceInvoker, invocation);
     }
+
+    @Test
+    public void testCollectWithCachedKey() {
+        MonitorFilter monitorFilter = new MonitorFilter();
+        MonitorFactory mockMonitorFactory = mock(MonitorFactory.class);
+        Monitor mockMonitor = mock(Monitor.class);
+        monitorFilter.setMonitorFactory(mockMonitorFactory);
+        given(mockMonitorFactory.getMonitor(any(URL.class))).willReturn(mockMonitor);
+        Invocation invocation = new RpcInvocation("aaa", new Class<?>[0], new Object[0]);
+
+        Filter bound = monitorFilter.bind(serviceInvoker);
+        bound.invoke(serviceInvoker, invocation);
+        bound.invoke(serviceInvoker, invocation);
+
+        ArgumentCaptor<MonitorKey> keyCaptor = ArgumentCaptor.forClass(MonitorKey.class);
+        verify(mockMonitor, times(2)).collect(keyCaptor.capture(), eq(true), anyLong(), eq(1), eq(0L), eq(0L));
+        verify(mockMonitor, never()).collect(any(URL.class));
+        verify(mockMonitorFactory, times(1)).getMonitor(any(URL.class));
+        List<MonitorKey> keys = keyCaptor.getAllValues();
+        Assert.assertSame(keys.get(0), keys.get(1));
+        Assert.assertEquals("abc", keys.get(0).getApplication());
+        Assert.assertEquals(MonitorService.class.getName(), keys.get(0).getService());
+        Assert.assertEquals("aaa", keys.get(0).getMethod());
+        Assert.assertEquals(NetUtils.getLocalHost() + ":20880", keys.get(0).getServer());
+    }
+
+    @Test
+    public void testBind() {
+        MonitorFilter monitorFilter = new MonitorFilter();
+        MonitorFactory mockMonitorFactory = mock(MonitorFactory.class);
+        Monitor mockMonitor = mock(Monitor.class);
+        monitorFilter.setMonitorFactory(mockMonitorFactory);
+        given(mockMonitorFactory.getMonitor(any(URL.class))).willReturn(mockMonitor);
+        Invoker invoker = mock(Invoker.class);
+        given(invoker.getUrl()).willReturn(URL.valueOf("dubbo://" + NetUtils.getLocalHost() + ":20880?" + Constants.APPLICATION_KEY + "=abc&" + Constants.SIDE_KEY + "=" + Constants.CONSUMER_SIDE));
+        Assert.assertNull(monitorFilter.bind(invoker));
+
+        Filter bound = monitorFilter.bind(serviceInvoker);
+        Assert.assertNotSame(monitorFilter, bound);
+        Invocation invocation = new RpcInvocation("aaa", new Class<?>[0], new Object[0]);
+        bound.invoke(serviceInvoker, invocation);
+        monitorFilter.invoke(serviceInvoker, invocation);
+
+        ArgumentCaptor<MonitorKey> keyCaptor = ArgumentCaptor.forClass(MonitorKey.class);
+        verify(mockMonitor, times(2)).collect(keyCaptor.capture(), eq(true), anyLong(), eq(1), eq(0L), eq(0L));
+        List<MonitorKey> keys = keyCaptor.getAllValues();
+        Assert.assertEquals(keys.get(0), keys.get(1));
+        Assert.assertEquals("aaa", keys.get(0).getMethod());
+    }
+
+    @Test
+    public void testUnboundFilterDropsUnavailableInvokers() {
+        MonitorFilter monitorFilter = new MonitorFilter();
+        MonitorFactory mockMonitorFactory = mock(MonitorFactory.class);
+        Monitor mockMonitor = mock(Monitor.class);
+        monitorFilter.setMonitorFactory(mockMonitorFactory);
+        given(mockMonitorFactory.getMonitor(any(URL.class))).willReturn(mockMonitor);
+        Invocation invocation = new RpcInvocation("aaa", new Class<?>[0], new Object[0]);
+        Invoker<MonitorService> otherInvoker = mock(Invoker.class);
+        given(otherInvoker.getInterface()).willReturn(MonitorService.class);
+        given(otherInvoker.getUrl()).willReturn(serviceInvoker.getUrl());
+        given(otherInvoker.isAvailable()).willReturn(true);
+
+        monitorFilter.invoke(serviceInvoker, invocation);
+        monitorFilter.invoke(serviceInvoker, invocation);
+        verify(mockMonitorFactory, times(1)).getMonitor(any(URL.class));
+
+        // the keys of the unavailable service invoker are dropped when another invoker comes in
+        monitorFilter.invoke(otherInvoker, invocation);
+        monitorFilter.invoke(otherInvoker, invocation);
+        monitorFilter.invoke(serviceInvoker, invocation);
+        verify(mockMonitorFactory, times(3)).getMonitor(any(URL.class));
+        verify(mockMonitor, times(5)).collect(any(MonitorKey.class), eq(true), anyLong(), eq(1), eq(0L), eq(0L));
+    }
 }
@@ -22,6 +22,7 @@ import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
 import org.apache.dubbo.common.utils.NamedThreadFactory;
 import org.apache.dubbo.monitor.Monitor;
+import org.apache.dubbo.monitor.MonitorKey;
 import org.apache.dubbo.monitor.MonitorService;
 import org.apache.dubbo.rpc.Invoker;
 
@@ -33,17 +34,22 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * DubboMonitor
+ * <p>
+ * Every interval one row per {@link MonitorKey} is sent, holding the sums since the previous send.
+ * The max values are those of the interval too, they start over from zero after each send, as they
+ * always did. The concurrent value is the average of the concurrency sampled by the calls of the
+ * interval; it used to be a running value halved towards each new sample, (previous + sample) / 2,
+ * which mostly reflected the last few calls.
  */
 public class DubboMonitor implements Monitor {
 
     private static final Logger logger = LoggerFactory.getLogger(DubboMonitor.class);
 
-    private static final int LENGTH = 10;
-
     private final ScheduledExecutorService scheduledExecutorService = Executors.newScheduledThreadPool(3, new NamedThreadFactory("DubboMonitorSendTimer", true));
 
     private final ScheduledFuture<?> sendFuture;
@@ -54,7 +60,7 @@ public class DubboMonitor implements Monitor {
 
     private final long monitorInterval;
 
-    private final ConcurrentMap<Statistics, AtomicReference<long[]>> statisticsMap = new ConcurrentHashMap<Statistics, AtomicReference<long[]>>();
+    private final ConcurrentMap<MonitorKey, StatisticsCounter> statisticsMap = new ConcurrentHashMap<MonitorKey, StatisticsCounter>();
 
     public DubboMonitor(Invoker<MonitorService> monitorInvoker, MonitorService monitorService) {
         this.monitorInvoker = monitorInvoker;
@@ -77,25 +83,26 @@ public class DubboMonitor implements Monitor {
     public void send() {
         logger.debug("Send statistics to monitor " + getUrl());
         String timestamp = String.valueOf(System.currentTimeMillis());
-        for (Map.Entry<Statistics, AtomicReference<long[]>> entry : statisticsMap.entrySet()) {
+        String version = getUrl().getParameter(Constants.DEFAULT_PROTOCOL);
+        for (Map.Entry<MonitorKey, StatisticsCounter> entry : statisticsMap.entrySet()) {
             // get statistics data
-            Statistics statistics = entry.getKey();
-            AtomicReference<long[]> reference = entry.getValue();
-            long[] numbers = reference.get();
-            long success = numbers[0];
-            long failure = numbers[1];
-            long input = numbers[2];
-            long output = numbers[3];
-            long elapsed = numbers[4];
-            long concurrent = numbers[5];
-            long maxInput = numbers[6];
-            long maxOutput = numbers[7];
-            long maxElapsed = numbers[8];
-            long maxConcurrent = numbers[9];
-            String version = getUrl().getParameter(Constants.DEFAULT_PROTOCOL);
+            MonitorKey key = entry.getKey();
+            StatisticsCounter counter = entry.getValue();
+            long success = counter.success.sum();
+            long failure = counter.failure.sum();
+            long input = counter.input.sum();
+            long output = counter.output.sum();
+            long elapsed = counter.elapsed.sum();
+            long samples = counter.samples.sum();
+            long concurrentSum = counter.concurrent.sum();
+            long concurrent = samples == 0 ? 0 : concurrentSum / samples;
+            long maxInput = counter.maxInput.getThenReset();
+            long maxOutput = counter.maxOutput.getThenReset();
+            long maxElapsed = counter.maxElapsed.getThenReset();
+            long maxConcurrent = counter.maxConcurrent.getThenReset();
 
             // send statistics data
-            URL url = statistics.getUrl()
+            URL url = key.getUrl()
                     .addParameters(MonitorService.TIMESTAMP, timestamp,
                             MonitorService.SUCCESS, String.valueOf(success),
                             MonitorService.FAILURE, String.valueOf(failure),
@@ -111,27 +118,14 @@ public class DubboMonitor implements Monitor {
                     );
             monitorService.collect(url);
 
-            // reset
-            long[] current;
-            long[] update = new long[LENGTH];
-            do {
-                current = reference.get();
-                if (current == null) {
-                    update[0] = 0;
-                    update[1] = 0;
-                    update[2] = 0;
-                    update[3] = 0;
-                    update[4] = 0;
-                    update[5] = 0;
-                } else {
-                    update[0] = current[0] - success;
-                    update[1] = current[1] - failure;
-                    update[2] = current[2] - input;
-                    update[3] = current[3] - output;
-                    update[4] = current[4] - elapsed;
-                    update[5] = current[5] - concurrent;
-                }
-            } while (!reference.compareAndSet(current, update));
+            // reset, subtracting what has been sent keeps the calls collected meanwhile
+            counter.success.add(-success);
+            counter.failure.add(-failure);
+            counter.input.add(-input);
+            counter.output.add(-output);
+            counter.elapsed.add(-elapsed);
+            counter.samples.add(-samples);
+            counter.concurrent.add(-concurrentSum);
         }
     }
 
@@ -144,42 +138,21 @@ public class DubboMonitor implements Monitor {
         int output = url.getParameter(MonitorService.OUTPUT, 0);
         int elapsed = url.getParameter(MonitorService.ELAPSED, 0);
         int concurrent = url.getParameter(MonitorService.CONCURRENT, 0);
-        // init atomic reference
-        Statistics statistics = new Statistics(url);
-        AtomicReference<long[]> reference = statisticsMap.get(statistics);
-        if (reference == null) {
-            statisticsMap.putIfAbsent(statistics, new AtomicReference<long[]>());
-            reference = statisticsMap.get(statistics);
+        getCounter(new MonitorKey(url)).add(success, failure, elapsed, concurrent, input, output);
+    }
+
+    @Override
+    public void collect(MonitorKey key, boolean success, long elapsed, int concurrent, long input, long output) {
+        getCounter(key).add(success ? 1 : 0, success ? 0 : 1, elapsed, concurrent, input, output);
+    }
+
+    private StatisticsCounter getCounter(MonitorKey key) {
+        StatisticsCounter counter = statisticsMap.get(key);
+        if (counter == null) {
+            statisticsMap.putIfAbsent(key, new StatisticsCounter());
+            counter = statisticsMap.get(key);
         }
-        // use CompareAndSet to sum
-        long[] current;
-        long[] update = new long[LENGTH];
-        do {
-            current = reference.get();
-            if (current == null) {
-                update[0] = success;
-                update[1] = failure;
-                update[2] = input;
-                update[3] = output;
-                update[4] = elapsed;
-                update[5] = concurrent;
-                update[6] = input;
-                update[7] = output;
-                update[8] = elapsed;
-                update[9] = concurrent;
-            } else {
-                update[0] = current[0] + success;
-                update[1] = current[1] + failure;
-                update[2] = current[2] + input;
-                update[3] = current[3] + output;
-                update[4] = current[4] + elapsed;
-                update[5] = (current[5] + concurrent) / 2;
-                update[6] = current[6] > input ? current[6] : input;
-                update[7] = current[7] > output ? current[7] : output;
-                update[8] = current[8] > elapsed ? current[8] : elapsed;
-                update[9] = current[9] > concurrent ? current[9] : concurrent;
-            }
-        } while (!reference.compareAndSet(current, update));
+        return counter;
     }
 
     @Override
@@ -207,4 +180,56 @@ public class DubboMonitor implements Monitor {
         monitorInvoker.destroy();
     }
 
+    /**
+     * Striped counters of one statistics row, so that concurrent callers do not contend on a single cas.
+     */
+    private static class StatisticsCounter {
+
+        private final LongAdder success = new LongAdder();
+
+        private final LongAdder failure = new LongAdder();
+
+        private final LongAdder input = new LongAdder();
+
+        private final LongAdder output = new LongAdder();
+
+        private final LongAdder elapsed = new LongAdder();
+
+        // sum of the sampled concurrent values and the number of samples, reported as their average
+        // over the interval instead of the former (previous + sample) / 2
+        private final LongAdder concurrent = new LongAdder();
+
+        private final LongAdder samples = new LongAdder();
+
+        private final LongAccumulator maxInput = new LongAccumulator(Math::max, 0);
+
+        private final LongAccumulator maxOutput = new LongAccumulator(Math::max, 0);
+
+        private final LongAccumulator maxElapsed = new LongAccumulator(Math::max, 0);
+
+        private final LongAccumulator maxConcurrent = new LongAccumulator(Math::max, 0);
+
+        void add(long success, long failure, long elapsed, long concurrent, long input, long output) {
+            if (success != 0) {
+                this.success.add(success);
+            }
+            if (failure != 0) {
+                this.failure.add(failure);
+            }
+            if (input != 0) {
+                this.input.add(input);
+                maxInput.accumulate(input);
+            }
+            if (output != 0) {
+                this.output.add(output);
+                maxOutput.accumulate(output);
+            }
+            this.elapsed.add(elapsed);
+            maxElapsed.accumulate(elapsed);
+            this.concurrent.add(concurrent);
+            this.samples.increment();
+            maxConcurrent.accumulate(concurrent);
+        }
+    }
+
 }
@@ -20,6 +20,7 @@ import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.extension.ExtensionLoader;
 import org.apache.dubbo.monitor.Monitor;
 import org.apache.dubbo.monitor.MonitorFactory;
+import org.apache.dubbo.monitor.MonitorKey;
 import org.apache.dubbo.monitor.MonitorService;
 import org.apache.dubbo.rpc.Exporter;
 import org.apache.dubbo.rpc.Invocation;
@@ -45,6 +46,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -238,4 +240,44 @@ public class DubboMonitorTest {
 
         verify(monitorService).lookup(eq(queryUrl));
     }
+
+    @Test
+    public void testCollectByKey() {
+        Invoker invoker = mock(Invoker.class);
+        MonitorService monitorService = mock(MonitorService.class);
+        given(invoker.getUrl()).willReturn(URL.valueOf("dubbo://127.0.0.1:7070?interval=600000"));
+        DubboMonitor dubboMonitor = new DubboMonitor(invoker, monitorService);
+
+        MonitorKey key = MonitorKey.of("morgan", "MemberService", "findPerson", null, null, 20880, MonitorService.CONSUMER, "10.20.153.11");
+        dubboMonitor.collect(key, true, 3, 1, 10, 20);
+        dubboMonitor.collect(MonitorKey.of("morgan", "MemberService", "findPerson", null, null, 20880, MonitorService.CONSUMER, "10.20.153.11"),
+                true, 5, 3, 0, 40);
+        dubboMonitor.collect(key, false, 1, 2, 0, 0);
+        dubboMonitor.send();
+
+        ArgumentCaptor<URL> summaryCaptor = ArgumentCaptor.forClass(URL.class);
+        verify(monitorService, times(1)).collect(summaryCaptor.capture());
+        URL summary = summaryCaptor.getValue();
+        assertThat(summary.getParameter(MonitorService.APPLICATION), is("morgan"));
+        assertThat(summary.getParameter(MonitorService.INTERFACE), is("MemberService"));
+        assertThat(summary.getParameter(MonitorService.METHOD), is("findPerson"));
+        assertThat(summary.getParameter(MonitorService.CONSUMER), is("10.20.153.11"));
+        assertThat(summary.getParameter(MonitorService.SUCCESS, 0), is(2));
+        assertThat(summary.getParameter(MonitorService.FAILURE, 0), is(1));
+        assertThat(summary.getParameter(MonitorService.ELAPSED, 0), is(9));
+        assertThat(summary.getParameter(MonitorService.MAX_ELAPSED, 0), is(5));
+        assertThat(summary.getParameter(MonitorService.CONCURRENT, 0), is(2));
+        assertThat(summary.getParameter(MonitorService.MAX_CONCURRENT, 0), is(3));
+        assertThat(summary.getParameter(MonitorService.INPUT, 0), is(10));
+        assertThat(summary.getParameter(MonitorService.OUTPUT, 0), is(60));
+        assertThat(summary.getParameter(MonitorService.MAX_OUTPUT, 0), is(40));
+
+        // counters are reset after sending
+        dubboMonitor.send();
+        verify(monitorService, times(2)).collect(summaryCaptor.capture());
+        summary = summaryCaptor.getValue();
+        assertThat(summary.getParameter(MonitorService.SUCCESS, 0), is(0));
+        assertThat(summary.getParameter(MonitorService.MAX_ELAPSED, 0), is(0));
+        dubboMonitor.destroy();
+    }
 }
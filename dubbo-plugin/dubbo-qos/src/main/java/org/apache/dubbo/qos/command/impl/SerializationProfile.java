@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.qos.command.impl;
+
+import org.apache.dubbo.qos.command.BaseCommand;
+import org.apache.dubbo.qos.command.CommandContext;
+import org.apache.dubbo.qos.command.annotation.Cmd;
+import org.apache.dubbo.qos.textui.TTable;
+import org.apache.dubbo.remoting.transport.SerializationProfiler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@Cmd(name = "serialization", summary = "show the sampled serialization cost of the methods", example = {
+        "serialization",
+        "serialization xx.xx.xxx.service",
+        "serialization reset"
+})
+public class SerializationProfile implements BaseCommand {
+
+    private static final int TOP_CLASSES = 3;
+
+    @Override
+    public String execute(CommandContext commandContext, String[] args) {
+        if (args != null && args.length > 0 && "reset".equals(args[0])) {
+            SerializationProfiler.reset();
+            return "OK";
+        }
+        String servicePattern = ".*";
+        if (args != null && args.length > 0) {
+            servicePattern = args[0];
+        }
+
+        TTable tTable = new TTable(new TTable.ColumnDefine[]{
+                new TTable.ColumnDefine(TTable.Align.LEFT),
+                new TTable.ColumnDefine(TTable.Align.LEFT),
+                new TTable.ColumnDefine(TTable.Align.MIDDLE),
+                new TTable.ColumnDefine(TTable.Align.RIGHT),
+                new TTable.ColumnDefine(TTable.Align.RIGHT),
+                new TTable.ColumnDefine(TTable.Align.RIGHT),
+                new TTable.ColumnDefine(TTable.Align.RIGHT),
+                new TTable.ColumnDefine(TTable.Align.LEFT),
+                new TTable.ColumnDefine(TTable.Align.LEFT)
+        });
+
+        //Header
+        tTable.addRow("Service", "Method", "Direction", "Count", "Avg Bytes", "Max Bytes", "Avg Time(us)",
+                "Sizes", "Top Classes");
+
+        //Content
+        List<String> keys = new ArrayList<String>(SerializationProfiler.getProfilers().keySet());
+        Collections.sort(keys);
+        for (String key : keys) {
+            SerializationProfiler profiler = SerializationProfiler.getProfilers().get(key);
+            if (!String.valueOf(profiler.getService()).matches(servicePattern)) {
+                continue;
+            }
+            addRow(tTable, profiler, "encode", profiler.getEncode());
+            addRow(tTable, profiler, "decode", profiler.getDecode());
+        }
+        return tTable.rendering();
+    }
+
+    private void addRow(TTable tTable, SerializationProfiler profiler, String direction, SerializationProfiler.Stats stats) {
+        if (stats.getCount() == 0) {
+            return;
+        }
+        tTable.addRow(profiler.getService(), profiler.getMethod(), direction, stats.getCount(), stats.getAverageBytes(),
+                stats.getMaxBytes(), stats.getAverageNanos() / 1000, sizes(stats), topClasses(stats));
+    }
+
+    private String sizes(SerializationProfiler.Stats stats) {
+        StringBuilder buf = new StringBuilder();
+        long[] histogram = stats.getSizeHistogram();
+        for (int i = 0; i < histogram.length; i++) {
+            if (histogram[i] == 0) {
+                continue;
+            }
+            if (buf.length() > 0) {
+                buf.append(' ');
+            }
+            buf.append(i < SerializationProfiler.SIZE_BUCKETS.length ? "<=" + SerializationProfiler.SIZE_BUCKETS[i]
+                    : ">" + SerializationProfiler.SIZE_BUCKETS[i - 1]).append(':').append(histogram[i]);
+        }
+        return buf.toString();
+    }
+
+    private String topClasses(SerializationProfiler.Stats stats) {
+        StringBuilder buf = new StringBuilder();
+        List<SerializationProfiler.ClassStats> classes = stats.getClasses();
+        for (int i = 0; i < classes.size() && i < TOP_CLASSES; i++) {
+            SerializationProfiler.ClassStats classStats = classes.get(i);
+            if (buf.length() > 0) {
+                buf.append(' ');
+            }
+            buf.append('(').append(classStats.getClasses()).append(")x").append(classStats.getCount())
+                    .append(':').append(classStats.getBytes() / classStats.getCount()).append('B');
+        }
+        return buf.toString();
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.qos.metrics;
+
+import org.apache.dubbo.metrics.BucketCounter;
+import org.apache.dubbo.metrics.Compass;
+import org.apache.dubbo.metrics.Counter;
+import org.apache.dubbo.metrics.Gauge;
+import org.apache.dubbo.metrics.Metric;
+import org.apache.dubbo.metrics.MetricName;
+import org.apache.dubbo.metrics.Sampling;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Render the metrics as one JSON object keyed by group, each group holding an array of metrics:
+ * <pre>
+ * {"dubbo":[
+ *   {"name":"dubbo.consumer.pending","tags":{},"type":"gauge","value":3},
+ *   {"name":"dubbo.codec.encode.bytes","tags":{},"type":"bucket","interval":5,"value":1024},
+ *   {"name":"dubbo.provider.invoke","tags":{"method":"sayHello","service":"DemoService"},"type":"compass",
+ *    "interval":5,"count":100,"sum":230,"max":12,"p50":2,"p90":4,"p99":9,"p99.9":12,
+ *    "categories":{"success":{"count":20,"rt":46}}}
+ * ]}
+ * </pre>
+ * Bucket counters and compass categories report their last complete bucket.
+ */
+public class JsonMetricsWriter extends MetricsWriter {
+
+    public static final String CONTENT_TYPE = "application/json; charset=utf-8";
+
+    private boolean firstGroup = true;
+
+    private boolean firstMetric;
+
+    public JsonMetricsWriter(Appendable out) {
+        super(out);
+    }
+
+    @Override
+    protected void begin() throws IOException {
+        out.append('{');
+    }
+
+    @Override
+    protected void beginGroup(String group) throws IOException {
+        if (!firstGroup) {
+            out.append(',');
+        }
+        firstGroup = false;
+        firstMetric = true;
+        writeString(group);
+        out.append(":[");
+    }
+
+    @Override
+    protected void writeFamily(String group, String key, Class<? extends Metric> type,
+                               List<Map.Entry<MetricName, Metric>> metrics) throws IOException {
+        for (Map.Entry<MetricName, Metric> entry : metrics) {
+            MetricName name = entry.getKey();
+            Metric metric = entry.getValue();
+            if (type == Gauge.class) {
+                Number value = getValue(name, (Gauge<?>) metric);
+                if (value == null) {
+                    continue;
+                }
+                beginMetric(name, "gauge");
+                out.append(",\"value\":").append(formatJsonNumber(value));
+            } else if (type == Counter.class) {
+                beginMetric(name, "counter");
+                out.append(",\"value\":").append(Long.toString(((Counter) metric).getCount()));
+            } else if (type == BucketCounter.class) {
+                BucketCounter counter = (BucketCounter) metric;
+                int interval = counter.getBucketInterval();
+                beginMetric(name, "bucket");
+                out.append(",\"interval\":").append(Integer.toString(interval));
+                out.append(",\"value\":").append(Long.toString(getLastBucket(counter.getBucketCounts(getLastBucketStart(interval)), interval)));
+            } else if (type == Compass.class) {
+                beginMetric(name, "compass");
+                writeCompass((Compass) metric);
+            }
+            out.append('}');
+        }
+    }
+
+    private void writeCompass(Compass compass) throws IOException {
+        int interval = compass.getBucketInterval();
+        out.append(",\"interval\":").append(Integer.toString(interval));
+        if (compass instanceof Sampling) {
+            Sampling sampling = (Sampling) compass;
+            out.append(",\"count\":").append(Long.toString(sampling.getCount()));
+            out.append(",\"sum\":").append(Long.toString(sampling.getSum()));
+            out.append(",\"max\":").append(Long.toString(sampling.getMax()));
+            for (double percentile : PERCENTILES) {
+                out.append(",\"p").append(formatNumber(percentile)).append("\":")
+                        .append(Long.toString(sampling.getValueAtPercentile(percentile)));
+            }
+        }
+        long start = getLastBucketStart(interval);
+        Map<String, Map<Long, Long>> counts = compass.getMethodCountPerCategory(start);
+        Map<String, Map<Long, Long>> rts = compass.getMethodRtPerCategory(start);
+        out.append(",\"categories\":{");
+        boolean first = true;
+        for (Map.Entry<String, Map<Long, Long>> category : counts.entrySet()) {
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            writeString(category.getKey());
+            out.append(":{\"count\":").append(Long.toString(getLastBucket(category.getValue(), interval)));
+            out.append(",\"rt\":").append(Long.toString(getLastBucket(rts.get(category.getKey()), interval)));
+            out.append('}');
+        }
+        out.append('}');
+    }
+
+    private void beginMetric(MetricName name, String type) throws IOException {
+        if (!firstMetric) {
+            out.append(',');
+        }
+        firstMetric = false;
+        out.append("{\"name\":");
+        writeString(name.getKey());
+        out.append(",\"tags\":{");
+        boolean first = true;
+        for (Map.Entry<String, String> tag : name.getTags().entrySet()) {
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            writeString(tag.getKey());
+            out.append(':');
+            writeString(tag.getValue());
+        }
+        out.append("},\"type\":\"").append(type).append('"');
+    }
+
+    @Override
+    protected void endGroup(String group) throws IOException {
+        out.append(']');
+    }
+
+    @Override
+    protected void end() throws IOException {
+        out.append('}');
+    }
+
+    private static String formatJsonNumber(Number value) {
+        String formatted = formatNumber(value);
+        // NaN and infinities have no JSON representation
+        return formatted.endsWith("Inf") || "NaN".equals(formatted) ? "null" : formatted;
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+}
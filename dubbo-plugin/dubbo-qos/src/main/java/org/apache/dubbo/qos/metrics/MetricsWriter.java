@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.qos.metrics;
+
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.metrics.BucketCounter;
+import org.apache.dubbo.metrics.Compass;
+import org.apache.dubbo.metrics.Counter;
+import org.apache.dubbo.metrics.Gauge;
+import org.apache.dubbo.metrics.IMetricManager;
+import org.apache.dubbo.metrics.Metric;
+import org.apache.dubbo.metrics.MetricName;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Render all the metrics of an {@link IMetricManager} into an {@link Appendable}, one metric at a time, so the
+ * output can be streamed out while it is produced.
+ * <p>
+ * Metrics are visited group by group, the metrics of a group sharing the same key and type are handed over
+ * together as one family.
+ */
+public abstract class MetricsWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsWriter.class);
+
+    /**
+     * Percentiles reported for the compasses.
+     */
+    protected static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    /**
+     * Upper bounds in milliseconds of the cumulative histogram buckets reported for the compasses.
+     */
+    protected static final long[] HISTOGRAM_BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+    protected final Appendable out;
+
+    protected MetricsWriter(Appendable out) {
+        this.out = out;
+    }
+
+    public void write(IMetricManager manager) throws IOException {
+        begin();
+        for (String group : manager.listMetricGroups()) {
+            beginGroup(group);
+            List<Map.Entry<MetricName, Metric>> family = new ArrayList<Map.Entry<MetricName, Metric>>();
+            String familyKey = null;
+            Class<? extends Metric> familyType = null;
+            for (Map.Entry<MetricName, Metric> entry : manager.getMetrics(group).entrySet()) {
+                Class<? extends Metric> type = getType(entry.getValue());
+                if (type == null) {
+                    continue;
+                }
+                String key = String.valueOf(entry.getKey().getKey());
+                if (!family.isEmpty() && (!key.equals(familyKey) || type != familyType)) {
+                    writeFamily(group, familyKey, familyType, family);
+                    family.clear();
+                }
+                familyKey = key;
+                familyType = type;
+                family.add(entry);
+            }
+            if (!family.isEmpty()) {
+                writeFamily(group, familyKey, familyType, family);
+            }
+            endGroup(group);
+        }
+        end();
+    }
+
+    private static Class<? extends Metric> getType(Metric metric) {
+        if (metric instanceof Gauge) {
+            return Gauge.class;
+        } else if (metric instanceof Counter) {
+            return Counter.class;
+        } else if (metric instanceof Compass) {
+            return Compass.class;
+        } else if (metric instanceof BucketCounter) {
+            return BucketCounter.class;
+        }
+        return null;
+    }
+
+    protected void begin() throws IOException {
+    }
+
+    protected void beginGroup(String group) throws IOException {
+    }
+
+    /**
+     * @param type one of {@link Gauge}, {@link Counter}, {@link Compass} and {@link BucketCounter}
+     */
+    protected abstract void writeFamily(String group, String key, Class<? extends Metric> type,
+                                        List<Map.Entry<MetricName, Metric>> metrics) throws IOException;
+
+    protected void endGroup(String group) throws IOException {
+    }
+
+    protected void end() throws IOException {
+    }
+
+    /**
+     * @return the numeric value of the gauge, booleans as 1 or 0, null if it has none or fails
+     */
+    protected static Number getValue(MetricName name, Gauge<?> gauge) {
+        try {
+            Object value = gauge.getValue();
+            if (value instanceof Number) {
+                return (Number) value;
+            }
+            if (value instanceof Boolean) {
+                return (Boolean) value ? 1 : 0;
+            }
+        } catch (Throwable t) {
+            logger.warn("Failed to read gauge " + name + ", cause: " + t.getMessage(), t);
+        }
+        return null;
+    }
+
+    /**
+     * @return the value of the last complete bucket, 0 if nothing was counted during it
+     */
+    protected static long getLastBucket(Map<Long, Long> buckets, int interval) {
+        if (interval <= 0 || buckets == null) {
+            return 0;
+        }
+        Long value = buckets.get(getLastBucketStart(interval));
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * The start time to ask bucketed metrics for, so that only the last complete bucket and the current one are built.
+     */
+    protected static long getLastBucketStart(int interval) {
+        if (interval <= 0) {
+            return 0;
+        }
+        long intervalMillis = interval * 1000L;
+        return (System.currentTimeMillis() / intervalMillis - 1) * intervalMillis;
+    }
+
+    protected static String formatNumber(Number number) {
+        if (number instanceof Double || number instanceof Float) {
+            double value = number.doubleValue();
+            if (Double.isNaN(value)) {
+                return "NaN";
+            }
+            if (Double.isInfinite(value)) {
+                return value > 0 ? "+Inf" : "-Inf";
+            }
+            if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+                return Long.toString((long) value);
+            }
+            return Double.toString(value);
+        }
+        return number.toString();
+    }
+
+}
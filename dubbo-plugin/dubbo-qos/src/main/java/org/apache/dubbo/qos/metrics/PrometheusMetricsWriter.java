@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.qos.metrics;
+
+import org.apache.dubbo.metrics.BucketCounter;
+import org.apache.dubbo.metrics.Compass;
+import org.apache.dubbo.metrics.Counter;
+import org.apache.dubbo.metrics.Gauge;
+import org.apache.dubbo.metrics.Metric;
+import org.apache.dubbo.metrics.MetricName;
+import org.apache.dubbo.metrics.Sampling;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Render the metrics in the Prometheus text exposition format (version 0.0.4).
+ * <ul>
+ * <li>gauges and counters are written as gauges, counters may go down</li>
+ * <li>bucket counters are written as gauges holding the count of their last complete bucket</li>
+ * <li>compasses are written as a histogram of their response times, plus two gauges
+ * <code>_interval_count</code> and <code>_interval_rt</code> per category for their last complete bucket</li>
+ * </ul>
+ * Metric keys and tag names are sanitized, dots becoming underscores.
+ */
+public class PrometheusMetricsWriter extends MetricsWriter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    public PrometheusMetricsWriter(Appendable out) {
+        super(out);
+    }
+
+    @Override
+    protected void writeFamily(String group, String key, Class<? extends Metric> type,
+                               List<Map.Entry<MetricName, Metric>> metrics) throws IOException {
+        String name = sanitize(key);
+        if (type == Gauge.class) {
+            writeHeader(name, "gauge", null);
+            for (Map.Entry<MetricName, Metric> entry : metrics) {
+                Number value = getValue(entry.getKey(), (Gauge<?>) entry.getValue());
+                if (value != null) {
+                    writeSample(name, entry.getKey(), null, null, formatNumber(value));
+                }
+            }
+        } else if (type == Counter.class) {
+            writeHeader(name, "gauge", null);
+            for (Map.Entry<MetricName, Metric> entry : metrics) {
+                writeSample(name, entry.getKey(), null, null, Long.toString(((Counter) entry.getValue()).getCount()));
+            }
+        } else if (type == BucketCounter.class) {
+            writeHeader(name, "gauge", "Count of the last complete bucket.");
+            for (Map.Entry<MetricName, Metric> entry : metrics) {
+                BucketCounter counter = (BucketCounter) entry.getValue();
+                int interval = counter.getBucketInterval();
+                long value = getLastBucket(counter.getBucketCounts(getLastBucketStart(interval)), interval);
+                writeSample(name, entry.getKey(), null, null, Long.toString(value));
+            }
+        } else if (type == Compass.class) {
+            writeCompasses(name, metrics);
+        }
+    }
+
+    private void writeCompasses(String name, List<Map.Entry<MetricName, Metric>> metrics) throws IOException {
+        boolean sampled = false;
+        for (Map.Entry<MetricName, Metric> entry : metrics) {
+            if (entry.getValue() instanceof Sampling) {
+                if (!sampled) {
+                    writeHeader(name, "histogram", "Response time in milliseconds.");
+                    sampled = true;
+                }
+                Sampling sampling = (Sampling) entry.getValue();
+                for (long bound : HISTOGRAM_BOUNDS) {
+                    writeSample(name + "_bucket", entry.getKey(), "le", Long.toString(bound), Long.toString(sampling.getCountAtOrBelow(bound)));
+                }
+                long count = sampling.getCount();
+                writeSample(name + "_bucket", entry.getKey(), "le", "+Inf", Long.toString(count));
+                writeSample(name + "_sum", entry.getKey(), null, null, Long.toString(sampling.getSum()));
+                writeSample(name + "_count", entry.getKey(), null, null, Long.toString(count));
+            }
+        }
+        writeHeader(name + "_interval_count", "gauge", "Invocations of the last complete bucket, by category.");
+        for (Map.Entry<MetricName, Metric> entry : metrics) {
+            Compass compass = (Compass) entry.getValue();
+            int interval = compass.getBucketInterval();
+            for (Map.Entry<String, Map<Long, Long>> category : compass.getMethodCountPerCategory(getLastBucketStart(interval)).entrySet()) {
+                writeSample(name + "_interval_count", entry.getKey(), "category", category.getKey(),
+                        Long.toString(getLastBucket(category.getValue(), interval)));
+            }
+        }
+        writeHeader(name + "_interval_rt", "gauge", "Sum of the response times in milliseconds of the last complete bucket, by category.");
+        for (Map.Entry<MetricName, Metric> entry : metrics) {
+            Compass compass = (Compass) entry.getValue();
+            int interval = compass.getBucketInterval();
+            for (Map.Entry<String, Map<Long, Long>> category : compass.getMethodRtPerCategory(getLastBucketStart(interval)).entrySet()) {
+                writeSample(name + "_interval_rt", entry.getKey(), "category", category.getKey(),
+                        Long.toString(getLastBucket(category.getValue(), interval)));
+            }
+        }
+    }
+
+    private void writeHeader(String name, String type, String help) throws IOException {
+        if (help != null) {
+            out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        }
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private void writeSample(String name, MetricName metricName, String extraLabel, String extraValue, String value) throws IOException {
+        out.append(name);
+        Map<String, String> tags = metricName.getTags();
+        if (!tags.isEmpty() || extraLabel != null) {
+            out.append('{');
+            boolean first = true;
+            for (Map.Entry<String, String> tag : new TreeMap<String, String>(tags).entrySet()) {
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                writeLabel(sanitize(tag.getKey()), tag.getValue());
+            }
+            if (extraLabel != null) {
+                if (!first) {
+                    out.append(',');
+                }
+                writeLabel(extraLabel, extraValue);
+            }
+            out.append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private void writeLabel(String label, String value) throws IOException {
+        out.append(label).append("=\"");
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\\' || c == '"') {
+                    out.append('\\').append(c);
+                } else if (c == '\n') {
+                    out.append("\\n");
+                } else {
+                    out.append(c);
+                }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Replace the characters not allowed in metric and label names by underscores.
+     */
+    static String sanitize(String name) {
+        if (name == null || name.isEmpty()) {
+            return "_";
+        }
+        StringBuilder builder = null;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':'
+                    || (i > 0 && c >= '0' && c <= '9');
+            if (!valid && builder == null) {
+                builder = new StringBuilder(name.length());
+                builder.append(name, 0, i);
+            }
+            if (builder != null) {
+                builder.append(valid ? c : '_');
+            }
+        }
+        return builder == null ? name : builder.toString();
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.qos.server.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+
+import java.io.IOException;
+
+/**
+ * Appendable encoding the text in utf-8 straight into a netty buffer, which is written out as an http chunk
+ * each time it fills up, so a large body is never held in memory as a whole.
+ * <p>
+ * Once the channel goes past its high water mark, appending waits for the chunk just written to reach the socket,
+ * so a slow reader holds back the rendering instead of piling chunks up in the outbound buffer. It blocks the
+ * calling thread, which must not be the event loop of the channel.
+ */
+class ChunkedContentAppendable implements Appendable {
+
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    static final long WRITE_TIMEOUT_MILLIS = 30 * 1000;
+
+    private final ChannelHandlerContext ctx;
+
+    private ByteBuf buffer;
+
+    ChunkedContentAppendable(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+        this.buffer = ctx.alloc().buffer(CHUNK_SIZE);
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+        ByteBufUtil.writeUtf8(buffer, csq == null ? "null" : csq);
+        flushIfFull();
+        return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        return append(csq == null ? "null" : csq.subSequence(start, end));
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+        if (c < 0x80) {
+            buffer.writeByte(c);
+            flushIfFull();
+            return this;
+        }
+        return append(String.valueOf(c));
+    }
+
+    private void flushIfFull() throws IOException {
+        if (buffer.readableBytes() >= CHUNK_SIZE) {
+            ChannelFuture future = ctx.writeAndFlush(new DefaultHttpContent(buffer));
+            buffer = null;
+            awaitWritable(future);
+            buffer = ctx.alloc().buffer(CHUNK_SIZE);
+        }
+    }
+
+    private void awaitWritable(ChannelFuture future) throws IOException {
+        if (!ctx.channel().isWritable() && !future.awaitUninterruptibly(WRITE_TIMEOUT_MILLIS)) {
+            throw new IOException("Timed out after " + WRITE_TIMEOUT_MILLIS + "ms waiting for " + ctx.channel() + " to drain");
+        }
+        if (future.isDone() && !future.isSuccess()) {
+            throw new IOException("Failed to write to " + ctx.channel() + ", cause: " + future.cause(), future.cause());
+        }
+    }
+
+    /**
+     * Write the remaining content as the last chunk.
+     */
+    ChannelFuture finish() {
+        ByteBuf last = buffer;
+        buffer = null;
+        return ctx.writeAndFlush(new DefaultLastHttpContent(last));
+    }
+
+    /**
+     * Drop the content not written yet.
+     */
+    void release() {
+        if (buffer != null) {
+            buffer.release();
+            buffer = null;
+        }
+    }
+
+}
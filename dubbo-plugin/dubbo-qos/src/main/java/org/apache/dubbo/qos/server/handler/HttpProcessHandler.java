@@ -18,21 +18,36 @@ package org.apache.dubbo.qos.server.handler;
 
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.utils.NamedThreadFactory;
+import org.apache.dubbo.metrics.MetricManager;
 import org.apache.dubbo.qos.command.CommandContext;
 import org.apache.dubbo.qos.command.CommandExecutor;
 import org.apache.dubbo.qos.command.DefaultCommandExecutor;
 import org.apache.dubbo.qos.command.NoSuchCommandException;
 import org.apache.dubbo.qos.command.decoder.HttpCommandDecoder;
+import org.apache.dubbo.qos.metrics.JsonMetricsWriter;
+import org.apache.dubbo.qos.metrics.MetricsWriter;
+import org.apache.dubbo.qos.metrics.PrometheusMetricsWriter;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Parse HttpRequest for uri and parameters
@@ -43,16 +58,29 @@ import io.netty.handler.codec.http.HttpVersion;
  * <li>if succeed, return 200</li>
  * </ul>
  * <p>
+ * <code>/metrics</code> streams all the registered metrics in the Prometheus text format, or in JSON with
+ * <code>/metrics?format=json</code>, <code>/metrics.json</code> or an <code>Accept: application/json</code> header.
+ * They are rendered off the event loop, at the pace the client reads them, 503 when too many scrapes are running.
+ * <p>
  * will disconnect after execution finishes
  */
 public class HttpProcessHandler extends SimpleChannelInboundHandler<HttpRequest> {
 
     private static final Logger log = LoggerFactory.getLogger(HttpProcessHandler.class);
     private static CommandExecutor commandExecutor = new DefaultCommandExecutor();
-
+    private static final String METRICS_PATH = "/metrics";
+    private static final String JSON_METRICS_PATH = "/metrics.json";
+    private static final ExecutorService metricsExecutor = new ThreadPoolExecutor(0, 4, 60L, TimeUnit.SECONDS,
+            new SynchronousQueue<Runnable>(), new NamedThreadFactory("DubboQosMetrics", true));
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, HttpRequest msg) throws Exception {
+        QueryStringDecoder queryStringDecoder = new QueryStringDecoder(msg.getUri());
+        String path = queryStringDecoder.path();
+        if (METRICS_PATH.equals(path) || JSON_METRICS_PATH.equals(path)) {
+            writeMetrics(ctx, JSON_METRICS_PATH.equals(path) || isJsonRequested(msg, queryStringDecoder));
+            return;
+        }
         CommandContext commandContext = HttpCommandDecoder.decode(msg);
         // return 404 when fail to construct command context
         if (commandContext == null) {
@@ -77,6 +105,50 @@ public class HttpProcessHandler extends SimpleChannelInboundHandler<HttpRequest>
         }
     }
 
+    private static boolean isJsonRequested(HttpRequest msg, QueryStringDecoder queryStringDecoder) {
+        List<String> format = queryStringDecoder.parameters().get("format");
+        if (format != null && !format.isEmpty()) {
+            return "json".equalsIgnoreCase(format.get(0));
+        }
+        HttpHeaders headers = msg.headers();
+        String accept = headers == null ? null : headers.get(HttpHeaders.Names.ACCEPT);
+        return accept != null && accept.contains("application/json");
+    }
+
+    private static void writeMetrics(final ChannelHandlerContext ctx, final boolean json) {
+        try {
+            metricsExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    renderMetrics(ctx, json);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Too many metrics requests in progress, reject the one from " + ctx.channel());
+            ctx.writeAndFlush(http_503()).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    // render the metrics chunk by chunk into the response, never holding the whole body
+    private static void renderMetrics(ChannelHandlerContext ctx, boolean json) {
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set(HttpHeaders.Names.CONTENT_TYPE, json ? JsonMetricsWriter.CONTENT_TYPE : PrometheusMetricsWriter.CONTENT_TYPE);
+        HttpHeaders.setTransferEncodingChunked(response);
+        ctx.write(response);
+        ChunkedContentAppendable content = new ChunkedContentAppendable(ctx);
+        MetricsWriter writer = json ? new JsonMetricsWriter(content) : new PrometheusMetricsWriter(content);
+        try {
+            writer.write(MetricManager.getIMetricManager());
+        } catch (Throwable t) {
+            // the status line is gone already, dropping the connection tells the scraper the body is incomplete
+            log.error("Failed to write metrics, cause: " + t.getMessage(), t);
+            content.release();
+            ctx.close();
+            return;
+        }
+        content.finish().addListener(ChannelFutureListener.CLOSE);
+    }
+
     private static final FullHttpResponse http_200(String result) {
         FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
                 Unpooled.wrappedBuffer(result.getBytes()));
@@ -94,6 +166,14 @@ public class HttpProcessHandler extends SimpleChannelInboundHandler<HttpRequest>
         return response;
     }
 
+    private static final FullHttpResponse http_503() {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.SERVICE_UNAVAILABLE);
+        HttpHeaders httpHeaders = response.headers();
+        httpHeaders.set(HttpHeaders.Names.CONTENT_TYPE, "text/plain");
+        httpHeaders.set(HttpHeaders.Names.CONTENT_LENGTH, response.content().readableBytes());
+        return response;
+    }
+
     private static final FullHttpResponse http_500(String errorMessage) {
         FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.INTERNAL_SERVER_ERROR
                 , Unpooled.wrappedBuffer(errorMessage.getBytes()));
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.qos.command.impl;
+
+import org.apache.dubbo.qos.command.CommandContext;
+import org.apache.dubbo.remoting.transport.SerializationProfiler;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class SerializationProfileTest {
+    @Test
+    public void testExecute() throws Exception {
+        SerializationProfiler profiler = SerializationProfiler.getProfiler("org.apache.dubbo.FooService", "sayHello");
+        profiler.encoded("org.apache.dubbo.HelloRequest", 120, 50000);
+        profiler.encoded("org.apache.dubbo.HelloRequest", 2000, 150000);
+        profiler.decoded("java.lang.String", 40, 10000);
+
+        SerializationProfile command = new SerializationProfile();
+        String output = command.execute(mock(CommandContext.class), null);
+        assertThat(output, containsString("org.apache.dubbo.FooService"));
+        assertThat(output, containsString("sayHello"));
+        assertThat(output, containsString("1060"));
+        assertThat(output, containsString("<=256:1 <=4096:1"));
+        assertThat(output, containsString("(org.apache.dubbo.HelloRequest)x2:1060B"));
+
+        output = command.execute(mock(CommandContext.class), new String[]{"org.apache.dubbo.BarService"});
+        assertThat(output, not(containsString("sayHello")));
+
+        command.execute(mock(CommandContext.class), new String[]{"reset"});
+        output = command.execute(mock(CommandContext.class), null);
+        assertThat(output, not(containsString("sayHello")));
+    }
+}
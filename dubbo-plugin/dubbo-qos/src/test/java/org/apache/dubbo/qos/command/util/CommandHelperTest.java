@@ -22,6 +22,7 @@ import org.apache.dubbo.qos.command.impl.Ls;
 import org.apache.dubbo.qos.command.impl.Offline;
 import org.apache.dubbo.qos.command.impl.Online;
 import org.apache.dubbo.qos.command.impl.Quit;
+import org.apache.dubbo.qos.command.impl.SerializationProfile;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 
@@ -44,7 +45,8 @@ public class CommandHelperTest {
     @Test
     public void testGetAllCommandClass() throws Exception {
         List<Class<?>> classes = CommandHelper.getAllCommandClass();
-        assertThat(classes, containsInAnyOrder(GreetingCommand.class, Help.class, Ls.class, Offline.class, Online.class, Quit.class));
+        assertThat(classes, containsInAnyOrder(GreetingCommand.class, Help.class, Ls.class, Offline.class, Online.class, Quit.class,
+                SerializationProfile.class));
     }
 
     @Test
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.qos.metrics;
+
+import org.apache.dubbo.metrics.MetricName;
+import org.apache.dubbo.metrics.support.DefaultMetricManager;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+
+public class JsonMetricsWriterTest {
+
+    @Test
+    public void testWrite() throws Exception {
+        DefaultMetricManager manager = new DefaultMetricManager(5, 3);
+        manager.getCounter("dubbo", new MetricName("dubbo.registry.notify").tag("registry", "127.0.0.1:2181")).inc(3);
+        manager.getCompass("dubbo", new MetricName("dubbo.provider.invoke").tag("service", "Demo\"Service", "method", "sayHello"))
+                .record(3, "success");
+        manager.getCounter("other", new MetricName("other.counter")).inc();
+
+        StringBuilder out = new StringBuilder();
+        new JsonMetricsWriter(out).write(manager);
+        JSONObject json = JSON.parseObject(out.toString());
+
+        JSONArray dubbo = json.getJSONArray("dubbo");
+        assertThat(dubbo.size(), equalTo(2));
+        JSONObject counter = find(dubbo, "dubbo.registry.notify");
+        assertThat(counter.getString("type"), equalTo("counter"));
+        assertThat(counter.getLong("value"), equalTo(3L));
+        assertThat(counter.getJSONObject("tags").getString("registry"), equalTo("127.0.0.1:2181"));
+
+        JSONObject compass = find(dubbo, "dubbo.provider.invoke");
+        assertThat(compass.getString("type"), equalTo("compass"));
+        assertThat(compass.getJSONObject("tags").getString("service"), equalTo("Demo\"Service"));
+        assertThat(compass.getInteger("interval"), equalTo(5));
+        assertThat(compass.getLong("count"), equalTo(1L));
+        assertThat(compass.getLong("sum"), equalTo(3L));
+        assertThat(compass.getLong("max"), equalTo(3L));
+        assertThat(compass.getLong("p99.9"), equalTo(3L));
+        assertThat(compass.getJSONObject("categories"), notNullValue());
+
+        assertThat(json.getJSONArray("other").getJSONObject(0).getLong("value"), equalTo(1L));
+    }
+
+    @Test
+    public void testWriteEmpty() throws Exception {
+        StringBuilder out = new StringBuilder();
+        new JsonMetricsWriter(out).write(new DefaultMetricManager(5, 3));
+        assertThat(out.toString(), equalTo("{}"));
+    }
+
+    private static JSONObject find(JSONArray metrics, String name) {
+        for (int i = 0; i < metrics.size(); i++) {
+            JSONObject metric = metrics.getJSONObject(i);
+            if (name.equals(metric.getString("name"))) {
+                return metric;
+            }
+        }
+        throw new AssertionError("metric " + name + " not found in " + metrics);
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.qos.metrics;
+
+import org.apache.dubbo.metrics.Gauge;
+import org.apache.dubbo.metrics.MetricName;
+import org.apache.dubbo.metrics.support.DefaultMetricManager;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class PrometheusMetricsWriterTest {
+
+    @Test
+    public void testWrite() throws Exception {
+        DefaultMetricManager manager = new DefaultMetricManager(5, 3);
+        manager.getCounter("dubbo", new MetricName("dubbo.registry.notify").tag("registry", "127.0.0.1:2181")).inc(3);
+        manager.register("dubbo", new MetricName("dubbo.consumer.pending"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return 7;
+            }
+
+            @Override
+            public long lastUpdateTime() {
+                return 0;
+            }
+        });
+        manager.getCompass("dubbo", new MetricName("dubbo.provider.invoke").tag("service", "Demo\"Service", "method", "sayHello"))
+                .record(3, "success");
+        manager.getBucketCounter("dubbo", new MetricName("dubbo.codec.encode.bytes")).update(100);
+
+        StringBuilder out = new StringBuilder();
+        new PrometheusMetricsWriter(out).write(manager);
+        String text = out.toString();
+
+        assertThat(text, containsString("# TYPE dubbo_registry_notify gauge\ndubbo_registry_notify{registry=\"127.0.0.1:2181\"} 3\n"));
+        assertThat(text, containsString("# TYPE dubbo_consumer_pending gauge\ndubbo_consumer_pending 7\n"));
+        assertThat(text, containsString("# TYPE dubbo_provider_invoke histogram\n"));
+        assertThat(text, containsString("dubbo_provider_invoke_bucket{method=\"sayHello\",service=\"Demo\\\"Service\",le=\"2\"} 0\n"));
+        assertThat(text, containsString("dubbo_provider_invoke_bucket{method=\"sayHello\",service=\"Demo\\\"Service\",le=\"5\"} 1\n"));
+        assertThat(text, containsString("dubbo_provider_invoke_bucket{method=\"sayHello\",service=\"Demo\\\"Service\",le=\"+Inf\"} 1\n"));
+        assertThat(text, containsString("dubbo_provider_invoke_sum{method=\"sayHello\",service=\"Demo\\\"Service\"} 3\n"));
+        assertThat(text, containsString("dubbo_provider_invoke_count{method=\"sayHello\",service=\"Demo\\\"Service\"} 1\n"));
+        assertThat(text, containsString("# TYPE dubbo_provider_invoke_interval_count gauge\n"));
+        assertThat(text, containsString("dubbo_provider_invoke_interval_count{method=\"sayHello\",service=\"Demo\\\"Service\",category=\"success\"} "));
+        // the current bucket is not complete yet
+        assertThat(text, containsString("# TYPE dubbo_codec_encode_bytes gauge\ndubbo_codec_encode_bytes 0\n"));
+        assertThat(text, not(containsString("dubbo.provider")));
+    }
+
+    @Test
+    public void testSanitize() {
+        assertThat(PrometheusMetricsWriter.sanitize("dubbo.provider-invoke"), equalTo("dubbo_provider_invoke"));
+        assertThat(PrometheusMetricsWriter.sanitize("1abc"), equalTo("_abc"));
+        assertThat(PrometheusMetricsWriter.sanitize("valid_name"), equalTo("valid_name"));
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.qos.server.handler;
+
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpContent;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ChunkedContentAppendableTest {
+
+    private ChannelHandlerContext context;
+
+    private Channel channel;
+
+    private ChannelFuture future;
+
+    @Before
+    public void setUp() {
+        context = mock(ChannelHandlerContext.class);
+        channel = mock(Channel.class);
+        future = mock(ChannelFuture.class);
+        when(context.channel()).thenReturn(channel);
+        when(context.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
+        when(context.writeAndFlush(any())).thenReturn(future);
+    }
+
+    @Test
+    public void testWritableChannelDoesNotWait() throws Exception {
+        when(channel.isWritable()).thenReturn(true);
+        ChunkedContentAppendable content = new ChunkedContentAppendable(context);
+        content.append(chunk());
+        verify(future, never()).awaitUninterruptibly(anyLong());
+        assertEquals(1, releaseChunks());
+    }
+
+    @Test
+    public void testUnwritableChannelWaitsForTheChunk() throws Exception {
+        when(channel.isWritable()).thenReturn(false);
+        when(future.awaitUninterruptibly(anyLong())).thenReturn(true);
+        when(future.isDone()).thenReturn(true);
+        when(future.isSuccess()).thenReturn(true);
+        ChunkedContentAppendable content = new ChunkedContentAppendable(context);
+        content.append(chunk());
+        verify(future).awaitUninterruptibly(ChunkedContentAppendable.WRITE_TIMEOUT_MILLIS);
+        content.append('a');
+        content.release();
+        assertEquals(1, releaseChunks());
+    }
+
+    @Test
+    public void testStalledChannelAbortsRendering() throws Exception {
+        when(channel.isWritable()).thenReturn(false);
+        when(future.awaitUninterruptibly(anyLong())).thenReturn(false);
+        ChunkedContentAppendable content = new ChunkedContentAppendable(context);
+        try {
+            content.append(chunk());
+            fail();
+        } catch (IOException expected) {
+        }
+        content.release();
+        assertEquals(1, releaseChunks());
+    }
+
+    @Test
+    public void testFailedWriteAbortsRendering() throws Exception {
+        when(channel.isWritable()).thenReturn(true);
+        when(future.isDone()).thenReturn(true);
+        when(future.isSuccess()).thenReturn(false);
+        when(future.cause()).thenReturn(new IOException("Connection reset by peer"));
+        ChunkedContentAppendable content = new ChunkedContentAppendable(context);
+        try {
+            content.append(chunk());
+            fail();
+        } catch (IOException expected) {
+        }
+        content.release();
+        assertEquals(1, releaseChunks());
+    }
+
+    private static String chunk() {
+        char[] chars = new char[ChunkedContentAppendable.CHUNK_SIZE];
+        Arrays.fill(chars, 'x');
+        return new String(chars);
+    }
+
+    private int releaseChunks() {
+        ArgumentCaptor<Object> chunks = ArgumentCaptor.forClass(Object.class);
+        verify(context, atLeastOnce()).writeAndFlush(chunks.capture());
+        for (Object chunk : chunks.getAllValues()) {
+            ((HttpContent) chunk).release();
+        }
+        return chunks.getAllValues().size();
+    }
+
+}
@@ -16,20 +16,35 @@
  */
 package org.apache.dubbo.qos.server.handler;
 
+import org.apache.dubbo.metrics.MetricManager;
+import org.apache.dubbo.metrics.MetricName;
+
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.CharsetUtil;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -83,4 +98,58 @@ public class HttpProcessHandlerTest {
         FullHttpResponse response = captor.getValue();
         assertThat(response.getStatus().code(), equalTo(404));
     }
+
+    @Test
+    public void testMetrics() throws Exception {
+        MetricManager.getCounter("dubbo", new MetricName("dubbo.test.metrics")).inc(5);
+        HttpProcessHandler handler = new HttpProcessHandler();
+
+        String text = requestMetrics(handler, "/metrics", new DefaultHttpHeaders(), "text/plain");
+        assertThat(text, containsString("dubbo_test_metrics 5\n"));
+
+        String json = requestMetrics(handler, "/metrics?format=json", new DefaultHttpHeaders(), "application/json");
+        assertThat(json, startsWith("{"));
+        assertThat(json, containsString("\"name\":\"dubbo.test.metrics\""));
+
+        HttpHeaders accept = new DefaultHttpHeaders();
+        accept.set(HttpHeaders.Names.ACCEPT, "application/json");
+        assertThat(requestMetrics(handler, "/metrics", accept, "application/json"), startsWith("{"));
+    }
+
+    private static String requestMetrics(HttpProcessHandler handler, String uri, HttpHeaders headers, String contentType) throws Exception {
+        ChannelHandlerContext context = mock(ChannelHandlerContext.class);
+        ChannelFuture future = mock(ChannelFuture.class);
+        Channel channel = mock(Channel.class);
+        when(channel.isWritable()).thenReturn(true);
+        when(context.channel()).thenReturn(channel);
+        when(context.alloc()).thenReturn(UnpooledByteBufAllocator.DEFAULT);
+        when(context.write(any())).thenReturn(future);
+        when(context.writeAndFlush(any())).thenReturn(future);
+        HttpRequest message = Mockito.mock(HttpRequest.class);
+        when(message.getUri()).thenReturn(uri);
+        when(message.getMethod()).thenReturn(HttpMethod.GET);
+        when(message.headers()).thenReturn(headers);
+        handler.channelRead0(context, message);
+        // rendered off the calling thread
+        verify(future, timeout(5000)).addListener(ChannelFutureListener.CLOSE);
+
+        ArgumentCaptor<Object> response = ArgumentCaptor.forClass(Object.class);
+        verify(context).write(response.capture());
+        assertThat(response.getValue(), instanceOf(HttpResponse.class));
+        HttpResponse httpResponse = (HttpResponse) response.getValue();
+        assertThat(httpResponse.getStatus().code(), equalTo(200));
+        assertThat(httpResponse.headers().get(HttpHeaders.Names.CONTENT_TYPE), startsWith(contentType));
+        assertThat(HttpHeaders.isTransferEncodingChunked(httpResponse), equalTo(true));
+
+        ArgumentCaptor<Object> chunks = ArgumentCaptor.forClass(Object.class);
+        verify(context, Mockito.atLeastOnce()).writeAndFlush(chunks.capture());
+        StringBuilder body = new StringBuilder();
+        for (Object chunk : chunks.getAllValues()) {
+            HttpContent content = (HttpContent) chunk;
+            body.append(content.content().toString(CharsetUtil.UTF_8));
+            content.release();
+        }
+        assertThat(chunks.getAllValues().get(chunks.getAllValues().size() - 1), instanceOf(LastHttpContent.class));
+        return body.toString();
+    }
 }
@@ -24,6 +24,9 @@ import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
 import org.apache.dubbo.common.utils.NetUtils;
 import org.apache.dubbo.common.utils.StringUtils;
+import org.apache.dubbo.metrics.Compass;
+import org.apache.dubbo.metrics.MetricManager;
+import org.apache.dubbo.metrics.MetricName;
 import org.apache.dubbo.registry.NotifyListener;
 import org.apache.dubbo.registry.Registry;
 import org.apache.dubbo.rpc.Invocation;
@@ -58,8 +61,15 @@ import java.util.Set;
  */
 public class RegistryDirectory<T> extends AbstractDirectory<T> implements NotifyListener {
 
+    public static final String FIRST_INVOKER_METRIC = "dubbo.registry.first.invoker";
+
+    public static final String FIRST_INVOKER_CATEGORY = "subscribe";
+
     private static final Logger logger = LoggerFactory.getLogger(RegistryDirectory.class);
 
+    // Milliseconds from subscribing to the first usable invoker of each reference
+    private static final Compass FIRST_INVOKER_COMPASS = MetricManager.getCompass(Constants.METRICS_GROUP, new MetricName(FIRST_INVOKER_METRIC));
+
     private static final Cluster cluster = ExtensionLoader.getExtensionLoader(Cluster.class).getAdaptiveExtension();
 
     private static final RouterFactory routerFactory = ExtensionLoader.getExtensionLoader(RouterFactory.class).getAdaptiveExtension();
@@ -94,6 +104,11 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
     // Set<invokerUrls> cache invokeUrls to invokers mapping.
     private volatile Set<URL> cachedInvokerUrls; // The initial value is null and the midway may be assigned to null, please use the local variable reference
 
+    private volatile long subscribeTime;
+
+    // Milliseconds from subscribing to the first usable invoker, -1 before that
+    private volatile long timeToFirstInvoker = -1;
+
     public RegistryDirectory(Class<T> serviceType, URL url) {
         super(url);
         if (serviceType == null) {
@@ -157,6 +172,7 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
 
     public void subscribe(URL url) {
         setConsumerUrl(url);
+        subscribeTime = System.currentTimeMillis();
         registry.subscribe(url, this);
     }
 
@@ -261,6 +277,13 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
             }
             this.methodInvokerMap = multiGroup ? toMergeMethodInvokerMap(newMethodInvokerMap) : newMethodInvokerMap;
             this.urlInvokerMap = newUrlInvokerMap;
+            if (timeToFirstInvoker < 0 && subscribeTime > 0) {
+                timeToFirstInvoker = System.currentTimeMillis() - subscribeTime;
+                FIRST_INVOKER_COMPASS.record(timeToFirstInvoker, FIRST_INVOKER_CATEGORY);
+                if (logger.isInfoEnabled()) {
+                    logger.info("Got first " + newUrlInvokerMap.size() + " invokers of " + serviceKey + " in " + timeToFirstInvoker + "ms after subscribing");
+                }
+            }
             try {
                 destroyUnusedInvokers(oldUrlInvokerMap, newUrlInvokerMap); // Close the unused Invoker
             } catch (Exception e) {
@@ -630,6 +653,13 @@ public class RegistryDirectory<T> extends AbstractDirectory<T> implements Notify
         return false;
     }
 
+    /**
+     * @return milliseconds from subscribing to the first usable invokers, -1 if there were none yet
+     */
+    public long getTimeToFirstInvoker() {
+        return timeToFirstInvoker;
+    }
+
     /**
      * Haomin: added for test purpose
      */
@@ -24,6 +24,9 @@ import org.apache.dubbo.common.utils.ConcurrentHashSet;
 import org.apache.dubbo.common.utils.ConfigUtils;
 import org.apache.dubbo.common.utils.NamedThreadFactory;
 import org.apache.dubbo.common.utils.UrlUtils;
+import org.apache.dubbo.metrics.Counter;
+import org.apache.dubbo.metrics.MetricManager;
+import org.apache.dubbo.metrics.MetricName;
 import org.apache.dubbo.registry.NotifyListener;
 import org.apache.dubbo.registry.Registry;
 
@@ -59,6 +62,8 @@ public abstract class AbstractRegistry implements Registry {
     private static final char URL_SEPARATOR = ' ';
     // URL address separated regular expression for parsing the service provider URL list in the file cache
     private static final String URL_SPLIT = "\\s+";
+    // Suffix of the key recording when the cached urls of a service key were saved
+    private static final String TIMESTAMP_KEY_SUFFIX = ".timestamp";
     // Log output
     protected final Logger logger = LoggerFactory.getLogger(getClass());
     // Local disk cache, where the special key value.registies records the list of registry centers, and the others are the list of notified service providers
@@ -71,12 +76,15 @@ public abstract class AbstractRegistry implements Registry {
     private final Set<URL> registered = new ConcurrentHashSet<URL>();
     private final ConcurrentMap<URL, Set<NotifyListener>> subscribed = new ConcurrentHashMap<URL, Set<NotifyListener>>();
     private final ConcurrentMap<URL, Map<String, List<URL>>> notified = new ConcurrentHashMap<URL, Map<String, List<URL>>>();
+    // notifications delivered to the listeners, one per category
+    private final Counter notifyCounter;
     private URL registryUrl;
     // Local disk cache file
     private File file;
 
     public AbstractRegistry(URL url) {
         setUrl(url);
+        notifyCounter = MetricManager.getCounter(Constants.METRICS_GROUP, new MetricName("dubbo.registry.notify").tag("registry", url.getAddress()));
         // Start file save timer
         syncSaveFile = url.getParameter(Constants.REGISTRY_FILESAVE_SYNC_KEY, false);
         String filename = url.getParameter(Constants.FILE_KEY, System.getProperty("user.home") + "/.dubbo/dubbo-registry-" + url.getParameter(Constants.APPLICATION_KEY) + "-" + url.getAddress() + ".cache");
@@ -231,6 +239,22 @@ public abstract class AbstractRegistry implements Registry {
         return null;
     }
 
+    /**
+     * @return time in milliseconds when the cached urls of the given url were saved, the modified time of the
+     * cache file for old files without timestamps, or 0 if unknown
+     */
+    public long getCacheTimestamp(URL url) {
+        String timestamp = properties.getProperty(url.getServiceKey() + TIMESTAMP_KEY_SUFFIX);
+        if (timestamp != null && timestamp.length() > 0) {
+            try {
+                return Long.parseLong(timestamp);
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid timestamp " + timestamp + " of " + url.getServiceKey() + " in registry store file " + file);
+            }
+        }
+        return file != null && file.exists() ? file.lastModified() : 0;
+    }
+
     @Override
     public List<URL> lookup(URL url) {
         List<URL> result = new ArrayList<URL>();
@@ -414,6 +438,7 @@ public abstract class AbstractRegistry implements Registry {
             categoryNotified.put(category, categoryList);
             saveProperties(url);
             listener.notify(categoryList);
+            notifyCounter.inc();
         }
     }
 
@@ -436,6 +461,7 @@ public abstract class AbstractRegistry implements Registry {
                 }
             }
             properties.setProperty(url.getServiceKey(), buf.toString());
+            properties.setProperty(url.getServiceKey() + TIMESTAMP_KEY_SUFFIX, String.valueOf(System.currentTimeMillis()));
             long version = lastCacheChanged.incrementAndGet();
             if (syncSaveFile) {
                 doSaveProperties(version);
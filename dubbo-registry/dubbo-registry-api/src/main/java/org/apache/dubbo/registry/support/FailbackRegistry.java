@@ -23,6 +23,7 @@ import org.apache.dubbo.common.utils.ExecutorUtil;
 import org.apache.dubbo.common.utils.NamedThreadFactory;
 import org.apache.dubbo.registry.NotifyListener;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -30,6 +31,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
@@ -63,6 +65,9 @@ public abstract class FailbackRegistry extends AbstractRegistry {
      */
     private final int retryPeriod;
 
+    // Subscribes services booted from snapshot in background, created on first use
+    private volatile ExecutorService snapshotSubscribeExecutor;
+
     public FailbackRegistry(URL url) {
         super(url);
         this.retryPeriod = url.getParameter(Constants.REGISTRY_RETRY_PERIOD_KEY, Constants.DEFAULT_REGISTRY_RETRY_PERIOD);
@@ -103,7 +108,7 @@ public abstract class FailbackRegistry extends AbstractRegistry {
         return failedNotified;
     }
 
-    private void addFailedSubscribed(URL url, NotifyListener listener) {
+    protected void addFailedSubscribed(URL url, NotifyListener listener) {
         Set<NotifyListener> listeners = failedSubscribed.get(url);
         if (listeners == null) {
             failedSubscribed.putIfAbsent(url, new ConcurrentHashSet<NotifyListener>());
@@ -191,6 +196,9 @@ public abstract class FailbackRegistry extends AbstractRegistry {
     public void subscribe(URL url, NotifyListener listener) {
         super.subscribe(url, listener);
         removeFailedSubscribed(url, listener);
+        if (subscribeFromSnapshot(url, listener)) {
+            return;
+        }
         try {
             // Sending a subscription request to the server side
             doSubscribe(url, listener);
@@ -221,6 +229,72 @@ public abstract class FailbackRegistry extends AbstractRegistry {
         }
     }
 
+    /**
+     * Notify the listener with the providers cached in the registry store file at once, and subscribe to the
+     * register center in background, whose notifications replace the snapshot when they arrive.
+     *
+     * @return false if snapshot startup is disabled, or no usable snapshot of the url is cached
+     * @see Constants#SNAPSHOT_STARTUP_KEY
+     */
+    private boolean subscribeFromSnapshot(final URL url, final NotifyListener listener) {
+        if (!getUrl().getParameter(Constants.SNAPSHOT_STARTUP_KEY, url.getParameter(Constants.SNAPSHOT_STARTUP_KEY, false))
+                || Constants.ANY_VALUE.equals(url.getServiceInterface())
+                || getNotified().containsKey(url)) {
+            return false;
+        }
+        long staleness = getUrl().getParameter(Constants.SNAPSHOT_STALENESS_KEY, Constants.DEFAULT_SNAPSHOT_STALENESS);
+        long age = System.currentTimeMillis() - getCacheTimestamp(url);
+        if (age > staleness) {
+            return false;
+        }
+        List<URL> cacheUrls = getCacheUrls(url);
+        if (cacheUrls == null || cacheUrls.isEmpty()) {
+            return false;
+        }
+        boolean hasProvider = false;
+        for (URL u : cacheUrls) {
+            if (!Constants.EMPTY_PROTOCOL.equals(u.getProtocol())
+                    && Constants.PROVIDERS_CATEGORY.equals(u.getParameter(Constants.CATEGORY_KEY, Constants.DEFAULT_CATEGORY))) {
+                hasProvider = true;
+                break;
+            }
+        }
+        if (!hasProvider) {
+            return false;
+        }
+        // passed as they are, changing them would make the directory rebuild every invoker when the register
+        // center notifies the same providers
+        List<URL> urls = new ArrayList<URL>(cacheUrls);
+        if (logger.isInfoEnabled()) {
+            logger.info("Subscribe " + url + " from snapshot saved " + age + "ms ago, providers: " + urls);
+        }
+        // not through notify(), the snapshot must neither be saved again nor taken as notified by the register center
+        listener.notify(urls);
+        getSnapshotSubscribeExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    doSubscribe(url, listener);
+                } catch (Throwable t) {
+                    logger.error("Failed to subscribe " + url + " in background, using snapshot and waiting for retry, cause: " + t.getMessage(), t);
+                    addFailedSubscribed(url, listener);
+                }
+            }
+        });
+        return true;
+    }
+
+    private ExecutorService getSnapshotSubscribeExecutor() {
+        if (snapshotSubscribeExecutor == null) {
+            synchronized (this) {
+                if (snapshotSubscribeExecutor == null) {
+                    snapshotSubscribeExecutor = Executors.newFixedThreadPool(4, new NamedThreadFactory("DubboRegistrySnapshotSubscribe", true));
+                }
+            }
+        }
+        return snapshotSubscribeExecutor;
+    }
+
     @Override
     public void unsubscribe(URL url, NotifyListener listener) {
         super.unsubscribe(url, listener);
@@ -282,7 +356,11 @@ public abstract class FailbackRegistry extends AbstractRegistry {
 
     @Override
     protected void recover() throws Exception {
-        // register
+        recoverRegistered();
+        recoverSubscribed();
+    }
+
+    protected void recoverRegistered() {
         Set<URL> recoverRegistered = new HashSet<URL>(getRegistered());
         if (!recoverRegistered.isEmpty()) {
             if (logger.isInfoEnabled()) {
@@ -292,7 +370,9 @@ public abstract class FailbackRegistry extends AbstractRegistry {
                 failedRegistered.add(url);
             }
         }
-        // subscribe
+    }
+
+    protected void recoverSubscribed() {
         Map<URL, Set<NotifyListener>> recoverSubscribed = new HashMap<URL, Set<NotifyListener>>(getSubscribed());
         if (!recoverSubscribed.isEmpty()) {
             if (logger.isInfoEnabled()) {
@@ -447,6 +527,9 @@ public abstract class FailbackRegistry extends AbstractRegistry {
             logger.warn(t.getMessage(), t);
         }
         ExecutorUtil.gracefulShutdown(retryExecutor, retryPeriod);
+        if (snapshotSubscribeExecutor != null) {
+            ExecutorUtil.gracefulShutdown(snapshotSubscribeExecutor, retryPeriod);
+        }
     }
 
     // ==== Template method ====
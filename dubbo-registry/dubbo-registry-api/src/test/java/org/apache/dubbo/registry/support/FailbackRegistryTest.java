@@ -24,6 +24,7 @@ import org.apache.dubbo.registry.NotifyListener;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
@@ -31,6 +32,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class FailbackRegistryTest {
     static String service;
@@ -180,6 +182,49 @@ public class FailbackRegistryTest {
         assertEquals(2, count.get());
     }
 
+    @Test
+    public void testSubscribeFromSnapshot() throws Exception {
+        File file = File.createTempFile("dubbo-registry-snapshot", ".cache");
+        file.deleteOnExit();
+        URL snapshotRegistryUrl = registryUrl.addParameter(Constants.FILE_KEY, file.getAbsolutePath())
+                .addParameter(Constants.REGISTRY_FILESAVE_SYNC_KEY, true)
+                .addParameter(Constants.SNAPSHOT_STARTUP_KEY, true);
+        URL consumerUrl = serviceUrl.setProtocol(Constants.CONSUMER_PROTOCOL).addParameters(CollectionUtils.toStringMap("check", "false"));
+        final AtomicReference<List<URL>> notified = new AtomicReference<List<URL>>();
+        NotifyListener listener = new NotifyListener() {
+            @Override
+            public void notify(List<URL> urls) {
+                notified.set(urls);
+            }
+        };
+
+        // first startup saves the providers notified by the register center
+        registry = new MockRegistry(snapshotRegistryUrl, new CountDownLatch(0));
+        registry.subscribe(consumerUrl, listener);
+        assertEquals(serviceUrl, notified.get().get(0));
+        registry.destroy();
+
+        // register center is not available at next startup, boot from the snapshot
+        notified.set(null);
+        registry = new MockRegistry(snapshotRegistryUrl, new CountDownLatch(0));
+        registry.setBad(true);
+        registry.subscribe(consumerUrl, listener);
+        assertEquals(1, notified.get().size());
+        assertEquals(serviceUrl, notified.get().get(0));
+        for (int i = 0; i < trytimes && registry.getFailedSubscribed().isEmpty(); i++) {
+            Thread.sleep(sleeptime);
+        }
+        assertTrue(registry.getFailedSubscribed().containsKey(consumerUrl));
+        registry.destroy();
+
+        // snapshot older than the staleness bound is not used to boot, only as the usual fallback of a failed subscription
+        notified.set(null);
+        registry = new MockRegistry(snapshotRegistryUrl.addParameter(Constants.SNAPSHOT_STALENESS_KEY, -1), new CountDownLatch(0));
+        registry.setBad(true);
+        registry.subscribe(consumerUrl, listener);
+        assertEquals(serviceUrl, notified.get().get(0));
+        assertTrue(registry.getFailedSubscribed().containsKey(consumerUrl));
+    }
 
     private static class MockRegistry extends FailbackRegistry {
         CountDownLatch latch;
@@ -21,6 +21,8 @@ import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.extension.ExtensionLoader;
 import org.apache.dubbo.common.utils.LogUtil;
 import org.apache.dubbo.common.utils.NetUtils;
+import org.apache.dubbo.metrics.MetricManager;
+import org.apache.dubbo.metrics.MetricName;
 import org.apache.dubbo.registry.NotifyListener;
 import org.apache.dubbo.registry.Registry;
 import org.apache.dubbo.registry.RegistryFactory;
@@ -47,6 +49,7 @@ import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
 
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class RegistryDirectoryTest {
@@ -125,6 +128,35 @@ public class RegistryDirectoryTest {
         testforbid(registryDirectory);
     }
 
+    @Test
+    public void testTimeToFirstInvoker() {
+        RegistryDirectory registryDirectory = getRegistryDirectory();
+        registryDirectory.setRegistry(mock(Registry.class));
+        registryDirectory.subscribe(URL.valueOf("consumer://127.0.0.1/" + service + "?interface=" + service));
+        Assert.assertEquals(-1, registryDirectory.getTimeToFirstInvoker());
+        long before = countFirstInvokers();
+
+        test_Notified1invokers(registryDirectory);
+        Assert.assertTrue(registryDirectory.getTimeToFirstInvoker() >= 0);
+        Assert.assertEquals(before + 1, countFirstInvokers());
+
+        // only the first invokers are timed
+        test_Notified2invokers(registryDirectory);
+        Assert.assertEquals(before + 1, countFirstInvokers());
+    }
+
+    private long countFirstInvokers() {
+        Map<Long, Long> counts = MetricManager.getCompass(Constants.METRICS_GROUP, new MetricName(RegistryDirectory.FIRST_INVOKER_METRIC))
+                .getMethodCountPerCategory().get(RegistryDirectory.FIRST_INVOKER_CATEGORY);
+        long count = 0;
+        if (counts != null) {
+            for (Long value : counts.values()) {
+                count += value;
+            }
+        }
+        return count;
+    }
+
     /**
      * Test push only router
      */
@@ -32,6 +32,8 @@ import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -39,12 +41,14 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -53,7 +57,12 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * RedisRegistry
- *
+ * <p>
+ * Subscribers keep a snapshot of each category key as last read from redis and only read a key again when an event
+ * arrives for it. With <code>publish.delta=true</code> on the registry url, register and unregister events carry the
+ * changed url ("register dubbo://...") and subscribers apply them to the snapshot without reading the key. Subscribers
+ * of older versions only understand the bare "register" / "unregister" events, so the flag is off by default and
+ * should only be turned on once all subscribers of the registry understand both forms.
  */
 public class RedisRegistry extends FailbackRegistry {
 
@@ -71,7 +80,16 @@ public class RedisRegistry extends FailbackRegistry {
 
     private final Map<String, JedisPool> jedisPools = new ConcurrentHashMap<String, JedisPool>();
 
-    private final ConcurrentMap<String, Notifier> notifiers = new ConcurrentHashMap<String, Notifier>();
+    /**
+     * single subscriber thread and connection for all subscribed services
+     */
+    private final Notifier notifier = new Notifier();
+
+    /**
+     * category key -> urls as last read from redis, only changed keys are read again; kept for the keys which have
+     * urls and whose service is subscribed
+     */
+    private final ConcurrentMap<String, Snapshot> snapshots = new ConcurrentHashMap<String, Snapshot>();
 
     private final int reconnectPeriod;
 
@@ -81,6 +99,11 @@ public class RedisRegistry extends FailbackRegistry {
 
     private boolean replicate;
 
+    /**
+     * publish "register url" / "unregister url" instead of bare events, so subscribers can apply the change without reading the whole key
+     */
+    private final boolean publishDelta;
+
     public RedisRegistry(URL url) {
         super(url);
         if (url.isAnyHost()) {
@@ -153,6 +176,7 @@ public class RedisRegistry extends FailbackRegistry {
             group = group + Constants.PATH_SEPARATOR;
         }
         this.root = group;
+        this.publishDelta = url.getParameter(Constants.REGISTRY_PUBLISH_DELTA_KEY, false);
 
         this.expirePeriod = url.getParameter(Constants.SESSION_TIMEOUT_KEY, Constants.DEFAULT_SESSION_TIMEOUT);
         this.expireFuture = expireExecutor.scheduleWithFixedDelay(new Runnable() {
@@ -173,13 +197,34 @@ public class RedisRegistry extends FailbackRegistry {
             try {
                 Jedis jedis = jedisPool.getResource();
                 try {
+                    List<URL> urls = new ArrayList<URL>();
                     for (URL url : new HashSet<URL>(getRegistered())) {
                         if (url.getParameter(Constants.DYNAMIC_KEY, true)) {
-                            String key = toCategoryPath(url);
-                            if (jedis.hset(key, url.toFullString(), String.valueOf(System.currentTimeMillis() + expirePeriod)) == 1) {
-                                jedis.publish(key, Constants.REGISTER);
+                            urls.add(url);
+                        }
+                    }
+                    if (!urls.isEmpty()) {
+                        // renew all urls in one round trip, and publish the re-created ones (e.g. cleaned by admin) in another
+                        String expire = String.valueOf(System.currentTimeMillis() + expirePeriod);
+                        Pipeline pipeline = jedis.pipelined();
+                        List<Response<Long>> responses = new ArrayList<Response<Long>>(urls.size());
+                        for (URL url : urls) {
+                            responses.add(pipeline.hset(toCategoryPath(url), url.toFullString(), expire));
+                        }
+                        pipeline.sync();
+                        Pipeline publishPipeline = null;
+                        for (int i = 0; i < urls.size(); i++) {
+                            if (responses.get(i).get() == 1) {
+                                if (publishPipeline == null) {
+                                    publishPipeline = jedis.pipelined();
+                                }
+                                URL url = urls.get(i);
+                                publishPipeline.publish(toCategoryPath(url), toMessage(Constants.REGISTER, url));
                             }
                         }
+                        if (publishPipeline != null) {
+                            publishPipeline.sync();
+                        }
                     }
                     if (admin) {
                         clean(jedis);
@@ -206,7 +251,7 @@ public class RedisRegistry extends FailbackRegistry {
                     boolean delete = false;
                     long now = System.currentTimeMillis();
                     for (Map.Entry<String, String> entry : values.entrySet()) {
-                        URL url = URL.valueOf(entry.getKey());
+                        URL url = UrlUtils.valueOfCached(entry.getKey());
                         if (url.getParameter(Constants.DYNAMIC_KEY, true)) {
                             long expire = Long.parseLong(entry.getValue());
                             if (expire < now) {
@@ -253,9 +298,7 @@ public class RedisRegistry extends FailbackRegistry {
             logger.warn(t.getMessage(), t);
         }
         try {
-            for (Notifier notifier : notifiers.values()) {
-                notifier.shutdown();
-            }
+            notifier.shutdown();
         } catch (Throwable t) {
             logger.warn(t.getMessage(), t);
         }
@@ -283,7 +326,7 @@ public class RedisRegistry extends FailbackRegistry {
                 Jedis jedis = jedisPool.getResource();
                 try {
                     jedis.hset(key, value, expire);
-                    jedis.publish(key, Constants.REGISTER);
+                    jedis.publish(key, toMessage(Constants.REGISTER, url));
                     success = true;
                     if (!replicate) {
                         break; //  If the server side has synchronized data, just write a single machine
@@ -316,7 +359,7 @@ public class RedisRegistry extends FailbackRegistry {
                 Jedis jedis = jedisPool.getResource();
                 try {
                     jedis.hdel(key, value);
-                    jedis.publish(key, Constants.UNREGISTER);
+                    jedis.publish(key, toMessage(Constants.UNREGISTER, url));
                     success = true;
                     if (!replicate) {
                         break; //  If the server side has synchronized data, just write a single machine
@@ -340,15 +383,7 @@ public class RedisRegistry extends FailbackRegistry {
     @Override
     public void doSubscribe(final URL url, final NotifyListener listener) {
         String service = toServicePath(url);
-        Notifier notifier = notifiers.get(service);
-        if (notifier == null) {
-            Notifier newNotifier = new Notifier(service);
-            notifiers.putIfAbsent(service, newNotifier);
-            notifier = notifiers.get(service);
-            if (notifier == newNotifier) {
-                notifier.start();
-            }
-        }
+        notifier.subscribe(service);
         boolean success = false;
         RpcException exception = null;
         for (Map.Entry<String, JedisPool> entry : jedisPools.entrySet()) {
@@ -370,12 +405,15 @@ public class RedisRegistry extends FailbackRegistry {
                                 }
                                 sk.add(key);
                             }
+                            refreshSnapshots(jedis, keys);
                             for (Set<String> sk : serviceKeys.values()) {
-                                doNotify(jedis, sk, url, Arrays.asList(listener));
+                                doNotify(sk, url, Arrays.asList(listener));
                             }
                         }
                     } else {
-                        doNotify(jedis, jedis.keys(service + Constants.PATH_SEPARATOR + Constants.ANY_VALUE), url, Arrays.asList(listener));
+                        Set<String> keys = jedis.keys(service + Constants.PATH_SEPARATOR + Constants.ANY_VALUE);
+                        refreshSnapshots(jedis, keys);
+                        doNotify(keys, url, Arrays.asList(listener));
                     }
                     success = true;
                     break; // Just read one server's data
@@ -397,20 +435,97 @@ public class RedisRegistry extends FailbackRegistry {
 
     @Override
     public void doUnsubscribe(URL url, NotifyListener listener) {
+        Set<String> services = getSubscribedServices();
+        for (Iterator<String> it = snapshots.keySet().iterator(); it.hasNext(); ) {
+            if (!isSubscribedKey(services, it.next())) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the paths of the services which still have listeners
+     */
+    private Set<String> getSubscribedServices() {
+        Set<String> services = new HashSet<String>();
+        for (Map.Entry<URL, Set<NotifyListener>> entry : getSubscribed().entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                services.add(toServicePath(entry.getKey()));
+            }
+        }
+        return services;
     }
 
-    private void doNotify(Jedis jedis, String key) {
+    private boolean isSubscribedKey(Set<String> services, String key) {
+        return services.contains(root + Constants.ANY_VALUE) || services.contains(toServicePath(key));
+    }
+
+    private void doNotify(String key) {
         for (Map.Entry<URL, Set<NotifyListener>> entry : new HashMap<URL, Set<NotifyListener>>(getSubscribed()).entrySet()) {
-            doNotify(jedis, Arrays.asList(key), entry.getKey(), new HashSet<NotifyListener>(entry.getValue()));
+            doNotify(Arrays.asList(key), entry.getKey(), new HashSet<NotifyListener>(entry.getValue()));
+        }
+    }
+
+    /**
+     * Read the given keys in one round trip and replace their snapshots.
+     */
+    private void refreshSnapshots(Jedis jedis, Collection<String> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+        Pipeline pipeline = jedis.pipelined();
+        Map<String, Response<Map<String, String>>> responses = new HashMap<String, Response<Map<String, String>>>();
+        for (String key : keys) {
+            responses.put(key, pipeline.hgetAll(key));
+        }
+        pipeline.sync();
+        long readTime = System.currentTimeMillis();
+        for (Map.Entry<String, Response<Map<String, String>>> entry : responses.entrySet()) {
+            Map<String, String> values = entry.getValue().get();
+            if (values == null || values.isEmpty()) {
+                snapshots.remove(entry.getKey());
+            } else {
+                snapshots.put(entry.getKey(), new Snapshot(values, readTime));
+            }
+        }
+    }
+
+    /**
+     * Apply a change event of key to its snapshot, the key is read again unless the event carries the changed url.
+     */
+    private void applyChange(JedisPool jedisPool, String key, String msg) {
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot != null && msg.startsWith(Constants.REGISTER + " ")) {
+            Map<String, String> changed = new HashMap<String, String>(snapshot.values);
+            changed.put(msg.substring(Constants.REGISTER.length()).trim(), String.valueOf(System.currentTimeMillis() + expirePeriod));
+            snapshots.put(key, new Snapshot(changed, snapshot.readTime));
+        } else if (snapshot != null && msg.startsWith(Constants.UNREGISTER + " ")) {
+            Map<String, String> changed = new HashMap<String, String>(snapshot.values);
+            changed.remove(msg.substring(Constants.UNREGISTER.length()).trim());
+            if (changed.isEmpty()) {
+                snapshots.remove(key);
+            } else {
+                snapshots.put(key, new Snapshot(changed, snapshot.readTime));
+            }
+        } else {
+            Jedis jedis = jedisPool.getResource();
+            try {
+                refreshSnapshots(jedis, Arrays.asList(key));
+            } finally {
+                jedis.close();
+            }
         }
     }
 
-    private void doNotify(Jedis jedis, Collection<String> keys, URL url, Collection<NotifyListener> listeners) {
+    private String toMessage(String event, URL url) {
+        return publishDelta ? event + " " + url.toFullString() : event;
+    }
+
+    private void doNotify(Collection<String> keys, URL url, Collection<NotifyListener> listeners) {
         if (keys == null || keys.isEmpty()
                 || listeners == null || listeners.isEmpty()) {
             return;
         }
-        long now = System.currentTimeMillis();
         List<URL> result = new ArrayList<URL>();
         List<String> categories = Arrays.asList(url.getParameter(Constants.CATEGORY_KEY, new String[0]));
         String consumerService = url.getServiceInterface();
@@ -426,12 +541,13 @@ public class RedisRegistry extends FailbackRegistry {
                 continue;
             }
             List<URL> urls = new ArrayList<URL>();
-            Map<String, String> values = jedis.hgetAll(key);
-            if (values != null && values.size() > 0) {
-                for (Map.Entry<String, String> entry : values.entrySet()) {
-                    URL u = URL.valueOf(entry.getKey());
+            Snapshot snapshot = snapshots.get(key);
+            if (snapshot != null && snapshot.values.size() > 0) {
+                for (Map.Entry<String, String> entry : snapshot.values.entrySet()) {
+                    URL u = UrlUtils.valueOfCached(entry.getKey());
+                    // heartbeats are not published, so expire times are only checked against the time the key was read
                     if (!u.getParameter(Constants.DYNAMIC_KEY, true)
-                            || Long.parseLong(entry.getValue()) >= now) {
+                            || Long.parseLong(entry.getValue()) >= snapshot.readTime) {
                         if (UrlUtils.isMatch(url, u)) {
                             urls.add(u);
                         }
@@ -485,28 +601,74 @@ public class RedisRegistry extends FailbackRegistry {
         return toServicePath(url) + Constants.PATH_SEPARATOR + url.getParameter(Constants.CATEGORY_KEY, Constants.DEFAULT_CATEGORY);
     }
 
+    private static String toPattern(String service) {
+        return service.endsWith(Constants.ANY_VALUE) ? service : service + Constants.PATH_SEPARATOR + Constants.ANY_VALUE;
+    }
+
+    /**
+     * The urls of a category key with their expire times, and the time the key was read from redis.
+     */
+    private static class Snapshot {
+
+        private final Map<String, String> values;
+
+        private final long readTime;
+
+        Snapshot(Map<String, String> values, long readTime) {
+            this.values = values;
+            this.readTime = readTime;
+        }
+
+    }
+
     private class NotifySub extends JedisPubSub {
 
         private final JedisPool jedisPool;
 
+        private final Set<String> requestedPatterns = new HashSet<String>();
+
         public NotifySub(JedisPool jedisPool) {
             this.jedisPool = jedisPool;
         }
 
+        public synchronized String[] initialPatterns(Collection<String> services) {
+            for (String service : services) {
+                requestedPatterns.add(toPattern(service));
+            }
+            return requestedPatterns.toArray(new String[0]);
+        }
+
+        /**
+         * Add the patterns of services subscribed after this connection was set up to the same connection.
+         */
+        public synchronized void ensureSubscribed(Collection<String> services) {
+            if (!isSubscribed()) {
+                return;
+            }
+            for (String service : services) {
+                String pattern = toPattern(service);
+                if (requestedPatterns.add(pattern)) {
+                    psubscribe(pattern);
+                }
+            }
+        }
+
         @Override
         public void onMessage(String key, String msg) {
             if (logger.isInfoEnabled()) {
                 logger.info("redis event: " + key + " = " + msg);
             }
             if (msg.equals(Constants.REGISTER)
-                    || msg.equals(Constants.UNREGISTER)) {
+                    || msg.equals(Constants.UNREGISTER)
+                    || msg.startsWith(Constants.REGISTER + " ")
+                    || msg.startsWith(Constants.UNREGISTER + " ")) {
+                if (!isSubscribedKey(getSubscribedServices(), key)) {
+                    // unsubscribed, the pattern stays on the connection
+                    return;
+                }
                 try {
-                    Jedis jedis = jedisPool.getResource();
-                    try {
-                        doNotify(jedis, key);
-                    } finally {
-                        jedis.close();
-                    }
+                    applyChange(jedisPool, key, msg);
+                    doNotify(key);
                 } catch (Throwable t) { // TODO Notification failure does not restore mechanism guarantee
                     logger.error(t.getMessage(), t);
                 }
@@ -524,6 +686,7 @@ public class RedisRegistry extends FailbackRegistry {
 
         @Override
         public void onPSubscribe(String pattern, int num) {
+            notifier.ensureSubscribed();
         }
 
         @Override
@@ -536,21 +699,42 @@ public class RedisRegistry extends FailbackRegistry {
 
     }
 
+    /**
+     * Subscribes all services with one blocking pub/sub connection, instead of one thread and connection per service.
+     */
     private class Notifier extends Thread {
 
-        private final String service;
+        private final Set<String> services = new CopyOnWriteArraySet<String>();
         private final AtomicInteger connectSkip = new AtomicInteger();
         private final AtomicInteger connectSkipped = new AtomicInteger();
         private final Random random = new Random();
         private volatile Jedis jedis;
+        private volatile NotifySub notifySub;
         private volatile boolean first = true;
         private volatile boolean running = true;
         private volatile int connectRandom;
 
-        public Notifier(String service) {
+        public Notifier() {
             super.setDaemon(true);
             super.setName("DubboRedisSubscribe");
-            this.service = service;
+        }
+
+        public void subscribe(String service) {
+            if (services.add(service)) {
+                synchronized (this) {
+                    if (getState() == State.NEW) {
+                        start();
+                    }
+                }
+                ensureSubscribed();
+            }
+        }
+
+        public void ensureSubscribed() {
+            NotifySub sub = notifySub;
+            if (sub != null) {
+                sub.ensureSubscribed(services);
+            }
         }
 
         private void resetSkip() {
@@ -587,28 +771,30 @@ public class RedisRegistry extends FailbackRegistry {
                                 try {
                                     jedis = jedisPool.getResource();
                                     try {
-                                        if (service.endsWith(Constants.ANY_VALUE)) {
-                                            if (!first) {
-                                                first = false;
-                                                Set<String> keys = jedis.keys(service);
+                                        if (!first) {
+                                            // changes may be missed while reconnecting, read all subscribed keys again
+                                            Set<String> subscribed = getSubscribedServices();
+                                            for (String service : services) {
+                                                if (!subscribed.contains(service) && !subscribed.contains(root + Constants.ANY_VALUE)) {
+                                                    continue;
+                                                }
+                                                Set<String> keys = jedis.keys(toPattern(service));
                                                 if (keys != null && !keys.isEmpty()) {
-                                                    for (String s : keys) {
-                                                        doNotify(jedis, s);
+                                                    refreshSnapshots(jedis, keys);
+                                                    for (String key : keys) {
+                                                        doNotify(key);
                                                     }
                                                 }
-                                                resetSkip();
                                             }
-                                            jedis.psubscribe(new NotifySub(jedisPool), service); // blocking
-                                        } else {
-                                            if (!first) {
-                                                first = false;
-                                                doNotify(jedis, service);
-                                                resetSkip();
-                                            }
-                                            jedis.psubscribe(new NotifySub(jedisPool), service + Constants.PATH_SEPARATOR + Constants.ANY_VALUE); // blocking
+                                            resetSkip();
                                         }
+                                        first = false;
+                                        NotifySub sub = new NotifySub(jedisPool);
+                                        notifySub = sub;
+                                        jedis.psubscribe(sub, sub.initialPatterns(services)); // blocking
                                         break;
                                     } finally {
+                                        notifySub = null;
                                         jedis.close();
                                     }
                                 } catch (Throwable t) { // Retry another server
@@ -631,7 +817,9 @@ public class RedisRegistry extends FailbackRegistry {
         public void shutdown() {
             try {
                 running = false;
-                jedis.disconnect();
+                if (jedis != null) {
+                    jedis.disconnect();
+                }
             } catch (Throwable t) {
                 logger.warn(t.getMessage(), t);
             }
@@ -23,13 +23,18 @@ import org.apache.dubbo.registry.Registry;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import redis.clients.jedis.Jedis;
 import redis.embedded.RedisServer;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.apache.dubbo.common.Constants.BACKUP_KEY;
+import static org.apache.dubbo.common.Constants.SESSION_TIMEOUT_KEY;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 
@@ -117,4 +122,77 @@ public class RedisRegistryTest {
 
         assertThat(registry.isAvailable(), is(true));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSubscribeMultipleServicesWithDelta() throws InterruptedException {
+        RedisRegistry publisher = (RedisRegistry) new RedisRegistryFactory().createRegistry(registryUrl.addParameter("publish.delta", true));
+        try {
+            final CountDownLatch latch = new CountDownLatch(2);
+            for (final String name : new String[]{"org.apache.dubbo.test.ServiceA", "org.apache.dubbo.test.ServiceB"}) {
+                URL consumerUrl = URL.valueOf("consumer://127.0.0.1/" + name + "?interface=" + name + "&category=providers");
+                redisRegistry.subscribe(consumerUrl, new NotifyListener() {
+                    @Override
+                    public void notify(List<URL> urls) {
+                        if (urls.size() == 1 && name.equals(urls.get(0).getServiceInterface())
+                                && "dubbo".equals(urls.get(0).getProtocol())) {
+                            latch.countDown();
+                        }
+                    }
+                });
+            }
+            // wait for the subscriber connection
+            Thread.sleep(500);
+            publisher.register(URL.valueOf("dubbo://127.0.0.1:20880/org.apache.dubbo.test.ServiceA?interface=org.apache.dubbo.test.ServiceA"));
+            publisher.register(URL.valueOf("dubbo://127.0.0.1:20880/org.apache.dubbo.test.ServiceB?interface=org.apache.dubbo.test.ServiceB"));
+            assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        } finally {
+            publisher.destroy();
+        }
+    }
+
+    @Test
+    public void testDeltaAppliedAfterExpirePeriod() throws InterruptedException {
+        String name = "org.apache.dubbo.test.ServiceC";
+        URL consumerUrl = URL.valueOf("consumer://127.0.0.1/" + name + "?interface=" + name + "&category=providers");
+        URL providerA = URL.valueOf("dubbo://127.0.0.1:20880/" + name + "?interface=" + name);
+        URL providerB = URL.valueOf("dubbo://127.0.0.2:20880/" + name + "?interface=" + name);
+        RedisRegistry publisher = (RedisRegistry) new RedisRegistryFactory().createRegistry(registryUrl
+                .addParameter("publish.delta", true).addParameter(SESSION_TIMEOUT_KEY, 400));
+        RedisRegistry subscriber = (RedisRegistry) new RedisRegistryFactory().createRegistry(registryUrl
+                .addParameter(SESSION_TIMEOUT_KEY, 400));
+        try {
+            final AtomicReference<List<URL>> notified = new AtomicReference<List<URL>>();
+            subscriber.subscribe(consumerUrl, new NotifyListener() {
+                @Override
+                public void notify(List<URL> urls) {
+                    notified.set(urls);
+                }
+            });
+            // wait for the subscriber connection
+            Thread.sleep(500);
+            publisher.register(providerA);
+            Thread.sleep(200);
+            assertThat(notified.get().contains(providerA), is(true));
+
+            // written without an event, only visible if the subscriber reads the key again
+            Jedis jedis = new Jedis(registryUrl.getHost(), registryUrl.getPort());
+            try {
+                jedis.hset("/dubbo/" + name + "/providers", "dubbo://127.0.0.3:20880/" + name + "?interface=" + name,
+                        String.valueOf(System.currentTimeMillis() + 60000));
+            } finally {
+                jedis.close();
+            }
+            // the expire time of provider A read by the subscriber has passed, renewed by heartbeats only
+            Thread.sleep(1000);
+            publisher.register(providerB);
+            Thread.sleep(200);
+            List<URL> urls = notified.get();
+            assertThat(urls.size(), is(2));
+            assertThat(urls.contains(providerA), is(true));
+            assertThat(urls.contains(providerB), is(true));
+        } finally {
+            subscriber.destroy();
+            publisher.destroy();
+        }
+    }
+}
@@ -21,6 +21,7 @@ import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
 import org.apache.dubbo.common.utils.ConcurrentHashSet;
+import org.apache.dubbo.common.utils.NamedThreadFactory;
 import org.apache.dubbo.common.utils.UrlUtils;
 import org.apache.dubbo.registry.NotifyListener;
 import org.apache.dubbo.registry.support.FailbackRegistry;
@@ -31,10 +32,16 @@ import org.apache.dubbo.remoting.zookeeper.ZookeeperTransporter;
 import org.apache.dubbo.rpc.RpcException;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * ZookeeperRegistry
@@ -56,6 +63,32 @@ public class ZookeeperRegistry extends FailbackRegistry {
 
     private final ZookeeperClient zkClient;
 
+    /**
+     * root / service / category / url
+     */
+    private final static int TREE_DEPTH = 3;
+
+    /**
+     * true if subscriptions are served by a single tree listener on root, see {@link Constants#SUBSCRIBE_MODE_KEY}
+     */
+    private final boolean treeMode;
+
+    /**
+     * category path -> child listeners of the subscriptions, only used in tree mode
+     */
+    private final ConcurrentMap<String, Set<ChildListener>> treeChildListeners = new ConcurrentHashMap<String, Set<ChildListener>>();
+
+    /**
+     * category path -> latest children not notified yet, changes of the same path within notify delay are coalesced
+     */
+    private final ConcurrentMap<String, List<String>> pendingChanges = new ConcurrentHashMap<String, List<String>>();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final ScheduledExecutorService notifyExecutor;
+
+    private final int notifyDelay;
+
     public ZookeeperRegistry(URL url, ZookeeperTransporter zookeeperTransporter) {
         super(url);
         if (url.isAnyHost()) {
@@ -79,6 +112,71 @@ public class ZookeeperRegistry extends FailbackRegistry {
                 }
             }
         });
+        this.notifyDelay = url.getParameter(Constants.NOTIFY_DELAY_KEY, Constants.DEFAULT_NOTIFY_DELAY);
+        if (Constants.TREE_SUBSCRIBE_MODE.equals(url.getParameter(Constants.SUBSCRIBE_MODE_KEY))) {
+            this.treeMode = zkClient.addTreeListener(root, TREE_DEPTH,
+                    Collections.singleton(Constants.CONSUMERS_CATEGORY), new ChildListener() {
+                        @Override
+                        public void childChanged(String path, List<String> children) {
+                            if (treeChildListeners.containsKey(path)) {
+                                pendingChanges.put(path, children);
+                                scheduleFlush();
+                            }
+                        }
+                    });
+            if (!treeMode) {
+                logger.warn("Zookeeper client " + zkClient.getClass().getSimpleName() + " does not support tree subscribe mode, use child listeners instead.");
+            }
+        } else {
+            this.treeMode = false;
+        }
+        this.notifyExecutor = treeMode ? Executors.newScheduledThreadPool(1, new NamedThreadFactory("DubboZookeeperRegistryNotifyTimer", true)) : null;
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            notifyExecutor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flushScheduled.set(false);
+                    flushPendingChanges();
+                }
+            }, notifyDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flushPendingChanges() {
+        for (String path : pendingChanges.keySet()) {
+            List<String> children = pendingChanges.remove(path);
+            Set<ChildListener> listeners = treeChildListeners.get(path);
+            if (children == null || listeners == null) {
+                continue;
+            }
+            for (ChildListener listener : listeners) {
+                try {
+                    listener.childChanged(path, children);
+                } catch (Throwable t) {
+                    logger.error("Failed to notify children changes of " + path + ", cause: " + t.getMessage(), t);
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void recover() throws Exception {
+        if (!treeMode) {
+            super.recover();
+            return;
+        }
+        // the tree cache resyncs itself after reconnect, only the child watches of any-service subscriptions are re-armed
+        recoverRegistered();
+        for (Map.Entry<URL, Set<NotifyListener>> entry : getSubscribed().entrySet()) {
+            if (Constants.ANY_VALUE.equals(entry.getKey().getServiceInterface())) {
+                for (NotifyListener listener : entry.getValue()) {
+                    addFailedSubscribed(entry.getKey(), listener);
+                }
+            }
+        }
     }
 
     static String appendDefaultPort(String address) {
@@ -101,6 +199,9 @@ public class ZookeeperRegistry extends FailbackRegistry {
     @Override
     public void destroy() {
         super.destroy();
+        if (notifyExecutor != null) {
+            notifyExecutor.shutdownNow();
+        }
         try {
             zkClient.close();
         } catch (Exception e) {
@@ -182,7 +283,16 @@ public class ZookeeperRegistry extends FailbackRegistry {
                         zkListener = listeners.get(listener);
                     }
                     zkClient.create(path, false);
-                    List<String> children = zkClient.addChildListener(path, zkListener);
+                    List<String> children;
+                    if (treeMode) {
+                        addTreeChildListener(path, zkListener);
+                        children = zkClient.getTreeChildren(path);
+                        if (children == null) {
+                            children = zkClient.getChildren(path);
+                        }
+                    } else {
+                        children = zkClient.addChildListener(path, zkListener);
+                    }
                     if (children != null) {
                         urls.addAll(toUrlsWithEmpty(url, path, children));
                     }
@@ -205,7 +315,14 @@ public class ZookeeperRegistry extends FailbackRegistry {
                     zkClient.removeChildListener(root, zkListener);
                 } else {
                     for (String path : toCategoriesPath(url)) {
-                        zkClient.removeChildListener(path, zkListener);
+                        if (treeMode) {
+                            Set<ChildListener> pathListeners = treeChildListeners.get(path);
+                            if (pathListeners != null) {
+                                pathListeners.remove(zkListener);
+                            }
+                        } else {
+                            zkClient.removeChildListener(path, zkListener);
+                        }
                     }
                 }
             }
@@ -231,6 +348,15 @@ public class ZookeeperRegistry extends FailbackRegistry {
         }
     }
 
+    private void addTreeChildListener(String path, ChildListener listener) {
+        Set<ChildListener> listeners = treeChildListeners.get(path);
+        if (listeners == null) {
+            treeChildListeners.putIfAbsent(path, new ConcurrentHashSet<ChildListener>());
+            listeners = treeChildListeners.get(path);
+        }
+        listeners.add(listener);
+    }
+
     private String toRootDir() {
         if (root.equals(Constants.PATH_SEPARATOR)) {
             return root;
@@ -277,12 +403,9 @@ public class ZookeeperRegistry extends FailbackRegistry {
         List<URL> urls = new ArrayList<URL>();
         if (providers != null && !providers.isEmpty()) {
             for (String provider : providers) {
-                provider = URL.decode(provider);
-                if (provider.contains(Constants.PROTOCOL_SEPARATOR)) {
-                    URL url = URL.valueOf(provider);
-                    if (UrlUtils.isMatch(consumer, url)) {
-                        urls.add(url);
-                    }
+                URL url = UrlUtils.decodeAndValueOfCached(provider);
+                if (url != null && UrlUtils.isMatch(consumer, url)) {
+                    urls.add(url);
                 }
             }
         }
@@ -16,6 +16,7 @@
  */
 package org.apache.dubbo.registry.zookeeper;
 
+import org.apache.dubbo.common.Constants;
 import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.status.Status;
 import org.apache.dubbo.common.utils.NetUtils;
@@ -34,6 +35,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.assertThat;
@@ -159,4 +162,36 @@ public class ZookeeperRegistryTest {
         zookeeperRegistry.register(serviceUrl);
         latch.await();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSubscribeTreeMode() throws InterruptedException {
+        ZookeeperRegistry treeRegistry = (ZookeeperRegistry) zookeeperRegistryFactory.createRegistry(
+                registryUrl.addParameter(Constants.SUBSCRIBE_MODE_KEY, Constants.TREE_SUBSCRIBE_MODE));
+        try {
+            URL providerUrl = URL.valueOf("dubbo://127.0.0.1:20880/" + service + "?interface=" + service);
+            URL consumerUrl = URL.valueOf("consumer://127.0.0.1/" + service + "?interface=" + service
+                    + "&category=providers,configurators,routers");
+            final AtomicReference<List<URL>> notified = new AtomicReference<List<URL>>();
+            final CountDownLatch emptyLatch = new CountDownLatch(1);
+            final CountDownLatch providerLatch = new CountDownLatch(1);
+            treeRegistry.subscribe(consumerUrl, new NotifyListener() {
+                @Override
+                public void notify(List<URL> urls) {
+                    notified.set(urls);
+                    if (urls.size() == 1 && Constants.EMPTY_PROTOCOL.equals(urls.get(0).getProtocol())) {
+                        emptyLatch.countDown();
+                    } else if (urls.size() == 1 && "dubbo".equals(urls.get(0).getProtocol())) {
+                        providerLatch.countDown();
+                    }
+                }
+            });
+            assertThat(emptyLatch.await(5, TimeUnit.SECONDS), is(true));
+
+            zookeeperRegistry.register(providerUrl);
+            assertThat(providerLatch.await(5, TimeUnit.SECONDS), is(true));
+            assertThat(notified.get().get(0), is(providerUrl));
+        } finally {
+            treeRegistry.destroy();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.remoting.compress;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compression counters of the connections of an address, the address of the url of the channel: the provider address
+ * on the consumer side, the bound address on the provider side. Compression is set per connection, not per service.
+ */
+public class CompressionStatistics {
+
+    private static final ConcurrentMap<String, CompressionStatistics> STATISTICS = new ConcurrentHashMap<String, CompressionStatistics>();
+
+    private final AtomicLong compressedMessages = new AtomicLong();
+
+    private final AtomicLong uncompressedMessages = new AtomicLong();
+
+    private final AtomicLong compressInputBytes = new AtomicLong();
+
+    private final AtomicLong compressOutputBytes = new AtomicLong();
+
+    private final AtomicLong compressNanos = new AtomicLong();
+
+    private final AtomicLong decompressedMessages = new AtomicLong();
+
+    private final AtomicLong decompressInputBytes = new AtomicLong();
+
+    private final AtomicLong decompressOutputBytes = new AtomicLong();
+
+    private final AtomicLong decompressNanos = new AtomicLong();
+
+    public static CompressionStatistics getStatistics(String address) {
+        CompressionStatistics statistics = STATISTICS.get(address);
+        if (statistics == null) {
+            STATISTICS.putIfAbsent(address, new CompressionStatistics());
+            statistics = STATISTICS.get(address);
+        }
+        return statistics;
+    }
+
+    public static Map<String, CompressionStatistics> getAllStatistics() {
+        return Collections.unmodifiableMap(STATISTICS);
+    }
+
+    /**
+     * A message above the threshold which was sent as is, as compressing it did not make it smaller
+     */
+    public void uncompressed(long nanos) {
+        uncompressedMessages.incrementAndGet();
+        compressNanos.addAndGet(nanos);
+    }
+
+    public void compressed(int inputBytes, int outputBytes, long nanos) {
+        compressedMessages.incrementAndGet();
+        compressInputBytes.addAndGet(inputBytes);
+        compressOutputBytes.addAndGet(outputBytes);
+        compressNanos.addAndGet(nanos);
+    }
+
+    public void decompressed(int inputBytes, int outputBytes, long nanos) {
+        decompressedMessages.incrementAndGet();
+        decompressInputBytes.addAndGet(inputBytes);
+        decompressOutputBytes.addAndGet(outputBytes);
+        decompressNanos.addAndGet(nanos);
+    }
+
+    public long getCompressedMessages() {
+        return compressedMessages.get();
+    }
+
+    public long getUncompressedMessages() {
+        return uncompressedMessages.get();
+    }
+
+    public long getDecompressedMessages() {
+        return decompressedMessages.get();
+    }
+
+    public long getCompressNanos() {
+        return compressNanos.get();
+    }
+
+    public long getDecompressNanos() {
+        return decompressNanos.get();
+    }
+
+    /**
+     * @return the bytes not sent nor received thanks to the compression
+     */
+    public long getSavedBytes() {
+        return compressInputBytes.get() - compressOutputBytes.get()
+                + decompressOutputBytes.get() - decompressInputBytes.get();
+    }
+
+    /**
+     * @return the uncompressed size divided by the compressed size of the messages, 0 if there is none
+     */
+    public double getRatio() {
+        long compressedBytes = compressOutputBytes.get() + decompressInputBytes.get();
+        if (compressedBytes == 0) {
+            return 0;
+        }
+        return (double) (compressInputBytes.get() + decompressOutputBytes.get()) / compressedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "compressed: " + getCompressedMessages() + ", uncompressed: " + getUncompressedMessages()
+                + ", decompressed: " + getDecompressedMessages() + ", ratio: " + String.format("%.2f", getRatio())
+                + ", saved bytes: " + getSavedBytes() + ", compress time: " + getCompressNanos() / 1000000
+                + "ms, decompress time: " + getDecompressNanos() / 1000000 + "ms";
+    }
+}
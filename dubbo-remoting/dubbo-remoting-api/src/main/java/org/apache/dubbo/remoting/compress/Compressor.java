@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.remoting.compress;
+
+import org.apache.dubbo.common.extension.SPI;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compressor of the message bodies, chosen by the provider through
+ * {@link org.apache.dubbo.common.Constants#COMPRESSOR_KEY}.
+ * <p>
+ * The compressor and {@link org.apache.dubbo.common.Constants#COMPRESS_THRESHOLD_KEY} are connection level
+ * parameters: they are read from the url of the channel, that is the protocol of the provider, and on the consumer
+ * side the reference which opened the connection. Services sharing a connection are compressed the same way, so set
+ * them on the protocol rather than on a single service.
+ */
+@SPI(DeflateCompressor.NAME)
+public interface Compressor {
+
+    /**
+     * @return the stream compressing into the given one, closing it finishes the compression and closes the given one
+     */
+    OutputStream compress(OutputStream os) throws IOException;
+
+    /**
+     * @return the stream decompressing the given one
+     */
+    InputStream decompress(InputStream is) throws IOException;
+}
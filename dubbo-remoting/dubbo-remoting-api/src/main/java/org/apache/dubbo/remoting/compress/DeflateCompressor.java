@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.remoting.compress;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Deflate compressor, the deflater and the inflater are kept per thread.
+ */
+public class DeflateCompressor implements Compressor {
+
+    public static final String NAME = "deflate";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final ThreadLocal<Deflater> DEFLATER = new ThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater(Deflater.BEST_SPEED);
+        }
+    };
+
+    private static final ThreadLocal<Inflater> INFLATER = new ThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater();
+        }
+    };
+
+    @Override
+    public OutputStream compress(OutputStream os) {
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        return new DeflaterOutputStream(os, deflater, BUFFER_SIZE);
+    }
+
+    @Override
+    public InputStream decompress(InputStream is) {
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        return new InflaterInputStream(is, inflater, BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.remoting.exchange;
+
+/**
+ * A reply sent back in chunks: every chunk is sent as a partial response with the id of the request, and the final
+ * result closes the response. Chunks are sent as long as the requester grants credits with
+ * {@link Request#CREDIT_EVENT} events.
+ */
+public interface ChunkedResult {
+
+    /**
+     * @return the number of chunks which may be sent before the requester grants more
+     */
+    int getCredits();
+
+    /**
+     * @return the next chunk, or null when all the chunks are sent
+     */
+    Object nextChunk();
+
+    /**
+     * @return the final result, got once {@link #nextChunk()} returned null
+     */
+    Object getResult();
+
+    /**
+     * the response is abandoned, by the requester or because the channel is closed.
+     */
+    void cancel();
+
+}
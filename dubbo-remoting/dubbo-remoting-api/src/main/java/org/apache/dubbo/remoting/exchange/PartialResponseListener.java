@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.remoting.exchange;
+
+/**
+ * Receives the partial responses of a request answered in several parts.
+ *
+ * @see Response#isPartial()
+ * @see ChunkedResult
+ */
+public interface PartialResponseListener {
+
+    /**
+     * a partial response is received, called in the order the responses are dispatched, which may differ from
+     * the order they were sent when they are dispatched to a thread pool.
+     *
+     * @param result the result of the partial response
+     */
+    void received(Object result);
+
+}
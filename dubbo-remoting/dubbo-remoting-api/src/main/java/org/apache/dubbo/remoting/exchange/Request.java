@@ -29,6 +29,12 @@ public class Request {
 
     public static final String READONLY_EVENT = "R";
 
+    /**
+     * prefix of the event granting more chunks to the chunked response with the same id, followed by the number of
+     * chunks, a negative number cancels the response.
+     */
+    public static final String CREDIT_EVENT = "C";
+
     private static final AtomicLong INVOKE_ID = new AtomicLong(0);
 
     private final long mId;
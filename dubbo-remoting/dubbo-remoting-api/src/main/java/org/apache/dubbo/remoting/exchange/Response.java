@@ -88,6 +88,8 @@ public class Response {
 
     private boolean mEvent = false;
 
+    private boolean mPartial = false;
+
     private String mErrorMsg;
 
     private Object mResult;
@@ -137,6 +139,17 @@ public class Response {
         mResult = event;
     }
 
+    /**
+     * partial response: more responses with the same id will follow.
+     */
+    public boolean isPartial() {
+        return mPartial;
+    }
+
+    public void setPartial(boolean partial) {
+        mPartial = partial;
+    }
+
     public boolean isHeartbeat() {
         return mEvent && HEARTBEAT_EVENT == mResult;
     }
@@ -167,6 +180,7 @@ public class Response {
     @Override
     public String toString() {
         return "Response [id=" + mId + ", version=" + mVersion + ", status=" + mStatus + ", event=" + mEvent
+                + (mPartial ? ", partial=true" : "")
                 + ", error=" + mErrorMsg + ", result=" + (mResult == this ? "this" : mResult) + "]";
     }
 }
\ No newline at end of file
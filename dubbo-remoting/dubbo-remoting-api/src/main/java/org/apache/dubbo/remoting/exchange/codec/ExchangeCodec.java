@@ -16,9 +16,14 @@
  */
 package org.apache.dubbo.remoting.exchange.codec;
 
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.Version;
+import org.apache.dubbo.common.extension.ExtensionLoader;
 import org.apache.dubbo.common.io.Bytes;
 import org.apache.dubbo.common.io.StreamUtils;
+import org.apache.dubbo.common.io.UnsafeByteArrayInputStream;
+import org.apache.dubbo.common.io.UnsafeByteArrayOutputStream;
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
 import org.apache.dubbo.common.serialize.Cleanable;
@@ -26,20 +31,28 @@ import org.apache.dubbo.common.serialize.ObjectInput;
 import org.apache.dubbo.common.serialize.ObjectOutput;
 import org.apache.dubbo.common.serialize.Serialization;
 import org.apache.dubbo.common.utils.StringUtils;
+import org.apache.dubbo.metrics.BucketCounter;
+import org.apache.dubbo.metrics.MetricManager;
+import org.apache.dubbo.metrics.MetricName;
 import org.apache.dubbo.remoting.Channel;
 import org.apache.dubbo.remoting.RemotingException;
 import org.apache.dubbo.remoting.buffer.ChannelBuffer;
 import org.apache.dubbo.remoting.buffer.ChannelBufferInputStream;
 import org.apache.dubbo.remoting.buffer.ChannelBufferOutputStream;
+import org.apache.dubbo.remoting.compress.CompressionStatistics;
+import org.apache.dubbo.remoting.compress.Compressor;
 import org.apache.dubbo.remoting.exchange.Request;
 import org.apache.dubbo.remoting.exchange.Response;
 import org.apache.dubbo.remoting.exchange.support.DefaultFuture;
 import org.apache.dubbo.remoting.telnet.codec.TelnetCodec;
 import org.apache.dubbo.remoting.transport.CodecSupport;
 import org.apache.dubbo.remoting.transport.ExceedPayloadLimitException;
+import org.apache.dubbo.remoting.transport.SerializationProfiler;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * ExchangeCodec.
@@ -59,7 +72,18 @@ public class ExchangeCodec extends TelnetCodec {
     protected static final byte FLAG_REQUEST = (byte) 0x80;
     protected static final byte FLAG_TWOWAY = (byte) 0x40;
     protected static final byte FLAG_EVENT = (byte) 0x20;
+    // on a response, the two way bit flags a partial response, more responses with the same id follow.
+    protected static final byte FLAG_PARTIAL = FLAG_TWOWAY;
     protected static final int SERIALIZATION_MASK = 0x1f;
+    // status flags, the body is compressed, and on a request, the sender accepts compressed responses.
+    protected static final byte FLAG_COMPRESSED = (byte) 0x80;
+    protected static final byte FLAG_ACCEPT_COMPRESSED = (byte) 0x40;
+    // channel attribute set once the peer accepts compressed responses
+    private static final String COMPRESSION_ACCEPTED_KEY = "compression.accepted";
+    private static final int COMPRESSION_CHUNK_SIZE = 8192;
+    // bytes on the wire per time bucket, headers included
+    private static final BucketCounter ENCODED_BYTES = MetricManager.getBucketCounters(Constants.METRICS_GROUP, new MetricName("dubbo.codec.encode.bytes"));
+    private static final BucketCounter DECODED_BYTES = MetricManager.getBucketCounters(Constants.METRICS_GROUP, new MetricName("dubbo.codec.decode.bytes"));
     private static final Logger logger = LoggerFactory.getLogger(ExchangeCodec.class);
 
     public Short getMagicCode() {
@@ -117,12 +141,13 @@ public class ExchangeCodec extends TelnetCodec {
         if (readable < tt) {
             return DecodeResult.NEED_MORE_INPUT;
         }
+        DECODED_BYTES.update(tt);
 
         // limit input stream.
         ChannelBufferInputStream is = new ChannelBufferInputStream(buffer, len);
 
         try {
-            return decodeBody(channel, is, header);
+            return decodeBody(channel, decompress(channel, is, len, header), header);
         } finally {
             if (is.available() > 0) {
                 try {
@@ -141,6 +166,16 @@ public class ExchangeCodec extends TelnetCodec {
         byte flag = header[2], proto = (byte) (flag & SERIALIZATION_MASK);
         Serialization s = CodecSupport.getSerialization(channel.getUrl(), proto);
         ObjectInput in = s.deserialize(channel.getUrl(), is);
+        try {
+            return decodeBody(channel, in, flag, header);
+        } finally {
+            if (in instanceof Cleanable) {
+                ((Cleanable) in).cleanup();
+            }
+        }
+    }
+
+    private Object decodeBody(Channel channel, ObjectInput in, byte flag, byte[] header) throws IOException {
         // get request id.
         long id = Bytes.bytes2long(header, 4);
         if ((flag & FLAG_REQUEST) == 0) {
@@ -149,6 +184,7 @@ public class ExchangeCodec extends TelnetCodec {
             if ((flag & FLAG_EVENT) != 0) {
                 res.setEvent(Response.HEARTBEAT_EVENT);
             }
+            res.setPartial((flag & FLAG_PARTIAL) != 0);
             // get status.
             byte status = header[3];
             res.setStatus(status);
@@ -198,6 +234,84 @@ public class ExchangeCodec extends TelnetCodec {
         }
     }
 
+    /**
+     * Clear the status flags of the header and decompress the body if it is compressed.
+     */
+    private InputStream decompress(Channel channel, InputStream is, int len, byte[] header) throws IOException {
+        byte flags = header[3];
+        if ((header[2] & FLAG_REQUEST) != 0) {
+            header[3] = 0;
+            if ((flags & FLAG_ACCEPT_COMPRESSED) != 0 && !channel.hasAttribute(COMPRESSION_ACCEPTED_KEY)) {
+                channel.setAttribute(COMPRESSION_ACCEPTED_KEY, Boolean.TRUE);
+            }
+        } else {
+            header[3] = (byte) (flags & ~FLAG_COMPRESSED);
+        }
+        if ((flags & FLAG_COMPRESSED) == 0) {
+            return is;
+        }
+        String name = channel.getUrl().getParameter(Constants.COMPRESSOR_KEY);
+        if (StringUtils.isEmpty(name)) {
+            throw new IOException("Received a compressed message without compressor configured, channel: " + channel);
+        }
+        long start = System.nanoTime();
+        InputStream in = ExtensionLoader.getExtensionLoader(Compressor.class).getExtension(name).decompress(is);
+        UnsafeByteArrayOutputStream out = new UnsafeByteArrayOutputStream(len * 4);
+        byte[] chunk = new byte[COMPRESSION_CHUNK_SIZE];
+        int read;
+        while ((read = in.read(chunk)) >= 0) {
+            out.write(chunk, 0, read);
+            // the payload limit still applies to the decompressed body
+            checkPayload(channel, out.size());
+        }
+        CompressionStatistics.getStatistics(channel.getUrl().getAddress())
+                .decompressed(len, out.size(), System.nanoTime() - start);
+        ByteBuffer decompressed = out.toByteBuffer();
+        return new UnsafeByteArrayInputStream(decompressed.array(), 0, decompressed.limit());
+    }
+
+    /**
+     * Compress the body in place when it is above the threshold and the compression makes it smaller. The compressor
+     * and the threshold are read from the url of the channel, which is the url of the connection, so they apply to all
+     * the services sharing it rather than to the service of the invocation.
+     *
+     * @return the length of the body
+     */
+    private int compress(Channel channel, ChannelBuffer buffer, int bodyIndex, int len, byte[] header) throws IOException {
+        URL url = channel.getUrl();
+        if (len < url.getParameter(Constants.COMPRESS_THRESHOLD_KEY, Constants.DEFAULT_COMPRESS_THRESHOLD)) {
+            return len;
+        }
+        long start = System.nanoTime();
+        CompressionStatistics statistics = CompressionStatistics.getStatistics(url.getAddress());
+        // compressed behind the body, then moved over it
+        int compressedIndex = bodyIndex + len;
+        byte[] chunk = new byte[Math.min(len, COMPRESSION_CHUNK_SIZE)];
+        OutputStream os = ExtensionLoader.getExtensionLoader(Compressor.class)
+                .getExtension(url.getParameter(Constants.COMPRESSOR_KEY)).compress(new ChannelBufferOutputStream(buffer));
+        for (int offset = 0; offset < len; offset += chunk.length) {
+            int length = Math.min(chunk.length, len - offset);
+            buffer.getBytes(bodyIndex + offset, chunk, 0, length);
+            os.write(chunk, 0, length);
+        }
+        os.close();
+        int compressedLen = buffer.writerIndex() - compressedIndex;
+        if (compressedLen >= len) {
+            buffer.writerIndex(compressedIndex);
+            statistics.uncompressed(System.nanoTime() - start);
+            return len;
+        }
+        for (int offset = 0; offset < compressedLen; offset += chunk.length) {
+            int length = Math.min(chunk.length, compressedLen - offset);
+            buffer.getBytes(compressedIndex + offset, chunk, 0, length);
+            buffer.setBytes(bodyIndex + offset, chunk, 0, length);
+        }
+        buffer.writerIndex(bodyIndex + compressedLen);
+        header[3] |= FLAG_COMPRESSED;
+        statistics.compressed(len, compressedLen, System.nanoTime() - start);
+        return compressedLen;
+    }
+
     protected Object getRequestData(long id) {
         DefaultFuture future = DefaultFuture.getFuture(id);
         if (future == null)
@@ -221,10 +335,15 @@ public class ExchangeCodec extends TelnetCodec {
         if (req.isTwoWay()) header[2] |= FLAG_TWOWAY;
         if (req.isEvent()) header[2] |= FLAG_EVENT;
 
+        boolean compression = StringUtils.isNotEmpty(channel.getUrl().getParameter(Constants.COMPRESSOR_KEY));
+        if (compression) header[3] = FLAG_ACCEPT_COMPRESSED;
+
         // set request id.
         Bytes.long2bytes(req.getId(), header, 4);
 
         // encode request data.
+        SerializationProfiler profiler = req.isEvent() ? null : getEncodeProfiler(channel, req);
+        long start = profiler == null ? 0 : System.nanoTime();
         int savedWriteIndex = buffer.writerIndex();
         buffer.writerIndex(savedWriteIndex + HEADER_LENGTH);
         ChannelBufferOutputStream bos = new ChannelBufferOutputStream(buffer);
@@ -241,13 +360,20 @@ public class ExchangeCodec extends TelnetCodec {
         bos.flush();
         bos.close();
         int len = bos.writtenBytes();
+        if (profiler != null) {
+            profiler.encoded(getProfiledClasses(req.getData()), len, System.nanoTime() - start);
+        }
         checkPayload(channel, len);
+        if (compression && !req.isEvent()) {
+            len = compress(channel, buffer, savedWriteIndex + HEADER_LENGTH, len, header);
+        }
         Bytes.int2bytes(len, header, 12);
 
         // write
         buffer.writerIndex(savedWriteIndex);
         buffer.writeBytes(header); // write header.
         buffer.writerIndex(savedWriteIndex + HEADER_LENGTH + len);
+        ENCODED_BYTES.update(HEADER_LENGTH + len);
     }
 
     protected void encodeResponse(Channel channel, ChannelBuffer buffer, Response res) throws IOException {
@@ -261,12 +387,15 @@ public class ExchangeCodec extends TelnetCodec {
             // set request and serialization flag.
             header[2] = serialization.getContentTypeId();
             if (res.isHeartbeat()) header[2] |= FLAG_EVENT;
+            if (res.isPartial()) header[2] |= FLAG_PARTIAL;
             // set response status.
             byte status = res.getStatus();
             header[3] = status;
             // set request id.
             Bytes.long2bytes(res.getId(), header, 4);
 
+            SerializationProfiler profiler = res.isEvent() ? null : getEncodeProfiler(channel, res);
+            long start = profiler == null ? 0 : System.nanoTime();
             buffer.writerIndex(savedWriteIndex + HEADER_LENGTH);
             ChannelBufferOutputStream bos = new ChannelBufferOutputStream(buffer);
             ObjectOutput out = serialization.serialize(channel.getUrl(), bos);
@@ -286,12 +415,21 @@ public class ExchangeCodec extends TelnetCodec {
             bos.close();
 
             int len = bos.writtenBytes();
+            if (profiler != null) {
+                profiler.encoded(status == Response.OK ? getProfiledClasses(res.getResult()) : String.class.getName(),
+                        len, System.nanoTime() - start);
+            }
             checkPayload(channel, len);
+            if (!res.isEvent() && channel.hasAttribute(COMPRESSION_ACCEPTED_KEY)
+                    && StringUtils.isNotEmpty(channel.getUrl().getParameter(Constants.COMPRESSOR_KEY))) {
+                len = compress(channel, buffer, savedWriteIndex + HEADER_LENGTH, len, header);
+            }
             Bytes.int2bytes(len, header, 12);
             // write
             buffer.writerIndex(savedWriteIndex);
             buffer.writeBytes(header); // write header.
             buffer.writerIndex(savedWriteIndex + HEADER_LENGTH + len);
+            ENCODED_BYTES.update(HEADER_LENGTH + len);
         } catch (Throwable t) {
             // clear buffer
             buffer.writerIndex(savedWriteIndex);
@@ -335,6 +473,21 @@ public class ExchangeCodec extends TelnetCodec {
         }
     }
 
+    /**
+     * @param message the {@link Request} or {@link Response} to encode
+     * @return the profiler recording its serialization, null if the message is not sampled
+     */
+    protected SerializationProfiler getEncodeProfiler(Channel channel, Object message) {
+        return null;
+    }
+
+    /**
+     * @return the names of the top level classes of the data of a profiled message
+     */
+    protected String getProfiledClasses(Object data) {
+        return data == null ? "null" : data.getClass().getName();
+    }
+
     @Override
     protected Object decodeData(ObjectInput in) throws IOException {
         return decodeRequestData(in);
@@ -24,16 +24,23 @@ import org.apache.dubbo.common.timer.Timeout;
 import org.apache.dubbo.common.timer.Timer;
 import org.apache.dubbo.common.timer.TimerTask;
 import org.apache.dubbo.common.utils.NamedThreadFactory;
+import org.apache.dubbo.metrics.Compass;
+import org.apache.dubbo.metrics.Gauge;
+import org.apache.dubbo.metrics.MetricManager;
+import org.apache.dubbo.metrics.MetricName;
 import org.apache.dubbo.remoting.Channel;
 import org.apache.dubbo.remoting.RemotingException;
 import org.apache.dubbo.remoting.TimeoutException;
+import org.apache.dubbo.remoting.exchange.PartialResponseListener;
 import org.apache.dubbo.remoting.exchange.Request;
 import org.apache.dubbo.remoting.exchange.Response;
 import org.apache.dubbo.remoting.exchange.ResponseCallback;
 import org.apache.dubbo.remoting.exchange.ResponseFuture;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
@@ -52,11 +59,32 @@ public class DefaultFuture implements ResponseFuture {
 
     private static final Map<Long, DefaultFuture> FUTURES = new ConcurrentHashMap<>();
 
+    // futures still receiving partial responses, which may be dispatched after the final response
+    private static final Map<Long, DefaultFuture> PARTIAL_FUTURES = new ConcurrentHashMap<>();
+
     public static final Timer TIME_OUT_TIMER = new HashedWheelTimer(
             new NamedThreadFactory("dubbo-future-timeout", true),
             30,
             TimeUnit.MILLISECONDS);
 
+    // round trip time of the requests, by success, error or timeout
+    private static final Compass RESPONSE_COMPASS = MetricManager.getCompass(Constants.METRICS_GROUP, new MetricName("dubbo.consumer.response"));
+
+    static {
+        // requests waiting for their response
+        MetricManager.register(Constants.METRICS_GROUP, new MetricName("dubbo.consumer.pending"), new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return FUTURES.size();
+            }
+
+            @Override
+            public long lastUpdateTime() {
+                return System.currentTimeMillis();
+            }
+        });
+    }
+
     // invoke id.
     private final long id;
     private final Channel channel;
@@ -68,6 +96,10 @@ public class DefaultFuture implements ResponseFuture {
     private volatile long sent;
     private volatile Response response;
     private volatile ResponseCallback callback;
+    // time of the last partial response, the timeout counts from it once partial responses are received
+    private volatile long lastPartial;
+    private PartialResponseListener partialListener;
+    private List<Object> pendingPartials;
 
     private DefaultFuture(Channel channel, Request request, int timeout) {
         this.channel = channel;
@@ -143,9 +175,26 @@ public class DefaultFuture implements ResponseFuture {
     }
 
     public static void received(Channel channel, Response response) {
+        if (response.isPartial() && response.getStatus() == Response.OK) {
+            DefaultFuture future = PARTIAL_FUTURES.get(response.getId());
+            if (future == null) {
+                future = FUTURES.get(response.getId());
+            }
+            if (future != null) {
+                future.doPartialReceived(response);
+            } else {
+                logger.warn("The partial response of a finished request is ignored, response " + response
+                        + (channel == null ? "" : ", channel: " + channel.getLocalAddress()
+                        + " -> " + channel.getRemoteAddress()));
+            }
+            return;
+        }
         try {
             DefaultFuture future = FUTURES.remove(response.getId());
             if (future != null) {
+                if (future.lastPartial > 0) {
+                    PARTIAL_FUTURES.putIfAbsent(future.getId(), future);
+                }
                 future.doReceived(response);
             } else {
                 logger.warn("The timeout response finally returned at "
@@ -196,6 +245,7 @@ public class DefaultFuture implements ResponseFuture {
         errorResult.setErrorMessage("request future has been canceled.");
         response = errorResult;
         FUTURES.remove(id);
+        PARTIAL_FUTURES.remove(id);
         CHANNELS.remove(id);
     }
 
@@ -226,6 +276,38 @@ public class DefaultFuture implements ResponseFuture {
         }
     }
 
+    /**
+     * set the listener of the partial responses, the partial responses received before are passed to it at once.
+     * The listener keeps receiving the partial responses dispatched after the final one, until it is removed.
+     *
+     * @param listener listener of the partial responses
+     */
+    public void setPartialListener(PartialResponseListener listener) {
+        if (listener == null) {
+            throw new NullPointerException("listener cannot be null.");
+        }
+        lock.lock();
+        try {
+            if (pendingPartials != null) {
+                for (Object partial : pendingPartials) {
+                    listener.received(partial);
+                }
+                pendingPartials = null;
+            }
+            this.partialListener = listener;
+            PARTIAL_FUTURES.put(id, this);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * stop receiving partial responses, once the listener got all of them or gave up.
+     */
+    public void removePartialListener() {
+        PARTIAL_FUTURES.remove(id);
+    }
+
     private static class TimeoutCheckTask implements TimerTask {
 
         private DefaultFuture future;
@@ -239,6 +321,15 @@ public class DefaultFuture implements ResponseFuture {
             if (future == null || future.isDone()) {
                 return;
             }
+            // partial responses keep the request alive, the timeout restarts with each of them
+            long lastPartial = future.lastPartial;
+            if (lastPartial > 0) {
+                long remaining = lastPartial + future.getTimeout() - System.currentTimeMillis();
+                if (remaining > 0) {
+                    TIME_OUT_TIMER.newTimeout(this, remaining, TimeUnit.MILLISECONDS);
+                    return;
+                }
+            }
             // create exception response.
             Response timeoutResponse = new Response(future.getId());
             // set timeout status.
@@ -327,6 +418,7 @@ public class DefaultFuture implements ResponseFuture {
     }
 
     private void doReceived(Response res) {
+        recordResponse(res);
         lock.lock();
         try {
             response = res;
@@ -341,6 +433,41 @@ public class DefaultFuture implements ResponseFuture {
         }
     }
 
+    private void recordResponse(Response res) {
+        String category;
+        if (res.getStatus() == Response.OK) {
+            category = "success";
+        } else if (res.getStatus() == Response.CLIENT_TIMEOUT || res.getStatus() == Response.SERVER_TIMEOUT) {
+            category = "timeout";
+        } else {
+            category = "error";
+        }
+        RESPONSE_COMPASS.record(System.currentTimeMillis() - start, category);
+    }
+
+    private void doPartialReceived(Response res) {
+        lastPartial = System.currentTimeMillis();
+        PartialResponseListener listener;
+        lock.lock();
+        try {
+            listener = partialListener;
+            if (listener == null) {
+                if (pendingPartials == null) {
+                    pendingPartials = new ArrayList<>();
+                }
+                pendingPartials.add(res.getResult());
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        try {
+            listener.received(res.getResult());
+        } catch (Exception e) {
+            logger.error("partial listener invoke error, result: " + res.getResult() + ", url: " + channel.getUrl(), e);
+        }
+    }
+
     private String getTimeoutMessage(boolean scan) {
         long nowTimestamp = System.currentTimeMillis();
         return (sent > 0 ? "Waiting server-side response timeout" : "Sending request timeout in client-side")
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.remoting.exchange.support.header;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.timer.Timeout;
+import org.apache.dubbo.common.timer.TimerTask;
+import org.apache.dubbo.common.utils.StringUtils;
+import org.apache.dubbo.remoting.Channel;
+import org.apache.dubbo.remoting.RemotingException;
+import org.apache.dubbo.remoting.exchange.ChunkedResult;
+import org.apache.dubbo.remoting.exchange.Request;
+import org.apache.dubbo.remoting.exchange.Response;
+import org.apache.dubbo.remoting.exchange.support.DefaultFuture;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sends a {@link ChunkedResult} as partial responses while the requester grants credits, then the final response.
+ * The response is cancelled when the channel is disconnected, or when no credit comes within the timeout.
+ */
+final class ChunkedResponseSender implements TimerTask {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedResponseSender.class);
+
+    private static final String SENDERS_KEY = "chunked.senders";
+
+    private final Channel channel;
+    private final long id;
+    private final String version;
+    private final ChunkedResult result;
+    private final int timeout;
+    private final AtomicInteger credits;
+    private final Lock lock = new ReentrantLock();
+    private volatile boolean finished;
+    private volatile long lastActivity = System.currentTimeMillis();
+
+    private ChunkedResponseSender(Channel channel, Request req, ChunkedResult result) {
+        this.channel = channel;
+        this.id = req.getId();
+        this.version = req.getVersion();
+        this.result = result;
+        this.timeout = channel.getUrl().getPositiveParameter(Constants.TIMEOUT_KEY, Constants.DEFAULT_TIMEOUT);
+        this.credits = new AtomicInteger(result.getCredits());
+    }
+
+    /**
+     * start sending the chunks of the reply to the request.
+     */
+    static void send(Channel channel, Request req, ChunkedResult result) {
+        ChunkedResponseSender sender = new ChunkedResponseSender(channel, req, result);
+        getSenders(channel).put(sender.id, sender);
+        DefaultFuture.TIME_OUT_TIMER.newTimeout(sender, sender.timeout, TimeUnit.MILLISECONDS);
+        sender.drain();
+    }
+
+    static boolean isCreditEvent(Request req) {
+        return req.getData() instanceof String && ((String) req.getData()).startsWith(Request.CREDIT_EVENT);
+    }
+
+    /**
+     * handle a {@link Request#CREDIT_EVENT} event.
+     */
+    static void credit(Channel channel, Request req) {
+        ChunkedResponseSender sender = getSenders(channel).get(req.getId());
+        if (sender == null) {
+            return;
+        }
+        int n;
+        try {
+            n = Integer.parseInt(((String) req.getData()).substring(Request.CREDIT_EVENT.length()));
+        } catch (NumberFormatException e) {
+            logger.warn("Illegal credit event " + req.getData() + ", channel: " + channel);
+            return;
+        }
+        if (n < 0) {
+            sender.cancel();
+        } else {
+            sender.lastActivity = System.currentTimeMillis();
+            sender.credits.addAndGet(n);
+            sender.drain();
+        }
+    }
+
+    /**
+     * cancel the responses being sent over the channel.
+     */
+    static void cancel(Channel channel) {
+        for (ChunkedResponseSender sender : getSenders(channel).values()) {
+            sender.cancel();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<Long, ChunkedResponseSender> getSenders(Channel channel) {
+        ConcurrentMap<Long, ChunkedResponseSender> senders =
+                (ConcurrentMap<Long, ChunkedResponseSender>) channel.getAttribute(SENDERS_KEY);
+        if (senders == null) {
+            synchronized (ChunkedResponseSender.class) {
+                senders = (ConcurrentMap<Long, ChunkedResponseSender>) channel.getAttribute(SENDERS_KEY);
+                if (senders == null) {
+                    senders = new ConcurrentHashMap<>();
+                    channel.setAttribute(SENDERS_KEY, senders);
+                }
+            }
+        }
+        return senders;
+    }
+
+    /**
+     * one thread sends at a time, a thread failing to get the lock leaves its credits to the sending one, which
+     * checks them again once it released the lock.
+     */
+    private void drain() {
+        while (!finished && credits.get() > 0 && lock.tryLock()) {
+            try {
+                sendChunks();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void sendChunks() {
+        while (!finished && credits.get() > 0) {
+            Response res = new Response(id, version);
+            try {
+                Object chunk = result.nextChunk();
+                if (chunk == null) {
+                    res.setStatus(Response.OK);
+                    res.setResult(result.getResult());
+                    finish();
+                } else {
+                    credits.decrementAndGet();
+                    res.setPartial(true);
+                    res.setResult(chunk);
+                }
+            } catch (Throwable t) {
+                res.setStatus(Response.SERVICE_ERROR);
+                res.setErrorMessage(StringUtils.toString(t));
+                finish();
+            }
+            try {
+                channel.send(res);
+                lastActivity = System.currentTimeMillis();
+            } catch (RemotingException e) {
+                logger.warn("Send chunked result to consumer failed, channel is " + channel + ", msg is " + e);
+                cancel();
+            }
+        }
+    }
+
+    private void finish() {
+        finished = true;
+        getSenders(channel).remove(id);
+    }
+
+    private void cancel() {
+        if (!finished) {
+            finish();
+            try {
+                result.cancel();
+            } catch (Throwable t) {
+                logger.warn("Failed to cancel chunked result " + result + ", cause: " + t.getMessage(), t);
+            }
+        }
+    }
+
+    @Override
+    public void run(Timeout timeout) {
+        if (finished) {
+            return;
+        }
+        long idle = System.currentTimeMillis() - lastActivity;
+        if (idle >= this.timeout) {
+            logger.warn("Cancel the chunked response " + id + " waiting for credits for " + idle
+                    + " ms, channel: " + channel);
+            cancel();
+        } else {
+            timeout.timer().newTimeout(this, this.timeout - idle, TimeUnit.MILLISECONDS);
+        }
+    }
+}
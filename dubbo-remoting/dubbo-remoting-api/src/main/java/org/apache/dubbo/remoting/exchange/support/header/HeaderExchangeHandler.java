@@ -26,6 +26,7 @@ import org.apache.dubbo.remoting.Channel;
 import org.apache.dubbo.remoting.ChannelHandler;
 import org.apache.dubbo.remoting.ExecutionException;
 import org.apache.dubbo.remoting.RemotingException;
+import org.apache.dubbo.remoting.exchange.ChunkedResult;
 import org.apache.dubbo.remoting.exchange.ExchangeChannel;
 import org.apache.dubbo.remoting.exchange.ExchangeHandler;
 import org.apache.dubbo.remoting.exchange.Request;
@@ -74,6 +75,8 @@ public class HeaderExchangeHandler implements ChannelHandlerDelegate {
     void handlerEvent(Channel channel, Request req) throws RemotingException {
         if (req.getData() != null && req.getData().equals(Request.READONLY_EVENT)) {
             channel.setAttribute(Constants.CHANNEL_ATTRIBUTE_READONLY_KEY, Boolean.TRUE);
+        } else if (ChunkedResponseSender.isCreditEvent(req)) {
+            ChunkedResponseSender.credit(channel, req);
         }
     }
 
@@ -98,13 +101,22 @@ public class HeaderExchangeHandler implements ChannelHandlerDelegate {
             // handle data.
             CompletableFuture<Object> future = handler.reply(channel, msg);
             if (future.isDone()) {
+                Object result = future.get();
+                if (result instanceof ChunkedResult) {
+                    ChunkedResponseSender.send(channel, req, (ChunkedResult) result);
+                    return;
+                }
                 res.setStatus(Response.OK);
-                res.setResult(future.get());
+                res.setResult(result);
                 channel.send(res);
                 return;
             }
             future.whenComplete((result, t) -> {
                 try {
+                    if (t == null && result instanceof ChunkedResult) {
+                        ChunkedResponseSender.send(channel, req, (ChunkedResult) result);
+                        return;
+                    }
                     if (t == null) {
                         res.setStatus(Response.OK);
                         res.setResult(result);
@@ -147,6 +159,7 @@ public class HeaderExchangeHandler implements ChannelHandlerDelegate {
             handler.disconnected(exchangeChannel);
         } finally {
             DefaultFuture.closeChannel(channel);
+            ChunkedResponseSender.cancel(channel);
             HeaderExchangeChannel.removeChannelIfDisconnected(channel);
         }
     }
@@ -0,0 +1,407 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.remoting.transport;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.metrics.Gauge;
+import org.apache.dubbo.metrics.MetricManager;
+import org.apache.dubbo.metrics.MetricName;
+import org.apache.dubbo.remoting.Channel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Serialization cost of the messages of a service method, sampled when
+ * {@link Constants#SERIALIZATION_PROFILE_KEY} is set on the url of the channel: one message out of
+ * {@link Constants#SERIALIZATION_PROFILE_SAMPLE_KEY} is timed and its payload size and top level classes recorded.
+ */
+public class SerializationProfiler {
+
+    public static final String METRIC_GROUP = Constants.METRICS_GROUP;
+
+    /**
+     * Upper bounds in bytes of the buckets of the size histogram, the last bucket holds the larger payloads
+     */
+    public static final int[] SIZE_BUCKETS = {64, 256, 1024, 4096, 16384, 65536, 262144, 1048576};
+
+    /**
+     * Classes recorded per direction, the other ones are counted under {@link #OTHER_CLASSES}
+     */
+    static final int MAX_CLASSES = 64;
+
+    static final String OTHER_CLASSES = "(other)";
+
+    /**
+     * Methods profiled, as the method names come from the peers; the other ones are recorded by the profiler of
+     * service and method {@link #OTHER_METHODS}
+     */
+    static final int MAX_PROFILERS = 1024;
+
+    static final String OTHER_METHODS = "(other)";
+
+    private static final String PENDING_KEY = "serialization.profile.pending";
+
+    private static final ConcurrentMap<String, SerializationProfiler> PROFILERS = new ConcurrentHashMap<String, SerializationProfiler>();
+
+    private static final AtomicLong SAMPLE_COUNTER = new AtomicLong();
+
+    private final String service;
+
+    private final String method;
+
+    private final Stats encode = new Stats();
+
+    private final Stats decode = new Stats();
+
+    private SerializationProfiler(String service, String method) {
+        this.service = service;
+        this.method = method;
+    }
+
+    public static boolean isEnabled(URL url) {
+        return url != null && url.getParameter(Constants.SERIALIZATION_PROFILE_KEY, false);
+    }
+
+    /**
+     * @return whether the next message sent or received on the url is to be profiled
+     */
+    public static boolean sample(URL url) {
+        if (!isEnabled(url)) {
+            return false;
+        }
+        int rate = url.getParameter(Constants.SERIALIZATION_PROFILE_SAMPLE_KEY, Constants.DEFAULT_SERIALIZATION_PROFILE_SAMPLE);
+        return rate <= 1 || SAMPLE_COUNTER.incrementAndGet() % rate == 0;
+    }
+
+    public static SerializationProfiler getProfiler(String service, String method) {
+        String key = service + "#" + method;
+        SerializationProfiler profiler = PROFILERS.get(key);
+        if (profiler == null && PROFILERS.size() >= MAX_PROFILERS) {
+            service = OTHER_METHODS;
+            method = OTHER_METHODS;
+            key = service + "#" + method;
+            profiler = PROFILERS.get(key);
+        }
+        if (profiler == null) {
+            profiler = new SerializationProfiler(service, method);
+            if (PROFILERS.putIfAbsent(key, profiler) == null) {
+                profiler.registerMetrics();
+            }
+            profiler = PROFILERS.get(key);
+        }
+        return profiler;
+    }
+
+    public static Map<String, SerializationProfiler> getProfilers() {
+        return Collections.unmodifiableMap(PROFILERS);
+    }
+
+    /**
+     * Clears the recorded samples, the profilers stay registered to the metrics
+     */
+    public static void reset() {
+        for (SerializationProfiler profiler : PROFILERS.values()) {
+            profiler.encode.reset();
+            profiler.decode.reset();
+        }
+    }
+
+    /**
+     * Remembers the profiler of a received request so that its response is recorded under the same method
+     */
+    public static void bind(Channel channel, long id, SerializationProfiler profiler) {
+        getPending(channel).put(id, profiler);
+    }
+
+    /**
+     * @param remove false for the partial responses which are followed by other ones
+     * @return the profiler of the request the response answers, null if it was not profiled
+     */
+    public static SerializationProfiler unbind(Channel channel, long id, boolean remove) {
+        @SuppressWarnings("unchecked")
+        Map<Long, SerializationProfiler> pending = (Map<Long, SerializationProfiler>) channel.getAttribute(PENDING_KEY);
+        if (pending == null) {
+            return null;
+        }
+        return remove ? pending.remove(id) : pending.get(id);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Long, SerializationProfiler> getPending(Channel channel) {
+        Map<Long, SerializationProfiler> pending = (Map<Long, SerializationProfiler>) channel.getAttribute(PENDING_KEY);
+        if (pending == null) {
+            synchronized (channel) {
+                pending = (Map<Long, SerializationProfiler>) channel.getAttribute(PENDING_KEY);
+                if (pending == null) {
+                    pending = new ConcurrentHashMap<Long, SerializationProfiler>();
+                    channel.setAttribute(PENDING_KEY, pending);
+                }
+            }
+        }
+        return pending;
+    }
+
+    public void encoded(String classes, int bytes, long nanos) {
+        encode.record(classes, bytes, nanos);
+    }
+
+    public void decoded(String classes, int bytes, long nanos) {
+        decode.record(classes, bytes, nanos);
+    }
+
+    public String getService() {
+        return service;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public Stats getEncode() {
+        return encode;
+    }
+
+    public Stats getDecode() {
+        return decode;
+    }
+
+    private void registerMetrics() {
+        registerMetrics("encode", encode);
+        registerMetrics("decode", decode);
+    }
+
+    private void registerMetrics(String direction, final Stats stats) {
+        String prefix = "dubbo.serialization." + direction;
+        MetricManager.register(METRIC_GROUP, new MetricName(prefix + ".count").tag("service", service, "method", method),
+                new StatsGauge(stats) {
+                    @Override
+                    public Long getValue() {
+                        return stats.getCount();
+                    }
+                });
+        MetricManager.register(METRIC_GROUP, new MetricName(prefix + ".bytes").tag("service", service, "method", method),
+                new StatsGauge(stats) {
+                    @Override
+                    public Long getValue() {
+                        return stats.getBytes();
+                    }
+                });
+        MetricManager.register(METRIC_GROUP, new MetricName(prefix + ".bytes.max").tag("service", service, "method", method),
+                new StatsGauge(stats) {
+                    @Override
+                    public Long getValue() {
+                        return stats.getMaxBytes();
+                    }
+                });
+        MetricManager.register(METRIC_GROUP, new MetricName(prefix + ".nanos").tag("service", service, "method", method),
+                new StatsGauge(stats) {
+                    @Override
+                    public Long getValue() {
+                        return stats.getNanos();
+                    }
+                });
+    }
+
+    @Override
+    public String toString() {
+        return service + "#" + method + " encode: " + encode + ", decode: " + decode;
+    }
+
+    private abstract static class StatsGauge implements Gauge<Long> {
+
+        private final Stats stats;
+
+        StatsGauge(Stats stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public long lastUpdateTime() {
+            return stats.getLastUpdateTime();
+        }
+    }
+
+    /**
+     * Samples of one direction, the counts being the ones of the sampled messages
+     */
+    public static class Stats {
+
+        private final AtomicLong count = new AtomicLong();
+
+        private final AtomicLong bytes = new AtomicLong();
+
+        private final AtomicLong maxBytes = new AtomicLong();
+
+        private final AtomicLong nanos = new AtomicLong();
+
+        private final AtomicLongArray sizes = new AtomicLongArray(SIZE_BUCKETS.length + 1);
+
+        private final ConcurrentMap<String, ClassStats> classes = new ConcurrentHashMap<String, ClassStats>();
+
+        private volatile long lastUpdateTime;
+
+        void record(String type, int size, long time) {
+            count.incrementAndGet();
+            bytes.addAndGet(size);
+            nanos.addAndGet(time);
+            long max;
+            while (size > (max = maxBytes.get()) && !maxBytes.compareAndSet(max, size)) {
+            }
+            sizes.incrementAndGet(bucket(size));
+            getClassStats(type).record(size);
+            lastUpdateTime = System.currentTimeMillis();
+        }
+
+        private ClassStats getClassStats(String type) {
+            ClassStats stats = classes.get(type);
+            if (stats == null) {
+                if (classes.size() >= MAX_CLASSES) {
+                    type = OTHER_CLASSES;
+                }
+                classes.putIfAbsent(type, new ClassStats(type));
+                stats = classes.get(type);
+            }
+            return stats;
+        }
+
+        private static int bucket(int size) {
+            for (int i = 0; i < SIZE_BUCKETS.length; i++) {
+                if (size <= SIZE_BUCKETS[i]) {
+                    return i;
+                }
+            }
+            return SIZE_BUCKETS.length;
+        }
+
+        void reset() {
+            count.set(0);
+            bytes.set(0);
+            maxBytes.set(0);
+            nanos.set(0);
+            for (int i = 0; i < sizes.length(); i++) {
+                sizes.set(i, 0);
+            }
+            classes.clear();
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        public long getMaxBytes() {
+            return maxBytes.get();
+        }
+
+        public long getNanos() {
+            return nanos.get();
+        }
+
+        public long getAverageBytes() {
+            long n = count.get();
+            return n == 0 ? 0 : bytes.get() / n;
+        }
+
+        public long getAverageNanos() {
+            long n = count.get();
+            return n == 0 ? 0 : nanos.get() / n;
+        }
+
+        /**
+         * @return the number of messages per bucket of {@link #SIZE_BUCKETS}, plus the one of the larger messages
+         */
+        public long[] getSizeHistogram() {
+            long[] histogram = new long[sizes.length()];
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = sizes.get(i);
+            }
+            return histogram;
+        }
+
+        /**
+         * @return the classes sorted by decreasing bytes
+         */
+        public List<ClassStats> getClasses() {
+            List<ClassStats> list = new ArrayList<ClassStats>(classes.values());
+            Collections.sort(list, new Comparator<ClassStats>() {
+                @Override
+                public int compare(ClassStats o1, ClassStats o2) {
+                    return Long.compare(o2.getBytes(), o1.getBytes());
+                }
+            });
+            return list;
+        }
+
+        public long getLastUpdateTime() {
+            return lastUpdateTime;
+        }
+
+        @Override
+        public String toString() {
+            return "count: " + getCount() + ", avg bytes: " + getAverageBytes() + ", max bytes: " + getMaxBytes()
+                    + ", avg time: " + getAverageNanos() / 1000 + "us";
+        }
+    }
+
+    /**
+     * Samples of the messages of the same top level classes
+     */
+    public static class ClassStats {
+
+        private final String classes;
+
+        private final AtomicLong count = new AtomicLong();
+
+        private final AtomicLong bytes = new AtomicLong();
+
+        ClassStats(String classes) {
+            this.classes = classes;
+        }
+
+        void record(int size) {
+            count.incrementAndGet();
+            bytes.addAndGet(size);
+        }
+
+        /**
+         * @return the class names of the message, the ones of the arguments being separated by commas
+         */
+        public String getClasses() {
+            return classes;
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public long getBytes() {
+            return bytes.get();
+        }
+    }
+}
@@ -24,6 +24,10 @@ import org.apache.dubbo.common.logger.LoggerFactory;
 import org.apache.dubbo.common.store.DataStore;
 import org.apache.dubbo.common.threadpool.ThreadPool;
 import org.apache.dubbo.common.utils.NamedThreadFactory;
+import org.apache.dubbo.metrics.Gauge;
+import org.apache.dubbo.metrics.MetricManager;
+import org.apache.dubbo.metrics.MetricName;
+import org.apache.dubbo.metrics.MetricRegistry;
 import org.apache.dubbo.remoting.Channel;
 import org.apache.dubbo.remoting.ChannelHandler;
 import org.apache.dubbo.remoting.RemotingException;
@@ -31,6 +35,7 @@ import org.apache.dubbo.remoting.transport.ChannelHandlerDelegate;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 
 public class WrappedChannelHandler implements ChannelHandlerDelegate {
 
@@ -55,9 +60,58 @@ public class WrappedChannelHandler implements ChannelHandlerDelegate {
         }
         DataStore dataStore = ExtensionLoader.getExtensionLoader(DataStore.class).getDefaultExtension();
         dataStore.put(componentKey, Integer.toString(url.getPort()), executor);
+        if (!Constants.CONSUMER_SIDE.equals(componentKey) && executor instanceof ThreadPoolExecutor) {
+            registerMetrics((ThreadPoolExecutor) executor);
+        }
+    }
+
+    private static final String[] THREAD_POOL_METRICS = {"active", "pool", "core", "max", "largest", "queue", "completed"};
+
+    // gauges of the server thread pool, named dubbo.threadpool.* and tagged with the port
+    private void registerMetrics(final ThreadPoolExecutor pool) {
+        for (final String metric : THREAD_POOL_METRICS) {
+            MetricManager.register(Constants.METRICS_GROUP, getThreadPoolMetricName(metric), new Gauge<Long>() {
+                @Override
+                public Long getValue() {
+                    switch (metric) {
+                        case "active":
+                            return (long) pool.getActiveCount();
+                        case "pool":
+                            return (long) pool.getPoolSize();
+                        case "core":
+                            return (long) pool.getCorePoolSize();
+                        case "max":
+                            return (long) pool.getMaximumPoolSize();
+                        case "largest":
+                            return (long) pool.getLargestPoolSize();
+                        case "queue":
+                            return (long) pool.getQueue().size();
+                        default:
+                            return pool.getCompletedTaskCount();
+                    }
+                }
+
+                @Override
+                public long lastUpdateTime() {
+                    return System.currentTimeMillis();
+                }
+            });
+        }
+    }
+
+    private MetricName getThreadPoolMetricName(String metric) {
+        return new MetricName("dubbo.threadpool." + metric).tag("port", Integer.toString(url.getPort()));
     }
 
     public void close() {
+        if (!Constants.CONSUMER_SIDE.equalsIgnoreCase(url.getParameter(Constants.SIDE_KEY)) && executor instanceof ThreadPoolExecutor) {
+            MetricRegistry registry = MetricManager.getIMetricManager().getMetricRegistryByGroup(Constants.METRICS_GROUP);
+            if (registry != null) {
+                for (String metric : THREAD_POOL_METRICS) {
+                    registry.remove(getThreadPoolMetricName(metric));
+                }
+            }
+        }
         try {
             if (executor != null) {
                 executor.shutdown();
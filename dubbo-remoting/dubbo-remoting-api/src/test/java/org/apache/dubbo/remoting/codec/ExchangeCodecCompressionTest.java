@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.remoting.codec;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.Version;
+import org.apache.dubbo.common.io.Bytes;
+import org.apache.dubbo.remoting.Channel;
+import org.apache.dubbo.remoting.buffer.ChannelBuffer;
+import org.apache.dubbo.remoting.buffer.ChannelBuffers;
+import org.apache.dubbo.remoting.compress.CompressionStatistics;
+import org.apache.dubbo.remoting.exchange.Request;
+import org.apache.dubbo.remoting.exchange.Response;
+import org.apache.dubbo.remoting.exchange.codec.ExchangeCodec;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class ExchangeCodecCompressionTest {
+
+    private static final URL URL = new URL("dubbo", "127.0.0.1", 20880, "org.apache.dubbo.CompressedService")
+            .addParameter(Constants.COMPRESSOR_KEY, "deflate");
+
+    private final ExchangeCodec codec = new ExchangeCodec();
+
+    @Test
+    public void testCompressAboveThreshold() throws Exception {
+        Channel client = channel(URL);
+        Channel server = channel(URL);
+        String data = text(100 * 1024);
+        CompressionStatistics statistics = CompressionStatistics.getStatistics(URL.getAddress());
+        long compressed = statistics.getCompressedMessages();
+
+        ChannelBuffer request = encode(client, request(data));
+        Assert.assertTrue(request.readableBytes() < data.length() / 5);
+        Assert.assertEquals(data, ((Request) codec.decode(server, request)).getData());
+
+        ChannelBuffer response = encode(server, response(data));
+        Assert.assertTrue(response.readableBytes() < data.length() / 5);
+        Response decoded = (Response) codec.decode(client, response);
+        Assert.assertEquals(Response.OK, decoded.getStatus());
+        Assert.assertEquals(data, decoded.getResult());
+
+        Assert.assertEquals(compressed + 2, statistics.getCompressedMessages());
+        Assert.assertTrue(statistics.getSavedBytes() > 0);
+        Assert.assertTrue(statistics.getRatio() > 5);
+    }
+
+    @Test
+    public void testBelowThreshold() throws Exception {
+        Channel client = channel(URL.addParameter(Constants.COMPRESS_THRESHOLD_KEY, 1024 * 1024));
+        ChannelBuffer request = encode(client, request(text(100 * 1024)));
+        Assert.assertTrue(request.readableBytes() > 100 * 1024);
+    }
+
+    @Test
+    public void testIncompressible() throws Exception {
+        byte[] data = new byte[100 * 1024];
+        new Random(0).nextBytes(data);
+        Channel client = channel(URL);
+        CompressionStatistics statistics = CompressionStatistics.getStatistics(URL.getAddress());
+        long uncompressed = statistics.getUncompressedMessages();
+
+        ChannelBuffer request = encode(client, request(data));
+        Assert.assertTrue(request.readableBytes() > data.length);
+        Assert.assertArrayEquals(data, (byte[]) ((Request) codec.decode(channel(URL), request)).getData());
+        Assert.assertEquals(uncompressed + 1, statistics.getUncompressedMessages());
+    }
+
+    @Test
+    public void testNotAcceptedByConsumer() throws Exception {
+        // the consumer is not configured with the compressor, as an older version would
+        Channel client = channel(URL.removeParameter(Constants.COMPRESSOR_KEY));
+        Channel server = channel(URL);
+        String data = text(100 * 1024);
+
+        ChannelBuffer request = encode(client, request(data));
+        Assert.assertTrue(request.readableBytes() > data.length());
+        Assert.assertEquals(data, ((Request) codec.decode(server, request)).getData());
+
+        ChannelBuffer response = encode(server, response(data));
+        byte[] header = new byte[16];
+        response.getBytes(response.readerIndex(), header);
+        Assert.assertEquals(Response.OK, header[3]);
+        Assert.assertTrue(Bytes.bytes2int(header, 12) > data.length());
+        Assert.assertEquals(data, ((Response) codec.decode(client, response)).getResult());
+    }
+
+    private Channel channel(URL url) {
+        return new AbstractMockChannel(url.addParameter(AbstractMockChannel.LOCAL_ADDRESS, url.getAddress())
+                .addParameter(AbstractMockChannel.REMOTE_ADDRESS, "127.0.0.1:12345"));
+    }
+
+    private ChannelBuffer encode(Channel channel, Object message) throws Exception {
+        ChannelBuffer buffer = ChannelBuffers.dynamicBuffer(1024);
+        codec.encode(channel, buffer, message);
+        return buffer;
+    }
+
+    private Request request(Object data) {
+        Request request = new Request(1);
+        request.setVersion(Version.getProtocolVersion());
+        request.setTwoWay(true);
+        request.setData(data);
+        return request;
+    }
+
+    private Response response(Object data) {
+        Response response = new Response(1, Version.getProtocolVersion());
+        response.setResult(data);
+        return response;
+    }
+
+    private String text(int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; text.length() < length; i++) {
+            text.append("record ").append(i % 100).append(" of the export, ");
+        }
+        return text.substring(0, length);
+    }
+}
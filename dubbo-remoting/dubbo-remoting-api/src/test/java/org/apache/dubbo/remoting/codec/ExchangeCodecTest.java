@@ -355,6 +355,24 @@ public class ExchangeCodecTest extends TelnetCodecTest {
 
     }
 
+    @Test
+    public void test_Encode_Partial_Response() throws IOException {
+        ChannelBuffer encodeBuffer = ChannelBuffers.dynamicBuffer(1024);
+        Channel channel = getCliendSideChannel(url);
+        Response response = new Response(1002l);
+        response.setPartial(true);
+        Person person = new Person();
+        response.setResult(person);
+
+        codec.encode(channel, encodeBuffer, response);
+        Response obj = (Response) codec.decode(channel, encodeBuffer);
+
+        Assert.assertEquals(response.getId(), obj.getId());
+        Assert.assertTrue(obj.isPartial());
+        Assert.assertFalse(obj.isHeartbeat());
+        Assert.assertEquals(person, obj.getResult());
+    }
+
     @Test
     public void test_Encode_Error_Response() throws IOException {
         ChannelBuffer encodeBuffer = ChannelBuffers.dynamicBuffer(1024);
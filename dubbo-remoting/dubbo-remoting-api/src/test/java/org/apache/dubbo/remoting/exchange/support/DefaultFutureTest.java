@@ -20,12 +20,15 @@ package org.apache.dubbo.remoting.exchange.support;
 import org.apache.dubbo.remoting.Channel;
 import org.apache.dubbo.remoting.TimeoutException;
 import org.apache.dubbo.remoting.exchange.Request;
+import org.apache.dubbo.remoting.exchange.Response;
 import org.apache.dubbo.remoting.handler.MockedChannel;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class DefaultFutureTest {
@@ -112,6 +115,61 @@ public class DefaultFutureTest {
         }
     }
 
+    @Test
+    public void partialResponses() throws Exception {
+        Channel channel = new MockedChannel();
+        DefaultFuture f = defaultFuture(3000);
+        long id = f.getRequest().getId();
+        DefaultFuture.received(channel, partialResponse(id, "a"));
+
+        List<Object> partials = new CopyOnWriteArrayList<>();
+        f.setPartialListener(partials::add);
+        DefaultFuture.received(channel, partialResponse(id, "b"));
+        Assert.assertFalse("a partial response finished the future!", f.isDone());
+        Assert.assertNotNull(DefaultFuture.getFuture(id));
+
+        Response last = new Response(id);
+        last.setResult("c");
+        DefaultFuture.received(channel, last);
+        Assert.assertEquals("c", f.get());
+        Assert.assertEquals(2, partials.size());
+        Assert.assertEquals("a", partials.get(0));
+        Assert.assertEquals("b", partials.get(1));
+        Assert.assertNull(DefaultFuture.getFuture(id));
+    }
+
+    @Test
+    public void partialResponsesExtendTimeout() throws Exception {
+        Channel channel = new MockedChannel();
+        DefaultFuture f = defaultFuture(500);
+        long id = f.getRequest().getId();
+        f.setPartialListener(partial -> {
+        });
+        for (int i = 0; i < 5; i++) {
+            Thread.sleep(200);
+            DefaultFuture.received(channel, partialResponse(id, i));
+            Assert.assertFalse("the future timed out while receiving partial responses!", f.isDone());
+        }
+        long start = System.currentTimeMillis();
+        while (!f.isDone()) {
+            Thread.sleep(50);
+        }
+        Assert.assertTrue(System.currentTimeMillis() - start >= 300);
+        try {
+            f.get();
+            Assert.fail();
+        } catch (TimeoutException e) {
+            // expected
+        }
+    }
+
+    private static Response partialResponse(long id, Object result) {
+        Response response = new Response(id);
+        response.setPartial(true);
+        response.setResult(result);
+        return response;
+    }
+
     /**
      * mock a default future
      */
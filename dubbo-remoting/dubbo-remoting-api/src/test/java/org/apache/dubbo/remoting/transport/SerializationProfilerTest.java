@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.remoting.transport;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SerializationProfilerTest {
+
+    @Test
+    public void testBoundedProfilers() {
+        for (int i = 0; i < SerializationProfiler.MAX_PROFILERS + 10; i++) {
+            SerializationProfiler.getProfiler("org.apache.dubbo.FooService", "method" + i).encoded("java.lang.String", 10, 100);
+        }
+        Assert.assertEquals(SerializationProfiler.MAX_PROFILERS + 1, SerializationProfiler.getProfilers().size());
+
+        SerializationProfiler other = SerializationProfiler.getProfiler("org.apache.dubbo.FooService", "unknown");
+        Assert.assertEquals(SerializationProfiler.OTHER_METHODS, other.getService());
+        Assert.assertEquals(SerializationProfiler.OTHER_METHODS, other.getMethod());
+        Assert.assertEquals(10, other.getEncode().getCount());
+
+        // the methods profiled before the bound keep their own profiler
+        SerializationProfiler first = SerializationProfiler.getProfiler("org.apache.dubbo.FooService", "method0");
+        Assert.assertEquals("method0", first.getMethod());
+        Assert.assertEquals(1, first.getEncode().getCount());
+    }
+}
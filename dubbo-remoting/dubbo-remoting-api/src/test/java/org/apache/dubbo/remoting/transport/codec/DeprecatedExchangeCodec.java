@@ -51,6 +51,7 @@ final class DeprecatedExchangeCodec extends DeprecatedTelnetCodec implements Cod
     protected static final byte FLAG_REQUEST = (byte) 0x80;
     protected static final byte FLAG_TWOWAY = (byte) 0x40;
     protected static final byte FLAG_EVENT = (byte) 0x20;
+    protected static final byte FLAG_PARTIAL = FLAG_TWOWAY;
     protected static final int SERIALIZATION_MASK = 0x1f;
     private static final Logger logger = LoggerFactory.getLogger(DeprecatedExchangeCodec.class);
 
@@ -140,6 +141,7 @@ final class DeprecatedExchangeCodec extends DeprecatedTelnetCodec implements Cod
             if ((flag & FLAG_EVENT) != 0) {
                 res.setEvent(Response.HEARTBEAT_EVENT);
             }
+            res.setPartial((flag & FLAG_PARTIAL) != 0);
             // get status.
             byte status = header[3];
             res.setStatus(status);
@@ -245,6 +247,7 @@ final class DeprecatedExchangeCodec extends DeprecatedTelnetCodec implements Cod
             // set request and serialization flag.
             header[2] = serialization.getContentTypeId();
             if (res.isHeartbeat()) header[2] |= FLAG_EVENT;
+            if (res.isPartial()) header[2] |= FLAG_PARTIAL;
             // set response status.
             byte status = res.getStatus();
             header[3] = status;
@@ -19,6 +19,7 @@ package org.apache.dubbo.remoting.zookeeper;
 import org.apache.dubbo.common.URL;
 
 import java.util.List;
+import java.util.Set;
 
 public interface ZookeeperClient {
 
@@ -32,6 +33,25 @@ public interface ZookeeperClient {
 
     void removeChildListener(String path, ChildListener listener);
 
+    /**
+     * Watch the sub tree of root with a single tree cache instead of one child watch per path. The listener is
+     * called with the parent path and its current children whenever a node below root is added or removed.
+     *
+     * @param root          root path of the tree
+     * @param maxDepth      max depth below root to watch
+     * @param excludedNames node names not to watch, e.g. consumers
+     * @param listener      listener of children changes
+     * @return false if tree watching is not supported by this client, callers should use child listeners instead
+     */
+    boolean addTreeListener(String root, int maxDepth, Set<String> excludedNames, ChildListener listener);
+
+    void removeTreeListener(String root, ChildListener listener);
+
+    /**
+     * @return children of path from the tree cache, or null if path is not cached by any tree listener
+     */
+    List<String> getTreeChildren(String path);
+
     void addStateListener(StateListener listener);
 
     void removeStateListener(StateListener listener);
@@ -26,6 +26,11 @@ import org.apache.dubbo.remoting.zookeeper.support.AbstractZookeeperClient;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
 import org.apache.curator.framework.api.CuratorWatcher;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.TreeCache;
+import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
+import org.apache.curator.framework.recipes.cache.TreeCacheListener;
+import org.apache.curator.framework.recipes.cache.TreeCacheSelector;
 import org.apache.curator.framework.state.ConnectionState;
 import org.apache.curator.framework.state.ConnectionStateListener;
 import org.apache.curator.retry.RetryNTimes;
@@ -34,17 +39,30 @@ import org.apache.zookeeper.KeeperException.NoNodeException;
 import org.apache.zookeeper.KeeperException.NodeExistsException;
 import org.apache.zookeeper.WatchedEvent;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class CuratorZookeeperClient extends AbstractZookeeperClient<CuratorWatcher> {
 
     private final CuratorFramework client;
 
+    private final int timeout;
+
+    private final ConcurrentMap<String, TreeCache> treeCaches = new ConcurrentHashMap<String, TreeCache>();
+
+    private final ConcurrentMap<ChildListener, TreeCacheListener> treeListeners = new ConcurrentHashMap<ChildListener, TreeCacheListener>();
+
     public CuratorZookeeperClient(URL url) {
         super(url);
         try {
-            int timeout = url.getParameter(Constants.TIMEOUT_KEY, 5000);
+            timeout = url.getParameter(Constants.TIMEOUT_KEY, 5000);
             CuratorFrameworkFactory.Builder builder = CuratorFrameworkFactory.builder()
                     .connectString(url.getBackupAddress())
                     .retryPolicy(new RetryNTimes(1, 1000))
@@ -130,9 +148,124 @@ public class CuratorZookeeperClient extends AbstractZookeeperClient<CuratorWatch
 
     @Override
     public void doClose() {
+        for (TreeCache treeCache : treeCaches.values()) {
+            treeCache.close();
+        }
         client.close();
     }
 
+    @Override
+    public boolean addTreeListener(String root, int maxDepth, Set<String> excludedNames, final ChildListener listener) {
+        final TreeCache treeCache = getOrStartTreeCache(root, maxDepth, excludedNames);
+        TreeCacheListener treeListener = new TreeCacheListener() {
+            @Override
+            public void childEvent(CuratorFramework client, TreeCacheEvent event) throws Exception {
+                ChildData data = event.getData();
+                if (data == null || (event.getType() != TreeCacheEvent.Type.NODE_ADDED
+                        && event.getType() != TreeCacheEvent.Type.NODE_REMOVED)) {
+                    return;
+                }
+                String path = data.getPath();
+                int i = path.lastIndexOf('/');
+                if (i > 0) {
+                    String parentPath = path.substring(0, i);
+                    listener.childChanged(parentPath, toChildren(treeCache.getCurrentChildren(parentPath)));
+                }
+                if (event.getType() == TreeCacheEvent.Type.NODE_REMOVED) {
+                    // the whole node is gone, its children as well
+                    listener.childChanged(path, Collections.<String>emptyList());
+                }
+            }
+        };
+        if (treeListeners.putIfAbsent(listener, treeListener) == null) {
+            treeCache.getListenable().addListener(treeListener);
+        }
+        return true;
+    }
+
+    @Override
+    public void removeTreeListener(String root, ChildListener listener) {
+        TreeCache treeCache = treeCaches.get(root);
+        TreeCacheListener treeListener = treeListeners.remove(listener);
+        if (treeCache != null && treeListener != null) {
+            treeCache.getListenable().removeListener(treeListener);
+        }
+    }
+
+    @Override
+    public List<String> getTreeChildren(String path) {
+        for (Map.Entry<String, TreeCache> entry : treeCaches.entrySet()) {
+            String root = entry.getKey();
+            if (path.equals(root) || path.startsWith(root + "/")) {
+                Map<String, ChildData> children = entry.getValue().getCurrentChildren(path);
+                if (children != null) {
+                    return toChildren(children);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Start the tree cache of root and wait for its initial load, in which children of all nodes are read
+     * with pipelined background requests instead of one synchronous round trip per path.
+     */
+    private TreeCache getOrStartTreeCache(String root, int maxDepth, final Set<String> excludedNames) {
+        TreeCache treeCache = treeCaches.get(root);
+        if (treeCache != null) {
+            return treeCache;
+        }
+        TreeCache newTreeCache = TreeCache.newBuilder(client, root)
+                .setCacheData(false)
+                .setMaxDepth(maxDepth)
+                .setSelector(new TreeCacheSelector() {
+                    @Override
+                    public boolean traverseChildren(String fullPath) {
+                        return acceptChild(fullPath);
+                    }
+
+                    @Override
+                    public boolean acceptChild(String fullPath) {
+                        return excludedNames == null || !excludedNames.contains(fullPath.substring(fullPath.lastIndexOf('/') + 1));
+                    }
+                })
+                .build();
+        treeCache = treeCaches.putIfAbsent(root, newTreeCache);
+        if (treeCache != null) {
+            return treeCache;
+        }
+        final CountDownLatch initialized = new CountDownLatch(1);
+        TreeCacheListener initializedListener = new TreeCacheListener() {
+            @Override
+            public void childEvent(CuratorFramework client, TreeCacheEvent event) throws Exception {
+                if (event.getType() == TreeCacheEvent.Type.INITIALIZED) {
+                    initialized.countDown();
+                }
+            }
+        };
+        newTreeCache.getListenable().addListener(initializedListener);
+        try {
+            newTreeCache.start();
+            if (!initialized.await(timeout, TimeUnit.MILLISECONDS)) {
+                logger.warn("Tree cache of " + root + " is not initialized in " + timeout + "ms, continue loading in background.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        } finally {
+            newTreeCache.getListenable().removeListener(initializedListener);
+        }
+        return newTreeCache;
+    }
+
+    private static List<String> toChildren(Map<String, ChildData> children) {
+        if (children == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<String>(children.keySet());
+    }
+
     @Override
     public CuratorWatcher createTargetChildListener(String path, ChildListener listener) {
         return new CuratorWatcherImpl(listener);
@@ -108,6 +108,20 @@ public abstract class AbstractZookeeperClient<TargetChildListener> implements Zo
         }
     }
 
+    @Override
+    public boolean addTreeListener(String root, int maxDepth, Set<String> excludedNames, ChildListener listener) {
+        return false;
+    }
+
+    @Override
+    public void removeTreeListener(String root, ChildListener listener) {
+    }
+
+    @Override
+    public List<String> getTreeChildren(String path) {
+        return null;
+    }
+
     protected void stateChanged(int state) {
         for (StateListener sessionListener : getSessionListeners()) {
             sessionListener.stateChanged(state);
@@ -26,10 +26,13 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 
 import static org.hamcrest.core.Is.is;
+import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 
@@ -113,6 +116,50 @@ public class CuratorZookeeperClientTest {
         assertThat(connected, is(true));
     }
 
+    @Test
+    public void testTreeListener() throws InterruptedException {
+        String path = "/dubbo/org.apache.dubbo.demo.DemoService/providers";
+        curatorClient.create(path + "/provider1", false);
+        curatorClient.create("/dubbo/org.apache.dubbo.demo.DemoService/consumers/consumer1", false);
+        final CountDownLatch countDownLatch = new CountDownLatch(1);
+        final List<String> changed = new CopyOnWriteArrayList<String>();
+        boolean supported = curatorClient.addTreeListener("/dubbo", 3, Collections.singleton("consumers"), new ChildListener() {
+            @Override
+            public void childChanged(String parentPath, List<String> children) {
+                if (children.contains("provider2")) {
+                    changed.add(parentPath);
+                    countDownLatch.countDown();
+                }
+            }
+        });
+        assertThat(supported, is(true));
+        assertThat(curatorClient.getTreeChildren(path), is(Collections.singletonList("provider1")));
+        assertThat(curatorClient.getTreeChildren("/dubbo/org.apache.dubbo.demo.DemoService/consumers"), nullValue());
+
+        curatorClient.create(path + "/provider2", false);
+        countDownLatch.await();
+        assertThat(changed.get(0), is(path));
+        assertThat(curatorClient.getTreeChildren(path).size(), is(2));
+    }
+
+    @Test
+    public void testTreeChildrenOfRootsSharingPrefix() throws InterruptedException {
+        String root = "/dubbo/org.apache.dubbo.demo.DemoService";
+        String otherRoot = "/dubbo/org.apache.dubbo.demo.DemoServiceV2";
+        curatorClient.create(root + "/providers/provider1", false);
+        curatorClient.create(otherRoot + "/providers/provider2", false);
+        ChildListener listener = new ChildListener() {
+            @Override
+            public void childChanged(String parentPath, List<String> children) {
+            }
+        };
+        curatorClient.addTreeListener(root, 2, null, listener);
+        curatorClient.addTreeListener(otherRoot, 2, null, listener);
+        assertThat(curatorClient.getTreeChildren(root + "/providers"), is(Collections.singletonList("provider1")));
+        assertThat(curatorClient.getTreeChildren(otherRoot + "/providers"), is(Collections.singletonList("provider2")));
+        assertThat(curatorClient.getTreeChildren(otherRoot), is(Collections.singletonList("providers")));
+    }
+
     @After
     public void tearDown() throws Exception {
         curatorClient.close();
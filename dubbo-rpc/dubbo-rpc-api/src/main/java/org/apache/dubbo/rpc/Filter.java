@@ -43,4 +43,18 @@ public interface Filter {
      */
     Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException;
 
+    /**
+     * Bind this filter to the invoker a filter chain is built on, once when the invoker is exported or referred.
+     * <p>
+     * The invoker passed to {@link #invoke(Invoker, Invocation)} by the chain has the same url, which does not change,
+     * so a filter can return an instance which reads from it up front whatever it would otherwise look up on every
+     * invocation, or null to be left out of the chain when the url does not enable it.
+     *
+     * @param invoker the invoker the chain is built on.
+     * @return the filter to put into the chain, this by default.
+     */
+    default Filter bind(Invoker<?> invoker) {
+        return this;
+    }
+
 }
\ No newline at end of file
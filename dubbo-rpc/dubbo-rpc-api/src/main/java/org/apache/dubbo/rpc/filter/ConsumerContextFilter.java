@@ -20,6 +20,7 @@ import org.apache.dubbo.common.Constants;
 import org.apache.dubbo.common.extension.Activate;
 import org.apache.dubbo.common.utils.NetUtils;
 import org.apache.dubbo.rpc.AbstractPostProcessFilter;
+import org.apache.dubbo.rpc.Filter;
 import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.Result;
@@ -33,6 +34,22 @@ import org.apache.dubbo.rpc.RpcInvocation;
 @Activate(group = Constants.CONSUMER, order = -10000)
 public class ConsumerContextFilter extends AbstractPostProcessFilter {
 
+    // the application of the invoker this filter is bound to, null when not bound or when there is none
+    private final String application;
+
+    public ConsumerContextFilter() {
+        this(null);
+    }
+
+    private ConsumerContextFilter(String application) {
+        this.application = application;
+    }
+
+    @Override
+    public Filter bind(Invoker<?> invoker) {
+        return new ConsumerContextFilter(invoker.getUrl().getParameter(Constants.APPLICATION_KEY));
+    }
+
     @Override
     public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
         RpcContext.getContext()
@@ -43,6 +60,12 @@ public class ConsumerContextFilter extends AbstractPostProcessFilter {
                         invoker.getUrl().getPort());
         if (invocation instanceof RpcInvocation) {
             ((RpcInvocation) invocation).setInvoker(invoker);
+            // lets the provider tell its consumers apart, for per application tps limits
+            String application = this.application != null ? this.application
+                    : invoker.getUrl().getParameter(Constants.APPLICATION_KEY);
+            if (application != null) {
+                ((RpcInvocation) invocation).setAttachmentIfAbsent(Constants.REMOTE_APPLICATION_KEY, application);
+            }
         }
         try {
             // TODO should we clear server context?
@@ -56,7 +79,9 @@ public class ConsumerContextFilter extends AbstractPostProcessFilter {
 
     @Override
     protected Result doPostProcess(Result result, Invoker<?> invoker, Invocation invocation) {
-        RpcContext.getServerContext().setAttachments(result.getAttachments());
+        RpcContext.getServerContext().setAttachments(result.getAttachments())
+                // the version of the result of this call, a provider making it must not take it for its own
+                .removeAttachment(Constants.ETAG_KEY);
         return result;
     }
 }
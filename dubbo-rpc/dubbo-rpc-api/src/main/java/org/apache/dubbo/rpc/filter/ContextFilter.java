@@ -47,6 +47,10 @@ public class ContextFilter extends AbstractPostProcessFilter {
             attachments.remove(Constants.TOKEN_KEY);
             attachments.remove(Constants.TIMEOUT_KEY);
             attachments.remove(Constants.ASYNC_KEY);// Remove async property to avoid being passed to the following invoke chain.
+            // the caller of this provider, nested calls are to be charged to this provider's own application
+            attachments.remove(Constants.REMOTE_APPLICATION_KEY);
+            // the version the caller has of this result, not of the results of nested calls
+            attachments.remove(Constants.ETAG_MATCH_KEY);
         }
         RpcContext.getContext()
                 .setInvoker(invoker)
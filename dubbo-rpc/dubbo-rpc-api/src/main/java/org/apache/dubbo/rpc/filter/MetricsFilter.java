@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.filter;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.metrics.Compass;
+import org.apache.dubbo.metrics.MetricManager;
+import org.apache.dubbo.metrics.MetricName;
+import org.apache.dubbo.metrics.NOPMetricManager;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.support.RpcUtils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Record count and response time of every invocation into a {@link Compass} per side, service and method,
+ * named <code>dubbo.provider.invoke</code> or <code>dubbo.consumer.invoke</code> with the <code>service</code>
+ * and <code>method</code> tags. The compasses are resolved once, then a call costs two map lookups and a record.
+ * Nothing is done when no metrics implementation is bound. Asynchronous invocations are recorded once their result
+ * future completes, without waiting for it.
+ */
+@Activate(group = {Constants.PROVIDER, Constants.CONSUMER})
+public class MetricsFilter implements Filter {
+
+    public static final String PROVIDER_INVOKE_METRIC = "dubbo.provider.invoke";
+
+    public static final String CONSUMER_INVOKE_METRIC = "dubbo.consumer.invoke";
+
+    public static final String SUCCESS_CATEGORY = "success";
+
+    public static final String ERROR_CATEGORY = "error";
+
+    public static final String TIMEOUT_CATEGORY = "timeout";
+
+    // Map<Interface, Map<Method, Compass>>
+    private final ConcurrentMap<String, ConcurrentMap<String, Compass>> providerCompasses = new ConcurrentHashMap<String, ConcurrentMap<String, Compass>>();
+
+    private final ConcurrentMap<String, ConcurrentMap<String, Compass>> consumerCompasses = new ConcurrentHashMap<String, ConcurrentMap<String, Compass>>();
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        if (MetricManager.getIMetricManager() instanceof NOPMetricManager) {
+            return invoker.invoke(invocation);
+        }
+        final Compass compass = getCompass(invoker, invocation);
+        final long start = System.currentTimeMillis();
+        Result result;
+        try {
+            result = invoker.invoke(invocation);
+        } catch (RpcException e) {
+            compass.record(System.currentTimeMillis() - start, getCategory(e));
+            throw e;
+        } catch (RuntimeException e) {
+            compass.record(System.currentTimeMillis() - start, ERROR_CATEGORY);
+            throw e;
+        }
+        if (result instanceof AsyncRpcResult) {
+            // asking an async result whether it has an exception would wait for it
+            ((AsyncRpcResult) result).getResultFuture().whenComplete((r, t) -> compass.record(
+                    System.currentTimeMillis() - start, t != null ? getCategory(t) : getCategory(r.getException())));
+        } else {
+            compass.record(System.currentTimeMillis() - start, getCategory(result.getException()));
+        }
+        return result;
+    }
+
+    private static String getCategory(Throwable t) {
+        if (t == null) {
+            return SUCCESS_CATEGORY;
+        }
+        if (t instanceof RpcException && ((RpcException) t).isTimeout()) {
+            return TIMEOUT_CATEGORY;
+        }
+        return ERROR_CATEGORY;
+    }
+
+    private Compass getCompass(Invoker<?> invoker, Invocation invocation) {
+        boolean consumer = Constants.CONSUMER_SIDE.equals(invoker.getUrl().getParameter(Constants.SIDE_KEY));
+        ConcurrentMap<String, ConcurrentMap<String, Compass>> compasses = consumer ? consumerCompasses : providerCompasses;
+        String service = invoker.getInterface().getName();
+        ConcurrentMap<String, Compass> methods = compasses.get(service);
+        if (methods == null) {
+            compasses.putIfAbsent(service, new ConcurrentHashMap<String, Compass>());
+            methods = compasses.get(service);
+        }
+        String method = RpcUtils.getMethodName(invocation);
+        Compass compass = methods.get(method);
+        if (compass == null) {
+            MetricName name = new MetricName(consumer ? CONSUMER_INVOKE_METRIC : PROVIDER_INVOKE_METRIC)
+                    .tag("service", service, "method", method);
+            methods.putIfAbsent(method, MetricManager.getCompass(Constants.METRICS_GROUP, name));
+            compass = methods.get(method);
+        }
+        return compass;
+    }
+
+}
@@ -24,16 +24,18 @@ import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.Result;
 import org.apache.dubbo.rpc.RpcException;
-import org.apache.dubbo.rpc.filter.tps.DefaultTPSLimiter;
+import org.apache.dubbo.rpc.filter.tps.SmoothTPSLimiter;
 import org.apache.dubbo.rpc.filter.tps.TPSLimiter;
 
 /**
  * Limit TPS for either service or service's particular method
+ *
+ * @see SmoothTPSLimiter
  */
 @Activate(group = Constants.PROVIDER, value = Constants.TPS_LIMIT_RATE_KEY)
 public class TpsLimitFilter implements Filter {
 
-    private final TPSLimiter tpsLimiter = new DefaultTPSLimiter();
+    private final TPSLimiter tpsLimiter = new SmoothTPSLimiter();
 
     @Override
     public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.filter.accesslog;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.RpcContext;
+
+import com.alibaba.fastjson.JSON;
+
+/**
+ * One access log record: the values of an invocation, captured on the invoking thread. Turning them into a line
+ * is left to {@link AccessLogFormatter}, but for the arguments: they are serialized here, as the service is free
+ * to modify them once the invocation proceeds.
+ * <p>
+ * Instances are preallocated in the slots of {@link AccessLogRingBuffer} and reused from one record to the next.
+ */
+public class AccessLogData {
+
+    private long timestamp;
+
+    private String remoteHost;
+
+    private int remotePort;
+
+    private String localHost;
+
+    private int localPort;
+
+    private String group;
+
+    private String serviceName;
+
+    private String version;
+
+    private String methodName;
+
+    private Class<?>[] parameterTypes;
+
+    // the arguments as json, null when there are none
+    private String arguments;
+
+    private boolean complete;
+
+    /**
+     * Capture the invocation, together with the addresses of the current {@link RpcContext}.
+     */
+    public void collect(Invoker<?> invoker, Invocation inv) {
+        complete = false;
+        timestamp = System.currentTimeMillis();
+        RpcContext context = RpcContext.getContext();
+        remoteHost = context.getRemoteHost();
+        remotePort = context.getRemotePort();
+        localHost = context.getLocalHost();
+        localPort = context.getLocalPort();
+        URL url = invoker.getUrl();
+        group = url.getParameter(Constants.GROUP_KEY);
+        version = url.getParameter(Constants.VERSION_KEY);
+        serviceName = invoker.getInterface().getName();
+        methodName = inv.getMethodName();
+        parameterTypes = inv.getParameterTypes();
+        Object[] args = inv.getArguments();
+        arguments = args != null && args.length > 0 ? JSON.toJSONString(args) : null;
+        complete = true;
+    }
+
+    /**
+     * Drop the references to the invocation, so the arguments are not retained by an idle slot.
+     */
+    void clear() {
+        complete = false;
+        remoteHost = null;
+        localHost = null;
+        group = null;
+        serviceName = null;
+        version = null;
+        methodName = null;
+        parameterTypes = null;
+        arguments = null;
+    }
+
+    /**
+     * @return false if the capture failed half way, the record is then to be skipped
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getRemoteHost() {
+        return remoteHost;
+    }
+
+    public int getRemotePort() {
+        return remotePort;
+    }
+
+    public String getLocalHost() {
+        return localHost;
+    }
+
+    public int getLocalPort() {
+        return localPort;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public Class<?>[] getParameterTypes() {
+        return parameterTypes;
+    }
+
+    public String getArguments() {
+        return arguments;
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.filter.accesslog;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Format {@link AccessLogData} into access log lines:
+ * <pre>
+ * [2018-08-08 12:00:00] 10.0.0.2:53412 -> 10.0.0.1:20880 - group/com.foo.DemoService:1.0.0 sayHello(java.lang.String) ["world"]
+ * </pre>
+ * The formatted timestamp is cached for the current second. Not thread safe, each thread has to use its own
+ * instance.
+ */
+public class AccessLogFormatter {
+
+    private static final String MESSAGE_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat(MESSAGE_DATE_FORMAT);
+
+    private long cachedSecond = Long.MIN_VALUE;
+
+    private String cachedDate;
+
+    private final StringBuilder builder = new StringBuilder(256);
+
+    public String format(AccessLogData data) {
+        builder.setLength(0);
+        return appendTo(data, builder).toString();
+    }
+
+    /**
+     * Append the line, without line separator.
+     */
+    public StringBuilder appendTo(AccessLogData data, StringBuilder sn) {
+        sn.append("[").append(formatDate(data.getTimestamp())).append("] ")
+                .append(data.getRemoteHost()).append(":").append(data.getRemotePort())
+                .append(" -> ").append(data.getLocalHost()).append(":").append(data.getLocalPort())
+                .append(" - ");
+        String group = data.getGroup();
+        if (null != group && group.length() > 0) {
+            sn.append(group).append("/");
+        }
+        sn.append(data.getServiceName());
+        String version = data.getVersion();
+        if (null != version && version.length() > 0) {
+            sn.append(":").append(version);
+        }
+        sn.append(" ");
+        sn.append(data.getMethodName());
+        sn.append("(");
+        Class<?>[] types = data.getParameterTypes();
+        if (types != null) {
+            for (int i = 0; i < types.length; i++) {
+                if (i > 0) {
+                    sn.append(",");
+                }
+                sn.append(types[i].getName());
+            }
+        }
+        sn.append(") ");
+        String args = data.getArguments();
+        if (args != null) {
+            sn.append(args);
+        }
+        return sn;
+    }
+
+    private String formatDate(long timestamp) {
+        long second = timestamp / 1000;
+        if (second != cachedSecond) {
+            cachedDate = dateFormat.format(new Date(timestamp));
+            cachedSecond = second;
+        }
+        return cachedDate;
+    }
+
+}
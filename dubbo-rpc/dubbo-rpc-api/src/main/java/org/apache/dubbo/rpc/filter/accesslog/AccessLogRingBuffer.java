@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.filter.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded multi-producer single-consumer ring of preallocated {@link AccessLogData}.
+ * <p>
+ * Each slot carries a sequence telling whose turn it is: a producer may claim position <code>p</code> when the
+ * sequence of its slot equals <code>p</code>, publishes it by setting <code>p + 1</code>, and the consumer hands
+ * the slot back to the next lap by setting <code>p + capacity</code>. Producers only contend on the tail.
+ */
+final class AccessLogRingBuffer {
+
+    private final int mask;
+
+    private final AccessLogData[] slots;
+
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    // only accessed by the consumer
+    private long head;
+
+    AccessLogRingBuffer(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.slots = new AccessLogData[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new AccessLogData();
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * @return the claimed position, -1 if the ring is full
+     */
+    long tryClaim() {
+        for (; ; ) {
+            long position = tail.get();
+            long sequence = sequences.get(index(position));
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+            } else if (sequence < position) {
+                return -1;
+            }
+            // another producer got this position, try the next one
+        }
+    }
+
+    AccessLogData get(long position) {
+        return slots[index(position)];
+    }
+
+    void publish(long position) {
+        // a full volatile write, the producer reads whether the consumer sleeps right after it
+        sequences.set(index(position), position + 1);
+    }
+
+    /**
+     * Consumer side.
+     *
+     * @return the next published record, null if there is none yet
+     */
+    AccessLogData peek() {
+        int index = index(head);
+        return sequences.get(index) == head + 1 ? slots[index] : null;
+    }
+
+    /**
+     * Consumer side, hand the record returned by {@link #peek()} back to the producers.
+     */
+    void release() {
+        int index = index(head);
+        slots[index].clear();
+        sequences.lazySet(index, head + slots.length);
+        head++;
+    }
+
+    private int index(long position) {
+        return (int) position & mask;
+    }
+
+}
@@ -0,0 +1,405 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.filter.accesslog;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.utils.NamedThreadFactory;
+import org.apache.dubbo.metrics.Gauge;
+import org.apache.dubbo.metrics.MetricManager;
+import org.apache.dubbo.metrics.MetricName;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append access log records to one file.
+ * <p>
+ * Invoking threads capture their record into a preallocated {@link AccessLogRingBuffer} slot and return; a single
+ * writer thread formats the records in order and writes them through a buffered {@link FileChannel}, flushing
+ * whenever the ring runs empty. An idle writer thread blocks until an invoking thread publishes a record.
+ * <p>
+ * When the ring is full, records are dropped and counted, unless the writer is lossless: invoking threads then
+ * wait for the writer to catch up.
+ * <p>
+ * The file is rolled when the day changes, into <code>file.yyyyMMdd</code>, and once it reaches the max file size
+ * if there is one, into <code>file.yyyyMMdd.1</code>, <code>file.yyyyMMdd.2</code>...
+ * <p>
+ * A started writer is closed by a shutdown hook, so the records still in the ring reach the file on exit.
+ */
+public class AccessLogWriter implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessLogWriter.class);
+
+    private static final String FILE_DATE_FORMAT = "yyyyMMdd";
+
+    private static final String LINE_SEPARATOR = "\r\n";
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private static final long BACKOFF_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private static final NamedThreadFactory THREAD_FACTORY = new NamedThreadFactory("Dubbo-Access-Log", true);
+
+    private final File file;
+
+    private final long maxFileSize;
+
+    private final boolean lossless;
+
+    private final AccessLogRingBuffer ring;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong written = new AtomicLong();
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private volatile boolean closed;
+
+    private volatile Thread thread;
+
+    // set by the writer thread before it blocks, telling invoking threads to wake it up
+    private volatile boolean sleeping;
+
+    private volatile Thread shutdownHook;
+
+    // the state below is only accessed by the writer thread
+
+    private final AccessLogFormatter formatter = new AccessLogFormatter();
+
+    private final SimpleDateFormat fileDateFormat = new SimpleDateFormat(FILE_DATE_FORMAT);
+
+    private final StringBuilder line = new StringBuilder(256);
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+
+    private FileChannel channel;
+
+    private long fileSize;
+
+    private String fileDate;
+
+    private long nextRollTime;
+
+    /**
+     * @param bufferSize  number of records the ring holds, rounded up to a power of two
+     * @param maxFileSize size in bytes the file is rolled at, 0 for no limit
+     * @param lossless    make invoking threads wait rather than drop records when the ring is full
+     */
+    public AccessLogWriter(String path, int bufferSize, long maxFileSize, boolean lossless) {
+        this.file = new File(path);
+        this.maxFileSize = maxFileSize;
+        this.lossless = lossless;
+        this.ring = new AccessLogRingBuffer(bufferSize > 0 ? bufferSize : Constants.DEFAULT_ACCESS_LOG_BUFFER_SIZE);
+    }
+
+    /**
+     * Start the writer thread and publish the counters, only the first call has an effect.
+     */
+    public void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        MetricManager.register(Constants.METRICS_GROUP, new MetricName("dubbo.accesslog.dropped").tag("file", file.getPath()), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return dropped.get();
+            }
+
+            @Override
+            public long lastUpdateTime() {
+                return System.currentTimeMillis();
+            }
+        });
+        MetricManager.register(Constants.METRICS_GROUP, new MetricName("dubbo.accesslog.written").tag("file", file.getPath()), new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return written.get();
+            }
+
+            @Override
+            public long lastUpdateTime() {
+                return System.currentTimeMillis();
+            }
+        });
+        Thread writerThread = THREAD_FACTORY.newThread(this);
+        thread = writerThread;
+        writerThread.start();
+        Thread hook = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                close();
+            }
+        }, "Dubbo-Access-Log-Shutdown");
+        shutdownHook = hook;
+        Runtime.getRuntime().addShutdownHook(hook);
+    }
+
+    /**
+     * Capture the invocation into the ring.
+     *
+     * @return false if the record was dropped
+     */
+    public boolean write(Invoker<?> invoker, Invocation inv) {
+        if (closed) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        long position = ring.tryClaim();
+        while (position < 0) {
+            if (!lossless || closed) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            LockSupport.unpark(thread);
+            LockSupport.parkNanos(this, BACKOFF_PARK_NANOS);
+            position = ring.tryClaim();
+        }
+        try {
+            ring.get(position).collect(invoker, inv);
+        } finally {
+            // an incomplete record is published all the same, the writer skips it
+            ring.publish(position);
+        }
+        if (sleeping) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    /**
+     * Stop accepting records, write out the ones in the ring and wait for the writer thread to end.
+     */
+    public void close() {
+        closed = true;
+        Thread hook = shutdownHook;
+        if (hook != null && hook != Thread.currentThread()) {
+            shutdownHook = null;
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException e) {
+                // the jvm is shutting down already, the hook is running or about to
+            }
+        }
+        Thread writerThread = thread;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public int getBufferSize() {
+        return ring.capacity();
+    }
+
+    public boolean isLossless() {
+        return lossless;
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (; ; ) {
+                AccessLogData data = ring.peek();
+                if (data != null) {
+                    if (data.isComplete()) {
+                        append(data);
+                    } else {
+                        dropped.incrementAndGet();
+                    }
+                    ring.release();
+                    continue;
+                }
+                flushQuietly();
+                if (closed) {
+                    // a producer may have claimed a slot before seeing the writer closed
+                    if (ring.peek() == null) {
+                        break;
+                    }
+                    continue;
+                }
+                sleeping = true;
+                // checked again once sleeping is visible, an invoking thread publishing meanwhile wakes us up
+                if (ring.peek() == null && !closed) {
+                    LockSupport.park(this);
+                }
+                sleeping = false;
+            }
+        } finally {
+            closeChannel();
+        }
+    }
+
+    private void append(AccessLogData data) {
+        try {
+            line.setLength(0);
+            formatter.appendTo(data, line).append(LINE_SEPARATOR);
+            openOrRoll(data.getTimestamp());
+            encode(line);
+            written.incrementAndGet();
+            if (maxFileSize > 0 && fileSize + buffer.position() >= maxFileSize) {
+                flush();
+                closeChannel();
+                archive(fileDate);
+            }
+        } catch (Throwable t) {
+            dropped.incrementAndGet();
+            logger.warn("Failed to write access log to " + file.getPath() + ", cause: " + t.getMessage(), t);
+            if (t instanceof IOException) {
+                // reopen the file with the next record
+                buffer.clear();
+                closeChannel();
+            }
+        }
+    }
+
+    private void encode(CharSequence chars) throws IOException {
+        CharBuffer in = CharBuffer.wrap(chars);
+        encoder.reset();
+        for (; ; ) {
+            CoderResult result = encoder.encode(in, buffer, true);
+            if (result.isOverflow()) {
+                flush();
+            } else {
+                break;
+            }
+        }
+        while (encoder.flush(buffer).isOverflow()) {
+            flush();
+        }
+    }
+
+    private void openOrRoll(long timestamp) throws IOException {
+        if (channel != null && timestamp >= nextRollTime) {
+            flush();
+            closeChannel();
+            archive(fileDate);
+        }
+        if (channel == null) {
+            open(timestamp);
+        }
+    }
+
+    private void open(long now) throws IOException {
+        File dir = file.getParentFile();
+        if (null != dir && !dir.exists()) {
+            dir.mkdirs();
+        }
+        String today = fileDateFormat.format(new Date(now));
+        if (file.exists()) {
+            String last = fileDateFormat.format(new Date(file.lastModified()));
+            if (!today.equals(last)) {
+                archive(last);
+            }
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Append log to " + file.getPath());
+        }
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileSize = channel.size();
+        fileDate = today;
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(now);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        nextRollTime = calendar.getTimeInMillis();
+    }
+
+    private void archive(String date) {
+        String base = file.getAbsolutePath() + "." + date;
+        File archive = new File(base);
+        for (int i = 1; archive.exists(); i++) {
+            archive = new File(base + "." + i);
+        }
+        if (!file.renameTo(archive)) {
+            logger.warn("Failed to roll access log " + file.getPath() + " to " + archive.getPath());
+        }
+    }
+
+    private void flush() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                fileSize += channel.write(buffer);
+            }
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            logger.warn("Failed to write access log to " + file.getPath() + ", cause: " + e.getMessage(), e);
+            closeChannel();
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close access log " + file.getPath() + ", cause: " + e.getMessage(), e);
+            }
+            channel = null;
+        }
+    }
+
+}
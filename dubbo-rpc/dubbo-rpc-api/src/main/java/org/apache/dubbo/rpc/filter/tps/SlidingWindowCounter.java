@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.filter.tps;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sliding window counter allowing at most <code>rate</code> invocations in any interval, up to the width of one
+ * bucket.
+ * <p>
+ * The interval is split into buckets, each one packing the index of the slice of time it counts for in its high 32
+ * bits and the count in its low 32 bits, so it is moved to a new slice and counted in with one compare and set.
+ * An invocation is counted first and taken back if the window then holds more than <code>rate</code>: concurrent
+ * invocations may be refused a little early, they are never let through above the rate.
+ */
+class SlidingWindowCounter implements TPSCounter {
+
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+    private final String name;
+
+    private final int rate;
+
+    private final long interval;
+
+    private final long bucketNanos;
+
+    private final AtomicLongArray buckets;
+
+    SlidingWindowCounter(String name, int rate, long interval, int bucketCount) {
+        this.name = name;
+        this.rate = rate;
+        this.interval = interval;
+        int count = Math.max(1, bucketCount);
+        this.bucketNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(interval) / count);
+        this.buckets = new AtomicLongArray(count);
+        // slices nobody will see as current, so the buckets start empty
+        for (int i = 0; i < count; i++) {
+            buckets.set(i, pack(Integer.MIN_VALUE, 0));
+        }
+    }
+
+    @Override
+    public boolean isAllowable() {
+        return isAllowable(System.nanoTime());
+    }
+
+    boolean isAllowable(long now) {
+        long slice = Math.floorDiv(now, bucketNanos);
+        int index = (int) Math.floorMod(slice, (long) buckets.length());
+        int sliceTag = (int) slice;
+        for (; ; ) {
+            long current = buckets.get(index);
+            long next = (int) (current >>> 32) == sliceTag ? current + 1 : pack(sliceTag, 1);
+            if (buckets.compareAndSet(index, current, next)) {
+                break;
+            }
+        }
+        if (count(slice) <= rate) {
+            return true;
+        }
+        // give back the count taken, unless the bucket moved on in the meantime
+        for (; ; ) {
+            long current = buckets.get(index);
+            if ((int) (current >>> 32) != sliceTag || (current & COUNT_MASK) == 0) {
+                return false;
+            }
+            if (buckets.compareAndSet(index, current, current - 1)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return the invocations counted in the window ending with the given slice
+     */
+    private long count(long slice) {
+        long total = 0;
+        int length = buckets.length();
+        for (int i = 0; i < length; i++) {
+            long value = buckets.get(i);
+            // the tag is the slice truncated to 32 bits, recover how far back it lies
+            int age = (int) slice - (int) (value >>> 32);
+            if (age >= 0 && age < length) {
+                total += value & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+
+    int getCount(long now) {
+        return (int) count(Math.floorDiv(now, bucketNanos));
+    }
+
+    private static long pack(int slice, long count) {
+        return ((long) slice << 32) | count;
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder(32).append("SlidingWindowCounter ")
+                .append("[name=").append(name).append(", ")
+                .append("rate = ").append(rate).append(", ")
+                .append("interval = ").append(interval).append(", ")
+                .append("buckets = ").append(buckets.length()).append("]")
+                .toString();
+    }
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.filter.tps;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.rpc.Invocation;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * TPS limiter with smooth admission and finer grained limits than {@link DefaultTPSLimiter}.
+ * <ul>
+ * <li><code>tps</code> and <code>tps.interval</code> limit the service, <code>&lt;method&gt;.tps</code> gives a method
+ * a limit of its own</li>
+ * <li><code>tps.mode</code> picks how invocations are counted: <code>fixed</code> (default), the fixed window of
+ * {@link StatItem}, <code>bucket</code>, a token bucket refilled continuously, or <code>window</code>, a sliding
+ * window of <code>tps.window.buckets</code> buckets</li>
+ * <li><code>tps.applications</code> lists the consumer applications, told by the <code>remote.application</code>
+ * attachment, which get an allowance of their own, the others sharing the one of the limit</li>
+ * </ul>
+ * The limits are resolved once per url, keyed by its cached full string, so that only the methods and applications
+ * configured get counters, and a malformed value is reported there once and ignored. Admission then allocates
+ * nothing and takes no lock.
+ */
+public class SmoothTPSLimiter implements TPSLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SmoothTPSLimiter.class);
+
+    private static final Limit NO_LIMIT = new Limit(null, null, 0);
+
+    private final ConcurrentMap<String, ServiceLimits> services = new ConcurrentHashMap<String, ServiceLimits>();
+
+    @Override
+    public boolean isAllowable(URL url, Invocation invocation) {
+        String key = url.toFullString();
+        ServiceLimits limits = services.get(key);
+        if (limits == null) {
+            services.putIfAbsent(key, new ServiceLimits(url));
+            limits = services.get(key);
+        }
+        return limits.isAllowable(invocation);
+    }
+
+    private static class ServiceLimits {
+
+        private final URL url;
+
+        private final String mode;
+
+        private final long interval;
+
+        private final int windowBuckets;
+
+        private final String[] applications;
+
+        private final Limit serviceLimit;
+
+        // the limits of the methods configured, Map<Method, Limit>, not changed once built
+        private final Map<String, Limit> methodLimits;
+
+        ServiceLimits(URL url) {
+            this.url = url;
+            String mode = url.getParameter(Constants.TPS_LIMIT_MODE_KEY, Constants.DEFAULT_TPS_LIMIT_MODE);
+            if (!Constants.TPS_LIMIT_MODE_BUCKET.equals(mode) && !Constants.TPS_LIMIT_MODE_WINDOW.equals(mode)
+                    && !Constants.TPS_LIMIT_MODE_FIXED.equals(mode)) {
+                logger.warn("Unsupported tps mode " + mode + " of " + url.getServiceKey() + ", use " + Constants.DEFAULT_TPS_LIMIT_MODE + " instead.");
+                mode = Constants.DEFAULT_TPS_LIMIT_MODE;
+            }
+            this.mode = mode;
+            this.interval = parse(Constants.TPS_LIMIT_INTERVAL_KEY, url.getParameter(Constants.TPS_LIMIT_INTERVAL_KEY), Constants.DEFAULT_TPS_LIMIT_INTERVAL);
+            this.windowBuckets = (int) parse(Constants.TPS_LIMIT_WINDOW_BUCKETS_KEY, url.getParameter(Constants.TPS_LIMIT_WINDOW_BUCKETS_KEY), Constants.DEFAULT_TPS_LIMIT_WINDOW_BUCKETS);
+            this.applications = url.getParameter(Constants.TPS_LIMIT_APPLICATIONS_KEY, new String[0]);
+            int rate = (int) parse(Constants.TPS_LIMIT_RATE_KEY, url.getParameter(Constants.TPS_LIMIT_RATE_KEY), -1);
+            this.serviceLimit = rate > 0 ? new Limit(this, url.getServiceKey(), rate) : null;
+            this.methodLimits = createMethodLimits();
+        }
+
+        boolean isAllowable(Invocation invocation) {
+            String methodName = invocation.getMethodName();
+            Limit limit = methodName == null ? null : methodLimits.get(methodName);
+            if (limit == null) {
+                limit = serviceLimit;
+            }
+            if (limit == null || limit == NO_LIMIT) {
+                return true;
+            }
+            return limit.isAllowable(invocation.getAttachment(Constants.REMOTE_APPLICATION_KEY));
+        }
+
+        private Map<String, Limit> createMethodLimits() {
+            // not getMethodParameter, falling back to the service limit would give each method a copy of it
+            String suffix = "." + Constants.TPS_LIMIT_RATE_KEY;
+            Map<String, Limit> limits = new HashMap<String, Limit>();
+            for (Map.Entry<String, String> entry : url.getParameters().entrySet()) {
+                String key = entry.getKey();
+                if (!key.endsWith(suffix) || key.startsWith(Constants.DEFAULT_KEY_PREFIX)) {
+                    continue;
+                }
+                String methodName = key.substring(0, key.length() - suffix.length());
+                long rate = parse(key, entry.getValue(), Long.MIN_VALUE);
+                if (rate != Long.MIN_VALUE) {
+                    limits.put(methodName, rate > 0 ? new Limit(this, url.getServiceKey() + "." + methodName, (int) rate) : NO_LIMIT);
+                }
+            }
+            return limits.isEmpty() ? Collections.<String, Limit>emptyMap() : limits;
+        }
+
+        private long parse(String key, String value, long defaultValue) {
+            if (value == null || value.length() == 0) {
+                return defaultValue;
+            }
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid " + key + " " + value + " of " + url.getServiceKey() + ", ignored.");
+                return defaultValue;
+            }
+        }
+
+        TPSCounter createCounter(String name, int rate) {
+            if (Constants.TPS_LIMIT_MODE_WINDOW.equals(mode)) {
+                return new SlidingWindowCounter(name, rate, interval, windowBuckets);
+            }
+            if (Constants.TPS_LIMIT_MODE_BUCKET.equals(mode)) {
+                return new TokenBucket(name, rate, interval);
+            }
+            return new StatItem(name, rate, interval);
+        }
+
+    }
+
+    /**
+     * The counter of a service or a method, and those of the applications configured.
+     */
+    private static class Limit {
+
+        private final TPSCounter counter;
+
+        // Map<Application, Counter>, not changed once built
+        private final Map<String, TPSCounter> applicationCounters;
+
+        Limit(ServiceLimits service, String name, int rate) {
+            this.counter = service != null ? service.createCounter(name, rate) : null;
+            if (service == null || service.applications.length == 0) {
+                this.applicationCounters = Collections.emptyMap();
+            } else {
+                this.applicationCounters = new HashMap<String, TPSCounter>();
+                for (String application : service.applications) {
+                    applicationCounters.put(application, service.createCounter(name + "@" + application, rate));
+                }
+            }
+        }
+
+        boolean isAllowable(String application) {
+            TPSCounter applicationCounter = application == null ? null : applicationCounters.get(application);
+            return applicationCounter != null ? applicationCounter.isAllowable() : counter.isAllowable();
+        }
+
+    }
+
+}
@@ -17,12 +17,16 @@
 package org.apache.dubbo.rpc.filter.tps;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
-class StatItem {
+/**
+ * Fixed window: <code>rate</code> tokens handed out per interval, all of them restored when it ends.
+ */
+class StatItem implements TPSCounter {
 
     private String name;
 
-    private long lastResetTime;
+    private final AtomicLong lastResetTime;
 
     private long interval;
 
@@ -34,15 +38,17 @@ class StatItem {
         this.name = name;
         this.rate = rate;
         this.interval = interval;
-        this.lastResetTime = System.currentTimeMillis();
+        this.lastResetTime = new AtomicLong(System.currentTimeMillis());
         this.token = new AtomicInteger(rate);
     }
 
+    @Override
     public boolean isAllowable() {
         long now = System.currentTimeMillis();
-        if (now > lastResetTime + interval) {
+        long last = lastResetTime.get();
+        // only the thread moving the window on restores the tokens
+        if (now > last + interval && lastResetTime.compareAndSet(last, now)) {
             token.set(rate);
-            lastResetTime = now;
         }
 
         int value = token.get();
@@ -56,7 +62,7 @@ class StatItem {
     }
 
     long getLastResetTime() {
-        return lastResetTime;
+        return lastResetTime.get();
     }
 
     int getToken() {
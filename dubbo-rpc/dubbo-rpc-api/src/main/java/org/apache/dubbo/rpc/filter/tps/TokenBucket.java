@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.filter.tps;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Smooth token bucket holding up to <code>rate</code> tokens and refilled continuously at <code>rate</code> tokens
+ * per interval, with nanosecond precision.
+ * <p>
+ * Implemented as a generic cell rate algorithm: rather than a token count, the bucket keeps the theoretical
+ * arrival time, the time at which it would be full again. Each admitted invocation pushes it one emission interval
+ * further, and an invocation is admitted as long as that does not put it more than one interval ahead of now.
+ * That single value is updated with a compare and set, so there is no lock and no refill task.
+ */
+class TokenBucket implements TPSCounter {
+
+    private final String name;
+
+    private final int rate;
+
+    private final long intervalNanos;
+
+    private final long emissionNanos;
+
+    private final AtomicLong arrivalTime;
+
+    TokenBucket(String name, int rate, long interval) {
+        this(name, rate, interval, System.nanoTime());
+    }
+
+    TokenBucket(String name, int rate, long interval, long now) {
+        this.name = name;
+        this.rate = rate;
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(interval);
+        this.emissionNanos = Math.max(1, intervalNanos / rate);
+        // starts full
+        this.arrivalTime = new AtomicLong(now - intervalNanos);
+    }
+
+    @Override
+    public boolean isAllowable() {
+        return isAllowable(System.nanoTime());
+    }
+
+    boolean isAllowable(long now) {
+        for (; ; ) {
+            long current = arrivalTime.get();
+            long next = (current - now > 0 ? current : now) + emissionNanos;
+            if (next - now > intervalNanos) {
+                return false;
+            }
+            if (arrivalTime.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return the tokens left at the given time
+     */
+    int getTokens(long now) {
+        long current = arrivalTime.get();
+        long ahead = current - now > 0 ? current - now : 0;
+        return (int) ((intervalNanos - ahead) / emissionNanos);
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder(32).append("TokenBucket ")
+                .append("[name=").append(name).append(", ")
+                .append("rate = ").append(rate).append(", ")
+                .append("interval = ").append(TimeUnit.NANOSECONDS.toMillis(intervalNanos)).append("]")
+                .toString();
+    }
+
+}
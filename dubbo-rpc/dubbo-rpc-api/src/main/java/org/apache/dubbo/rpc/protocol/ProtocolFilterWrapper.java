@@ -27,6 +27,7 @@ import org.apache.dubbo.rpc.Protocol;
 import org.apache.dubbo.rpc.Result;
 import org.apache.dubbo.rpc.RpcException;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -44,47 +45,18 @@ public class ProtocolFilterWrapper implements Protocol {
     }
 
     private static <T> Invoker<T> buildInvokerChain(final Invoker<T> invoker, String key, String group) {
-        Invoker<T> last = invoker;
         List<Filter> filters = ExtensionLoader.getExtensionLoader(Filter.class).getActivateExtension(invoker.getUrl(), key, group);
-        if (!filters.isEmpty()) {
-            for (int i = filters.size() - 1; i >= 0; i--) {
-                final Filter filter = filters.get(i);
-                final Invoker<T> next = last;
-                last = new Invoker<T>() {
-
-                    @Override
-                    public Class<T> getInterface() {
-                        return invoker.getInterface();
-                    }
-
-                    @Override
-                    public URL getUrl() {
-                        return invoker.getUrl();
-                    }
-
-                    @Override
-                    public boolean isAvailable() {
-                        return invoker.isAvailable();
-                    }
-
-                    @Override
-                    public Result invoke(Invocation invocation) throws RpcException {
-                        return filter.invoke(next, invocation);
-                    }
-
-                    @Override
-                    public void destroy() {
-                        invoker.destroy();
-                    }
-
-                    @Override
-                    public String toString() {
-                        return invoker.toString();
-                    }
-                };
+        List<Filter> bound = new ArrayList<Filter>(filters.size());
+        for (Filter filter : filters) {
+            Filter b = filter.bind(invoker);
+            if (b != null) {
+                bound.add(b);
             }
         }
-        return last;
+        if (bound.isEmpty()) {
+            return invoker;
+        }
+        return new FilterChain<T>(invoker, bound.toArray(new Filter[bound.size()])).head();
     }
 
     @Override
@@ -113,4 +85,71 @@ public class ProtocolFilterWrapper implements Protocol {
         protocol.destroy();
     }
 
+    /**
+     * The filters bound to an invoker, in one array. Each position of the chain is a node invoking its filter with
+     * the node after it, the last one with the invoker itself.
+     */
+    private static final class FilterChain<T> {
+
+        private final Invoker<T> invoker;
+
+        private final Filter[] filters;
+
+        private final Invoker<?>[] nodes;
+
+        FilterChain(Invoker<T> invoker, Filter[] filters) {
+            this.invoker = invoker;
+            this.filters = filters;
+            this.nodes = new Invoker<?>[filters.length + 1];
+            for (int i = 0; i < filters.length; i++) {
+                nodes[i] = new Node(i);
+            }
+            nodes[filters.length] = invoker;
+        }
+
+        @SuppressWarnings("unchecked")
+        Invoker<T> head() {
+            return (Invoker<T>) nodes[0];
+        }
+
+        private final class Node implements Invoker<T> {
+
+            private final int index;
+
+            Node(int index) {
+                this.index = index;
+            }
+
+            @Override
+            public Class<T> getInterface() {
+                return invoker.getInterface();
+            }
+
+            @Override
+            public URL getUrl() {
+                return invoker.getUrl();
+            }
+
+            @Override
+            public boolean isAvailable() {
+                return invoker.isAvailable();
+            }
+
+            @Override
+            public Result invoke(Invocation invocation) throws RpcException {
+                return filters[index].invoke(nodes[index + 1], invocation);
+            }
+
+            @Override
+            public void destroy() {
+                invoker.destroy();
+            }
+
+            @Override
+            public String toString() {
+                return invoker.toString();
+            }
+        }
+    }
+
 }
@@ -44,7 +44,12 @@ public class JavassistProxyFactory extends AbstractProxyFactory {
             protected Object doInvoke(T proxy, String methodName,
                                       Class<?>[] parameterTypes,
                                       Object[] arguments) throws Throwable {
-                return wrapper.invokeMethod(proxy, methodName, parameterTypes, arguments);
+                // dispatched by index, the lookup of the name and parameter types in the wrapper being a map get
+                int index = wrapper.getMethodIndex(methodName, parameterTypes);
+                if (index < 0) {
+                    return wrapper.invokeMethod(proxy, methodName, parameterTypes, arguments);
+                }
+                return wrapper.invokeMethod(proxy, index, arguments);
             }
         };
     }
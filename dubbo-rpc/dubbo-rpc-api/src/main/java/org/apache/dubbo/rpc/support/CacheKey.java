@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.support;
+
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache key of the arguments of an invocation, compared by structure rather than through a serialized form.
+ * <p>
+ * The arguments are copied when the key is created into a flat snapshot: strings, numbers and other immutable
+ * values as they are, primitive arrays cloned, arrays, collections and maps element by element, and any other
+ * object field by field, so beans without <code>equals</code> still make equal keys when their content is equal,
+ * and changing an argument after the call does not change the key. Values past {@link #MAX_DEPTH} or
+ * {@link #MAX_VALUES}, and objects whose fields the jvm does not let us read, such as those of the jdk on java 16
+ * and later, are kept by reference and compared with their own equals.
+ */
+public final class CacheKey implements Serializable {
+
+    private static final long serialVersionUID = 4296217423506537532L;
+
+    /**
+     * Nesting depth past which values are kept by reference, in case of cycles.
+     */
+    private static final int MAX_DEPTH = 8;
+
+    /**
+     * Number of values copied into a key past which the rest are kept by reference, so that shared or widely
+     * fanned out object graphs cannot make creating a key arbitrarily expensive.
+     */
+    private static final int MAX_VALUES = 1024;
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigInteger.class, BigDecimal.class));
+
+    private static final ConcurrentMap<Class<?>, Field[]> FIELDS = new ConcurrentHashMap<Class<?>, Field[]>();
+
+    // cached for the types whose fields cannot be made accessible
+    private static final Field[] INACCESSIBLE = new Field[0];
+
+    private final Object[] snapshot;
+
+    private final int hash;
+
+    public CacheKey(Object[] arguments) {
+        List<Object> values = new ArrayList<Object>();
+        if (arguments != null) {
+            for (Object argument : arguments) {
+                copy(argument, 0, values);
+            }
+        }
+        this.snapshot = values.toArray();
+        this.hash = Arrays.deepHashCode(snapshot);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CacheKey)) {
+            return false;
+        }
+        CacheKey other = (CacheKey) obj;
+        return hash == other.hash && Arrays.deepEquals(snapshot, other.snapshot);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheKey" + Arrays.deepToString(snapshot);
+    }
+
+    private static void copy(Object value, int depth, List<Object> values) {
+        if (value == null || IMMUTABLE_TYPES.contains(value.getClass()) || value instanceof Enum
+                || value instanceof Class) {
+            values.add(value);
+            return;
+        }
+        Class<?> type = value.getClass();
+        if (depth >= MAX_DEPTH || values.size() >= MAX_VALUES) {
+            values.add(value);
+            return;
+        }
+        if (type.isArray()) {
+            if (type.getComponentType().isPrimitive()) {
+                values.add(copyOf(value));
+                return;
+            }
+            Object[] array = (Object[]) value;
+            values.add(new Shape(type, array.length));
+            for (Object element : array) {
+                copy(element, depth + 1, values);
+            }
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            values.add(new Shape(type, collection.size()));
+            for (Object element : collection) {
+                copy(element, depth + 1, values);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            values.add(new Shape(type, map.size()));
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                copy(entry.getKey(), depth + 1, values);
+                copy(entry.getValue(), depth + 1, values);
+            }
+        } else if (value instanceof Date) {
+            values.add(new Shape(type, 1));
+            values.add(((Date) value).getTime());
+        } else {
+            Field[] fields = getFields(type);
+            if (fields == INACCESSIBLE) {
+                values.add(value);
+                return;
+            }
+            values.add(new Shape(type, fields.length));
+            for (Field field : fields) {
+                copy(get(field, value), depth + 1, values);
+            }
+        }
+    }
+
+    private static Object copyOf(Object array) {
+        int length = Array.getLength(array);
+        Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+
+    private static Field[] getFields(Class<?> type) {
+        Field[] fields = FIELDS.get(type);
+        if (fields == null) {
+            List<Field> list = new ArrayList<Field>();
+            try {
+                for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                    for (Field field : c.getDeclaredFields()) {
+                        if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                            continue;
+                        }
+                        field.setAccessible(true);
+                        list.add(field);
+                    }
+                }
+                fields = list.toArray(new Field[list.size()]);
+            } catch (RuntimeException e) {
+                // not accessible on this jvm, copying part of the fields would make unequal values equal
+                fields = INACCESSIBLE;
+            }
+            FIELDS.putIfAbsent(type, fields);
+            fields = FIELDS.get(type);
+        }
+        return fields;
+    }
+
+    private static Object get(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Marks where the copied content of an array, collection, map or object starts in the snapshot, so that
+     * different nestings of the same values make different keys.
+     */
+    private static final class Shape implements Serializable {
+
+        private static final long serialVersionUID = -2862180725133564728L;
+
+        private final Class<?> type;
+
+        private final int size;
+
+        Shape(Class<?> type, int size) {
+            this.type = type;
+            this.size = size;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + size;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Shape)) {
+                return false;
+            }
+            Shape other = (Shape) obj;
+            return type == other.type && size == other.size;
+        }
+
+        @Override
+        public String toString() {
+            return type.getSimpleName() + "(" + size + ")";
+        }
+    }
+
+}
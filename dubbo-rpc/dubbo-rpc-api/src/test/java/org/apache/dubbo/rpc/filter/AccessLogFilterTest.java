@@ -24,7 +24,11 @@ import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.support.MockInvocation;
 import org.apache.dubbo.rpc.support.MyInvoker;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
 
 import static org.junit.Assert.assertEquals;
 
@@ -33,6 +37,9 @@ import static org.junit.Assert.assertEquals;
  */
 public class AccessLogFilterTest {
 
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
     Filter accessLogFilter = new AccessLogFilter();
 
     // Test filter won't throw an exception
@@ -57,7 +64,8 @@ public class AccessLogFilterTest {
 
     @Test
     public void testCustom() {
-        URL url = URL.valueOf("test://test:11/test?accesslog=custom-access.log");
+        File file = new File(tmpDir.getRoot(), "custom-access.log");
+        URL url = URL.valueOf("test://test:11/test?accesslog=" + file.getPath());
         Invoker<AccessLogFilterTest> invoker = new MyInvoker<AccessLogFilterTest>(url);
         Invocation invocation = new MockInvocation();
         accessLogFilter.invoke(invoker, invocation);
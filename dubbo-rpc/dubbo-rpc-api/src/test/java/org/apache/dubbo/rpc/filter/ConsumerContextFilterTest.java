@@ -16,12 +16,14 @@
  */
 package org.apache.dubbo.rpc.filter;
 
+import org.apache.dubbo.common.Constants;
 import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.utils.NetUtils;
 import org.apache.dubbo.rpc.Filter;
 import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.RpcInvocation;
 import org.apache.dubbo.rpc.support.DemoService;
 import org.apache.dubbo.rpc.support.MockInvocation;
 import org.apache.dubbo.rpc.support.MyInvoker;
@@ -48,4 +50,15 @@ public class ConsumerContextFilterTest {
         assertEquals("test:11", RpcContext.getContext().getRemoteAddressString());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBind() {
+        URL url = URL.valueOf("test://test:11/test?application=demo");
+        Invoker<DemoService> invoker = new MyInvoker<DemoService>(url);
+        Filter bound = consumerContextFilter.bind(invoker);
+        RpcInvocation invocation = new RpcInvocation("sayHello", new Class<?>[0], new Object[0]);
+        bound.invoke(invoker, invocation);
+        assertEquals("demo", invocation.getAttachment(Constants.REMOTE_APPLICATION_KEY));
+        assertEquals("test:11", RpcContext.getContext().getRemoteAddressString());
+    }
+}
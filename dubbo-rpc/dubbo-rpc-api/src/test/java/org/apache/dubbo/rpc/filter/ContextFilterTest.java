@@ -16,19 +16,23 @@
  */
 package org.apache.dubbo.rpc.filter;
 
+import org.apache.dubbo.common.Constants;
 import org.apache.dubbo.common.URL;
 import org.apache.dubbo.rpc.Filter;
 import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.Result;
 import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.RpcInvocation;
 import org.apache.dubbo.rpc.RpcResult;
+import org.apache.dubbo.rpc.protocol.AbstractInvoker;
 import org.apache.dubbo.rpc.support.DemoService;
 import org.apache.dubbo.rpc.support.MockInvocation;
 import org.apache.dubbo.rpc.support.MyInvoker;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
@@ -73,4 +77,31 @@ public class ContextFilterTest {
         Result result = contextFilter.invoke(invoker, invocation);
         assertNull(RpcContext.getContext().getInvoker());
     }
+
+    @Test
+    public void testRemoteApplicationOfNestedInvocation() {
+        final Invocation[] nested = new Invocation[1];
+        final Invoker<DemoService> downstream = new AbstractInvoker<DemoService>(DemoService.class,
+                URL.valueOf("test://test:12/test?" + Constants.APPLICATION_KEY + "=middle")) {
+            @Override
+            protected Result doInvoke(Invocation invocation) throws Throwable {
+                nested[0] = invocation;
+                return new RpcResult();
+            }
+        };
+        // the provider calls another service while serving the invocation
+        Invoker<DemoService> provider = new MyInvoker<DemoService>(URL.valueOf("test://test:11/test?" + Constants.APPLICATION_KEY + "=middle")) {
+            @Override
+            public Result invoke(Invocation invocation) {
+                return new ConsumerContextFilter().invoke(downstream,
+                        new RpcInvocation("echo", new Class<?>[]{String.class}, new Object[]{"hello"}));
+            }
+        };
+        RpcInvocation invocation = new RpcInvocation("echo", new Class<?>[]{String.class}, new Object[]{"hello"});
+        invocation.setAttachment(Constants.REMOTE_APPLICATION_KEY, "origin");
+
+        contextFilter.invoke(provider, invocation);
+
+        assertEquals("middle", nested[0].getAttachment(Constants.REMOTE_APPLICATION_KEY));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.filter;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.metrics.Compass;
+import org.apache.dubbo.metrics.MetricManager;
+import org.apache.dubbo.metrics.MetricName;
+import org.apache.dubbo.rpc.AsyncRpcResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.RpcResult;
+import org.apache.dubbo.rpc.support.DemoService;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class MetricsFilterTest {
+
+    private final MetricsFilter metricsFilter = new MetricsFilter();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRecord() {
+        Invoker<DemoService> invoker = mock(Invoker.class);
+        given(invoker.getInterface()).willReturn(DemoService.class);
+        given(invoker.getUrl()).willReturn(URL.valueOf("test://test:11/test?side=consumer"));
+        given(invoker.invoke(any(Invocation.class))).willReturn(new RpcResult("ok"));
+        Invocation invocation = new RpcInvocation("echo", new Class<?>[0], new Object[0]);
+
+        metricsFilter.invoke(invoker, invocation);
+        metricsFilter.invoke(invoker, invocation);
+        given(invoker.invoke(any(Invocation.class))).willReturn(new RpcResult(new IllegalStateException()));
+        metricsFilter.invoke(invoker, invocation);
+        given(invoker.invoke(any(Invocation.class))).willThrow(new RpcException(RpcException.TIMEOUT_EXCEPTION, "timeout"));
+        try {
+            metricsFilter.invoke(invoker, invocation);
+            Assert.fail();
+        } catch (RpcException expected) {
+        }
+
+        Compass compass = MetricManager.getCompass(Constants.METRICS_GROUP, new MetricName(MetricsFilter.CONSUMER_INVOKE_METRIC)
+                .tag("service", DemoService.class.getName(), "method", "echo"));
+        Map<String, Map<Long, Long>> counts = compass.getMethodCountPerCategory();
+        Assert.assertEquals(2L, sum(counts.get(MetricsFilter.SUCCESS_CATEGORY)));
+        Assert.assertEquals(1L, sum(counts.get(MetricsFilter.ERROR_CATEGORY)));
+        Assert.assertEquals(1L, sum(counts.get(MetricsFilter.TIMEOUT_CATEGORY)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testAsyncNotWaitedFor() {
+        Invoker<DemoService> invoker = mock(Invoker.class);
+        given(invoker.getInterface()).willReturn(DemoService.class);
+        given(invoker.getUrl()).willReturn(URL.valueOf("test://test:11/test?side=consumer"));
+        CompletableFuture<Object> future = new CompletableFuture<Object>();
+        AsyncRpcResult asyncResult = new AsyncRpcResult(future);
+        given(invoker.invoke(any(Invocation.class))).willReturn(asyncResult);
+        Invocation invocation = new RpcInvocation("sayHello", new Class<?>[0], new Object[0]);
+
+        Result result = metricsFilter.invoke(invoker, invocation);
+
+        Assert.assertSame(asyncResult, result);
+        Assert.assertFalse(asyncResult.getResultFuture().isDone());
+        Compass compass = MetricManager.getCompass(Constants.METRICS_GROUP, new MetricName(MetricsFilter.CONSUMER_INVOKE_METRIC)
+                .tag("service", DemoService.class.getName(), "method", "sayHello"));
+        Assert.assertNull(compass.getMethodCountPerCategory().get(MetricsFilter.SUCCESS_CATEGORY));
+
+        future.complete("ok");
+        Assert.assertEquals(1L, sum(compass.getMethodCountPerCategory().get(MetricsFilter.SUCCESS_CATEGORY)));
+    }
+
+    private static long sum(Map<Long, Long> buckets) {
+        long sum = 0;
+        for (Long value : buckets.values()) {
+            sum += value;
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.filter.accesslog;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.support.DemoService;
+import org.apache.dubbo.rpc.support.MockInvocation;
+import org.apache.dubbo.rpc.support.MyInvoker;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class AccessLogWriterTest {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    private final Invoker<AccessLogWriterTest> invoker = new MyInvoker<AccessLogWriterTest>(
+            URL.valueOf("test://test:11/test?group=dubbo&version=1.1"));
+
+    private final Invocation invocation = new MockInvocation();
+
+    @Test
+    public void testWrite() throws Exception {
+        File file = new File(tmpDir.getRoot(), "logs/access.log");
+        AccessLogWriter writer = new AccessLogWriter(file.getPath(), 16, 0, false);
+        writer.start();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(writer.write(invoker, invocation));
+        }
+        writer.close();
+
+        // identical records are all kept
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertThat(lines.size(), equalTo(3));
+        for (String line : lines) {
+            assertThat(line, endsWith(" - dubbo/" + DemoService.class.getName() + ":1.1 echo(java.lang.String) [\"aa\"]"));
+        }
+        assertThat(writer.getWrittenCount(), equalTo(3L));
+        assertThat(writer.getDroppedCount(), equalTo(0L));
+        assertFalse(writer.write(invoker, invocation));
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        File file = new File(tmpDir.getRoot(), "access.log");
+        AccessLogWriter writer = new AccessLogWriter(file.getPath(), 3, 0, false);
+        assertThat(writer.getBufferSize(), equalTo(4));
+        // not started, nothing drains the ring
+        for (int i = 0; i < 4; i++) {
+            assertTrue(writer.write(invoker, invocation));
+        }
+        assertFalse(writer.write(invoker, invocation));
+        assertThat(writer.getDroppedCount(), equalTo(1L));
+
+        writer.start();
+        writer.close();
+        assertThat(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size(), equalTo(4));
+    }
+
+    @Test
+    public void testLossless() throws Exception {
+        File file = new File(tmpDir.getRoot(), "access.log");
+        final AccessLogWriter writer = new AccessLogWriter(file.getPath(), 2, 0, true);
+        writer.start();
+        int threads = 4;
+        final int records = 500;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < records; j++) {
+                        writer.write(invoker, invocation);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        writer.close();
+
+        assertThat(writer.getDroppedCount(), equalTo(0L));
+        assertThat(writer.getWrittenCount(), equalTo((long) threads * records));
+        assertThat(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size(), equalTo(threads * records));
+    }
+
+    @Test
+    public void testArgumentsCapturedWhenWritten() throws Exception {
+        File file = new File(tmpDir.getRoot(), "access.log");
+        AccessLogWriter writer = new AccessLogWriter(file.getPath(), 16, 0, false);
+        Object[] arguments = new Object[]{"before"};
+        writer.write(invoker, new RpcInvocation("echo", new Class<?>[]{String.class}, arguments));
+        // the service changes its argument before the writer gets to the record
+        arguments[0] = "after";
+        writer.start();
+        writer.close();
+
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertThat(lines.size(), equalTo(1));
+        assertThat(lines.get(0), endsWith(" echo(java.lang.String) [\"before\"]"));
+    }
+
+    @Test
+    public void testWakeUpWhenIdle() throws Exception {
+        File file = new File(tmpDir.getRoot(), "access.log");
+        AccessLogWriter writer = new AccessLogWriter(file.getPath(), 16, 0, false);
+        writer.start();
+        try {
+            for (int i = 1; i <= 2; i++) {
+                writer.write(invoker, invocation);
+                long deadline = System.currentTimeMillis() + 5000;
+                while (writer.getWrittenCount() < i && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+                assertThat(writer.getWrittenCount(), equalTo((long) i));
+                // let the writer run out of records and block
+                Thread.sleep(100);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testRollBySize() throws Exception {
+        File file = new File(tmpDir.getRoot(), "access.log");
+        AccessLogWriter writer = new AccessLogWriter(file.getPath(), 16, 1, false);
+        writer.start();
+        for (int i = 0; i < 3; i++) {
+            writer.write(invoker, invocation);
+        }
+        writer.close();
+
+        String base = file.getAbsolutePath() + "." + new SimpleDateFormat("yyyyMMdd").format(new Date());
+        assertTrue(new File(base).exists());
+        assertTrue(new File(base + ".1").exists());
+        assertTrue(new File(base + ".2").exists());
+        assertFalse(file.exists());
+        assertThat(new File(base).length(), greaterThan(0L));
+    }
+
+}
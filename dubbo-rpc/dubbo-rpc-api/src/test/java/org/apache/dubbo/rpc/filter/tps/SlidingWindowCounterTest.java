@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.filter.tps;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SlidingWindowCounterTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testSlidingWindow() throws Exception {
+        SlidingWindowCounter counter = new SlidingWindowCounter("test", 10, 1000L, 10);
+        long start = 5000 * MILLIS;
+        for (int i = 0; i < 10; i++) {
+            assertTrue(counter.isAllowable(start + 950 * MILLIS));
+        }
+        assertFalse(counter.isAllowable(start + 950 * MILLIS));
+        assertEquals(10, counter.getCount(start + 950 * MILLIS));
+        // a fixed window would restart at start + 1000ms and let 10 more through right away
+        assertFalse(counter.isAllowable(start + 1050 * MILLIS));
+        assertFalse(counter.isAllowable(start + 1899 * MILLIS));
+        assertTrue(counter.isAllowable(start + 1900 * MILLIS));
+        assertEquals(1, counter.getCount(start + 1900 * MILLIS));
+    }
+
+    @Test
+    public void testNegativeTime() throws Exception {
+        SlidingWindowCounter counter = new SlidingWindowCounter("test", 2, 1000L, 10);
+        long start = -5000 * MILLIS;
+        assertTrue(counter.isAllowable(start));
+        assertTrue(counter.isAllowable(start + MILLIS));
+        assertFalse(counter.isAllowable(start + 2 * MILLIS));
+        assertTrue(counter.isAllowable(start + 1000 * MILLIS));
+    }
+
+    @Test
+    public void testConcurrentAccuracy() throws Exception {
+        final SlidingWindowCounter counter = new SlidingWindowCounter("test", 1000, 60000L, 10);
+        final AtomicInteger allowed = new AtomicInteger();
+        int threads = 8;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        if (counter.isAllowable(0)) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        // never above the rate, and refusals only give their count back so all of it is used
+        assertEquals(1000, allowed.get());
+        assertEquals(1000, counter.getCount(0));
+    }
+
+}
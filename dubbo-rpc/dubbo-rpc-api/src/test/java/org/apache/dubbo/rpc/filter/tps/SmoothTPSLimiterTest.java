@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.filter.tps;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.RpcInvocation;
+
+import org.junit.Test;
+
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SmoothTPSLimiterTest {
+
+    private final TPSLimiter limiter = new SmoothTPSLimiter();
+
+    @Test
+    public void testServiceLimit() throws Exception {
+        URL url = URL.valueOf("test://test/org.apache.dubbo.rpc.file.TpsService?tps=3");
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.isAllowable(url, invocation("sayHello", null)));
+        }
+        // methods without a limit of their own share the service one
+        assertFalse(limiter.isAllowable(url, invocation("sayBye", null)));
+    }
+
+    @Test
+    public void testMethodLimit() throws Exception {
+        URL url = URL.valueOf("test://test/org.apache.dubbo.rpc.file.TpsService?tps=2&sayHello.tps=3&sayBye.tps=0");
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.isAllowable(url, invocation("sayHello", null)));
+        }
+        assertFalse(limiter.isAllowable(url, invocation("sayHello", null)));
+        assertTrue(limiter.isAllowable(url, invocation("echo", null)));
+        assertTrue(limiter.isAllowable(url, invocation("echo", null)));
+        assertFalse(limiter.isAllowable(url, invocation("echo", null)));
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.isAllowable(url, invocation("sayBye", null)));
+        }
+    }
+
+    @Test
+    public void testApplicationLimit() throws Exception {
+        URL url = URL.valueOf("test://test/org.apache.dubbo.rpc.file.TpsService?tps=2&tps.applications=app1,app2");
+        assertTrue(limiter.isAllowable(url, invocation("sayHello", "app1")));
+        assertTrue(limiter.isAllowable(url, invocation("sayHello", "app1")));
+        assertFalse(limiter.isAllowable(url, invocation("sayHello", "app1")));
+        assertTrue(limiter.isAllowable(url, invocation("sayHello", "app2")));
+        // the applications not configured share the allowance of the service
+        assertTrue(limiter.isAllowable(url, invocation("sayHello", null)));
+        assertTrue(limiter.isAllowable(url, invocation("sayHello", "app3")));
+        assertFalse(limiter.isAllowable(url, invocation("sayHello", "app4")));
+    }
+
+    @Test
+    public void testMalformedLimit() throws Exception {
+        URL url = URL.valueOf("test://test/org.apache.dubbo.rpc.file.TpsService?tps=2&sayHello.tps=abc&tps.interval=x");
+        // ignored, the method shares the service limit
+        assertTrue(limiter.isAllowable(url, invocation("sayHello", null)));
+        assertTrue(limiter.isAllowable(url, invocation("sayHello", null)));
+        assertFalse(limiter.isAllowable(url, invocation("sayHello", null)));
+    }
+
+    @Test
+    public void testModes() throws Exception {
+        for (String mode : new String[]{Constants.TPS_LIMIT_MODE_BUCKET, Constants.TPS_LIMIT_MODE_WINDOW,
+                Constants.TPS_LIMIT_MODE_FIXED, "unknown"}) {
+            URL url = URL.valueOf("test://test/org.apache.dubbo.rpc.file.TpsService?tps=5&tps.mode=" + mode);
+            for (int i = 0; i < 5; i++) {
+                assertTrue(mode, limiter.isAllowable(url, invocation("sayHello", null)));
+            }
+            assertFalse(mode, limiter.isAllowable(url, invocation("sayHello", null)));
+        }
+    }
+
+    @Test
+    public void testNoLimit() throws Exception {
+        URL url = URL.valueOf("test://test/org.apache.dubbo.rpc.file.TpsService");
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.isAllowable(url, invocation("sayHello", null)));
+        }
+    }
+
+    private static RpcInvocation invocation(String methodName, String application) {
+        RpcInvocation invocation = new RpcInvocation(methodName, new Class<?>[0], new Object[0]);
+        if (application != null) {
+            invocation.setAttachment(Constants.REMOTE_APPLICATION_KEY, application);
+        }
+        return invocation;
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.filter.tps;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TokenBucketTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testBurstThenSmoothRefill() throws Exception {
+        long start = 1000 * MILLIS;
+        TokenBucket bucket = new TokenBucket("test", 10, 1000L, start);
+        assertEquals(10, bucket.getTokens(start));
+        for (int i = 0; i < 10; i++) {
+            assertTrue(bucket.isAllowable(start));
+        }
+        assertFalse(bucket.isAllowable(start));
+        // one token every 100ms, not the whole rate at the end of the interval
+        assertFalse(bucket.isAllowable(start + 99 * MILLIS));
+        assertTrue(bucket.isAllowable(start + 100 * MILLIS));
+        assertFalse(bucket.isAllowable(start + 150 * MILLIS));
+        assertTrue(bucket.isAllowable(start + 250 * MILLIS));
+        // refills up to the rate only
+        assertEquals(10, bucket.getTokens(start + 10000 * MILLIS));
+    }
+
+    @Test
+    public void testNoBurstAcrossIntervals() throws Exception {
+        long start = 0;
+        TokenBucket bucket = new TokenBucket("test", 100, 1000L, start);
+        // whatever the timing, at most rate + rate * elapsed / interval invocations get through
+        int allowed = 0;
+        for (long now = start; now < start + 2000 * MILLIS; now += MILLIS) {
+            for (int i = 0; i < 5; i++) {
+                if (bucket.isAllowable(now)) {
+                    allowed++;
+                }
+            }
+        }
+        assertEquals(100 + 200 - 1, allowed, 1);
+    }
+
+    @Test
+    public void testConcurrentAccuracy() throws Exception {
+        final TokenBucket bucket = new TokenBucket("test", 1000, 60000L, 0);
+        final AtomicInteger allowed = new AtomicInteger();
+        int threads = 8;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        // time frozen, the bucket only holds its initial tokens
+                        if (bucket.isAllowable(0)) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        assertEquals(1000, allowed.get());
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.protocol;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Protocol;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.support.DemoService;
+import org.apache.dubbo.rpc.support.MyInvoker;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class ProtocolFilterWrapperTest {
+
+    private static final List<String> invoked = new ArrayList<String>();
+
+    private Protocol protocol = mock(Protocol.class);
+
+    @Before
+    public void setUp() {
+        invoked.clear();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReferChain() {
+        URL url = URL.valueOf("test://test:11/test?" + Constants.REFERENCE_FILTER_KEY + "=-default,first,skipped,second&tag=bound");
+        Invoker<DemoService> invoker = new MyInvoker<DemoService>(url);
+        given(protocol.refer(any(Class.class), any(URL.class))).willReturn(invoker);
+
+        Invoker<DemoService> chain = new ProtocolFilterWrapper(protocol).refer(DemoService.class, url);
+        Result result = chain.invoke(new RpcInvocation("sayHello", new Class<?>[0], new Object[0]));
+
+        Assert.assertEquals("alibaba", result.getValue());
+        Assert.assertEquals(Arrays.asList("first:bound", "second:bound"), invoked);
+        Assert.assertSame(url, chain.getUrl());
+        Assert.assertSame(DemoService.class, chain.getInterface());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testNoFilter() {
+        URL url = URL.valueOf("test://test:11/test?" + Constants.REFERENCE_FILTER_KEY + "=-default,skipped");
+        Invoker<DemoService> invoker = new MyInvoker<DemoService>(url);
+        given(protocol.refer(any(Class.class), any(URL.class))).willReturn(invoker);
+
+        Assert.assertSame(invoker, new ProtocolFilterWrapper(protocol).refer(DemoService.class, url));
+    }
+
+    public abstract static class TaggingFilter implements Filter {
+
+        private final String name;
+
+        private final String tag;
+
+        TaggingFilter(String name, String tag) {
+            this.name = name;
+            this.tag = tag;
+        }
+
+        @Override
+        public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+            invoked.add(name + ":" + tag);
+            return invoker.invoke(invocation);
+        }
+    }
+
+    public static class FirstFilter extends TaggingFilter {
+
+        public FirstFilter() {
+            this(null);
+        }
+
+        FirstFilter(String tag) {
+            super("first", tag);
+        }
+
+        @Override
+        public Filter bind(Invoker<?> invoker) {
+            return new FirstFilter(invoker.getUrl().getParameter("tag"));
+        }
+    }
+
+    public static class SecondFilter extends TaggingFilter {
+
+        public SecondFilter() {
+            this(null);
+        }
+
+        SecondFilter(String tag) {
+            super("second", tag);
+        }
+
+        @Override
+        public Filter bind(Invoker<?> invoker) {
+            return new SecondFilter(invoker.getUrl().getParameter("tag"));
+        }
+    }
+
+    public static class SkippedFilter implements Filter {
+
+        @Override
+        public Filter bind(Invoker<?> invoker) {
+            return null;
+        }
+
+        @Override
+        public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+            invoked.add("skipped");
+            return invoker.invoke(invocation);
+        }
+    }
+}
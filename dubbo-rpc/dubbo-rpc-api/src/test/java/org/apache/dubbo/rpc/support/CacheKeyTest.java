@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.support;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.reflect.ReflectPermission;
+import java.security.Permission;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class CacheKeyTest {
+
+    @Test
+    public void testEquality() throws Exception {
+        assertThat(new CacheKey(new Object[]{"a", 1, null}), equalTo(new CacheKey(new Object[]{"a", 1, null})));
+        assertThat(new CacheKey(null), equalTo(new CacheKey(new Object[0])));
+        assertThat(new CacheKey(new Object[]{new int[]{1, 2}}), equalTo(new CacheKey(new Object[]{new int[]{1, 2}})));
+        assertThat(new CacheKey(new Object[]{new int[]{1, 2}}), not(equalTo(new CacheKey(new Object[]{new long[]{1, 2}}))));
+        assertThat(new CacheKey(new Object[]{"a"}), not(equalTo(new CacheKey(new Object[]{"b"}))));
+        assertThat(new CacheKey(new Object[]{Collections.singleton("a")}), equalTo(new CacheKey(new Object[]{Collections.singleton("a")})));
+    }
+
+    @Test
+    public void testBeanWithoutEquals() throws Exception {
+        CacheKey key = new CacheKey(new Object[]{new Bean("a", 1, new Bean("b", 2, null)), Arrays.asList(new Bean("c", 3, null))});
+        CacheKey same = new CacheKey(new Object[]{new Bean("a", 1, new Bean("b", 2, null)), Arrays.asList(new Bean("c", 3, null))});
+        CacheKey other = new CacheKey(new Object[]{new Bean("a", 1, new Bean("b", 3, null)), Arrays.asList(new Bean("c", 3, null))});
+        assertThat(key.hashCode(), equalTo(same.hashCode()));
+        assertThat(key, equalTo(same));
+        assertThat(key, not(equalTo(other)));
+    }
+
+    @Test
+    public void testArgumentsChangedAfterwards() throws Exception {
+        Bean bean = new Bean("a", 1, new Bean("b", 2, null));
+        int[] values = {1, 2};
+        List<String> names = new ArrayList<String>(Arrays.asList("x"));
+        CacheKey key = new CacheKey(new Object[]{bean, values, names});
+        bean.child.child = new Bean("c", 3, null);
+        values[0] = 3;
+        names.add("y");
+        assertThat(key, equalTo(new CacheKey(new Object[]{new Bean("a", 1, new Bean("b", 2, null)), new int[]{1, 2},
+                new ArrayList<String>(Arrays.asList("x"))})));
+        assertThat(key, not(equalTo(new CacheKey(new Object[]{bean, values, names}))));
+    }
+
+    @Test(timeout = 5000)
+    public void testSharedGraph() throws Exception {
+        // every level refers to the one below many times, walking it as a tree would visit 32^8 beans
+        Object level = new Bean("leaf", 0, null);
+        for (int i = 0; i < 8; i++) {
+            level = Collections.nCopies(32, level);
+        }
+        CacheKey key = new CacheKey(new Object[]{level});
+        assertThat(key, equalTo(new CacheKey(new Object[]{level})));
+    }
+
+    @Test
+    public void testCycle() throws Exception {
+        Bean a = new Bean("a", 1, null);
+        a.child = a;
+        Bean b = new Bean("a", 1, null);
+        b.child = b;
+        // bounded by the depth, the cyclic beans end up kept by reference and compared by identity
+        assertThat(new CacheKey(new Object[]{a}), equalTo(new CacheKey(new Object[]{a})));
+        assertThat(new CacheKey(new Object[]{a}), not(equalTo(new CacheKey(new Object[]{b}))));
+    }
+
+    @Test
+    public void testInaccessibleFields() throws Exception {
+        // deny reflective access the way the module system does for the jdk classes on java 16 and later
+        try {
+            System.setSecurityManager(new SecurityManager() {
+                @Override
+                public void checkPermission(Permission perm) {
+                    if (perm instanceof ReflectPermission && "suppressAccessChecks".equals(perm.getName())) {
+                        throw new SecurityException(perm.getName());
+                    }
+                }
+            });
+        } catch (UnsupportedOperationException e) {
+            Assume.assumeNoException(e);
+        }
+        CacheKey key;
+        CacheKey same;
+        CacheKey other;
+        try {
+            Sealed sealed = new Sealed("a");
+            key = new CacheKey(new Object[]{sealed});
+            same = new CacheKey(new Object[]{sealed});
+            other = new CacheKey(new Object[]{new Sealed("a")});
+        } finally {
+            System.setSecurityManager(null);
+        }
+        // kept by reference and compared with their own equals, identity here
+        assertThat(key, equalTo(same));
+        assertThat(key, not(equalTo(other)));
+    }
+
+    static class Sealed {
+
+        private final String name;
+
+        Sealed(String name) {
+            this.name = name;
+        }
+
+    }
+
+    static class Bean {
+
+        private final String name;
+
+        private final int value;
+
+        private Bean child;
+
+        Bean(String name, int value, Bean child) {
+            this.name = name;
+            this.value = value;
+            this.child = child;
+        }
+
+    }
+
+}
@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.benchmark;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.Version;
+import org.apache.dubbo.common.extension.ExtensionLoader;
+import org.apache.dubbo.common.utils.NetUtils;
+import org.apache.dubbo.remoting.Channel;
+import org.apache.dubbo.remoting.ChannelHandler;
+import org.apache.dubbo.remoting.RemotingException;
+import org.apache.dubbo.remoting.buffer.ChannelBuffer;
+import org.apache.dubbo.remoting.buffer.ChannelBuffers;
+import org.apache.dubbo.remoting.exchange.Request;
+import org.apache.dubbo.remoting.exchange.Response;
+import org.apache.dubbo.rpc.Exporter;
+import org.apache.dubbo.rpc.Protocol;
+import org.apache.dubbo.rpc.ProxyFactory;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.RpcResult;
+import org.apache.dubbo.rpc.protocol.dubbo.DubboCodec;
+import org.apache.dubbo.rpc.protocol.dubbo.DubboProtocol;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of a request through {@link DubboCodec}, between two channels only keeping their
+ * attributes, the decoder looking the service up among the exported ones. <code>plain</code> has the codec
+ * dictionary turned off, with <code>dictionary</code> the service, method and parameter types are referenced once
+ * the server acknowledged them, and <code>compact</code> writes the attachments as a compact block instead of a
+ * map. The allocation per operation is reported by the gc profiler and the wire size printed before the run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DubboCodecBenchmark {
+
+    static final String[] CODECS = {"plain", "dictionary", "compact"};
+
+    @Param({"plain", "dictionary", "compact"})
+    public String codec;
+
+    private Exporter<DemoService> exporter;
+
+    private DubboCodec target;
+
+    private Channel client;
+
+    private Channel server;
+
+    private RpcInvocation invocation;
+
+    private ChannelBuffer buffer;
+
+    @Setup
+    public void setup() throws IOException {
+        URL url = URL.valueOf("dubbo://127.0.0.1:" + NetUtils.getAvailablePort() + "/" + DemoService.class.getName() + "?version=1.0.0");
+        exporter = export(url);
+        url = configure(url, codec);
+        target = new DubboCodec();
+        client = new CodecChannel(url);
+        server = new CodecChannel(url);
+        invocation = newInvocation();
+        buffer = ChannelBuffers.dynamicBuffer(1024);
+        acknowledge(target, client, server, invocation);
+    }
+
+    @TearDown
+    public void tearDown() {
+        exporter.unexport();
+        DubboProtocol.getDubboProtocol().destroy();
+    }
+
+    @Benchmark
+    public Object roundTrip() throws IOException {
+        buffer.clear();
+        target.encode(client, buffer, newRequest(invocation));
+        return target.decode(server, buffer);
+    }
+
+    static URL configure(URL url, String codec) {
+        if ("plain".equals(codec)) {
+            return url.addParameter(Constants.CODEC_DICTIONARY_KEY, false);
+        }
+        if ("compact".equals(codec)) {
+            return url.addParameter(Constants.CODEC_DICTIONARY_KEY, false).addParameter(Constants.COMPACT_ATTACHMENTS_KEY, true);
+        }
+        return url;
+    }
+
+    /**
+     * The request a consumer with tracing sends, the attachments of the invoker and of the trace
+     */
+    static RpcInvocation newInvocation() {
+        RpcInvocation invocation = new RpcInvocation("echo", new Class<?>[]{String.class}, new Object[]{"hello"});
+        invocation.setAttachment(Constants.PATH_KEY, DemoService.class.getName());
+        invocation.setAttachment(Constants.INTERFACE_KEY, DemoService.class.getName());
+        invocation.setAttachment(Constants.VERSION_KEY, "1.0.0");
+        invocation.setAttachment(Constants.TOKEN_KEY, "secret");
+        invocation.setAttachment(Constants.TIMEOUT_KEY, "3000");
+        invocation.setAttachment(Constants.APPLICATION_KEY, "consumer-app");
+        invocation.setAttachment("traceId", "4bf92f3577b34da6a3ce929d0e0e4736");
+        invocation.setAttachment("spanId", "00f067aa0ba902b7");
+        invocation.setAttachment("parentSpanId", "a3ce929d0e0e4736");
+        invocation.setAttachment("sampled", "1");
+        invocation.setAttachment("tenant", "acme");
+        invocation.setAttachment("region", "eu-west-1");
+        return invocation;
+    }
+
+    private static Request newRequest(RpcInvocation invocation) {
+        Request request = new Request();
+        request.setVersion(Version.getProtocolVersion());
+        request.setTwoWay(true);
+        request.setData(invocation);
+        return request;
+    }
+
+    private static Exporter<DemoService> export(URL url) {
+        Protocol protocol = ExtensionLoader.getExtensionLoader(Protocol.class).getAdaptiveExtension();
+        ProxyFactory proxy = ExtensionLoader.getExtensionLoader(ProxyFactory.class).getAdaptiveExtension();
+        return protocol.export(proxy.getInvoker(new DemoServiceImpl(), DemoService.class, url));
+    }
+
+    /**
+     * Sends a first request and its response, after which the dictionary, when enabled, is acknowledged
+     */
+    private static void acknowledge(DubboCodec codec, Channel client, Channel server, RpcInvocation invocation) throws IOException {
+        ChannelBuffer buffer = ChannelBuffers.dynamicBuffer(1024);
+        Request request = newRequest(invocation);
+        codec.encode(client, buffer, request);
+        codec.decode(server, buffer);
+        Response response = new Response(request.getId(), DubboCodec.DUBBO_VERSION);
+        response.setResult(new RpcResult("ok"));
+        buffer.clear();
+        codec.encode(server, buffer, response);
+        codec.decode(client, buffer);
+    }
+
+    /**
+     * Prints the wire size of the request with each codec then runs the benchmarks with the gc profiler, the
+     * arguments being the ones of the jmh command line
+     */
+    public static void main(String[] args) throws Exception {
+        URL url = URL.valueOf("dubbo://127.0.0.1:" + NetUtils.getAvailablePort() + "/" + DemoService.class.getName() + "?version=1.0.0");
+        Exporter<DemoService> exporter = export(url);
+        try {
+            for (String codec : CODECS) {
+                URL configured = configure(url, codec);
+                DubboCodec target = new DubboCodec();
+                Channel client = new CodecChannel(configured);
+                Channel server = new CodecChannel(configured);
+                RpcInvocation invocation = newInvocation();
+                acknowledge(target, client, server, invocation);
+                ChannelBuffer buffer = ChannelBuffers.dynamicBuffer(1024);
+                target.encode(client, buffer, newRequest(invocation));
+                System.out.println(String.format("%-16s%10d bytes", codec, buffer.readableBytes()));
+            }
+        } finally {
+            exporter.unexport();
+            DubboProtocol.getDubboProtocol().destroy();
+        }
+
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(DubboCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    public interface DemoService {
+
+        String echo(String text);
+    }
+
+    public static class DemoServiceImpl implements DemoService {
+
+        @Override
+        public String echo(String text) {
+            return text;
+        }
+    }
+
+    /**
+     * Channel which only keeps the url and the attributes, its local address being the one of the exported
+     * service and the remote one any other port
+     */
+    private static class CodecChannel implements Channel {
+
+        private final URL url;
+
+        private final Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
+
+        CodecChannel(URL url) {
+            this.url = url;
+        }
+
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return new InetSocketAddress(url.getHost(), url.getPort() + 1);
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public boolean hasAttribute(String key) {
+            return attributes.containsKey(key);
+        }
+
+        @Override
+        public Object getAttribute(String key) {
+            return attributes.get(key);
+        }
+
+        @Override
+        public void setAttribute(String key, Object value) {
+            attributes.put(key, value);
+        }
+
+        @Override
+        public void removeAttribute(String key) {
+            attributes.remove(key);
+        }
+
+        @Override
+        public URL getUrl() {
+            return url;
+        }
+
+        @Override
+        public ChannelHandler getChannelHandler() {
+            return null;
+        }
+
+        @Override
+        public InetSocketAddress getLocalAddress() {
+            return new InetSocketAddress(url.getHost(), url.getPort());
+        }
+
+        @Override
+        public void send(Object message) throws RemotingException {
+        }
+
+        @Override
+        public void send(Object message, boolean sent) throws RemotingException {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(int timeout) {
+        }
+
+        @Override
+        public void startClose() {
+        }
+
+        @Override
+        public boolean isClosed() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.benchmark;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.extension.ExtensionLoader;
+import org.apache.dubbo.rpc.Exporter;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Protocol;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.RpcResult;
+import org.apache.dubbo.rpc.protocol.ProtocolFilterWrapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per call overhead of a chain of 12 filters each looking up the timeout of the invoked method. <code>nested</code>
+ * wraps the filters in one invoker each, as the filter chain used to, <code>flat</code> is the single array chain of
+ * {@link ProtocolFilterWrapper}. With <code>bound</code> the filters read the timeouts once when bound to the invoker,
+ * otherwise from the url on every call, so that the shape of the chain and binding are measured apart.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilterChainBenchmark {
+
+    private static final String FILTERS = "-default,lookup1,lookup2,lookup3,lookup4,lookup5,lookup6,lookup7,lookup8,lookup9,lookup10,lookup11,lookup12";
+
+    private static final String BIND_KEY = "lookup.bind";
+
+    @Param({"nested", "flat"})
+    public String chain;
+
+    @Param({"false", "true"})
+    public boolean bound;
+
+    private Invoker<DemoService> invoker;
+
+    private Invocation invocation;
+
+    @Setup
+    public void setup() {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/" + DemoService.class.getName())
+                .addParameter(Constants.METHODS_KEY, "sayHello,getConfig")
+                .addParameter("getConfig." + Constants.TIMEOUT_KEY, 3000)
+                .addParameter(Constants.REFERENCE_FILTER_KEY, FILTERS)
+                .addParameter(BIND_KEY, bound);
+        Invoker<DemoService> target = new TargetInvoker(url);
+        if ("nested".equals(chain)) {
+            invoker = buildNestedChain(target);
+        } else {
+            invoker = new ProtocolFilterWrapper(new TargetProtocol(target)).refer(DemoService.class, url);
+        }
+        invocation = new RpcInvocation("getConfig", new Class<?>[]{String.class}, new Object[]{"key"});
+    }
+
+    @Benchmark
+    public Result invoke() {
+        return invoker.invoke(invocation);
+    }
+
+    private static <T> Invoker<T> buildNestedChain(final Invoker<T> invoker) {
+        Invoker<T> last = invoker;
+        List<Filter> filters = ExtensionLoader.getExtensionLoader(Filter.class)
+                .getActivateExtension(invoker.getUrl(), Constants.REFERENCE_FILTER_KEY, Constants.CONSUMER);
+        for (int i = filters.size() - 1; i >= 0; i--) {
+            final Filter filter = filters.get(i).bind(invoker);
+            if (filter == null) {
+                continue;
+            }
+            final Invoker<T> next = last;
+            last = new Invoker<T>() {
+
+                @Override
+                public Class<T> getInterface() {
+                    return invoker.getInterface();
+                }
+
+                @Override
+                public URL getUrl() {
+                    return invoker.getUrl();
+                }
+
+                @Override
+                public boolean isAvailable() {
+                    return invoker.isAvailable();
+                }
+
+                @Override
+                public Result invoke(Invocation invocation) throws RpcException {
+                    return filter.invoke(next, invocation);
+                }
+
+                @Override
+                public void destroy() {
+                    invoker.destroy();
+                }
+            };
+        }
+        return last;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(FilterChainBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    public interface DemoService {
+
+        String sayHello(String name);
+
+        String getConfig(String key);
+    }
+
+    /**
+     * Looks up the timeout of the invoked method, from the url on every call unless bound, which the url of the
+     * invoker may turn off with <code>lookup.bind=false</code>.
+     */
+    public static class LookupFilter implements Filter {
+
+        private final Map<String, Integer> timeouts;
+
+        public LookupFilter() {
+            this(null);
+        }
+
+        private LookupFilter(Map<String, Integer> timeouts) {
+            this.timeouts = timeouts;
+        }
+
+        @Override
+        public Filter bind(Invoker<?> invoker) {
+            URL url = invoker.getUrl();
+            if (!url.getParameter(BIND_KEY, true)) {
+                return this;
+            }
+            Map<String, Integer> timeouts = new HashMap<String, Integer>();
+            for (String method : url.getParameter(Constants.METHODS_KEY, new String[0])) {
+                timeouts.put(method, url.getMethodParameter(method, Constants.TIMEOUT_KEY, Constants.DEFAULT_TIMEOUT));
+            }
+            return new LookupFilter(timeouts);
+        }
+
+        @Override
+        public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+            Integer timeout = timeouts == null ? null : timeouts.get(invocation.getMethodName());
+            if (timeout == null) {
+                timeout = invoker.getUrl().getMethodParameter(invocation.getMethodName(), Constants.TIMEOUT_KEY, Constants.DEFAULT_TIMEOUT);
+            }
+            if (timeout <= 0) {
+                throw new RpcException("Invalid timeout " + timeout);
+            }
+            return invoker.invoke(invocation);
+        }
+    }
+
+    private static class TargetInvoker implements Invoker<DemoService> {
+
+        private final URL url;
+
+        private final Result result = new RpcResult("value");
+
+        TargetInvoker(URL url) {
+            this.url = url;
+        }
+
+        @Override
+        public Class<DemoService> getInterface() {
+            return DemoService.class;
+        }
+
+        @Override
+        public Result invoke(Invocation invocation) throws RpcException {
+            return result;
+        }
+
+        @Override
+        public URL getUrl() {
+            return url;
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+
+    private static class TargetProtocol implements Protocol {
+
+        private final Invoker<DemoService> invoker;
+
+        TargetProtocol(Invoker<DemoService> invoker) {
+            this.invoker = invoker;
+        }
+
+        @Override
+        public int getDefaultPort() {
+            return 0;
+        }
+
+        @Override
+        public <T> Exporter<T> export(Invoker<T> invoker) throws RpcException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> Invoker<T> refer(Class<T> type, URL url) throws RpcException {
+            return (Invoker<T>) invoker;
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+}
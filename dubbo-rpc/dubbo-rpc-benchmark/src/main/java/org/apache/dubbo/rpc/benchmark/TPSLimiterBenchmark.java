@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.benchmark;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.filter.tps.DefaultTPSLimiter;
+import org.apache.dubbo.rpc.filter.tps.SmoothTPSLimiter;
+import org.apache.dubbo.rpc.filter.tps.TPSLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the tps limiters, all threads hitting the same service. <code>legacy</code> is
+ * {@link DefaultTPSLimiter}, the other modes are {@link SmoothTPSLimiter} with that <code>tps.mode</code>. The high
+ * rate measures admission, the low one mostly refusals.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class TPSLimiterBenchmark {
+
+    @Param({"legacy", Constants.TPS_LIMIT_MODE_BUCKET, Constants.TPS_LIMIT_MODE_WINDOW, Constants.TPS_LIMIT_MODE_FIXED})
+    public String mode;
+
+    @Param({"1000", "2000000000"})
+    public int rate;
+
+    private TPSLimiter limiter;
+
+    private URL url;
+
+    private RpcInvocation invocation;
+
+    @Setup
+    public void setup() {
+        url = URL.valueOf("dubbo://127.0.0.1:20880/org.apache.dubbo.rpc.benchmark.DemoService")
+                .addParameter(Constants.TPS_LIMIT_RATE_KEY, rate)
+                .addParameter(Constants.TPS_LIMIT_INTERVAL_KEY, 1000);
+        if ("legacy".equals(mode)) {
+            limiter = new DefaultTPSLimiter();
+        } else {
+            url = url.addParameter(Constants.TPS_LIMIT_MODE_KEY, mode);
+            limiter = new SmoothTPSLimiter();
+        }
+        invocation = new RpcInvocation("sayHello", new Class<?>[]{String.class}, new Object[]{"world"});
+    }
+
+    @Benchmark
+    public boolean isAllowable() {
+        return limiter.isAllowable(url, invocation);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(TPSLimiterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.benchmark;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.utils.UrlUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to parse a zookeeper-like provider list, url encoded full urls, the way registries do on each notification.
+ * <code>jdk</code> decodes with {@link URLDecoder}, <code>dubbo</code> with {@link URL#decode(String)}, and
+ * <code>cached</code> is {@link UrlUtils#decodeAndValueOfCached(String)}, the list being the same at every
+ * notification as when a single provider comes and goes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class URLParseBenchmark {
+
+    @Param({"jdk", "dubbo", "cached"})
+    public String decoder;
+
+    @Param({"100", "5000"})
+    public int providers;
+
+    private List<String> children;
+
+    @Setup
+    public void setup() {
+        children = new ArrayList<String>(providers);
+        for (int i = 0; i < providers; i++) {
+            children.add(URL.encode("dubbo://10.20." + (i / 250) + "." + (i % 250) + ":20880/org.apache.dubbo.demo.DemoService" + (i % 20)
+                    + "?anyhost=true&application=demo-provider&default.timeout=3000&dubbo=2.0.2&generic=false"
+                    + "&interface=org.apache.dubbo.demo.DemoService" + (i % 20) + "&methods=sayHello,sayBye,query,update,delete"
+                    + "&pid=" + (1000 + i) + "&revision=1.0.0&side=provider&timestamp=" + (1539000000000L + i) + "&version=1.0.0&weight=100"));
+        }
+    }
+
+    @Benchmark
+    public List<URL> parse() throws Exception {
+        List<URL> urls = new ArrayList<URL>(children.size());
+        for (String child : children) {
+            if ("jdk".equals(decoder)) {
+                urls.add(URL.valueOf(URLDecoder.decode(child, "UTF-8")));
+            } else if ("dubbo".equals(decoder)) {
+                urls.add(URL.valueOf(URL.decode(child)));
+            } else {
+                urls.add(UrlUtils.decodeAndValueOfCached(child));
+            }
+        }
+        return urls;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(URLParseBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
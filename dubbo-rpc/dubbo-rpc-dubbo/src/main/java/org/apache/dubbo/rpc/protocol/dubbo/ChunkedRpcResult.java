@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.protocol.dubbo;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.remoting.exchange.ChunkedResult;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcResult;
+
+import java.io.Closeable;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Sends the elements of an {@link Iterator}, {@link Iterable} or array returned by a streaming method in chunks, each
+ * chunk being a {@link RpcResult} holding a list of elements and its sequence number. The final result holds the
+ * attachments of the invocation result, the number of chunks sent, and the exception thrown by the iteration if any.
+ */
+class ChunkedRpcResult implements ChunkedResult {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedRpcResult.class);
+
+    private final Result result;
+
+    private final Iterator<?> iterator;
+
+    private final int credits;
+
+    private final int chunkSize;
+
+    private int sequence;
+
+    private Throwable exception;
+
+    private ChunkedRpcResult(Result result, Iterator<?> iterator, int credits, int chunkSize) {
+        this.result = result;
+        this.iterator = iterator;
+        this.credits = credits;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return the result to send in chunks if the consumer streams the invocation and the result is iterable,
+     * otherwise the result itself
+     */
+    static Object of(Invocation inv, Result result) {
+        String credits = inv.getAttachment(Constants.STREAM_CREDITS_KEY);
+        if (credits == null || result.hasException()) {
+            return result;
+        }
+        Iterator<?> iterator = toIterator(result.getValue());
+        if (iterator == null) {
+            return result;
+        }
+        int chunkSize = Integer.parseInt(inv.getAttachment(Constants.STREAM_CHUNK_SIZE_KEY,
+                String.valueOf(Constants.DEFAULT_STREAM_CHUNK_SIZE)));
+        return new ChunkedRpcResult(result, iterator, Math.max(1, Integer.parseInt(credits)), Math.max(1, chunkSize));
+    }
+
+    static Iterator<?> toIterator(Object value) {
+        if (value instanceof Iterator) {
+            return (Iterator<?>) value;
+        }
+        if (value instanceof Iterable) {
+            return ((Iterable<?>) value).iterator();
+        }
+        if (value instanceof Object[]) {
+            return Arrays.asList((Object[]) value).iterator();
+        }
+        if (value != null && value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            List<Object> elements = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                elements.add(Array.get(value, i));
+            }
+            return elements.iterator();
+        }
+        return null;
+    }
+
+    @Override
+    public int getCredits() {
+        return credits;
+    }
+
+    @Override
+    public Object nextChunk() {
+        if (exception != null) {
+            return null;
+        }
+        List<Object> elements = new ArrayList<>(chunkSize);
+        try {
+            while (elements.size() < chunkSize && iterator.hasNext()) {
+                elements.add(iterator.next());
+            }
+        } catch (Throwable t) {
+            // the elements read are lost, the consumer gets the exception after the chunks sent before
+            exception = t;
+            return null;
+        }
+        if (elements.isEmpty()) {
+            return null;
+        }
+        RpcResult chunk = new RpcResult(elements);
+        chunk.setAttachment(Constants.STREAM_SEQUENCE_KEY, String.valueOf(sequence++));
+        return chunk;
+    }
+
+    @Override
+    public Object getResult() {
+        RpcResult last = new RpcResult();
+        last.addAttachments(result.getAttachments());
+        last.setAttachment(Constants.STREAM_CHUNKS_KEY, String.valueOf(sequence));
+        if (exception != null) {
+            last.setException(exception);
+        }
+        return last;
+    }
+
+    @Override
+    public void cancel() {
+        if (iterator instanceof Closeable) {
+            try {
+                ((Closeable) iterator).close();
+            } catch (Exception e) {
+                logger.warn("Failed to close the iterator of a cancelled stream, cause: " + e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -17,6 +17,8 @@
 package org.apache.dubbo.rpc.protocol.dubbo;
 
 import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.io.UnsafeByteArrayInputStream;
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
 import org.apache.dubbo.common.serialize.Cleanable;
@@ -29,6 +31,8 @@ import org.apache.dubbo.remoting.Codec;
 import org.apache.dubbo.remoting.Decodeable;
 import org.apache.dubbo.remoting.exchange.Request;
 import org.apache.dubbo.remoting.transport.CodecSupport;
+import org.apache.dubbo.remoting.transport.SerializationProfiler;
+import org.apache.dubbo.rpc.RpcException;
 import org.apache.dubbo.rpc.RpcInvocation;
 
 import java.io.IOException;
@@ -39,6 +43,11 @@ import java.util.Map;
 
 import static org.apache.dubbo.rpc.protocol.dubbo.CallbackServiceCodec.decodeInvocationArgument;
 
+/**
+ * Invocation decoded from a request, the arguments of a request written with
+ * {@link org.apache.dubbo.common.Constants#LAZY_ARGUMENTS_KEY} are only deserialized on the first
+ * {@link #getArguments()}, and are forwarded as received by a dubbo invoker if nobody asked for them.
+ */
 public class DecodeableRpcInvocation extends RpcInvocation implements Codec, Decodeable {
 
     private static final Logger log = LoggerFactory.getLogger(DecodeableRpcInvocation.class);
@@ -53,6 +62,8 @@ public class DecodeableRpcInvocation extends RpcInvocation implements Codec, Dec
 
     private volatile boolean hasDecoded;
 
+    private volatile byte[] rawArguments;
+
     public DecodeableRpcInvocation(Channel channel, Request request, InputStream is, byte id) {
         Assert.notNull(channel, "channel == null");
         Assert.notNull(request, "request == null");
@@ -87,41 +98,88 @@ public class DecodeableRpcInvocation extends RpcInvocation implements Codec, Dec
 
     @Override
     public Object decode(Channel channel, InputStream input) throws IOException {
+        URL url = channel.getUrl();
+        boolean profiling = SerializationProfiler.isEnabled(url);
+        boolean sampled = profiling && SerializationProfiler.sample(url);
+        int bytes = sampled ? input.available() : 0;
+        long start = sampled ? System.nanoTime() : 0;
         ObjectInput in = CodecSupport.getSerialization(channel.getUrl(), serializationType)
                 .deserialize(channel.getUrl(), input);
 
-        String dubboVersion = in.readUTF();
+        String[] head = new String[DubboCodecDictionary.SLOT_COUNT];
+        boolean descReferenced = false;
+        boolean lazyArguments = false;
+        boolean compactAttachments = false;
+        for (int i = 0; i < head.length; i++) {
+            String value = in.readUTF();
+            if (i == DubboCodecDictionary.DESC_INDEX && value.length() > 0
+                    && value.charAt(0) == DubboCodec.COMPACT_ATTACHMENTS_PREFIX) {
+                compactAttachments = true;
+                value = value.substring(1);
+            }
+            if (i == DubboCodecDictionary.DESC_INDEX && value.length() > 0
+                    && value.charAt(0) == DubboCodec.LAZY_ARGUMENTS_PREFIX) {
+                lazyArguments = true;
+                value = value.substring(1);
+            }
+            if (DubboCodecDictionary.isReference(value)) {
+                DubboCodecDictionary.Inbound dictionary = DubboCodecDictionary.getInbound(channel, false);
+                if (dictionary == null) {
+                    throw new IOException("Unknown dubbo codec dictionary reference " + value.substring(1));
+                }
+                descReferenced = i == DubboCodecDictionary.DESC_INDEX;
+                head[i] = descReferenced ? value : dictionary.resolve(value);
+            } else {
+                head[i] = value;
+            }
+        }
+        String dubboVersion = head[0];
         request.setVersion(dubboVersion);
         setAttachment(Constants.DUBBO_VERSION_KEY, dubboVersion);
 
-        setAttachment(Constants.PATH_KEY, in.readUTF());
-        setAttachment(Constants.VERSION_KEY, in.readUTF());
+        setAttachment(Constants.PATH_KEY, head[1]);
+        setAttachment(Constants.VERSION_KEY, head[2]);
 
-        setMethodName(in.readUTF());
+        setMethodName(head[3]);
         try {
             Object[] args;
             Class<?>[] pts;
-            String desc = in.readUTF();
-            if (desc.length() == 0) {
-                pts = DubboCodec.EMPTY_CLASS_ARRAY;
+            String desc = head[DubboCodecDictionary.DESC_INDEX];
+            if (descReferenced) {
+                DubboCodecDictionary.Inbound dictionary = DubboCodecDictionary.getInbound(channel, false);
+                pts = dictionary.resolveParameterTypes(desc);
+                desc = dictionary.resolve(desc);
+                head[DubboCodecDictionary.DESC_INDEX] = desc;
+            } else {
+                pts = desc.length() == 0 ? DubboCodec.EMPTY_CLASS_ARRAY : ReflectUtils.desc2classArray(desc);
+            }
+            if (pts.length == 0 || lazyArguments) {
                 args = DubboCodec.EMPTY_OBJECT_ARRAY;
             } else {
-                pts = ReflectUtils.desc2classArray(desc);
-                args = new Object[pts.length];
-                for (int i = 0; i < args.length; i++) {
-                    try {
-                        args[i] = in.readObject(pts[i]);
-                    } catch (Exception e) {
-                        if (log.isWarnEnabled()) {
-                            log.warn("Decode argument failed: " + e.getMessage(), e);
-                        }
-                    }
-                }
+                args = readArguments(in, pts);
             }
             setParameterTypes(pts);
 
-            Map<String, String> map = (Map<String, String>) in.readObject(Map.class);
-            if (map != null && map.size() > 0) {
+            Map<String, String> map;
+            if (compactAttachments) {
+                map = new DubboCodecAttachments(in.readBytes());
+                if (!channel.hasAttribute(DubboCodec.COMPACT_ATTACHMENTS_ACCEPTED_KEY)) {
+                    channel.setAttribute(DubboCodec.COMPACT_ATTACHMENTS_ACCEPTED_KEY, Boolean.TRUE);
+                }
+            } else {
+                map = (Map<String, String>) in.readObject(Map.class);
+            }
+            if (map != null && map.containsKey(DubboCodecDictionary.DEFINE_KEY)) {
+                DubboCodecDictionary.getInbound(channel, true)
+                        .define(map.remove(DubboCodecDictionary.DEFINE_KEY), head, pts);
+            }
+            if (compactAttachments) {
+                // the block overrides the values of the head as putAll would, without being parsed for known keys
+                for (Map.Entry<String, String> entry : getAttachments().entrySet()) {
+                    map.putIfAbsent(entry.getKey(), entry.getValue());
+                }
+                setAttachments(map);
+            } else if (map != null && map.size() > 0) {
                 Map<String, String> attachment = getAttachments();
                 if (attachment == null) {
                     attachment = new HashMap<String, String>();
@@ -129,13 +187,21 @@ public class DecodeableRpcInvocation extends RpcInvocation implements Codec, Dec
                 attachment.putAll(map);
                 setAttachments(attachment);
             }
-            //decode argument ,may be callback
-            for (int i = 0; i < args.length; i++) {
-                args[i] = decodeInvocationArgument(channel, this, pts, i, args[i]);
+            if (lazyArguments) {
+                byte[] raw = in.readBytes();
+                if (pts.length == 0) {
+                    setArguments(DubboCodec.EMPTY_OBJECT_ARRAY);
+                } else {
+                    rawArguments = raw;
+                }
+            } else {
+                //decode argument ,may be callback
+                for (int i = 0; i < args.length; i++) {
+                    args[i] = decodeInvocationArgument(channel, this, pts, i, args[i]);
+                }
+                setArguments(args);
             }
 
-            setArguments(args);
-
         } catch (ClassNotFoundException e) {
             throw new IOException(StringUtils.toString("Read invocation data failed.", e));
         } finally {
@@ -143,7 +209,84 @@ public class DecodeableRpcInvocation extends RpcInvocation implements Codec, Dec
                 ((Cleanable) in).cleanup();
             }
         }
+        if (profiling) {
+            SerializationProfiler profiler = SerializationProfiler.getProfiler(getAttachment(Constants.PATH_KEY), getMethodName());
+            if (request.isTwoWay()) {
+                SerializationProfiler.bind(channel, request.getId(), profiler);
+            }
+            if (sampled) {
+                profiler.decoded(getProfiledClasses(), bytes, System.nanoTime() - start);
+            }
+        }
         return this;
     }
 
+    /**
+     * @return the top level classes of the arguments, without deserializing them
+     */
+    String getProfiledClasses() {
+        return DubboCodec.getProfiledClasses(rawArguments == null ? super.getArguments() : null, getParameterTypes());
+    }
+
+    private Object[] readArguments(ObjectInput in, Class<?>[] pts) {
+        Object[] args = new Object[pts.length];
+        for (int i = 0; i < args.length; i++) {
+            try {
+                args[i] = in.readObject(pts[i]);
+            } catch (Exception e) {
+                if (log.isWarnEnabled()) {
+                    log.warn("Decode argument failed: " + e.getMessage(), e);
+                }
+            }
+        }
+        return args;
+    }
+
+    @Override
+    public Object[] getArguments() {
+        if (rawArguments != null) {
+            decodeRawArguments();
+        }
+        return super.getArguments();
+    }
+
+    @Override
+    public void setArguments(Object[] arguments) {
+        super.setArguments(arguments);
+        rawArguments = null;
+    }
+
+    /**
+     * @return the arguments as received if they are still not deserialized and were written with the serialization
+     */
+    byte[] getRawArguments(byte serializationType) {
+        return serializationType == this.serializationType ? rawArguments : null;
+    }
+
+    private synchronized void decodeRawArguments() {
+        byte[] raw = rawArguments;
+        if (raw == null) {
+            return;
+        }
+        Class<?>[] pts = getParameterTypes();
+        try {
+            ObjectInput in = CodecSupport.getSerialization(channel.getUrl(), serializationType)
+                    .deserialize(channel.getUrl(), new UnsafeByteArrayInputStream(raw));
+            Object[] args;
+            try {
+                args = readArguments(in, pts);
+            } finally {
+                if (in instanceof Cleanable) {
+                    ((Cleanable) in).cleanup();
+                }
+            }
+            for (int i = 0; i < args.length; i++) {
+                args[i] = decodeInvocationArgument(channel, this, pts, i, args[i]);
+            }
+            setArguments(args);
+        } catch (IOException e) {
+            throw new RpcException("Failed to decode the arguments of " + getMethodName() + ", cause: " + e.getMessage(), e);
+        }
+    }
+
 }
@@ -16,6 +16,8 @@
  */
 package org.apache.dubbo.rpc.protocol.dubbo;
 
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
 import org.apache.dubbo.common.serialize.Cleanable;
@@ -27,6 +29,7 @@ import org.apache.dubbo.remoting.Codec;
 import org.apache.dubbo.remoting.Decodeable;
 import org.apache.dubbo.remoting.exchange.Response;
 import org.apache.dubbo.remoting.transport.CodecSupport;
+import org.apache.dubbo.remoting.transport.SerializationProfiler;
 import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.RpcResult;
 import org.apache.dubbo.rpc.support.RpcUtils;
@@ -71,6 +74,11 @@ public class DecodeableRpcResult extends RpcResult implements Codec, Decodeable
 
     @Override
     public Object decode(Channel channel, InputStream input) throws IOException {
+        URL url = channel.getUrl();
+        // the chunks of a partial response are not profiled as they are not bound to their invocation
+        boolean sampled = invocation != null && SerializationProfiler.sample(url);
+        int bytes = sampled ? input.available() : 0;
+        long start = sampled ? System.nanoTime() : 0;
         ObjectInput in = CodecSupport.getSerialization(channel.getUrl(), serializationType)
                 .deserialize(channel.getUrl(), input);
         
@@ -127,12 +135,59 @@ public class DecodeableRpcResult extends RpcResult implements Codec, Decodeable
                     throw new IOException(StringUtils.toString("Read response data failed.", e));
                 }
                 break;
+            case DubboCodec.RESPONSE_NULL_VALUE_WITH_COMPACT_ATTACHMENTS:
+                setAttachments(new DubboCodecAttachments(in.readBytes()));
+                break;
+            case DubboCodec.RESPONSE_VALUE_WITH_COMPACT_ATTACHMENTS:
+                try {
+                    Type[] returnType = RpcUtils.getReturnTypes(invocation);
+                    setValue(returnType == null || returnType.length == 0 ? in.readObject() :
+                            (returnType.length == 1 ? in.readObject((Class<?>) returnType[0])
+                                    : in.readObject((Class<?>) returnType[0], returnType[1])));
+                    setAttachments(new DubboCodecAttachments(in.readBytes()));
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(StringUtils.toString("Read response data failed.", e));
+                }
+                break;
+            case DubboCodec.RESPONSE_WITH_EXCEPTION_WITH_COMPACT_ATTACHMENTS:
+                try {
+                    Object obj = in.readObject();
+                    if (obj instanceof Throwable == false)
+                        throw new IOException("Response data error, expect Throwable, but get " + obj);
+                    setException((Throwable) obj);
+                    setAttachments(new DubboCodecAttachments(in.readBytes()));
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(StringUtils.toString("Read response data failed.", e));
+                }
+                break;
+            case DubboCodec.RESPONSE_NOT_MODIFIED_WITH_ATTACHMENTS:
+                try {
+                    setAttachments((Map<String, String>) in.readObject(Map.class));
+                } catch (ClassNotFoundException e) {
+                    throw new IOException(StringUtils.toString("Read response data failed.", e));
+                }
+                getAttachments().put(Constants.NOT_MODIFIED_KEY, Boolean.TRUE.toString());
+                break;
+            case DubboCodec.RESPONSE_NOT_MODIFIED_WITH_COMPACT_ATTACHMENTS:
+                setAttachments(new DubboCodecAttachments(in.readBytes()));
+                getAttachments().put(Constants.NOT_MODIFIED_KEY, Boolean.TRUE.toString());
+                break;
             default:
-                throw new IOException("Unknown result flag, expect '0' '1' '2', get " + flag);
+                throw new IOException("Unknown result flag, expect '0' to '" + DubboCodec.RESPONSE_NOT_MODIFIED_WITH_COMPACT_ATTACHMENTS + "', get " + flag);
+        }
+        DubboCodecDictionary.Outbound dictionary = DubboCodecDictionary.getOutbound(channel, false);
+        String acks = getAttachments().remove(DubboCodecDictionary.ACK_KEY);
+        if (dictionary != null) {
+            dictionary.received(acks);
         }
         if (in instanceof Cleanable) {
             ((Cleanable) in).cleanup();
         }
+        if (sampled) {
+            Object data = hasException() ? getException() : getValue();
+            SerializationProfiler.getProfiler(invocation.getAttachment(Constants.PATH_KEY), invocation.getMethodName())
+                    .decoded(data == null ? "null" : data.getClass().getName(), bytes, System.nanoTime() - start);
+        }
         return this;
     }
 
@@ -21,8 +21,10 @@ import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.Version;
 import org.apache.dubbo.common.io.Bytes;
 import org.apache.dubbo.common.io.UnsafeByteArrayInputStream;
+import org.apache.dubbo.common.io.UnsafeByteArrayOutputStream;
 import org.apache.dubbo.common.logger.Logger;
 import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.serialize.Cleanable;
 import org.apache.dubbo.common.serialize.ObjectInput;
 import org.apache.dubbo.common.serialize.ObjectOutput;
 import org.apache.dubbo.common.serialize.Serialization;
@@ -34,6 +36,7 @@ import org.apache.dubbo.remoting.exchange.Request;
 import org.apache.dubbo.remoting.exchange.Response;
 import org.apache.dubbo.remoting.exchange.codec.ExchangeCodec;
 import org.apache.dubbo.remoting.transport.CodecSupport;
+import org.apache.dubbo.remoting.transport.SerializationProfiler;
 import org.apache.dubbo.rpc.Invocation;
 import org.apache.dubbo.rpc.Result;
 import org.apache.dubbo.rpc.RpcInvocation;
@@ -41,6 +44,11 @@ import org.apache.dubbo.rpc.support.RpcUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 
 import static org.apache.dubbo.rpc.protocol.dubbo.CallbackServiceCodec.encodeInvocationArgument;
 
@@ -57,8 +65,29 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
     public static final byte RESPONSE_WITH_EXCEPTION_WITH_ATTACHMENTS = 3;
     public static final byte RESPONSE_VALUE_WITH_ATTACHMENTS = 4;
     public static final byte RESPONSE_NULL_VALUE_WITH_ATTACHMENTS = 5;
+    public static final byte RESPONSE_WITH_EXCEPTION_WITH_COMPACT_ATTACHMENTS = 6;
+    public static final byte RESPONSE_VALUE_WITH_COMPACT_ATTACHMENTS = 7;
+    public static final byte RESPONSE_NULL_VALUE_WITH_COMPACT_ATTACHMENTS = 8;
+    public static final byte RESPONSE_NOT_MODIFIED_WITH_ATTACHMENTS = 9;
+    public static final byte RESPONSE_NOT_MODIFIED_WITH_COMPACT_ATTACHMENTS = 10;
     public static final Object[] EMPTY_OBJECT_ARRAY = new Object[0];
     public static final Class<?>[] EMPTY_CLASS_ARRAY = new Class<?>[0];
+    /**
+     * Prefix of the parameter types descriptor of a request writing its attachments before its arguments, the
+     * arguments being serialized apart so that the provider can keep them as bytes until they are needed.
+     */
+    static final char LAZY_ARGUMENTS_PREFIX = '\u0002';
+    /**
+     * Prefix of the parameter types descriptor of a request writing its attachments as a {@link DubboCodecAttachments}
+     * block, the responses on the connection then write theirs the same way.
+     */
+    static final char COMPACT_ATTACHMENTS_PREFIX = '\u0003';
+    /**
+     * Channel attribute set once the peer sent compact attachments.
+     */
+    static final String COMPACT_ATTACHMENTS_ACCEPTED_KEY = "compact.attachments.accepted";
+    private static final Collection<String> UNNECESSARY_ATTACHMENTS = new HashSet<>(Arrays.asList(
+            Constants.ASYNC_KEY, Constants.FUTURE_GENERATED_KEY, DubboCodecDictionary.DEFINE_KEY));
     private static final Logger log = LoggerFactory.getLogger(DubboCodec.class);
 
     @Override
@@ -73,6 +102,7 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
             if ((flag & FLAG_EVENT) != 0) {
                 res.setEvent(Response.HEARTBEAT_EVENT);
             }
+            res.setPartial((flag & FLAG_PARTIAL) != 0);
             // get status.
             byte status = header[3];
             res.setStatus(status);
@@ -80,21 +110,23 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
                 try {
                     Object data;
                     if (res.isHeartbeat()) {
-                        data = decodeHeartbeatData(channel, deserialize(s, channel.getUrl(), is));
+                        data = decodeHeartbeatData(channel, deserialize(s, channel.getUrl(), is), true);
                     } else if (res.isEvent()) {
-                        data = decodeEventData(channel, deserialize(s, channel.getUrl(), is));
+                        data = decodeHeartbeatData(channel, deserialize(s, channel.getUrl(), is), false);
                     } else {
+                        // the chunks of a partial response are not typed by the return type of the method
+                        Invocation invocation = res.isPartial() ? null : (Invocation) getRequestData(id);
                         DecodeableRpcResult result;
                         if (channel.getUrl().getParameter(
                                 Constants.DECODE_IN_IO_THREAD_KEY,
                                 Constants.DEFAULT_DECODE_IN_IO_THREAD)) {
                             result = new DecodeableRpcResult(channel, res, is,
-                                    (Invocation) getRequestData(id), proto);
+                                    invocation, proto);
                             result.decode();
                         } else {
                             result = new DecodeableRpcResult(channel, res,
                                     new UnsafeByteArrayInputStream(readMessageData(is)),
-                                    (Invocation) getRequestData(id), proto);
+                                    invocation, proto);
                         }
                         data = result;
                     }
@@ -121,9 +153,9 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
             try {
                 Object data;
                 if (req.isHeartbeat()) {
-                    data = decodeHeartbeatData(channel, deserialize(s, channel.getUrl(), is));
+                    data = decodeHeartbeatData(channel, deserialize(s, channel.getUrl(), is), true);
                 } else if (req.isEvent()) {
-                    data = decodeEventData(channel, deserialize(s, channel.getUrl(), is));
+                    data = decodeHeartbeatData(channel, deserialize(s, channel.getUrl(), is), false);
                 } else {
                     DecodeableRpcInvocation inv;
                     if (channel.getUrl().getParameter(
@@ -150,6 +182,16 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
         }
     }
 
+    private Object decodeHeartbeatData(Channel channel, ObjectInput in, boolean heartbeat) throws IOException {
+        try {
+            return heartbeat ? decodeHeartbeatData(channel, in) : decodeEventData(channel, in);
+        } finally {
+            if (in instanceof Cleanable) {
+                ((Cleanable) in).cleanup();
+            }
+        }
+    }
+
     private ObjectInput deserialize(Serialization serialization, URL url, InputStream is)
             throws IOException {
         return serialization.deserialize(url, is);
@@ -164,6 +206,62 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
         return new byte[]{};
     }
 
+    @Override
+    protected SerializationProfiler getEncodeProfiler(Channel channel, Object message) {
+        URL url = channel.getUrl();
+        if (!SerializationProfiler.isEnabled(url)) {
+            return null;
+        }
+        if (message instanceof Response) {
+            // the profiler was bound when the request was decoded, it is released even when the response is not sampled
+            Response res = (Response) message;
+            SerializationProfiler profiler = SerializationProfiler.unbind(channel, res.getId(), !res.isPartial());
+            return profiler != null && SerializationProfiler.sample(url) ? profiler : null;
+        }
+        Object data = ((Request) message).getData();
+        if (!(data instanceof Invocation) || !SerializationProfiler.sample(url)) {
+            return null;
+        }
+        Invocation inv = (Invocation) data;
+        return SerializationProfiler.getProfiler(inv.getAttachment(Constants.PATH_KEY), inv.getMethodName());
+    }
+
+    @Override
+    protected String getProfiledClasses(Object data) {
+        if (data instanceof DecodeableRpcInvocation) {
+            // a forwarded invocation whose arguments are still not deserialized is described by its parameter types
+            return ((DecodeableRpcInvocation) data).getProfiledClasses();
+        }
+        if (data instanceof Invocation) {
+            Invocation inv = (Invocation) data;
+            return getProfiledClasses(inv.getArguments(), inv.getParameterTypes());
+        }
+        if (data instanceof Result) {
+            Result result = (Result) data;
+            return super.getProfiledClasses(result.hasException() ? result.getException() : result.getValue());
+        }
+        return super.getProfiledClasses(data);
+    }
+
+    /**
+     * @return the runtime classes of the arguments, or the parameter types of the null or unknown ones
+     */
+    static String getProfiledClasses(Object[] args, Class<?>[] pts) {
+        int length = pts == null ? 0 : pts.length;
+        if (length == 0) {
+            return "";
+        }
+        StringBuilder buf = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                buf.append(',');
+            }
+            Object arg = args != null && i < args.length ? args[i] : null;
+            buf.append(arg == null ? pts[i].getName() : arg.getClass().getName());
+        }
+        return buf.toString();
+    }
+
     @Override
     protected void encodeRequestData(Channel channel, ObjectOutput out, Object data) throws IOException {
         encodeRequestData(channel, out, data, DUBBO_VERSION);
@@ -178,18 +276,74 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
     protected void encodeRequestData(Channel channel, ObjectOutput out, Object data, String version) throws IOException {
         RpcInvocation inv = (RpcInvocation) data;
 
-        out.writeUTF(version);
-        out.writeUTF(inv.getAttachment(Constants.PATH_KEY));
-        out.writeUTF(inv.getAttachment(Constants.VERSION_KEY));
+        String[] head = new String[]{version, inv.getAttachment(Constants.PATH_KEY), inv.getAttachment(Constants.VERSION_KEY),
+                inv.getMethodName(), ReflectUtils.getDesc(inv.getParameterTypes())};
+        DubboCodecDictionary.Outbound dictionary = DubboCodecDictionary.getOutbound(channel, true);
+        String definitions = dictionary == null ? null : dictionary.encode(head);
+        boolean lazyArguments = channel.getUrl().getParameter(Constants.LAZY_ARGUMENTS_KEY, false);
+        if (lazyArguments) {
+            head[DubboCodecDictionary.DESC_INDEX] = LAZY_ARGUMENTS_PREFIX + head[DubboCodecDictionary.DESC_INDEX];
+        }
+        boolean compactAttachments = channel.getUrl().getParameter(Constants.COMPACT_ATTACHMENTS_KEY, false);
+        if (compactAttachments) {
+            head[DubboCodecDictionary.DESC_INDEX] = COMPACT_ATTACHMENTS_PREFIX + head[DubboCodecDictionary.DESC_INDEX];
+        }
+        for (String value : head) {
+            out.writeUTF(value);
+        }
+        byte[] arguments = null;
+        if (lazyArguments) {
+            // encoded ahead of the attachments as the callback arguments add some
+            arguments = encodeArguments(channel, inv);
+        } else {
+            Object[] args = inv.getArguments();
+            if (args != null)
+                for (int i = 0; i < args.length; i++) {
+                    out.writeObject(encodeInvocationArgument(channel, inv, i));
+                }
+        }
+        if (compactAttachments) {
+            // never forward a definition which is not made for this connection
+            out.writeBytes(DubboCodecAttachments.encode(inv.getAttachments(), UNNECESSARY_ATTACHMENTS,
+                    DubboCodecDictionary.DEFINE_KEY, definitions));
+        } else {
+            Map<String, String> attachments = RpcUtils.getNecessaryAttachments(inv);
+            // never forward a definition which is not made for this connection
+            attachments.remove(DubboCodecDictionary.DEFINE_KEY);
+            if (definitions != null) {
+                attachments.put(DubboCodecDictionary.DEFINE_KEY, definitions);
+            }
+            out.writeObject(attachments);
+        }
+        if (arguments != null) {
+            out.writeBytes(arguments);
+        }
+    }
 
-        out.writeUTF(inv.getMethodName());
-        out.writeUTF(ReflectUtils.getDesc(inv.getParameterTypes()));
-        Object[] args = inv.getArguments();
-        if (args != null)
-            for (int i = 0; i < args.length; i++) {
-                out.writeObject(encodeInvocationArgument(channel, inv, i));
+    private byte[] encodeArguments(Channel channel, RpcInvocation inv) throws IOException {
+        Serialization serialization = CodecSupport.getSerialization(channel.getUrl());
+        if (inv instanceof DecodeableRpcInvocation) {
+            // forwarded as received when nobody looked at them
+            byte[] raw = ((DecodeableRpcInvocation) inv).getRawArguments(serialization.getContentTypeId());
+            if (raw != null) {
+                return raw;
+            }
+        }
+        UnsafeByteArrayOutputStream bos = new UnsafeByteArrayOutputStream(256);
+        ObjectOutput out = serialization.serialize(channel.getUrl(), bos);
+        try {
+            Object[] args = inv.getArguments();
+            if (args != null)
+                for (int i = 0; i < args.length; i++) {
+                    out.writeObject(encodeInvocationArgument(channel, inv, i));
+                }
+            out.flushBuffer();
+        } finally {
+            if (out instanceof Cleanable) {
+                ((Cleanable) out).cleanup();
             }
-        out.writeObject(RpcUtils.getNecessaryAttachments(inv));
+        }
+        return bos.toByteArray();
     }
 
     @Override
@@ -197,24 +351,44 @@ public class DubboCodec extends ExchangeCodec implements Codec2 {
         Result result = (Result) data;
         // currently, the version value in Response records the version of Request
         boolean attach = Version.isSupportResponseAttatchment(version);
+        boolean compact = attach && channel.hasAttribute(COMPACT_ATTACHMENTS_ACCEPTED_KEY);
         Throwable th = result.getException();
-        if (th == null) {
+        Map<String, String> attachments = result.getAttachments();
+        if (th == null && attach && result.getValue() == null
+                && Boolean.TRUE.toString().equals(attachments.get(Constants.NOT_MODIFIED_KEY))) {
+            // only sent back to a consumer which asked for it, the flag stands for the attachment, left out of a copy
+            attachments = new HashMap<String, String>(attachments);
+            attachments.remove(Constants.NOT_MODIFIED_KEY);
+            out.writeByte(compact ? RESPONSE_NOT_MODIFIED_WITH_COMPACT_ATTACHMENTS : RESPONSE_NOT_MODIFIED_WITH_ATTACHMENTS);
+        } else if (th == null) {
             Object ret = result.getValue();
             if (ret == null) {
-                out.writeByte(attach ? RESPONSE_NULL_VALUE_WITH_ATTACHMENTS : RESPONSE_NULL_VALUE);
+                out.writeByte(compact ? RESPONSE_NULL_VALUE_WITH_COMPACT_ATTACHMENTS
+                        : attach ? RESPONSE_NULL_VALUE_WITH_ATTACHMENTS : RESPONSE_NULL_VALUE);
             } else {
-                out.writeByte(attach ? RESPONSE_VALUE_WITH_ATTACHMENTS : RESPONSE_VALUE);
+                out.writeByte(compact ? RESPONSE_VALUE_WITH_COMPACT_ATTACHMENTS
+                        : attach ? RESPONSE_VALUE_WITH_ATTACHMENTS : RESPONSE_VALUE);
                 out.writeObject(ret);
             }
         } else {
-            out.writeByte(attach ? RESPONSE_WITH_EXCEPTION_WITH_ATTACHMENTS : RESPONSE_WITH_EXCEPTION);
+            out.writeByte(compact ? RESPONSE_WITH_EXCEPTION_WITH_COMPACT_ATTACHMENTS
+                    : attach ? RESPONSE_WITH_EXCEPTION_WITH_ATTACHMENTS : RESPONSE_WITH_EXCEPTION);
             out.writeObject(th);
         }
 
         if (attach) {
             // returns current version of Response to consumer side.
-            result.getAttachments().put(Constants.DUBBO_VERSION_KEY, Version.getProtocolVersion());
-            out.writeObject(result.getAttachments());
+            attachments.put(Constants.DUBBO_VERSION_KEY, Version.getProtocolVersion());
+            DubboCodecDictionary.Inbound dictionary = DubboCodecDictionary.getInbound(channel, false);
+            String acks = dictionary == null ? null : dictionary.drainAcks();
+            if (acks != null) {
+                attachments.put(DubboCodecDictionary.ACK_KEY, acks);
+            }
+            if (compact) {
+                out.writeBytes(DubboCodecAttachments.encode(attachments));
+            } else {
+                out.writeObject(attachments);
+            }
         }
     }
 }
@@ -0,0 +1,478 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.protocol.dubbo;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.io.UnsafeByteArrayOutputStream;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Compact encoding of the attachments of requests and responses, written as one length prefixed block instead of a
+ * serialized map. The block holds the number of entries, then each key and value. A key is the varint code of one
+ * of the {@link #KNOWN_KEYS}, or 0 followed by the key itself. A string is the varint of its UTF-8 length plus one,
+ * 0 standing for null, followed by its bytes.
+ * <p>
+ * The decoded map is a flat array of keys and values, parsed on first use. Until then, the known keys which are not
+ * in the block are looked up, put and removed without parsing it.
+ */
+final class DubboCodecAttachments extends AbstractMap<String, String> {
+
+    /**
+     * keys encoded by their index plus one, only to be appended to as the codes are part of the protocol.
+     */
+    private static final String[] KNOWN_KEYS = {
+            Constants.PATH_KEY,
+            Constants.INTERFACE_KEY,
+            Constants.VERSION_KEY,
+            Constants.GROUP_KEY,
+            Constants.TIMEOUT_KEY,
+            Constants.TOKEN_KEY,
+            Constants.DUBBO_VERSION_KEY,
+            Constants.APPLICATION_KEY,
+            Constants.GENERIC_KEY,
+            Constants.ID_KEY,
+            DubboCodecDictionary.DEFINE_KEY,
+            DubboCodecDictionary.ACK_KEY,
+            Constants.STREAM_CREDITS_KEY,
+            Constants.STREAM_CHUNK_SIZE_KEY,
+            Constants.STREAM_SEQUENCE_KEY,
+            Constants.STREAM_CHUNKS_KEY,
+            "traceId",
+            "spanId",
+            "parentSpanId",
+            "sampled",
+            "X-B3-TraceId",
+            "X-B3-SpanId",
+            "X-B3-ParentSpanId",
+            "X-B3-Sampled",
+    };
+
+    private static final Map<String, Integer> CODES = new HashMap<>();
+
+    private static final String[] EMPTY_TABLE = new String[0];
+
+    static {
+        for (int i = 0; i < KNOWN_KEYS.length; i++) {
+            CODES.put(KNOWN_KEYS[i], i + 1);
+        }
+    }
+
+    // block not parsed yet, none of its keys is in the table
+    private byte[] encoded;
+
+    // keys at even indexes, values at odd ones
+    private String[] table = EMPTY_TABLE;
+
+    private int size;
+
+    private Set<Entry<String, String>> entrySet;
+
+    DubboCodecAttachments() {
+    }
+
+    DubboCodecAttachments(byte[] encoded) {
+        this.encoded = encoded;
+    }
+
+    /**
+     * encode the attachments but the excluded ones, adding the extra entry if its value is not null.
+     */
+    static byte[] encode(Map<String, String> attachments, Collection<String> excluded, String extraKey, String extraValue) {
+        int count = 0;
+        if (attachments != null) {
+            for (String key : attachments.keySet()) {
+                if (!excluded.contains(key)) {
+                    count++;
+                }
+            }
+        }
+        if (extraValue != null) {
+            count++;
+        }
+        UnsafeByteArrayOutputStream out = new UnsafeByteArrayOutputStream(16 + count * 24);
+        writeVarint(out, count);
+        if (attachments != null) {
+            for (Map.Entry<String, String> entry : attachments.entrySet()) {
+                if (!excluded.contains(entry.getKey())) {
+                    writeEntry(out, entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        if (extraValue != null) {
+            writeEntry(out, extraKey, extraValue);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] encode(Map<String, String> attachments) {
+        return encode(attachments, Collections.<String>emptySet(), null, null);
+    }
+
+    private static void writeEntry(UnsafeByteArrayOutputStream out, String key, String value) {
+        Integer code = CODES.get(key);
+        if (code != null) {
+            writeVarint(out, code);
+        } else {
+            out.write(0);
+            writeString(out, key);
+        }
+        writeString(out, value);
+    }
+
+    private static void writeString(UnsafeByteArrayOutputStream out, String value) {
+        if (value == null) {
+            out.write(0);
+            return;
+        }
+        int length = value.length();
+        boolean ascii = true;
+        for (int i = 0; i < length && ascii; i++) {
+            ascii = value.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            writeVarint(out, length + 1);
+            for (int i = 0; i < length; i++) {
+                out.write(value.charAt(i));
+            }
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, bytes.length + 1);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+
+    private static void writeVarint(UnsafeByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * the decoder of a block, reading from the position.
+     */
+    private static final class Reader {
+
+        private final byte[] bytes;
+
+        private int position;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (position >= bytes.length) {
+                    throw new IOException("Truncated attachments block");
+                }
+                byte b = bytes[position++];
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in attachments block");
+        }
+
+        int readCount() throws IOException {
+            int count = readVarint();
+            // every entry takes at least a byte for its key and one for its value
+            if (count < 0 || count > bytes.length / 2) {
+                throw new IOException("Invalid attachments count " + count);
+            }
+            return count;
+        }
+
+        String readString() throws IOException {
+            int length = readVarint() - 1;
+            if (length < 0) {
+                return null;
+            }
+            checkLength(length);
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        void skipString() throws IOException {
+            int length = readVarint() - 1;
+            if (length > 0) {
+                checkLength(length);
+                position += length;
+            }
+        }
+
+        String readKey() throws IOException {
+            int code = readVarint();
+            if (code == 0) {
+                return readString();
+            }
+            if (code > KNOWN_KEYS.length) {
+                throw new IOException("Unknown attachment key code " + code);
+            }
+            return KNOWN_KEYS[code - 1];
+        }
+
+        private void checkLength(int length) throws IOException {
+            if (length > bytes.length - position) {
+                throw new IOException("Truncated attachments block");
+            }
+        }
+    }
+
+    /**
+     * @return false if the key is known not to be in the block still encoded, without parsing it
+     */
+    private boolean mayBeEncoded(String key) {
+        if (encoded == null) {
+            return false;
+        }
+        Integer code = CODES.get(key);
+        if (code == null) {
+            return true;
+        }
+        try {
+            Reader reader = new Reader(encoded);
+            for (int i = reader.readCount(); i > 0; i--) {
+                int keyCode = reader.readVarint();
+                if (keyCode == code) {
+                    return true;
+                }
+                if (keyCode == 0) {
+                    reader.skipString();
+                }
+                reader.skipString();
+            }
+            return false;
+        } catch (IOException e) {
+            // reported by the parsing
+            return true;
+        }
+    }
+
+    private void decode() {
+        if (encoded == null) {
+            return;
+        }
+        byte[] bytes = encoded;
+        encoded = null;
+        try {
+            Reader reader = new Reader(bytes);
+            int count = reader.readCount();
+            ensureCapacity(size + count);
+            for (int i = 0; i < count; i++) {
+                String key = reader.readKey();
+                String value = reader.readString();
+                // the keys put before parsing are never in the block, unless it holds duplicates
+                int index = indexOf(key);
+                if (index < 0) {
+                    table[size * 2] = key;
+                    table[size * 2 + 1] = value;
+                    size++;
+                } else {
+                    table[index + 1] = value;
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to decode attachments, cause: " + e.getMessage(), e);
+        }
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < size * 2; i += 2) {
+            if (table[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void ensureCapacity(int entries) {
+        if (table.length < entries * 2) {
+            String[] grown = new String[Math.max(entries * 2, table.length * 2)];
+            System.arraycopy(table, 0, grown, 0, size * 2);
+            table = grown;
+        }
+    }
+
+    private void lookup(Object key) {
+        if (!(key instanceof String) || mayBeEncoded((String) key)) {
+            decode();
+        }
+    }
+
+    @Override
+    public String get(Object key) {
+        lookup(key);
+        int index = indexOf(key);
+        return index < 0 ? null : table[index + 1];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        lookup(key);
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public String put(String key, String value) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+        lookup(key);
+        int index = indexOf(key);
+        if (index >= 0) {
+            String old = table[index + 1];
+            table[index + 1] = value;
+            return old;
+        }
+        ensureCapacity(size + 1);
+        table[size * 2] = key;
+        table[size * 2 + 1] = value;
+        size++;
+        return null;
+    }
+
+    @Override
+    public String remove(Object key) {
+        lookup(key);
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        String old = table[index + 1];
+        removeAt(index);
+        return old;
+    }
+
+    private void removeAt(int index) {
+        int last = (size - 1) * 2;
+        // the order of the entries does not matter, the last one fills the hole
+        table[index] = table[last];
+        table[index + 1] = table[last + 1];
+        table[last] = null;
+        table[last + 1] = null;
+        size--;
+    }
+
+    @Override
+    public int size() {
+        decode();
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        encoded = null;
+        for (int i = 0; i < size * 2; i++) {
+            table[i] = null;
+        }
+        size = 0;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<String, String>> {
+
+        @Override
+        public Iterator<Entry<String, String>> iterator() {
+            decode();
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return DubboCodecAttachments.this.size();
+        }
+
+        @Override
+        public void clear() {
+            DubboCodecAttachments.this.clear();
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, String>> {
+
+        private int next;
+
+        private int current = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < size * 2;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            next += 2;
+            return new TableEntry(current);
+        }
+
+        @Override
+        public void remove() {
+            if (current < 0) {
+                throw new IllegalStateException();
+            }
+            removeAt(current);
+            // the last entry moved to the removed one
+            next = current;
+            current = -1;
+        }
+    }
+
+    private final class TableEntry extends SimpleEntry<String, String> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int index;
+
+        TableEntry(int index) {
+            super(table[index], table[index + 1]);
+            this.index = index;
+        }
+
+        @Override
+        public String setValue(String value) {
+            table[index + 1] = value;
+            return super.setValue(value);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.protocol.dubbo;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.utils.ConcurrentHashSet;
+import org.apache.dubbo.common.utils.ReflectUtils;
+import org.apache.dubbo.remoting.Channel;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-connection dictionary of the strings at the head of a request body: dubbo version, service path,
+ * service version, method name and parameter descriptor.
+ * <p>
+ * The negotiation is carried by attachments, so peers without the dictionary are never affected:
+ * <ol>
+ * <li>the sender writes the strings in full, and attaches {@link #DEFINE_KEY} with the id it assigned
+ * to each of them.</li>
+ * <li>a receiver which understands the attachment binds the ids to the strings of that request, and
+ * acknowledges them with {@link #ACK_KEY} in the attachments of the next response on the connection.</li>
+ * <li>only after the acknowledgement does the sender replace the string by a reference: the
+ * {@link #REFERENCE_PREFIX} character followed by the id, written in place of the string.</li>
+ * </ol>
+ * A reference is never sent before the receiver has bound its id, so the scheme does not depend on the
+ * order in which requests are encoded or decoded. A sender stops offering once
+ * {@link #MAX_UNACKNOWLEDGED_RESPONSES} responses came back without any acknowledgement, i.e. the peer
+ * is an old version. Requests still waiting for their response are not counted, so a burst of
+ * concurrent first requests does not turn the dictionary off.
+ */
+final class DubboCodecDictionary {
+
+    static final String DEFINE_KEY = "dubbo.dict";
+
+    static final String ACK_KEY = "dubbo.dict.ack";
+
+    static final char REFERENCE_PREFIX = '\u0001';
+
+    static final int DESC_INDEX = 4;
+
+    static final int SLOT_COUNT = 5;
+
+    static final int MAX_SIZE = 1024;
+
+    static final int MAX_UNACKNOWLEDGED_RESPONSES = 64;
+
+    private static final String OUTBOUND_KEY = DubboCodecDictionary.class.getName() + ".OUTBOUND";
+
+    private static final String INBOUND_KEY = DubboCodecDictionary.class.getName() + ".INBOUND";
+
+    private static final char SEPARATOR = ',';
+
+    private DubboCodecDictionary() {
+    }
+
+    /**
+     * @return the dictionary of the requests sent on the channel, null if it is disabled
+     */
+    static Outbound getOutbound(Channel channel, boolean create) {
+        Outbound outbound = (Outbound) channel.getAttribute(OUTBOUND_KEY);
+        if (outbound == null && create
+                && channel.getUrl().getParameter(Constants.CODEC_DICTIONARY_KEY, Constants.DEFAULT_CODEC_DICTIONARY)) {
+            synchronized (channel) {
+                outbound = (Outbound) channel.getAttribute(OUTBOUND_KEY);
+                if (outbound == null) {
+                    outbound = new Outbound();
+                    channel.setAttribute(OUTBOUND_KEY, outbound);
+                }
+            }
+        }
+        return outbound;
+    }
+
+    /**
+     * @return the dictionary of the requests received on the channel
+     */
+    static Inbound getInbound(Channel channel, boolean create) {
+        Inbound inbound = (Inbound) channel.getAttribute(INBOUND_KEY);
+        if (inbound == null && create) {
+            synchronized (channel) {
+                inbound = (Inbound) channel.getAttribute(INBOUND_KEY);
+                if (inbound == null) {
+                    inbound = new Inbound();
+                    channel.setAttribute(INBOUND_KEY, inbound);
+                }
+            }
+        }
+        return inbound;
+    }
+
+    static boolean isReference(String value) {
+        return value != null && value.length() > 1 && value.charAt(0) == REFERENCE_PREFIX;
+    }
+
+    /**
+     * @return the ids separated by {@link #SEPARATOR}, -1 for an empty or illegal one
+     */
+    private static int[] parseIds(String ids) {
+        String[] parts = ids.split(String.valueOf(SEPARATOR), -1);
+        int[] result = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                result[i] = parts[i].length() > 0 ? Integer.parseInt(parts[i]) : -1;
+            } catch (NumberFormatException e) {
+                result[i] = -1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The sender side
+     */
+    static final class Outbound {
+
+        private final ConcurrentMap<String, OutboundEntry> entries = new ConcurrentHashMap<String, OutboundEntry>();
+
+        private final ConcurrentMap<Integer, OutboundEntry> entriesById = new ConcurrentHashMap<Integer, OutboundEntry>();
+
+        private final AtomicInteger nextId = new AtomicInteger();
+
+        private final AtomicInteger unacknowledgedResponses = new AtomicInteger();
+
+        private volatile boolean offered;
+
+        private volatile boolean acknowledged;
+
+        private volatile boolean disabled;
+
+        /**
+         * Replace the acknowledged strings by their references in place.
+         *
+         * @return the definitions to attach to the request, null if there is nothing to define
+         */
+        String encode(String[] values) {
+            if (disabled) {
+                return null;
+            }
+            int[] definitions = null;
+            for (int i = 0; i < values.length; i++) {
+                String value = values[i];
+                if (value == null || value.length() == 0) {
+                    continue;
+                }
+                OutboundEntry entry = entries.get(value);
+                if (entry == null) {
+                    if (entries.size() >= MAX_SIZE) {
+                        continue;
+                    }
+                    entry = new OutboundEntry(nextId.getAndIncrement());
+                    OutboundEntry previous = entries.putIfAbsent(value, entry);
+                    if (previous != null) {
+                        entry = previous;
+                    } else {
+                        entriesById.put(entry.id, entry);
+                    }
+                }
+                if (entry.acknowledged) {
+                    values[i] = entry.reference;
+                } else {
+                    if (definitions == null) {
+                        definitions = new int[values.length];
+                        Arrays.fill(definitions, -1);
+                    }
+                    definitions[i] = entry.id;
+                }
+            }
+            if (definitions == null) {
+                return null;
+            }
+            offered = true;
+            StringBuilder builder = new StringBuilder(definitions.length * 4);
+            for (int i = 0; i < definitions.length; i++) {
+                if (i > 0) {
+                    builder.append(SEPARATOR);
+                }
+                if (definitions[i] >= 0) {
+                    builder.append(definitions[i]);
+                }
+            }
+            return builder.toString();
+        }
+
+        /**
+         * Account a response received on the channel.
+         *
+         * @param ids the acknowledgements the response carried, null if there were none
+         */
+        void received(String ids) {
+            if (ids != null) {
+                acknowledge(ids);
+            } else if (offered && !acknowledged
+                    && unacknowledgedResponses.incrementAndGet() > MAX_UNACKNOWLEDGED_RESPONSES) {
+                disabled = true;
+            }
+        }
+
+        private void acknowledge(String ids) {
+            for (int id : parseIds(ids)) {
+                OutboundEntry entry = entriesById.get(id);
+                if (entry != null) {
+                    entry.acknowledged = true;
+                    acknowledged = true;
+                }
+            }
+        }
+
+        boolean isDisabled() {
+            return disabled;
+        }
+    }
+
+    private static final class OutboundEntry {
+
+        private final int id;
+
+        private final String reference;
+
+        private volatile boolean acknowledged;
+
+        private OutboundEntry(int id) {
+            this.id = id;
+            this.reference = REFERENCE_PREFIX + Integer.toString(id, Character.MAX_RADIX);
+        }
+    }
+
+    /**
+     * The receiver side
+     */
+    static final class Inbound {
+
+        private final ConcurrentMap<Integer, InboundEntry> entries = new ConcurrentHashMap<Integer, InboundEntry>();
+
+        private final Set<Integer> pendingAcks = new ConcurrentHashSet<Integer>();
+
+        String resolve(String reference) throws IOException {
+            return getEntry(reference).value;
+        }
+
+        /**
+         * @return the parameter types of the referenced descriptor, parsed once per id
+         */
+        Class<?>[] resolveParameterTypes(String reference) throws IOException, ClassNotFoundException {
+            InboundEntry entry = getEntry(reference);
+            Class<?>[] types = entry.parameterTypes;
+            if (types == null) {
+                types = ReflectUtils.desc2classArray(entry.value);
+                entry.parameterTypes = types;
+            }
+            return types;
+        }
+
+        /**
+         * Bind the ids of the definitions to the strings of the request that carried them.
+         */
+        void define(String definitions, String[] values, Class<?>[] parameterTypes) {
+            int[] ids = parseIds(definitions);
+            for (int i = 0; i < ids.length && i < values.length; i++) {
+                int id = ids[i];
+                if (id < 0 || values[i] == null || (entries.size() >= MAX_SIZE && !entries.containsKey(id))) {
+                    continue;
+                }
+                InboundEntry entry = new InboundEntry(values[i]);
+                if (i == DESC_INDEX) {
+                    entry.parameterTypes = parameterTypes;
+                }
+                entries.put(id, entry);
+                pendingAcks.add(id);
+            }
+        }
+
+        /**
+         * @return the ids to acknowledge in the next response, null if there is none
+         */
+        String drainAcks() {
+            if (pendingAcks.isEmpty()) {
+                return null;
+            }
+            StringBuilder acks = new StringBuilder();
+            for (Iterator<Integer> iterator = pendingAcks.iterator(); iterator.hasNext(); ) {
+                Integer id = iterator.next();
+                iterator.remove();
+                if (acks.length() > 0) {
+                    acks.append(SEPARATOR);
+                }
+                acks.append(id);
+            }
+            return acks.length() == 0 ? null : acks.toString();
+        }
+
+        private InboundEntry getEntry(String reference) throws IOException {
+            InboundEntry entry;
+            try {
+                entry = entries.get(Integer.parseInt(reference.substring(1), Character.MAX_RADIX));
+            } catch (NumberFormatException e) {
+                throw new IOException("Illegal dubbo codec dictionary reference " + reference.substring(1));
+            }
+            if (entry == null) {
+                throw new IOException("Unknown dubbo codec dictionary reference " + reference.substring(1));
+            }
+            return entry;
+        }
+    }
+
+    private static final class InboundEntry {
+
+        private final String value;
+
+        private volatile Class<?>[] parameterTypes;
+
+        private InboundEntry(String value) {
+            this.value = value;
+        }
+    }
+}
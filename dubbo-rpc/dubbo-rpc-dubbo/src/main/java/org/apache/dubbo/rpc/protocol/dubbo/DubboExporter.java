@@ -37,6 +37,10 @@ public class DubboExporter<T> extends AbstractExporter<T> {
         this.exporterMap = exporterMap;
     }
 
+    public String getKey() {
+        return key;
+    }
+
     @Override
     public void unexport() {
         super.unexport();
@@ -89,6 +89,13 @@ public class DubboInvoker<T> extends AbstractInvoker<T> {
                 currentClient.send(inv, isSent);
                 RpcContext.getContext().setFuture(null);
                 return new RpcResult();
+            } else if (getUrl().getMethodParameter(methodName, Constants.STREAM_KEY, false)) {
+                int credits = getUrl().getMethodParameter(methodName, Constants.STREAM_CREDITS_KEY, Constants.DEFAULT_STREAM_CREDITS);
+                int chunkSize = getUrl().getMethodParameter(methodName, Constants.STREAM_CHUNK_SIZE_KEY, Constants.DEFAULT_STREAM_CHUNK_SIZE);
+                inv.setAttachment(Constants.STREAM_CREDITS_KEY, String.valueOf(credits));
+                inv.setAttachment(Constants.STREAM_CHUNK_SIZE_KEY, String.valueOf(chunkSize));
+                RpcContext.getContext().setFuture(null);
+                return new RpcResult(new ResponseStream(currentClient, currentClient.request(inv, timeout), credits, timeout));
             } else if (isAsync) {
                 ResponseFuture future = currentClient.request(inv, timeout);
                 // For compatibility
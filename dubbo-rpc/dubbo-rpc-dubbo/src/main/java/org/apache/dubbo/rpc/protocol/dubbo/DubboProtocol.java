@@ -65,6 +65,7 @@ public class DubboProtocol extends AbstractProtocol {
 
     public static final int DEFAULT_PORT = 20880;
     private static final String IS_CALLBACK_SERVICE_INVOKE = "_isCallBackServiceInvoke";
+    private static final String EXPORTER_CACHE_KEY = "dubbo.exporter.cache";
     private static DubboProtocol INSTANCE;
     private final Map<String, ExchangeServer> serverMap = new ConcurrentHashMap<String, ExchangeServer>(); // <host:port,Exchanger>
     private final Map<String, ReferenceCountExchangeClient> referenceClientMap = new ConcurrentHashMap<String, ReferenceCountExchangeClient>(); // <host:port,Exchanger>
@@ -114,9 +115,9 @@ public class DubboProtocol extends AbstractProtocol {
                 Result result = invoker.invoke(inv);
 
                 if (result instanceof AsyncRpcResult) {
-                    return ((AsyncRpcResult) result).getResultFuture().thenApply(r -> (Object) r);
+                    return ((AsyncRpcResult) result).getResultFuture().thenApply(r -> ChunkedRpcResult.of(inv, r));
                 } else {
-                    return CompletableFuture.completedFuture(result);
+                    return CompletableFuture.completedFuture(ChunkedRpcResult.of(inv, result));
                 }
             }
             throw new RemotingException(channel, "Unsupported request: "
@@ -221,16 +222,42 @@ public class DubboProtocol extends AbstractProtocol {
             path = inv.getAttachments().get(Constants.PATH_KEY) + "." + inv.getAttachments().get(Constants.CALLBACK_SERVICE_KEY);
             inv.getAttachments().put(IS_CALLBACK_SERVICE_INVOKE, Boolean.TRUE.toString());
         }
-        String serviceKey = serviceKey(port, path, inv.getAttachments().get(Constants.VERSION_KEY), inv.getAttachments().get(Constants.GROUP_KEY));
+        String version = inv.getAttachments().get(Constants.VERSION_KEY);
+        String group = inv.getAttachments().get(Constants.GROUP_KEY);
+        Map<String, CachedExporter> cache = isStubServiceInvoke || isCallBackServiceInvoke ? null : getExporterCache(channel);
+        if (cache != null) {
+            CachedExporter cached = cache.get(path);
+            if (cached != null && cached.matches(version, group)
+                    && exporterMap.get(cached.exporter.getKey()) == cached.exporter) {
+                return cached.exporter.getInvoker();
+            }
+        }
+        String serviceKey = serviceKey(port, path, version, group);
 
         DubboExporter<?> exporter = (DubboExporter<?>) exporterMap.get(serviceKey);
 
         if (exporter == null)
             throw new RemotingException(channel, "Not found exported service: " + serviceKey + " in " + exporterMap.keySet() + ", may be version or group mismatch " + ", channel: consumer: " + channel.getRemoteAddress() + " --> provider: " + channel.getLocalAddress() + ", message:" + inv);
 
+        if (cache != null && path != null) {
+            cache.put(path, new CachedExporter(version, group, exporter));
+        }
         return exporter.getInvoker();
     }
 
+    /**
+     * @return the exporters last invoked on the channel by service path, so that the service key is only built once
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, CachedExporter> getExporterCache(Channel channel) {
+        Map<String, CachedExporter> cache = (Map<String, CachedExporter>) channel.getAttribute(EXPORTER_CACHE_KEY);
+        if (cache == null) {
+            cache = new ConcurrentHashMap<String, CachedExporter>();
+            channel.setAttribute(EXPORTER_CACHE_KEY, cache);
+        }
+        return cache;
+    }
+
     public Collection<Invoker<?>> getInvokers() {
         return Collections.unmodifiableCollection(invokers);
     }
@@ -398,8 +425,11 @@ public class DubboProtocol extends AbstractProtocol {
 
         locks.putIfAbsent(key, new Object());
         synchronized (locks.get(key)) {
-            if (referenceClientMap.containsKey(key)) {
-                return referenceClientMap.get(key);
+            client = referenceClientMap.get(key);
+            if (client != null && !client.isClosed()) {
+                // created by a concurrent refer while waiting for the lock, so count this reference too
+                client.incrementAndGetCount();
+                return client;
             }
 
             ExchangeClient exchangeClient = initClient(url);
@@ -489,4 +519,23 @@ public class DubboProtocol extends AbstractProtocol {
         stubServiceMethodsMap.clear();
         super.destroy();
     }
+
+    private static final class CachedExporter {
+
+        private final String version;
+
+        private final String group;
+
+        private final DubboExporter<?> exporter;
+
+        CachedExporter(String version, String group, DubboExporter<?> exporter) {
+            this.version = version;
+            this.group = group;
+            this.exporter = exporter;
+        }
+
+        boolean matches(String version, String group) {
+            return StringUtils.isEquals(this.version, version) && StringUtils.isEquals(this.group, group);
+        }
+    }
 }
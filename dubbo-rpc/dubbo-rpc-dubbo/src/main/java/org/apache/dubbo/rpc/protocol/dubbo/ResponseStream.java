@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.protocol.dubbo;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.Version;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.remoting.RemotingException;
+import org.apache.dubbo.remoting.TimeoutException;
+import org.apache.dubbo.remoting.exchange.ExchangeClient;
+import org.apache.dubbo.remoting.exchange.PartialResponseListener;
+import org.apache.dubbo.remoting.exchange.Request;
+import org.apache.dubbo.remoting.exchange.ResponseCallback;
+import org.apache.dubbo.remoting.exchange.ResponseFuture;
+import org.apache.dubbo.remoting.exchange.support.DefaultFuture;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Iterates over the elements of a result streamed in chunks by the provider, see {@link ChunkedRpcResult}. The
+ * chunks are put back in sequence, as they may be dispatched out of order, and more chunks are granted to the
+ * provider once half of the granted ones are consumed. Closing the stream before its end cancels it.
+ */
+class ResponseStream implements Iterator<Object>, Closeable, PartialResponseListener, ResponseCallback {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseStream.class);
+
+    private final ExchangeClient client;
+
+    private final DefaultFuture future;
+
+    private final int grantThreshold;
+
+    private final int timeout;
+
+    private final Lock lock = new ReentrantLock();
+
+    private final Condition arrived = lock.newCondition();
+
+    private final Map<Integer, List<?>> chunks = new HashMap<>();
+
+    private Iterator<?> current;
+
+    private int sequence;
+
+    private int received;
+
+    private int consumed;
+
+    // number of chunks sent by the provider, known with the final result
+    private int total = -1;
+
+    private RuntimeException exception;
+
+    private volatile boolean closed;
+
+    ResponseStream(ExchangeClient client, ResponseFuture future, int credits, int timeout) {
+        if (!(future instanceof DefaultFuture)) {
+            throw new IllegalStateException("Unsupported response future " + future + " to stream the response");
+        }
+        this.client = client;
+        this.future = (DefaultFuture) future;
+        this.grantThreshold = Math.max(1, credits / 2);
+        this.timeout = timeout;
+        this.future.setPartialListener(this);
+        this.future.setCallback(this);
+    }
+
+    @Override
+    public void received(Object result) {
+        Result chunk = (Result) result;
+        int seq = Integer.parseInt(chunk.getAttachment(Constants.STREAM_SEQUENCE_KEY));
+        lock.lock();
+        try {
+            chunks.put(seq, (List<?>) chunk.getValue());
+            received++;
+            checkReceived();
+            arrived.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void done(Object response) {
+        Result result = (Result) response;
+        lock.lock();
+        try {
+            if (result.hasException()) {
+                Throwable t = result.getException();
+                exception = t instanceof RuntimeException ? (RuntimeException) t
+                        : new RpcException(RpcException.BIZ_EXCEPTION, t.getMessage(), t);
+            } else if (result.getValue() != null) {
+                // the provider did not stream the result
+                current = ChunkedRpcResult.toIterator(result.getValue());
+                total = 0;
+            } else {
+                total = Integer.parseInt(result.getAttachment(Constants.STREAM_CHUNKS_KEY, "0"));
+            }
+            checkReceived();
+            arrived.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void caught(Throwable exception) {
+        lock.lock();
+        try {
+            if (exception instanceof TimeoutException) {
+                this.exception = new RpcException(RpcException.TIMEOUT_EXCEPTION, "Streamed response timeout, cause: "
+                        + exception.getMessage(), exception);
+            } else {
+                this.exception = new RpcException("Failed to stream the response of " + future.getRequest()
+                        + ", cause: " + exception.getMessage(), exception);
+            }
+            future.removePartialListener();
+            arrived.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkReceived() {
+        if (exception != null || (total >= 0 && received >= total)) {
+            future.removePartialListener();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (current != null && current.hasNext()) {
+            return true;
+        }
+        int grant = 0;
+        lock.lock();
+        try {
+            while (current == null || !current.hasNext()) {
+                if (closed) {
+                    return false;
+                }
+                List<?> chunk = chunks.remove(sequence);
+                if (chunk != null) {
+                    current = chunk.iterator();
+                    sequence++;
+                    if (++consumed >= grantThreshold && total < 0) {
+                        grant = consumed;
+                        consumed = 0;
+                    }
+                } else if (total >= 0 && sequence >= total) {
+                    return false;
+                } else if (exception != null) {
+                    throw exception;
+                } else if (total < 0) {
+                    // the timeout of the future applies until the final result
+                    arrived.await();
+                } else if (!arrived.await(timeout, TimeUnit.MILLISECONDS)) {
+                    throw new RpcException(RpcException.TIMEOUT_EXCEPTION, "Waiting chunk " + sequence
+                            + " of the streamed response of " + future.getRequest() + " timeout");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RpcException("Interrupted while waiting for the streamed response of " + future.getRequest(), e);
+        } finally {
+            lock.unlock();
+        }
+        if (grant > 0) {
+            sendCredits(grant);
+        }
+        return true;
+    }
+
+    @Override
+    public Object next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed || exception != null || total >= 0) {
+                closed = true;
+                return;
+            }
+            closed = true;
+            chunks.clear();
+        } finally {
+            lock.unlock();
+        }
+        sendCredits(-1);
+        future.cancel();
+    }
+
+    private void sendCredits(int credits) {
+        Request req = new Request(future.getRequest().getId());
+        req.setVersion(Version.getProtocolVersion());
+        req.setTwoWay(false);
+        req.setEvent(Request.CREDIT_EVENT + credits);
+        try {
+            client.send(req);
+        } catch (RemotingException e) {
+            logger.warn("Failed to send " + credits + " credits of the streamed response of "
+                    + future.getRequest() + ", cause: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.protocol.dubbo.filter;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.common.utils.LRUCache;
+import org.apache.dubbo.rpc.Filter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.RpcResult;
+import org.apache.dubbo.rpc.support.CacheKey;
+import org.apache.dubbo.rpc.support.RpcUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * ConsumerEtagFilter keeps the last result of the methods configured with <code>etag</code> for each of their
+ * arguments, along with the etag the provider tagged it with, and sends that etag back on the next invocation
+ * with equal arguments. When the provider answers that the result is not modified, the result kept is returned
+ * instead of being transferred again.
+ * <p>
+ * At most <code>etag.size</code> results are kept per method. Arguments are compared with {@link CacheKey}, and
+ * asynchronous invocations are never conditional, their future being completed before any filter sees the result.
+ *
+ * @see EtagFilter
+ */
+@Activate(group = Constants.CONSUMER, value = Constants.ETAG_KEY)
+public class ConsumerEtagFilter implements Filter {
+
+    private final ConcurrentMap<String, Map<CacheKey, Tagged>> stores = new ConcurrentHashMap<String, Map<CacheKey, Tagged>>();
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        URL url = invoker.getUrl();
+        String methodName = invocation.getMethodName();
+        if (!url.getMethodParameter(methodName, Constants.ETAG_KEY, false)
+                || !(invocation instanceof RpcInvocation)
+                || RpcUtils.isAsync(url, invocation)
+                || RpcUtils.isGeneratedFuture(invocation)
+                || RpcUtils.isFutureReturnType(invocation)) {
+            return invoker.invoke(invocation);
+        }
+
+        Map<CacheKey, Tagged> store = getStore(url, methodName);
+        CacheKey key = new CacheKey(invocation.getArguments());
+        Tagged tagged = store.get(key);
+        if (tagged != null) {
+            ((RpcInvocation) invocation).setAttachment(Constants.ETAG_MATCH_KEY, tagged.etag);
+        } else if (invocation.getAttachments() != null) {
+            invocation.getAttachments().remove(Constants.ETAG_MATCH_KEY);
+        }
+
+        Result result = invoker.invoke(invocation);
+        if (result.hasException()) {
+            return result;
+        }
+        if (Boolean.TRUE.toString().equals(result.getAttachment(Constants.NOT_MODIFIED_KEY))) {
+            if (tagged == null) {
+                throw new RpcException("The provider of " + url.getServiceKey() + "." + methodName
+                        + " answered not modified to an unconditional invocation");
+            }
+            Map<String, String> attachments = new HashMap<String, String>(result.getAttachments());
+            attachments.remove(Constants.NOT_MODIFIED_KEY);
+            RpcResult kept = new RpcResult(tagged.value);
+            kept.setAttachments(attachments);
+            return kept;
+        }
+        String etag = result.getAttachment(Constants.ETAG_KEY);
+        if (etag != null) {
+            store.put(key, new Tagged(etag, result.getValue()));
+        } else if (tagged != null) {
+            store.remove(key);
+        }
+        return result;
+    }
+
+    private Map<CacheKey, Tagged> getStore(URL url, String methodName) {
+        String key = url.getServiceKey() + "." + methodName;
+        Map<CacheKey, Tagged> store = stores.get(key);
+        if (store == null) {
+            stores.putIfAbsent(key, new LRUCache<CacheKey, Tagged>(
+                    url.getMethodParameter(methodName, Constants.ETAG_SIZE_KEY, Constants.DEFAULT_ETAG_SIZE)));
+            store = stores.get(key);
+        }
+        return store;
+    }
+
+    private static final class Tagged {
+
+        private final String etag;
+
+        private final Object value;
+
+        Tagged(String etag, Object value) {
+            this.etag = etag;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.protocol.dubbo.filter;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.extension.Activate;
+import org.apache.dubbo.common.io.Bytes;
+import org.apache.dubbo.common.io.UnsafeByteArrayOutputStream;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.serialize.ObjectOutput;
+import org.apache.dubbo.remoting.transport.CodecSupport;
+import org.apache.dubbo.rpc.AbstractPostProcessFilter;
+import org.apache.dubbo.rpc.Invocation;
+import org.apache.dubbo.rpc.Invoker;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcResult;
+
+import java.security.MessageDigest;
+import java.util.HashMap;
+
+/**
+ * EtagFilter tags the results of the methods configured with <code>etag</code> with a version of their content,
+ * and answers with an empty "not modified" result when the consumer sent back the version of the result it has.
+ * <p>
+ * The version is the <code>etag</code> attachment the service put into {@link RpcContext#getServerContext()}, or
+ * else a digest of the result serialized with the serialization of the service, which costs one more serialization
+ * of every result. The etags of the results of the calls the service makes are never taken for its own version.
+ *
+ * @see ConsumerEtagFilter
+ */
+@Activate(group = Constants.PROVIDER, value = Constants.ETAG_KEY)
+public class EtagFilter extends AbstractPostProcessFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(EtagFilter.class);
+
+    @Override
+    public Result invoke(Invoker<?> invoker, Invocation invocation) throws RpcException {
+        if (!invoker.getUrl().getMethodParameter(invocation.getMethodName(), Constants.ETAG_KEY, false)) {
+            return invoker.invoke(invocation);
+        }
+        // only an etag set by the service from now on is its version
+        RpcContext.getServerContext().removeAttachment(Constants.ETAG_KEY);
+        return postProcessResult(invoker.invoke(invocation), invoker, invocation);
+    }
+
+    @Override
+    protected Result doPostProcess(Result result, Invoker<?> invoker, Invocation invocation) {
+        if (result.hasException() || result.getValue() == null) {
+            return result;
+        }
+        String etag = RpcContext.getServerContext().getAttachment(Constants.ETAG_KEY);
+        if (etag == null) {
+            etag = digest(invoker.getUrl(), result.getValue());
+            if (etag == null) {
+                return result;
+            }
+        }
+        if (etag.equals(invocation.getAttachment(Constants.ETAG_MATCH_KEY))) {
+            RpcResult notModified = new RpcResult();
+            notModified.setAttachments(new HashMap<String, String>(result.getAttachments()));
+            notModified.getAttachments().put(Constants.ETAG_KEY, etag);
+            notModified.getAttachments().put(Constants.NOT_MODIFIED_KEY, Boolean.TRUE.toString());
+            return notModified;
+        }
+        result.getAttachments().put(Constants.ETAG_KEY, etag);
+        return result;
+    }
+
+    private static String digest(URL url, Object value) {
+        try {
+            UnsafeByteArrayOutputStream os = new UnsafeByteArrayOutputStream(1024);
+            ObjectOutput out = CodecSupport.getSerialization(url).serialize(url, os);
+            out.writeObject(value);
+            out.flushBuffer();
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            md.update(os.toByteBuffer());
+            return Bytes.bytes2base64(md.digest());
+        } catch (Exception e) {
+            logger.warn("Failed to digest the result of " + url.getServiceKey() + ", cause: " + e.getMessage(), e);
+            return null;
+        }
+    }
+}
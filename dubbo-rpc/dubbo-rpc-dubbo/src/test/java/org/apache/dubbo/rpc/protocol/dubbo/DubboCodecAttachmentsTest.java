@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.protocol.dubbo;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.Version;
+import org.apache.dubbo.remoting.Channel;
+import org.apache.dubbo.remoting.buffer.ChannelBuffer;
+import org.apache.dubbo.remoting.buffer.ChannelBuffers;
+import org.apache.dubbo.remoting.exchange.Request;
+import org.apache.dubbo.remoting.exchange.Response;
+import org.apache.dubbo.rpc.Result;
+import org.apache.dubbo.rpc.RpcResult;
+import org.apache.dubbo.rpc.protocol.dubbo.support.DemoService;
+import org.apache.dubbo.rpc.protocol.dubbo.support.MockChannel;
+import org.apache.dubbo.rpc.protocol.dubbo.support.ProtocolUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+public class DubboCodecAttachmentsTest {
+
+    private static URL url;
+
+    private final DubboCodec codec = new DubboCodec();
+
+    @BeforeClass
+    public static void setUpBeforeClass() {
+        url = DubboCodecDictionaryTest.exportDemoService();
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() {
+        ProtocolUtils.closeAll();
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Map<String, String> attachments = new HashMap<>();
+        attachments.put(Constants.PATH_KEY, DemoService.class.getName());
+        attachments.put(Constants.TIMEOUT_KEY, "3000");
+        attachments.put("traceId", "4bf92f3577b34da6a3ce929d0e0e4736");
+        attachments.put("custom", "中文");
+        attachments.put("empty", "");
+        attachments.put("null", null);
+
+        Map<String, String> decoded = new DubboCodecAttachments(DubboCodecAttachments.encode(attachments));
+        Assert.assertEquals(attachments, decoded);
+        Assert.assertEquals(attachments, new HashMap<>(decoded));
+        Assert.assertTrue(decoded.containsKey("null"));
+        Assert.assertNull(decoded.get("missing"));
+    }
+
+    @Test
+    public void testExcludedAndExtra() {
+        Map<String, String> attachments = new HashMap<>();
+        attachments.put(Constants.ASYNC_KEY, "true");
+        attachments.put(Constants.GROUP_KEY, "g");
+
+        Map<String, String> decoded = new DubboCodecAttachments(DubboCodecAttachments.encode(attachments,
+                Collections.singleton(Constants.ASYNC_KEY), DubboCodecDictionary.DEFINE_KEY, "1"));
+        Assert.assertEquals(2, decoded.size());
+        Assert.assertEquals("g", decoded.get(Constants.GROUP_KEY));
+        Assert.assertEquals("1", decoded.get(DubboCodecDictionary.DEFINE_KEY));
+        Assert.assertFalse(decoded.containsKey(Constants.ASYNC_KEY));
+    }
+
+    @Test
+    public void testUpdateBeforeParsing() {
+        Map<String, String> attachments = new HashMap<>();
+        attachments.put(Constants.VERSION_KEY, "2.0.0");
+        attachments.put("custom", "c");
+        Map<String, String> decoded = new DubboCodecAttachments(DubboCodecAttachments.encode(attachments));
+
+        // known keys absent from the block
+        Assert.assertNull(decoded.putIfAbsent(Constants.PATH_KEY, "path"));
+        Assert.assertNull(decoded.remove(Constants.GROUP_KEY));
+        // the block keeps its values
+        Assert.assertEquals("2.0.0", decoded.putIfAbsent(Constants.VERSION_KEY, "1.0.0"));
+        Assert.assertEquals("c", decoded.put("custom", "d"));
+
+        Assert.assertEquals(3, decoded.size());
+        Assert.assertEquals("path", decoded.get(Constants.PATH_KEY));
+        Assert.assertEquals("2.0.0", decoded.get(Constants.VERSION_KEY));
+        Assert.assertEquals("d", decoded.get("custom"));
+
+        for (Iterator<Map.Entry<String, String>> it = decoded.entrySet().iterator(); it.hasNext(); ) {
+            if (!it.next().getKey().equals("custom")) {
+                it.remove();
+            }
+        }
+        Assert.assertEquals(Collections.singletonMap("custom", "d"), decoded);
+    }
+
+    @Test
+    public void testInvalidCount() {
+        // a count of 2^28 entries in a block of a few bytes
+        Map<String, String> decoded = new DubboCodecAttachments(new byte[]{(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01});
+        try {
+            decoded.size();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertTrue(e.getMessage().contains("Invalid attachments count"));
+        }
+    }
+
+    @Test
+    public void testCompactRequestAndResponse() throws Exception {
+        // without dictionary, which acknowledges its definitions in the attachments of the responses
+        URL lazyUrl = url.addParameter(Constants.LAZY_ARGUMENTS_KEY, true)
+                .addParameter(Constants.CODEC_DICTIONARY_KEY, false);
+        Channel client = new MockChannel(lazyUrl.addParameter(Constants.COMPACT_ATTACHMENTS_KEY, true));
+        Channel server = new MockChannel(url);
+        ChannelBuffer plain = DubboCodecDictionaryTest.encodeRequest(new MockChannel(lazyUrl), 1);
+        ChannelBuffer compact = DubboCodecDictionaryTest.encodeRequest(client, 1);
+        Assert.assertTrue(compact.readableBytes() < plain.readableBytes());
+
+        // the responses are compact once the peer sent a compact request
+        int plainResponseLength = encodeResponse(server, 1).readableBytes();
+        Request request = (Request) codec.decode(server, compact);
+        Assert.assertFalse(String.valueOf(request.getData()), request.isBroken());
+        DecodeableRpcInvocation invocation = (DecodeableRpcInvocation) request.getData();
+        Assert.assertTrue(invocation.getAttachments() instanceof DubboCodecAttachments);
+        Assert.assertEquals(DemoService.class.getName(), invocation.getAttachment(Constants.PATH_KEY));
+        Assert.assertEquals("1.0.0", invocation.getAttachment(Constants.VERSION_KEY));
+        Assert.assertEquals(Version.getProtocolVersion(), invocation.getAttachment(Constants.DUBBO_VERSION_KEY));
+        Assert.assertEquals("echo", invocation.getMethodName());
+        Assert.assertEquals("hello", invocation.getArguments()[0]);
+
+        ChannelBuffer response = encodeResponse(server, 1);
+        Assert.assertTrue(response.readableBytes() < plainResponseLength);
+        Result result = (Result) ((Response) codec.decode(client, response)).getResult();
+        Assert.assertEquals("ok", result.getValue());
+        Assert.assertEquals("v", result.getAttachment("custom"));
+        Assert.assertEquals(Version.getProtocolVersion(), result.getAttachment(Constants.DUBBO_VERSION_KEY));
+    }
+
+    private ChannelBuffer encodeResponse(Channel channel, long id) throws Exception {
+        Response response = new Response(id, Version.getProtocolVersion());
+        RpcResult result = new RpcResult("ok");
+        result.setAttachment("custom", "v");
+        response.setResult(result);
+        ChannelBuffer buffer = ChannelBuffers.dynamicBuffer(1024);
+        codec.encode(channel, buffer, response);
+        return buffer;
+    }
+}
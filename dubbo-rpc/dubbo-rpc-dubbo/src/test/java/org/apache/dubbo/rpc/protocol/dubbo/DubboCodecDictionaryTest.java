@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.protocol.dubbo;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.Version;
+import org.apache.dubbo.common.utils.NetUtils;
+import org.apache.dubbo.remoting.Channel;
+import org.apache.dubbo.remoting.buffer.ChannelBuffer;
+import org.apache.dubbo.remoting.buffer.ChannelBuffers;
+import org.apache.dubbo.remoting.exchange.Request;
+import org.apache.dubbo.remoting.exchange.Response;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.RpcResult;
+import org.apache.dubbo.rpc.protocol.dubbo.support.DemoService;
+import org.apache.dubbo.rpc.protocol.dubbo.support.DemoServiceImpl;
+import org.apache.dubbo.rpc.protocol.dubbo.support.MockChannel;
+import org.apache.dubbo.rpc.protocol.dubbo.support.ProtocolUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class DubboCodecDictionaryTest {
+
+    private static URL url;
+
+    private final DubboCodec codec = new DubboCodec();
+
+    private final Channel client = new MockChannel(url);
+
+    private final Channel server = new MockChannel(url);
+
+    @BeforeClass
+    public static void setUpBeforeClass() {
+        url = exportDemoService();
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() {
+        ProtocolUtils.closeAll();
+    }
+
+    /**
+     * The decoder looks up the exported invoker to decode callback arguments
+     */
+    static URL exportDemoService() {
+        URL url = URL.valueOf("dubbo://127.0.0.1:" + NetUtils.getAvailablePort() + "/" + DemoService.class.getName() + "?version=1.0.0");
+        ProtocolUtils.export(new DemoServiceImpl(), DemoService.class, url);
+        return url;
+    }
+
+    @Test
+    public void testReferenceAfterAcknowledge() throws Exception {
+        ChannelBuffer first = encodeRequest(client, 1);
+        int plainLength = first.readableBytes();
+        DecodeableRpcInvocation invocation = decodeRequest(server, first);
+        assertInvocation(invocation);
+        Assert.assertNull(invocation.getAttachment(DubboCodecDictionary.DEFINE_KEY));
+
+        // not acknowledged yet, still the full strings
+        ChannelBuffer second = encodeRequest(client, 2);
+        Assert.assertEquals(plainLength, second.readableBytes());
+        assertInvocation(decodeRequest(server, second));
+
+        RpcResult result = (RpcResult) decodeResponse(client, encodeResponse(server, 1));
+        Assert.assertEquals("ok", result.getValue());
+        Assert.assertNull(result.getAttachment(DubboCodecDictionary.ACK_KEY));
+
+        ChannelBuffer third = encodeRequest(client, 3);
+        Assert.assertTrue(third.readableBytes() < plainLength - 40);
+        DecodeableRpcInvocation referenced = decodeRequest(server, third);
+        assertInvocation(referenced);
+        Assert.assertEquals(Version.getProtocolVersion(), referenced.getAttachment(Constants.DUBBO_VERSION_KEY));
+        Assert.assertSame(referenced.getParameterTypes(), decodeRequest(server, encodeRequest(client, 4)).getParameterTypes());
+    }
+
+    @Test
+    public void testConcurrentFirstRequests() throws Exception {
+        int count = DubboCodecDictionary.MAX_UNACKNOWLEDGED_RESPONSES * 2;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<ChannelBuffer>> requests = new ArrayList<Future<ChannelBuffer>>();
+        try {
+            for (int i = 0; i < count; i++) {
+                final long id = i;
+                requests.add(executor.submit(new Callable<ChannelBuffer>() {
+                    @Override
+                    public ChannelBuffer call() throws Exception {
+                        return encodeRequest(client, id);
+                    }
+                }));
+            }
+            int plainLength = 0;
+            for (Future<ChannelBuffer> request : requests) {
+                ChannelBuffer buffer = request.get();
+                plainLength = buffer.readableBytes();
+                assertInvocation(decodeRequest(server, buffer));
+            }
+            // all of them are in flight, none was answered yet
+            Assert.assertFalse(DubboCodecDictionary.getOutbound(client, false).isDisabled());
+
+            decodeResponse(client, encodeResponse(server, 0));
+            for (int i = 1; i < count; i++) {
+                decodeResponse(client, encodeResponse(server, i));
+            }
+            Assert.assertFalse(DubboCodecDictionary.getOutbound(client, false).isDisabled());
+            ChannelBuffer referenced = encodeRequest(client, count);
+            Assert.assertTrue(referenced.readableBytes() < plainLength - 40);
+            assertInvocation(decodeRequest(server, referenced));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testStopOfferingToOldPeer() throws Exception {
+        // an old peer decodes the requests but never acknowledges the definitions
+        Channel oldServer = new MockChannel(url);
+        for (int i = 0; i <= DubboCodecDictionary.MAX_UNACKNOWLEDGED_RESPONSES; i++) {
+            assertInvocation(decodeRequest(oldServer, encodeRequest(client, i)));
+            Assert.assertFalse(DubboCodecDictionary.getOutbound(client, false).isDisabled());
+            decodeResponse(client, encodeResponse(new MockChannel(url), i));
+        }
+        Assert.assertTrue(DubboCodecDictionary.getOutbound(client, false).isDisabled());
+        ChannelBuffer buffer = encodeRequest(client, 100);
+        DecodeableRpcInvocation invocation = decodeRequest(new MockChannel(server.getUrl()), buffer);
+        assertInvocation(invocation);
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        Channel disabled = new MockChannel(client.getUrl().addParameter(Constants.CODEC_DICTIONARY_KEY, false));
+        decodeRequest(server, encodeRequest(disabled, 1));
+        Assert.assertNull(DubboCodecDictionary.getOutbound(disabled, true));
+        Assert.assertNull(DubboCodecDictionary.getInbound(server, false));
+    }
+
+    @Test
+    public void testUnknownReference() throws Exception {
+        decodeRequest(server, encodeRequest(client, 1));
+        decodeResponse(client, encodeResponse(server, 1));
+        Request request = (Request) codec.decode(new MockChannel(server.getUrl()), encodeRequest(client, 2));
+        Assert.assertTrue(request.isBroken());
+    }
+
+    private void assertInvocation(DecodeableRpcInvocation invocation) {
+        Assert.assertEquals(DemoService.class.getName(), invocation.getAttachment(Constants.PATH_KEY));
+        Assert.assertEquals("1.0.0", invocation.getAttachment(Constants.VERSION_KEY));
+        Assert.assertEquals("echo", invocation.getMethodName());
+        Assert.assertArrayEquals(new Class<?>[]{String.class}, invocation.getParameterTypes());
+        Assert.assertEquals("hello", invocation.getArguments()[0]);
+    }
+
+    static ChannelBuffer encodeRequest(Channel channel, long id) throws Exception {
+        RpcInvocation invocation = new RpcInvocation("echo", new Class<?>[]{String.class}, new Object[]{"hello"});
+        invocation.setAttachment(Constants.PATH_KEY, DemoService.class.getName());
+        invocation.setAttachment(Constants.VERSION_KEY, "1.0.0");
+        Request request = new Request(id);
+        request.setVersion(Version.getProtocolVersion());
+        request.setTwoWay(true);
+        request.setData(invocation);
+        ChannelBuffer buffer = ChannelBuffers.dynamicBuffer(1024);
+        new DubboCodec().encode(channel, buffer, request);
+        return buffer;
+    }
+
+    DecodeableRpcInvocation decodeRequest(Channel channel, ChannelBuffer buffer) throws Exception {
+        Request request = (Request) codec.decode(channel, buffer);
+        Assert.assertFalse(String.valueOf(request.getData()), request.isBroken());
+        return (DecodeableRpcInvocation) request.getData();
+    }
+
+    private ChannelBuffer encodeResponse(Channel channel, long id) throws Exception {
+        Response response = new Response(id, Version.getProtocolVersion());
+        response.setResult(new RpcResult("ok"));
+        ChannelBuffer buffer = ChannelBuffers.dynamicBuffer(1024);
+        codec.encode(channel, buffer, response);
+        return buffer;
+    }
+
+    private Object decodeResponse(Channel channel, ChannelBuffer buffer) throws Exception {
+        return ((Response) codec.decode(channel, buffer)).getResult();
+    }
+}
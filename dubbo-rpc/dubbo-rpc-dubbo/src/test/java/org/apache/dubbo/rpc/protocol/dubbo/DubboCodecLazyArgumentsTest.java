@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.protocol.dubbo;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.Version;
+import org.apache.dubbo.remoting.Channel;
+import org.apache.dubbo.remoting.buffer.ChannelBuffer;
+import org.apache.dubbo.remoting.buffer.ChannelBuffers;
+import org.apache.dubbo.remoting.exchange.Request;
+import org.apache.dubbo.remoting.transport.CodecSupport;
+import org.apache.dubbo.rpc.protocol.dubbo.support.DemoService;
+import org.apache.dubbo.rpc.protocol.dubbo.support.MockChannel;
+import org.apache.dubbo.rpc.protocol.dubbo.support.ProtocolUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class DubboCodecLazyArgumentsTest {
+
+    private static URL url;
+
+    private static byte serializationId;
+
+    private final DubboCodec codec = new DubboCodec();
+
+    @BeforeClass
+    public static void setUpBeforeClass() {
+        url = DubboCodecDictionaryTest.exportDemoService();
+        serializationId = CodecSupport.getSerialization(url).getContentTypeId();
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() {
+        ProtocolUtils.closeAll();
+    }
+
+    @Test
+    public void testDecodeOnDemand() throws Exception {
+        DecodeableRpcInvocation invocation = decodeRequest(new MockChannel(url),
+                DubboCodecDictionaryTest.encodeRequest(lazyChannel(), 1));
+        Assert.assertNotNull(invocation.getRawArguments(serializationId));
+        Assert.assertEquals("echo", invocation.getMethodName());
+        Assert.assertEquals(DemoService.class.getName(), invocation.getAttachment(Constants.PATH_KEY));
+        Assert.assertArrayEquals(new Class<?>[]{String.class}, invocation.getParameterTypes());
+
+        Assert.assertEquals("hello", invocation.getArguments()[0]);
+        Assert.assertNull(invocation.getRawArguments(serializationId));
+    }
+
+    @Test
+    public void testEagerByDefault() throws Exception {
+        DecodeableRpcInvocation invocation = decodeRequest(new MockChannel(url),
+                DubboCodecDictionaryTest.encodeRequest(new MockChannel(url), 1));
+        Assert.assertNull(invocation.getRawArguments(serializationId));
+        Assert.assertEquals("hello", invocation.getArguments()[0]);
+    }
+
+    @Test
+    public void testForwardAsReceived() throws Exception {
+        DecodeableRpcInvocation invocation = decodeRequest(new MockChannel(url),
+                DubboCodecDictionaryTest.encodeRequest(lazyChannel(), 1));
+        byte[] raw = invocation.getRawArguments(serializationId);
+
+        DecodeableRpcInvocation forwarded = decodeRequest(new MockChannel(url), encodeRequest(lazyChannel(), invocation));
+        Assert.assertSame(raw, invocation.getRawArguments(serializationId));
+        Assert.assertArrayEquals(raw, forwarded.getRawArguments(serializationId));
+        Assert.assertEquals("hello", forwarded.getArguments()[0]);
+    }
+
+    @Test
+    public void testForwardReplacedArguments() throws Exception {
+        DecodeableRpcInvocation invocation = decodeRequest(new MockChannel(url),
+                DubboCodecDictionaryTest.encodeRequest(lazyChannel(), 1));
+        invocation.setArguments(new Object[]{"world"});
+
+        DecodeableRpcInvocation forwarded = decodeRequest(new MockChannel(url), encodeRequest(lazyChannel(), invocation));
+        Assert.assertEquals("world", forwarded.getArguments()[0]);
+        // to a provider which does not ask for lazy arguments
+        Assert.assertEquals("world", decodeRequest(new MockChannel(url),
+                encodeRequest(new MockChannel(url), invocation)).getArguments()[0]);
+    }
+
+    private Channel lazyChannel() {
+        return new MockChannel(url.addParameter(Constants.LAZY_ARGUMENTS_KEY, true));
+    }
+
+    private ChannelBuffer encodeRequest(Channel channel, DecodeableRpcInvocation invocation) throws Exception {
+        Request request = new Request(2);
+        request.setVersion(Version.getProtocolVersion());
+        request.setTwoWay(true);
+        request.setData(invocation);
+        ChannelBuffer buffer = ChannelBuffers.dynamicBuffer(1024);
+        codec.encode(channel, buffer, request);
+        return buffer;
+    }
+
+    private DecodeableRpcInvocation decodeRequest(Channel channel, ChannelBuffer buffer) throws Exception {
+        Request request = (Request) codec.decode(channel, buffer);
+        Assert.assertFalse(String.valueOf(request.getData()), request.isBroken());
+        return (DecodeableRpcInvocation) request.getData();
+    }
+}
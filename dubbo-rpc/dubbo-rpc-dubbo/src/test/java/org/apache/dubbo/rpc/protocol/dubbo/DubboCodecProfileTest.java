@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.protocol.dubbo;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.Version;
+import org.apache.dubbo.remoting.Channel;
+import org.apache.dubbo.remoting.buffer.ChannelBuffer;
+import org.apache.dubbo.remoting.buffer.ChannelBuffers;
+import org.apache.dubbo.remoting.exchange.Request;
+import org.apache.dubbo.remoting.exchange.Response;
+import org.apache.dubbo.remoting.exchange.support.DefaultFuture;
+import org.apache.dubbo.remoting.transport.SerializationProfiler;
+import org.apache.dubbo.rpc.RpcInvocation;
+import org.apache.dubbo.rpc.RpcResult;
+import org.apache.dubbo.rpc.protocol.dubbo.support.MockChannel;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class DubboCodecProfileTest {
+
+    private static final String SERVICE = "org.apache.dubbo.rpc.protocol.dubbo.ProfiledService";
+
+    private final DubboCodec codec = new DubboCodec();
+
+    @Before
+    public void setUp() {
+        SerializationProfiler.reset();
+    }
+
+    @Test
+    public void testProfile() throws Exception {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/" + SERVICE + "?" + Constants.SERIALIZATION_PROFILE_KEY + "=true");
+        Channel client = new MockChannel(url);
+        Channel server = new MockChannel(url);
+
+        Request request = newRequest("sum", new ArrayList<Integer>(Arrays.asList(1, 2, 3)));
+        DefaultFuture future = DefaultFuture.newFuture(client, request, 3000);
+        try {
+            ChannelBuffer buffer = ChannelBuffers.dynamicBuffer(1024);
+            codec.encode(client, buffer, request);
+            int requestBytes = buffer.readableBytes();
+            Request decoded = (Request) codec.decode(server, buffer);
+
+            Response response = new Response(decoded.getId(), decoded.getVersion());
+            response.setResult(new RpcResult(6L));
+            buffer = ChannelBuffers.dynamicBuffer(1024);
+            codec.encode(server, buffer, response);
+            codec.decode(client, buffer);
+
+            SerializationProfiler profiler = SerializationProfiler.getProfilers().get(SERVICE + "#sum");
+            Assert.assertNotNull(profiler);
+            SerializationProfiler.Stats encode = profiler.getEncode();
+            SerializationProfiler.Stats decode = profiler.getDecode();
+            // both ends share the registry in this test
+            Assert.assertEquals(2, encode.getCount());
+            Assert.assertEquals(2, decode.getCount());
+            Assert.assertTrue(encode.getMaxBytes() > 0 && encode.getMaxBytes() <= requestBytes);
+            List<String> classes = new ArrayList<String>();
+            for (SerializationProfiler.ClassStats classStats : encode.getClasses()) {
+                classes.add(classStats.getClasses());
+            }
+            Assert.assertTrue(classes.contains(ArrayList.class.getName()));
+            Assert.assertTrue(classes.contains(Long.class.getName()));
+            long messages = 0;
+            for (long count : decode.getSizeHistogram()) {
+                messages += count;
+            }
+            Assert.assertEquals(2, messages);
+        } finally {
+            future.cancel();
+        }
+    }
+
+    @Test
+    public void testSample() throws Exception {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/" + SERVICE + "?" + Constants.SERIALIZATION_PROFILE_KEY + "=true&"
+                + Constants.SERIALIZATION_PROFILE_SAMPLE_KEY + "=4");
+        Channel client = new MockChannel(url);
+        for (int i = 0; i < 40; i++) {
+            codec.encode(client, ChannelBuffers.dynamicBuffer(1024), newRequest("count", new ArrayList<Integer>()));
+        }
+        Assert.assertEquals(10, SerializationProfiler.getProfilers().get(SERVICE + "#count").getEncode().getCount());
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        URL url = URL.valueOf("dubbo://127.0.0.1:20880/" + SERVICE);
+        Channel client = new MockChannel(url);
+        codec.encode(client, ChannelBuffers.dynamicBuffer(1024), newRequest("disabled", new ArrayList<Integer>()));
+        Assert.assertFalse(SerializationProfiler.getProfilers().containsKey(SERVICE + "#disabled"));
+    }
+
+    private Request newRequest(String method, List<Integer> values) {
+        RpcInvocation invocation = new RpcInvocation(method, new Class<?>[]{List.class}, new Object[]{values});
+        invocation.setAttachment(Constants.PATH_KEY, SERVICE);
+        Request request = new Request();
+        request.setVersion(Version.getProtocolVersion());
+        request.setTwoWay(true);
+        request.setData(invocation);
+        return request;
+    }
+}
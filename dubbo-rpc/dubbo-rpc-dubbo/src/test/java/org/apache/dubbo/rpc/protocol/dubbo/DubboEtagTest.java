@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.protocol.dubbo;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.extension.ExtensionLoader;
+import org.apache.dubbo.common.utils.NetUtils;
+import org.apache.dubbo.rpc.Protocol;
+import org.apache.dubbo.rpc.ProxyFactory;
+import org.apache.dubbo.rpc.RpcContext;
+import org.apache.dubbo.rpc.protocol.dubbo.support.ProtocolUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DubboEtagTest {
+
+    private static final AtomicInteger invoked = new AtomicInteger();
+
+    private static volatile String content = "a";
+
+    private static ReferenceDataService service;
+
+    private static ReferenceDataService compactService;
+
+    private static ReferenceDataService nestedService;
+
+    @BeforeClass
+    public static void setUpBeforeClass() {
+        Protocol protocol = ExtensionLoader.getExtensionLoader(Protocol.class).getAdaptiveExtension();
+        ProxyFactory proxy = ExtensionLoader.getExtensionLoader(ProxyFactory.class).getAdaptiveExtension();
+        URL url = URL.valueOf("dubbo://127.0.0.1:" + NetUtils.getAvailablePort() + "/" + ReferenceDataService.class.getName())
+                .addParameter(Constants.ETAG_KEY, true);
+        protocol.export(proxy.getInvoker(new ReferenceDataServiceImpl(), ReferenceDataService.class, url));
+        service = proxy.getProxy(protocol.refer(ReferenceDataService.class, url));
+
+        URL compactUrl = url.setPort(NetUtils.getAvailablePort()).addParameter(Constants.COMPACT_ATTACHMENTS_KEY, true);
+        protocol.export(proxy.getInvoker(new ReferenceDataServiceImpl(), ReferenceDataService.class, compactUrl));
+        compactService = proxy.getProxy(protocol.refer(ReferenceDataService.class, compactUrl));
+
+        // a provider serving its invocations by calling the first one
+        URL nestedUrl = url.setPort(NetUtils.getAvailablePort());
+        protocol.export(proxy.getInvoker(new NestedReferenceDataService(), ReferenceDataService.class, nestedUrl));
+        nestedService = proxy.getProxy(protocol.refer(ReferenceDataService.class, nestedUrl));
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() {
+        ProtocolUtils.closeAll();
+    }
+
+    @Before
+    public void setUp() {
+        invoked.set(0);
+        content = "a";
+    }
+
+    @Test
+    public void testNotModified() {
+        List<String> first = service.list(3);
+        Assert.assertEquals(3, first.size());
+        List<String> second = service.list(3);
+        Assert.assertSame(first, second);
+        Assert.assertEquals(2, invoked.get());
+
+        List<String> other = service.list(2);
+        Assert.assertEquals(2, other.size());
+        Assert.assertNotSame(first, other);
+    }
+
+    @Test
+    public void testNotModifiedWithBeanArgument() {
+        List<String> first = service.query(new Query(3));
+        // the bean does not define equals, equal content makes the invocation conditional all the same
+        Assert.assertSame(first, service.query(new Query(3)));
+        Assert.assertEquals(2, invoked.get());
+        Assert.assertNotSame(first, service.query(new Query(2)));
+    }
+
+    @Test
+    public void testModified() {
+        List<String> first = service.list(4);
+        content = "b";
+        List<String> second = service.list(4);
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals("b-0", second.get(0));
+        Assert.assertSame(second, service.list(4));
+    }
+
+    @Test
+    public void testVersionFromService() {
+        String first = service.versioned("v1");
+        Assert.assertEquals("a", first);
+        content = "b";
+        // the service says its content did not change, which wins over the actual result
+        Assert.assertSame(first, service.versioned("v1"));
+    }
+
+    @Test
+    public void testNotModifiedWithCompactAttachments() {
+        List<String> first = compactService.list(5);
+        Assert.assertSame(first, compactService.list(5));
+        Assert.assertSame(first, compactService.list(5));
+        Assert.assertEquals(3, invoked.get());
+    }
+
+    @Test
+    public void testNestedEtagIsNotTheVersion() {
+        List<String> first = nestedService.list(1);
+        Assert.assertEquals("a-0", first.get(0));
+        content = "b";
+        // the etag of the nested call did not change, the result of the nested service did
+        Assert.assertEquals("b-0", nestedService.list(1).get(0));
+    }
+
+    @Test
+    public void testNestedInvocationIsNotConditional() {
+        String first = nestedService.content(1);
+        // the nested invocation has new arguments, but the same result and etag as the outer one
+        Assert.assertSame(first, nestedService.content(1));
+        Assert.assertEquals("a", first);
+    }
+
+    public interface ReferenceDataService {
+
+        List<String> list(int count);
+
+        String versioned(String version);
+
+        String content(int id);
+
+        List<String> query(Query query);
+    }
+
+    public static class Query implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private int count;
+
+        public Query() {
+        }
+
+        public Query(int count) {
+            this.count = count;
+        }
+
+        public int getCount() {
+            return count;
+        }
+    }
+
+    public static class ReferenceDataServiceImpl implements ReferenceDataService {
+
+        @Override
+        public List<String> list(int count) {
+            invoked.incrementAndGet();
+            List<String> list = new ArrayList<String>();
+            for (int i = 0; i < count; i++) {
+                list.add(content + "-" + i);
+            }
+            return list;
+        }
+
+        @Override
+        public String versioned(String version) {
+            RpcContext.getServerContext().setAttachment(Constants.ETAG_KEY, version);
+            return content;
+        }
+
+        @Override
+        public String content(int id) {
+            return content;
+        }
+
+        @Override
+        public List<String> query(Query query) {
+            return list(query.getCount());
+        }
+    }
+
+    public static class NestedReferenceDataService extends ReferenceDataServiceImpl {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public List<String> list(int count) {
+            service.versioned("nested");
+            return super.list(count);
+        }
+
+        @Override
+        public String content(int id) {
+            return service.content(id * 1000 + calls.incrementAndGet());
+        }
+    }
+}
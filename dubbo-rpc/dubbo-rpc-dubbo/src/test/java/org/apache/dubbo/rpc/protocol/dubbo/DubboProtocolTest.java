@@ -20,11 +20,17 @@ package org.apache.dubbo.rpc.protocol.dubbo;
 import org.apache.dubbo.common.Constants;
 import org.apache.dubbo.common.URL;
 import org.apache.dubbo.common.extension.ExtensionLoader;
+import org.apache.dubbo.remoting.Channel;
+import org.apache.dubbo.remoting.RemotingException;
+import org.apache.dubbo.rpc.Exporter;
+import org.apache.dubbo.rpc.Invoker;
 import org.apache.dubbo.rpc.Protocol;
 import org.apache.dubbo.rpc.ProxyFactory;
 import org.apache.dubbo.rpc.RpcException;
+import org.apache.dubbo.rpc.RpcInvocation;
 import org.apache.dubbo.rpc.protocol.dubbo.support.DemoService;
 import org.apache.dubbo.rpc.protocol.dubbo.support.DemoServiceImpl;
+import org.apache.dubbo.rpc.protocol.dubbo.support.MockChannel;
 import org.apache.dubbo.rpc.protocol.dubbo.support.NonSerialized;
 import org.apache.dubbo.rpc.protocol.dubbo.support.RemoteService;
 import org.apache.dubbo.rpc.protocol.dubbo.support.RemoteServiceImpl;
@@ -169,6 +175,33 @@ public class DubboProtocolTest {
         }
     }
 
+    @Test
+    public void testGetInvokerCachedPerChannel() throws Exception {
+        URL url = URL.valueOf("dubbo://127.0.0.1:9060/" + DemoService.class.getName() + "?version=1.0.0");
+        Exporter<DemoService> exporter = protocol.export(proxy.getInvoker(new DemoServiceImpl(), DemoService.class, url));
+        Channel channel = new MockChannel(url);
+        RpcInvocation inv = new RpcInvocation("getSize", new Class<?>[]{String[].class}, new Object[]{null});
+        inv.setAttachment(Constants.PATH_KEY, DemoService.class.getName());
+        inv.setAttachment(Constants.VERSION_KEY, "1.0.0");
+        Invoker<?> invoker = DubboProtocol.getDubboProtocol().getInvoker(channel, inv);
+        Assert.assertSame(invoker, DubboProtocol.getDubboProtocol().getInvoker(channel, inv));
+
+        inv.setAttachment(Constants.VERSION_KEY, "2.0.0");
+        try {
+            DubboProtocol.getDubboProtocol().getInvoker(channel, inv);
+            Assert.fail();
+        } catch (RemotingException expected) {
+        }
+
+        inv.setAttachment(Constants.VERSION_KEY, "1.0.0");
+        exporter.unexport();
+        try {
+            DubboProtocol.getDubboProtocol().getInvoker(channel, inv);
+            Assert.fail();
+        } catch (RemotingException expected) {
+        }
+    }
+
     @Test
     public void testReturnNonSerialized() throws Exception {
         DemoService service = new DemoServiceImpl();
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.protocol.dubbo;
+
+import org.apache.dubbo.common.Constants;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.extension.ExtensionLoader;
+import org.apache.dubbo.common.utils.NetUtils;
+import org.apache.dubbo.rpc.Protocol;
+import org.apache.dubbo.rpc.ProxyFactory;
+import org.apache.dubbo.rpc.protocol.dubbo.support.ProtocolUtils;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DubboStreamingTest {
+
+    private static final AtomicInteger produced = new AtomicInteger();
+
+    private static final AtomicBoolean closed = new AtomicBoolean();
+
+    private static StreamService service;
+
+    @BeforeClass
+    public static void setUpBeforeClass() {
+        Protocol protocol = ExtensionLoader.getExtensionLoader(Protocol.class).getAdaptiveExtension();
+        ProxyFactory proxy = ExtensionLoader.getExtensionLoader(ProxyFactory.class).getAdaptiveExtension();
+        URL url = URL.valueOf("dubbo://127.0.0.1:" + NetUtils.getAvailablePort() + "/" + StreamService.class.getName());
+        protocol.export(proxy.getInvoker(new StreamServiceImpl(), StreamService.class, url));
+        service = proxy.getProxy(protocol.refer(StreamService.class, url
+                .addParameter("range." + Constants.STREAM_KEY, true)
+                .addParameter("range." + Constants.STREAM_CREDITS_KEY, 2)
+                .addParameter("range." + Constants.STREAM_CHUNK_SIZE_KEY, 10)
+                .addParameter("fail." + Constants.STREAM_KEY, true)
+                .addParameter("fail." + Constants.STREAM_CHUNK_SIZE_KEY, 10)));
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() {
+        ProtocolUtils.closeAll();
+    }
+
+    @Before
+    public void setUp() {
+        produced.set(0);
+        closed.set(false);
+    }
+
+    @Test
+    public void testStream() {
+        Iterator<String> iterator = service.range(10005);
+        for (int i = 0; i < 10005; i++) {
+            Assert.assertTrue(iterator.hasNext());
+            Assert.assertEquals("item-" + i, iterator.next());
+        }
+        Assert.assertFalse(iterator.hasNext());
+        Assert.assertEquals(10005, produced.get());
+    }
+
+    @Test
+    public void testFlowControl() throws Exception {
+        Iterator<String> iterator = service.range(10000);
+        Assert.assertEquals("item-0", iterator.next());
+        Thread.sleep(500);
+        // two chunks granted, and a third one once the first chunk is consumed
+        Assert.assertTrue("produced " + produced.get(), produced.get() <= 30);
+
+        ((Closeable) iterator).close();
+        Assert.assertFalse(iterator.hasNext());
+        for (int i = 0; i < 50 && !closed.get(); i++) {
+            Thread.sleep(100);
+        }
+        Assert.assertTrue("the stream was not cancelled on the provider", closed.get());
+    }
+
+    @Test
+    public void testExceptionAfterChunks() {
+        Iterator<String> iterator = service.fail(25);
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals("item-" + i, iterator.next());
+        }
+        try {
+            iterator.hasNext();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("fail at 25", e.getMessage());
+        }
+    }
+
+    public interface StreamService {
+
+        Iterator<String> range(int count);
+
+        Iterator<String> fail(int at);
+    }
+
+    public static class StreamServiceImpl implements StreamService {
+
+        @Override
+        public Iterator<String> range(int count) {
+            return new Range(count, -1);
+        }
+
+        @Override
+        public Iterator<String> fail(int at) {
+            return new Range(Integer.MAX_VALUE, at);
+        }
+
+    }
+
+    private static class Range implements Iterator<String>, Closeable {
+
+        private final int count;
+
+        private final int failAt;
+
+        private int next;
+
+        Range(int count, int failAt) {
+            this.count = count;
+            this.failAt = failAt;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < count;
+        }
+
+        @Override
+        public String next() {
+            if (next == failAt) {
+                throw new IllegalStateException("fail at " + failAt);
+            }
+            produced.incrementAndGet();
+            return "item-" + next++;
+        }
+
+        @Override
+        public void close() {
+            closed.set(true);
+        }
+    }
+}
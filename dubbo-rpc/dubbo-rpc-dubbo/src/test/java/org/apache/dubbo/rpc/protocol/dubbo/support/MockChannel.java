@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.rpc.protocol.dubbo.support;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.remoting.Channel;
+import org.apache.dubbo.remoting.ChannelHandler;
+import org.apache.dubbo.remoting.RemotingException;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Channel which only keeps the url and the attributes, to drive the codec directly
+ */
+public class MockChannel implements Channel {
+
+    private final URL url;
+
+    private final Map<String, Object> attributes = new ConcurrentHashMap<String, Object>();
+
+    public MockChannel(URL url) {
+        this.url = url;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        // any other port, or the channel looks like a client side one
+        return new InetSocketAddress(url.getHost(), url.getPort() + 1);
+    }
+
+    @Override
+    public boolean isConnected() {
+        return true;
+    }
+
+    @Override
+    public boolean hasAttribute(String key) {
+        return attributes.containsKey(key);
+    }
+
+    @Override
+    public Object getAttribute(String key) {
+        return attributes.get(key);
+    }
+
+    @Override
+    public void setAttribute(String key, Object value) {
+        attributes.put(key, value);
+    }
+
+    @Override
+    public void removeAttribute(String key) {
+        attributes.remove(key);
+    }
+
+    @Override
+    public URL getUrl() {
+        return url;
+    }
+
+    @Override
+    public ChannelHandler getChannelHandler() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return new InetSocketAddress(url.getHost(), url.getPort());
+    }
+
+    @Override
+    public void send(Object message) throws RemotingException {
+    }
+
+    @Override
+    public void send(Object message, boolean sent) throws RemotingException {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void close(int timeout) {
+    }
+
+    @Override
+    public void startClose() {
+    }
+
+    @Override
+    public boolean isClosed() {
+        return false;
+    }
+}
@@ -34,9 +34,10 @@ public abstract class SerializableClassRegistry {
     }
 
     /**
-     * only supposed to be called at startup time
+     * only supposed to be called at startup time, readers iterating the registered classes while classes may
+     * still be registered have to copy them while holding the lock of this class
      */
-    public static void registerClass(Class clazz, Serializer serializer) {
+    public static synchronized void registerClass(Class clazz, Serializer serializer) {
         if (clazz == null) {
             throw new IllegalArgumentException("Class registered to kryo cannot be null!");
         }
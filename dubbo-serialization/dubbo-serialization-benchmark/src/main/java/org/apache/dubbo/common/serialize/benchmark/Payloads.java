@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.benchmark;
+
+import org.apache.dubbo.common.serialize.benchmark.model.Order;
+import org.apache.dubbo.common.serialize.benchmark.model.OrderItem;
+import org.apache.dubbo.common.serialize.benchmark.model.OrderStatus;
+import org.apache.dubbo.common.serialize.benchmark.model.User;
+import org.apache.dubbo.common.serialize.support.SerializableClassRegistry;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The payloads shared by the benchmarks: a small user, an order of a few items and an order of many items
+ */
+public class Payloads {
+
+    public static final String SMALL = "small";
+
+    public static final String MEDIUM = "medium";
+
+    public static final String LARGE = "large";
+
+    private static final long TIME = 1531958400000L;
+
+    static {
+        // registered the way an application would, kryo, fst and compiled serialization benefit from it
+        SerializableClassRegistry.registerClass(User.class);
+        SerializableClassRegistry.registerClass(Order.class);
+        SerializableClassRegistry.registerClass(OrderItem.class);
+        SerializableClassRegistry.registerClass(OrderStatus.class);
+    }
+
+    private Payloads() {
+    }
+
+    public static Object get(String name) {
+        if (SMALL.equals(name)) {
+            return newUser(1);
+        } else if (MEDIUM.equals(name)) {
+            return newOrder(1, 5);
+        } else if (LARGE.equals(name)) {
+            return newOrder(1, 500);
+        }
+        throw new IllegalArgumentException("Unknown payload " + name + ", expect " + SMALL + ", " + MEDIUM + " or " + LARGE);
+    }
+
+    public static User newUser(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setName("user-" + id);
+        user.setEmail("user-" + id + "@example.org");
+        user.setAge(30 + (int) (id % 40));
+        user.setActive(true);
+        user.setCreatedAt(new Date(TIME + id));
+        return user;
+    }
+
+    public static Order newOrder(long id, int itemCount) {
+        Order order = new Order();
+        order.setId(id);
+        order.setCustomer(newUser(id));
+        order.setStatus(OrderStatus.PAID);
+        order.setCreatedAt(new Date(TIME + id));
+        List<OrderItem> items = new ArrayList<OrderItem>(itemCount);
+        double total = 0;
+        for (int i = 0; i < itemCount; i++) {
+            OrderItem item = new OrderItem();
+            item.setProductId(10000 + i);
+            item.setSku("SKU-" + (10000 + i));
+            item.setTitle("Product " + i + " of the benchmark catalog");
+            item.setQuantity(1 + i % 3);
+            item.setPrice(9.99 + i);
+            total += item.getPrice() * item.getQuantity();
+            items.add(item);
+        }
+        order.setItems(items);
+        Map<String, String> extensions = new HashMap<String, String>();
+        extensions.put("channel", "web");
+        extensions.put("coupon", "SPRING-2018");
+        order.setExtensions(extensions);
+        order.setTotal(total);
+        return order;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.benchmark;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.extension.ExtensionLoader;
+import org.apache.dubbo.common.io.UnsafeByteArrayInputStream;
+import org.apache.dubbo.common.io.UnsafeByteArrayOutputStream;
+import org.apache.dubbo.common.serialize.Cleanable;
+import org.apache.dubbo.common.serialize.ObjectInput;
+import org.apache.dubbo.common.serialize.ObjectOutput;
+import org.apache.dubbo.common.serialize.Serialization;
+import org.apache.dubbo.common.serialize.hessian2.Hessian2ObjectInput;
+import org.apache.dubbo.common.serialize.hessian2.Hessian2ObjectOutput;
+import org.apache.dubbo.common.serialize.hessian2.Hessian2Serialization;
+import org.apache.dubbo.common.serialize.kryo.utils.KryoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the serializations over the payloads of {@link Payloads}, the allocation per operation being
+ * reported by the gc profiler and the wire size printed before the run. The kryo-xxx serializations are kryo with
+ * the {@link KryoUtils#KRYO_FACTORY_KEY} factory xxx, which mostly matters when run with several threads.
+ * <code>hessian2-new</code> creates new hessian2 inputs and outputs for each object instead of reusing the ones of
+ * the thread, the gc profiler telling what the reuse saves.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    static final String HESSIAN2_NEW = "hessian2-new";
+
+    static final String[] SERIALIZATIONS = {"hessian2", HESSIAN2_NEW, "fastjson", "fst", "java", "compactedjava", "compiled",
+            "kryo", "kryo-pooled", "kryo-lockfree", "kryo-prototype"};
+
+    static final String[] PAYLOADS = {Payloads.SMALL, Payloads.MEDIUM, Payloads.LARGE};
+
+    private static final URL URL = new URL("dubbo", "localhost", 20880);
+
+    @Param({"hessian2", HESSIAN2_NEW, "fastjson", "fst", "java", "compactedjava", "compiled",
+            "kryo", "kryo-pooled", "kryo-lockfree", "kryo-prototype"})
+    public String serialization;
+
+    @Param({Payloads.SMALL, Payloads.MEDIUM, Payloads.LARGE})
+    public String payload;
+
+    private Serialization target;
+
+    private Object object;
+
+    private byte[] bytes;
+
+    private UnsafeByteArrayOutputStream output;
+
+    @Setup
+    public void setUp() throws Exception {
+        target = getSerialization(serialization);
+        object = Payloads.get(payload);
+        output = new UnsafeByteArrayOutputStream(64 * 1024);
+        bytes = serialize(target, object, output);
+    }
+
+    @Benchmark
+    public int serialize() throws IOException {
+        output.reset();
+        write(target, object, output);
+        return output.size();
+    }
+
+    @Benchmark
+    public Object deserialize() throws Exception {
+        return read(target, bytes, object.getClass());
+    }
+
+    /**
+     * Each benchmark running in its own fork, the kryo factory is chosen before kryo is first used
+     */
+    static Serialization getSerialization(String name) {
+        if (HESSIAN2_NEW.equals(name)) {
+            return new NewHessian2Serialization();
+        }
+        if (name.startsWith("kryo-")) {
+            System.setProperty(KryoUtils.KRYO_FACTORY_KEY, name.substring("kryo-".length()));
+            name = "kryo";
+        }
+        return ExtensionLoader.getExtensionLoader(Serialization.class).getExtension(name);
+    }
+
+    static byte[] serialize(Serialization serialization, Object object, UnsafeByteArrayOutputStream output) throws IOException {
+        output.reset();
+        write(serialization, object, output);
+        return output.toByteArray();
+    }
+
+    private static void write(Serialization serialization, Object object, UnsafeByteArrayOutputStream output) throws IOException {
+        ObjectOutput out = serialization.serialize(URL, output);
+        out.writeObject(object);
+        out.flushBuffer();
+        if (out instanceof Cleanable) {
+            ((Cleanable) out).cleanup();
+        }
+    }
+
+    static Object read(Serialization serialization, byte[] bytes, Class<?> type) throws Exception {
+        ObjectInput in = serialization.deserialize(URL, new UnsafeByteArrayInputStream(bytes));
+        Object object = in.readObject(type);
+        if (in instanceof Cleanable) {
+            ((Cleanable) in).cleanup();
+        }
+        return object;
+    }
+
+    /**
+     * Prints the wire size of the payloads then runs the benchmarks with the gc profiler, the arguments being the
+     * ones of the jmh command line
+     */
+    public static void main(String[] args) throws Exception {
+        UnsafeByteArrayOutputStream output = new UnsafeByteArrayOutputStream(64 * 1024);
+        StringBuilder buf = new StringBuilder(String.format("%-16s", "bytes"));
+        for (String payload : PAYLOADS) {
+            buf.append(String.format("%10s", payload));
+        }
+        System.out.println(buf);
+        for (String name : SERIALIZATIONS) {
+            if (name.startsWith("kryo-") || HESSIAN2_NEW.equals(name)) {
+                // same bytes as kryo and hessian2
+                continue;
+            }
+            Serialization serialization = getSerialization(name);
+            buf.setLength(0);
+            buf.append(String.format("%-16s", name));
+            for (String payload : PAYLOADS) {
+                buf.append(String.format("%10d", serialize(serialization, Payloads.get(payload), output).length));
+            }
+            System.out.println(buf);
+        }
+
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(SerializationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+    /**
+     * Hessian2 without the reuse of its inputs and outputs
+     */
+    private static class NewHessian2Serialization extends Hessian2Serialization {
+
+        @Override
+        public ObjectOutput serialize(URL url, OutputStream out) throws IOException {
+            return new Hessian2ObjectOutput(out);
+        }
+
+        @Override
+        public ObjectInput deserialize(URL url, InputStream is) throws IOException {
+            return new Hessian2ObjectInput(is);
+        }
+    }
+}
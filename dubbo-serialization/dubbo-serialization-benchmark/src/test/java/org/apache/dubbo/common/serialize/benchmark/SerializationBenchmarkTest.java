@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.benchmark;
+
+import org.apache.dubbo.common.io.UnsafeByteArrayOutputStream;
+import org.apache.dubbo.common.serialize.Serialization;
+import org.apache.dubbo.common.serialize.benchmark.model.Order;
+import org.apache.dubbo.common.serialize.benchmark.model.User;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks that every benchmarked serialization reads back the payloads it wrote
+ */
+public class SerializationBenchmarkTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        UnsafeByteArrayOutputStream output = new UnsafeByteArrayOutputStream(1024);
+        for (String name : SerializationBenchmark.SERIALIZATIONS) {
+            if (name.startsWith("kryo-")) {
+                continue;
+            }
+            Serialization serialization = SerializationBenchmark.getSerialization(name);
+            for (String payload : SerializationBenchmark.PAYLOADS) {
+                Object object = Payloads.get(payload);
+                byte[] bytes = SerializationBenchmark.serialize(serialization, object, output);
+                Object read = SerializationBenchmark.read(serialization, bytes, object.getClass());
+                if (object instanceof User) {
+                    Assert.assertEquals(name, ((User) object).getEmail(), ((User) read).getEmail());
+                } else {
+                    Order order = (Order) object;
+                    Assert.assertEquals(name, order.getItems().size(), ((Order) read).getItems().size());
+                    Assert.assertEquals(name, order.getStatus(), ((Order) read).getStatus());
+                    Assert.assertEquals(name, order.getCustomer().getName(), ((Order) read).getCustomer().getName());
+                }
+            }
+        }
+    }
+}
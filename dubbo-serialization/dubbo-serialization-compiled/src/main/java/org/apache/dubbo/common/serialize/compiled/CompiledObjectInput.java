@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.compiled;
+
+import org.apache.dubbo.common.serialize.Cleanable;
+import org.apache.dubbo.common.serialize.ObjectInput;
+import org.apache.dubbo.common.serialize.hessian2.Hessian2ObjectInput;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Compiled object input, reads what {@link CompiledObjectOutput} writes.
+ */
+public class CompiledObjectInput implements ObjectInput, Cleanable {
+
+    private final ObjectInput input;
+
+    public CompiledObjectInput(InputStream is) {
+        this(new Hessian2ObjectInput(is));
+    }
+
+    CompiledObjectInput(ObjectInput input) {
+        this.input = input;
+    }
+
+    @Override
+    public boolean readBool() throws IOException {
+        return input.readBool();
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return input.readByte();
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        return input.readShort();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        return input.readInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        return input.readLong();
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return input.readFloat();
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return input.readDouble();
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return input.readUTF();
+    }
+
+    @Override
+    public byte[] readBytes() throws IOException {
+        return input.readBytes();
+    }
+
+    @Override
+    public Object readObject() throws IOException, ClassNotFoundException {
+        int marker = input.readInt();
+        if (marker == CompiledObjectOutput.NULL) {
+            return null;
+        }
+        if (marker == CompiledObjectOutput.FALLBACK) {
+            return input.readObject();
+        }
+        return readFields(marker);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T readObject(Class<T> cls) throws IOException, ClassNotFoundException {
+        int marker = input.readInt();
+        if (marker == CompiledObjectOutput.NULL) {
+            return null;
+        }
+        if (marker == CompiledObjectOutput.FALLBACK) {
+            return input.readObject(cls);
+        }
+        return (T) readFields(marker);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T readObject(Class<T> cls, Type type) throws IOException, ClassNotFoundException {
+        int marker = input.readInt();
+        if (marker == CompiledObjectOutput.NULL) {
+            return null;
+        }
+        if (marker == CompiledObjectOutput.FALLBACK) {
+            return input.readObject(cls, type);
+        }
+        return (T) readFields(marker);
+    }
+
+    private Object readFields(int id) throws IOException, ClassNotFoundException {
+        CompiledSerializers.Registration registration = CompiledSerializers.get(id);
+        if (registration == null) {
+            throw new IOException("No compiled serializer with id " + id
+                    + ", the classes registered through the serialization optimizer differ between the two sides.");
+        }
+        return registration.getSerializer().readFields(this);
+    }
+
+    @Override
+    public void cleanup() {
+        if (input instanceof Cleanable) {
+            ((Cleanable) input).cleanup();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.compiled;
+
+import org.apache.dubbo.common.serialize.Cleanable;
+import org.apache.dubbo.common.serialize.ObjectOutput;
+import org.apache.dubbo.common.serialize.hessian2.Hessian2ObjectOutput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compiled object output, every object is preceded by an int marker: {@link #NULL}, {@link #FALLBACK} when the
+ * object is written by hessian2, or the id of the serializer writing its fields.
+ */
+public class CompiledObjectOutput implements ObjectOutput, Cleanable {
+
+    static final int NULL = -1;
+
+    static final int FALLBACK = -2;
+
+    private final ObjectOutput output;
+
+    public CompiledObjectOutput(OutputStream os) {
+        this(new Hessian2ObjectOutput(os));
+    }
+
+    CompiledObjectOutput(ObjectOutput output) {
+        this.output = output;
+    }
+
+    @Override
+    public void writeBool(boolean v) throws IOException {
+        output.writeBool(v);
+    }
+
+    @Override
+    public void writeByte(byte v) throws IOException {
+        output.writeByte(v);
+    }
+
+    @Override
+    public void writeShort(short v) throws IOException {
+        output.writeShort(v);
+    }
+
+    @Override
+    public void writeInt(int v) throws IOException {
+        output.writeInt(v);
+    }
+
+    @Override
+    public void writeLong(long v) throws IOException {
+        output.writeLong(v);
+    }
+
+    @Override
+    public void writeFloat(float v) throws IOException {
+        output.writeFloat(v);
+    }
+
+    @Override
+    public void writeDouble(double v) throws IOException {
+        output.writeDouble(v);
+    }
+
+    @Override
+    public void writeUTF(String v) throws IOException {
+        output.writeUTF(v);
+    }
+
+    @Override
+    public void writeBytes(byte[] v) throws IOException {
+        output.writeBytes(v);
+    }
+
+    @Override
+    public void writeBytes(byte[] v, int off, int len) throws IOException {
+        output.writeBytes(v, off, len);
+    }
+
+    @Override
+    public void writeObject(Object obj) throws IOException {
+        if (obj == null) {
+            output.writeInt(NULL);
+            return;
+        }
+        CompiledSerializers.Registration registration = CompiledSerializers.get(obj.getClass());
+        if (registration == null) {
+            output.writeInt(FALLBACK);
+            output.writeObject(obj);
+        } else {
+            output.writeInt(registration.getId());
+            registration.getSerializer().writeFields(obj, this);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        output.flushBuffer();
+    }
+
+    @Override
+    public void cleanup() {
+        if (output instanceof Cleanable) {
+            ((Cleanable) output).cleanup();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.compiled;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.serialize.ObjectInput;
+import org.apache.dubbo.common.serialize.ObjectOutput;
+import org.apache.dubbo.common.serialize.Serialization;
+import org.apache.dubbo.common.serialize.hessian2.Hessian2Serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Serialization writing the classes registered through a
+ * {@link org.apache.dubbo.common.serialize.support.SerializationOptimizer} with serializers generated at runtime,
+ * every other value is written with hessian2.
+ * <p>
+ * Registered classes are identified by their registration order, so like kryo both sides must register the same
+ * classes in the same order.
+ */
+public class CompiledSerialization implements Serialization {
+
+    public static final byte ID = 12;
+
+    private static final Serialization HESSIAN2 = new Hessian2Serialization();
+
+    @Override
+    public byte getContentTypeId() {
+        return ID;
+    }
+
+    @Override
+    public String getContentType() {
+        return "x-application/compiled";
+    }
+
+    @Override
+    public ObjectOutput serialize(URL url, OutputStream out) throws IOException {
+        return new CompiledObjectOutput(HESSIAN2.serialize(url, out));
+    }
+
+    @Override
+    public ObjectInput deserialize(URL url, InputStream is) throws IOException {
+        return new CompiledObjectInput(HESSIAN2.deserialize(url, is));
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.compiled;
+
+import org.apache.dubbo.common.bytecode.ClassGenerator;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.serialize.support.SerializableClassRegistry;
+import org.apache.dubbo.common.utils.ClassHelper;
+import org.apache.dubbo.common.utils.ReflectUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates a {@link CompiledSerializer} for each class of the {@link SerializableClassRegistry}, the classes
+ * registered after the first use are compiled as soon as they are seen.
+ * <p>
+ * A class is compiled when it is public with a public no-arg constructor and each of its non static, non transient
+ * fields is either public and not final or has a public getter and setter. Its fields are written from the top most
+ * superclass down, ordered by name in each class. The classes which can not be compiled are written with hessian2.
+ * As the fields of a compiled class are written without back references, an object graph with cycles through
+ * compiled classes can not be serialized.
+ */
+final class CompiledSerializers {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompiledSerializers.class);
+
+    private static final AtomicLong SERIALIZER_CLASS_COUNTER = new AtomicLong(0);
+
+    private static volatile Map<Class<?>, Registration> registrationsByClass = Collections.emptyMap();
+
+    private static volatile Registration[] registrationsById = new Registration[0];
+
+    private static volatile int registeredCount;
+
+    private CompiledSerializers() {
+    }
+
+    /**
+     * @return the registration of the class, null if it is written with hessian2
+     */
+    static Registration get(Class<?> type) {
+        refreshIfChanged();
+        return registrationsByClass.get(type);
+    }
+
+    /**
+     * @return the registration with the id, null if there is none
+     */
+    static Registration get(int id) {
+        refreshIfChanged();
+        Registration[] registrations = registrationsById;
+        return id >= 0 && id < registrations.length ? registrations[id] : null;
+    }
+
+    private static void refreshIfChanged() {
+        if (SerializableClassRegistry.getRegisteredClasses().size() != registeredCount) {
+            refresh();
+        }
+    }
+
+    private static synchronized void refresh() {
+        List<Class> classes;
+        synchronized (SerializableClassRegistry.class) {
+            classes = new ArrayList<Class>(SerializableClassRegistry.getRegisteredClasses().keySet());
+        }
+        int count = classes.size();
+        if (count == registeredCount) {
+            return;
+        }
+        Map<Class<?>, Registration> byClass = new HashMap<Class<?>, Registration>(registrationsByClass);
+        Registration[] byId = Arrays.copyOf(registrationsById, count);
+        int id = 0;
+        for (Class type : classes) {
+            if (id >= registeredCount) {
+                CompiledSerializer serializer = compile(type);
+                if (serializer != null) {
+                    Registration registration = new Registration(id, serializer);
+                    byClass.put(type, registration);
+                    byId[id] = registration;
+                }
+            }
+            id++;
+        }
+        registrationsByClass = byClass;
+        registrationsById = byId;
+        registeredCount = count;
+    }
+
+    private static CompiledSerializer compile(Class<?> type) {
+        if (!isCompilable(type)) {
+            return null;
+        }
+        List<Field> fields = getSerializableFields(type);
+        String typeName = ReflectUtils.getName(type);
+        StringBuilder writes = new StringBuilder();
+        StringBuilder reads = new StringBuilder();
+        Class<?>[] types = new Class<?>[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            Class<?> fieldType = field.getType();
+            types[i] = fieldType;
+            String getter;
+            String setter;
+            if (Modifier.isPublic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers())) {
+                getter = "v." + field.getName();
+                setter = "v." + field.getName() + " = ";
+            } else {
+                Method getterMethod = findGetter(type, field);
+                Method setterMethod = findSetter(type, field);
+                if (getterMethod == null || setterMethod == null) {
+                    logger.warn("Field " + field.getName() + " of " + type.getName()
+                            + " is neither public nor accessible through a public getter and setter, "
+                            + "the class is serialized with hessian2.");
+                    return null;
+                }
+                getter = "v." + getterMethod.getName() + "()";
+                setter = "v." + setterMethod.getName() + "(";
+            }
+            writes.append(" $2.").append(write(fieldType, getter)).append(";");
+            String read = read(fieldType, i);
+            reads.append(" ").append(setter).append(read).append(setter.endsWith("(") ? ");" : ";");
+        }
+
+        ClassGenerator cc = ClassGenerator.newInstance(ClassHelper.getClassLoader(type));
+        cc.setClassName(CompiledSerializer.class.getName() + SERIALIZER_CLASS_COUNTER.getAndIncrement());
+        cc.addInterface(CompiledSerializer.class);
+        cc.addDefaultConstructor();
+        cc.addField("public static Class[] types;");
+        cc.addMethod("public void writeFields(Object o, " + CompiledObjectOutput.class.getName() + " out) throws "
+                + IOException.class.getName() + "{ " + typeName + " v = (" + typeName + ") $1;" + writes + " }");
+        cc.addMethod("public Object readFields(" + CompiledObjectInput.class.getName() + " in) throws "
+                + IOException.class.getName() + ", " + ClassNotFoundException.class.getName() + "{ "
+                + typeName + " v = new " + typeName + "();" + reads + " return v; }");
+        try {
+            Class<?> serializerClass = cc.toClass();
+            serializerClass.getField("types").set(null, types);
+            return (CompiledSerializer) serializerClass.newInstance();
+        } catch (Throwable t) {
+            logger.warn("Failed to compile the serializer of " + type.getName()
+                    + ", the class is serialized with hessian2.", t);
+            return null;
+        } finally {
+            cc.release();
+        }
+    }
+
+    private static boolean isCompilable(Class<?> type) {
+        if (!Modifier.isPublic(type.getModifiers()) || Modifier.isAbstract(type.getModifiers())
+                || type.isArray() || type.isEnum() || type.isPrimitive()
+                || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)
+                || type.getName().startsWith("java.")) {
+            return false;
+        }
+        try {
+            type.getConstructor();
+            return true;
+        } catch (NoSuchMethodException e) {
+            logger.warn(type.getName() + " has no public no-arg constructor, the class is serialized with hessian2.");
+            return false;
+        }
+    }
+
+    private static List<Field> getSerializableFields(Class<?> type) {
+        List<Field> fields = new ArrayList<Field>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            List<Field> declared = new ArrayList<Field>();
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()) {
+                    declared.add(field);
+                }
+            }
+            Collections.sort(declared, new Comparator<Field>() {
+                @Override
+                public int compare(Field f1, Field f2) {
+                    return f1.getName().compareTo(f2.getName());
+                }
+            });
+            fields.addAll(0, declared);
+        }
+        return fields;
+    }
+
+    private static Method findGetter(Class<?> type, Field field) {
+        String property = Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+        Method getter = findMethod(type, "get" + property);
+        if (getter == null && field.getType() == boolean.class) {
+            getter = findMethod(type, "is" + property);
+        }
+        return getter != null && getter.getReturnType() == field.getType() ? getter : null;
+    }
+
+    private static Method findSetter(Class<?> type, Field field) {
+        String property = Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+        return findMethod(type, "set" + property, field.getType());
+    }
+
+    private static Method findMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = type.getMethod(name, parameterTypes);
+            return Modifier.isStatic(method.getModifiers()) ? null : method;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static String write(Class<?> type, String value) {
+        if (type == boolean.class) {
+            return "writeBool(" + value + ")";
+        } else if (type == byte.class) {
+            return "writeByte(" + value + ")";
+        } else if (type == short.class) {
+            return "writeShort(" + value + ")";
+        } else if (type == int.class) {
+            return "writeInt(" + value + ")";
+        } else if (type == char.class) {
+            return "writeInt((int) " + value + ")";
+        } else if (type == long.class) {
+            return "writeLong(" + value + ")";
+        } else if (type == float.class) {
+            return "writeFloat(" + value + ")";
+        } else if (type == double.class) {
+            return "writeDouble(" + value + ")";
+        } else if (type == String.class) {
+            return "writeUTF(" + value + ")";
+        }
+        return "writeObject(" + value + ")";
+    }
+
+    private static String read(Class<?> type, int index) {
+        if (type == boolean.class) {
+            return "$1.readBool()";
+        } else if (type == byte.class) {
+            return "$1.readByte()";
+        } else if (type == short.class) {
+            return "$1.readShort()";
+        } else if (type == int.class) {
+            return "$1.readInt()";
+        } else if (type == char.class) {
+            return "(char) $1.readInt()";
+        } else if (type == long.class) {
+            return "$1.readLong()";
+        } else if (type == float.class) {
+            return "$1.readFloat()";
+        } else if (type == double.class) {
+            return "$1.readDouble()";
+        } else if (type == String.class) {
+            return "$1.readUTF()";
+        }
+        return "(" + ReflectUtils.getName(type) + ") $1.readObject(types[" + index + "])";
+    }
+
+    static final class Registration {
+
+        private final int id;
+
+        private final CompiledSerializer serializer;
+
+        Registration(int id, CompiledSerializer serializer) {
+            this.id = id;
+            this.serializer = serializer;
+        }
+
+        int getId() {
+            return id;
+        }
+
+        CompiledSerializer getSerializer() {
+            return serializer;
+        }
+    }
+}
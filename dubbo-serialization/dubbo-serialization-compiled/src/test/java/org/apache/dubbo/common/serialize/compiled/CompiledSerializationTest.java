@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.compiled;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.serialize.ObjectInput;
+import org.apache.dubbo.common.serialize.ObjectOutput;
+import org.apache.dubbo.common.serialize.compiled.model.Order;
+import org.apache.dubbo.common.serialize.compiled.model.OrderItem;
+import org.apache.dubbo.common.serialize.compiled.model.Orders;
+import org.apache.dubbo.common.serialize.compiled.model.ReadOnlyOrder;
+import org.apache.dubbo.common.serialize.hessian2.Hessian2Serialization;
+import org.apache.dubbo.common.serialize.support.SerializableClassRegistry;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class CompiledSerializationTest {
+
+    private static final URL URL = new URL("dubbo", "localhost", 20880);
+
+    private final CompiledSerialization serialization = new CompiledSerialization();
+
+    @BeforeClass
+    public static void setUpClass() {
+        SerializableClassRegistry.registerClass(Order.class);
+        SerializableClassRegistry.registerClass(OrderItem.class);
+        SerializableClassRegistry.registerClass(ReadOnlyOrder.class);
+    }
+
+    @Test
+    public void testCompiledClasses() throws Exception {
+        assertThat(CompiledSerializers.get(Order.class), notNullValue());
+        assertThat(CompiledSerializers.get(OrderItem.class), notNullValue());
+        assertThat(CompiledSerializers.get(ReadOnlyOrder.class), nullValue());
+        assertThat(CompiledSerializers.get(String.class), nullValue());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Order order = Orders.newOrder(1);
+        Order empty = new Order();
+        byte[] bytes = serialize(order, empty, null, "text", 7, Arrays.asList(order.getItem()));
+
+        ObjectInput input = serialization.deserialize(URL, new ByteArrayInputStream(bytes));
+        assertThat(input.readObject(Order.class), is(order));
+        assertThat((Order) input.readObject(), is(empty));
+        assertThat(input.readObject(), nullValue());
+        assertThat(input.readObject(String.class), is("text"));
+        assertThat(input.readInt(), is(7));
+        assertThat((List<?>) input.readObject(List.class), is((List<?>) Arrays.asList(order.getItem())));
+    }
+
+    @Test
+    public void testNotCompiledClassIsWrittenWithHessian2() throws Exception {
+        byte[] bytes = serialize(new ReadOnlyOrder("customer"));
+
+        ObjectInput input = serialization.deserialize(URL, new ByteArrayInputStream(bytes));
+        assertThat(input.readObject(ReadOnlyOrder.class).getCustomer(), is("customer"));
+    }
+
+    @Test
+    public void testSmallerThanHessian2() throws Exception {
+        Order order = Orders.newOrder(1);
+        ByteArrayOutputStream hessian2 = new ByteArrayOutputStream();
+        ObjectOutput output = new Hessian2Serialization().serialize(URL, hessian2);
+        output.writeObject(order);
+        output.flushBuffer();
+
+        assertThat(serialize(order).length, lessThan(hessian2.size()));
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownId() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ObjectOutput output = serialization.serialize(URL, out);
+        output.writeInt(Integer.MAX_VALUE);
+        output.flushBuffer();
+
+        serialization.deserialize(URL, new ByteArrayInputStream(out.toByteArray())).readObject();
+    }
+
+    private byte[] serialize(Object... values) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ObjectOutput output = serialization.serialize(URL, out);
+        for (Object value : values) {
+            if (value instanceof Integer) {
+                output.writeInt((Integer) value);
+            } else {
+                output.writeObject(value);
+            }
+        }
+        output.flushBuffer();
+        return out.toByteArray();
+    }
+}
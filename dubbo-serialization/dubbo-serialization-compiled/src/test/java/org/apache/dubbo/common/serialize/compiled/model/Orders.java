@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.compiled.model;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+public class Orders {
+
+    public static Order newOrder(long id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setQuantity(3);
+        order.setPriority((short) 2);
+        order.setFlags((byte) 7);
+        order.setPaid(true);
+        order.setGrade('A');
+        order.setDiscount(0.15f);
+        order.setAmount(299.99);
+        order.setCustomer("customer-" + id);
+        order.setAddress("No. 969 West Wen Yi Road, Hangzhou");
+        order.setCreated(new Date(1500000000000L + id));
+        order.setStatus(OrderStatus.PAID);
+        order.setVersion(id * 31);
+        order.setRetries(1);
+        order.setTotal(new BigDecimal("899.97"));
+        order.setSignature(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        order.setTags(Arrays.asList("express", "gift"));
+        Map<String, String> attributes = new HashMap<String, String>();
+        attributes.put("channel", "app");
+        order.setAttributes(attributes);
+        OrderItem item = new OrderItem();
+        item.sku = "sku-" + id;
+        item.count = 3;
+        item.price = 99.99;
+        order.setItem(item);
+        return order;
+    }
+}
@@ -17,6 +17,7 @@
 package org.apache.dubbo.common.serialize.hessian2;
 
 import com.alibaba.com.caucho.hessian.io.Hessian2Input;
+import org.apache.dubbo.common.serialize.Cleanable;
 import org.apache.dubbo.common.serialize.ObjectInput;
 
 import java.io.IOException;
@@ -25,13 +26,45 @@ import java.lang.reflect.Type;
 
 /**
  * Hessian2 Object input.
+ * <p>
+ * The inputs obtained by {@link #obtain(InputStream)} are kept per thread and handed out again once
+ * {@link #cleanup()} is called, an input which is never cleaned up is simply replaced.
  */
-public class Hessian2ObjectInput implements ObjectInput {
+public class Hessian2ObjectInput implements ObjectInput, Cleanable {
+    private static final ThreadLocal<Hessian2ObjectInput> CACHED_INPUT = new ThreadLocal<Hessian2ObjectInput>();
+
     private final Hessian2Input mH2i;
 
+    private final boolean reusable;
+
+    private boolean inUse;
+
     public Hessian2ObjectInput(InputStream is) {
-        mH2i = new Hessian2Input(is);
+        this(new Hessian2Input(is), false);
+    }
+
+    private Hessian2ObjectInput(Hessian2Input h2i, boolean reusable) {
+        mH2i = h2i;
         mH2i.setSerializerFactory(Hessian2SerializerFactory.SERIALIZER_FACTORY);
+        this.reusable = reusable;
+    }
+
+    /**
+     * @return the input of the current thread pointed to the stream, a new one if it is still in use
+     */
+    static Hessian2ObjectInput obtain(InputStream is) {
+        if (!ReusableHessian2Input.isSupported()) {
+            return new Hessian2ObjectInput(is);
+        }
+        Hessian2ObjectInput input = CACHED_INPUT.get();
+        if (input == null || input.inUse) {
+            input = new Hessian2ObjectInput(new ReusableHessian2Input(is), true);
+            CACHED_INPUT.set(input);
+        } else {
+            ((ReusableHessian2Input) input.mH2i).reset(is);
+        }
+        input.inUse = true;
+        return input;
     }
 
     @Override
@@ -96,4 +129,14 @@ public class Hessian2ObjectInput implements ObjectInput {
         return readObject(cls);
     }
 
+    /**
+     * Called once the message is read, the input must not be used after.
+     */
+    @Override
+    public void cleanup() {
+        if (reusable && inUse) {
+            ((ReusableHessian2Input) mH2i).reset(null);
+            inUse = false;
+        }
+    }
 }
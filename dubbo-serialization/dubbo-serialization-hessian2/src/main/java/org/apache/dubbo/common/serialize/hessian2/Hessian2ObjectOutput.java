@@ -17,6 +17,7 @@
 package org.apache.dubbo.common.serialize.hessian2;
 
 import com.alibaba.com.caucho.hessian.io.Hessian2Output;
+import org.apache.dubbo.common.serialize.Cleanable;
 import org.apache.dubbo.common.serialize.ObjectOutput;
 
 import java.io.IOException;
@@ -24,13 +25,45 @@ import java.io.OutputStream;
 
 /**
  * Hessian2 Object output.
+ * <p>
+ * The outputs obtained by {@link #obtain(OutputStream)} are kept per thread and handed out again once
+ * {@link #cleanup()} is called, an output which is never cleaned up is simply replaced.
  */
-public class Hessian2ObjectOutput implements ObjectOutput {
+public class Hessian2ObjectOutput implements ObjectOutput, Cleanable {
+    private static final ThreadLocal<Hessian2ObjectOutput> CACHED_OUTPUT = new ThreadLocal<Hessian2ObjectOutput>();
+
     private final Hessian2Output mH2o;
 
+    private final boolean reusable;
+
+    private boolean inUse;
+
     public Hessian2ObjectOutput(OutputStream os) {
-        mH2o = new Hessian2Output(os);
+        this(new Hessian2Output(os), false);
+    }
+
+    private Hessian2ObjectOutput(Hessian2Output h2o, boolean reusable) {
+        mH2o = h2o;
         mH2o.setSerializerFactory(Hessian2SerializerFactory.SERIALIZER_FACTORY);
+        this.reusable = reusable;
+    }
+
+    /**
+     * @return the output of the current thread pointed to the stream, a new one if it is still in use
+     */
+    static Hessian2ObjectOutput obtain(OutputStream os) {
+        if (!ReusableHessian2Output.isSupported()) {
+            return new Hessian2ObjectOutput(os);
+        }
+        Hessian2ObjectOutput output = CACHED_OUTPUT.get();
+        if (output == null || output.inUse) {
+            output = new Hessian2ObjectOutput(new ReusableHessian2Output(os), true);
+            CACHED_OUTPUT.set(output);
+        } else {
+            ((ReusableHessian2Output) output.mH2o).reset(os);
+        }
+        output.inUse = true;
+        return output;
     }
 
     @Override
@@ -92,4 +125,15 @@ public class Hessian2ObjectOutput implements ObjectOutput {
     public void flushBuffer() throws IOException {
         mH2o.flushBuffer();
     }
+
+    /**
+     * Called once the message is flushed, the output must not be used after.
+     */
+    @Override
+    public void cleanup() {
+        if (reusable && inUse) {
+            ((ReusableHessian2Output) mH2o).reset(null);
+            inUse = false;
+        }
+    }
 }
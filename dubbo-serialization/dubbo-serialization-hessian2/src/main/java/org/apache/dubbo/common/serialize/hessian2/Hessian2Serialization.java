@@ -41,12 +41,12 @@ public class Hessian2Serialization implements Serialization {
 
     @Override
     public ObjectOutput serialize(URL url, OutputStream out) throws IOException {
-        return new Hessian2ObjectOutput(out);
+        return Hessian2ObjectOutput.obtain(out);
     }
 
     @Override
     public ObjectInput deserialize(URL url, InputStream is) throws IOException {
-        return new Hessian2ObjectInput(is);
+        return Hessian2ObjectInput.obtain(is);
     }
 
 }
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.hessian2;
+
+import com.alibaba.com.caucho.hessian.io.Hessian2Input;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+
+import java.io.InputStream;
+import java.lang.reflect.Field;
+
+/**
+ * Hessian2Input which can be pointed to another stream, so that its buffer and reference lists are kept
+ * across messages.
+ * <p>
+ * Hessian2Input of hessian-lite can not be initialized with another stream, its stream and buffer
+ * position are replaced reflectively, and reuse is disabled if those fields can not be found.
+ */
+class ReusableHessian2Input extends Hessian2Input {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReusableHessian2Input.class);
+
+    private static final Field IS_FIELD = getField("_is", InputStream.class);
+
+    private static final Field OFFSET_FIELD = getField("_offset", int.class);
+
+    private static final Field LENGTH_FIELD = getField("_length", int.class);
+
+    ReusableHessian2Input(InputStream is) {
+        super(is);
+    }
+
+    static boolean isSupported() {
+        return IS_FIELD != null && OFFSET_FIELD != null && LENGTH_FIELD != null;
+    }
+
+    /**
+     * Forget everything read from the previous stream, including the bytes buffered but not read.
+     */
+    void reset(InputStream is) {
+        try {
+            IS_FIELD.set(this, is);
+            OFFSET_FIELD.setInt(this, 0);
+            LENGTH_FIELD.setInt(this, 0);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        if (_refs != null) {
+            _refs.clear();
+        }
+        if (_classDefs != null) {
+            _classDefs.clear();
+        }
+        if (_types != null) {
+            _types.clear();
+        }
+    }
+
+    private static Field getField(String name, Class<?> type) {
+        try {
+            Field field = Hessian2Input.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return field.getType() == type ? field : null;
+        } catch (Throwable t) {
+            logger.warn("Hessian2Input will not be reused, since its field " + name + " is not accessible: " + t.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.hessian2;
+
+import com.alibaba.com.caucho.hessian.io.Hessian2Output;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.Map;
+
+/**
+ * Hessian2Output which can be pointed to another stream, so that its buffer is kept across messages.
+ * <p>
+ * Hessian2Output of hessian-lite has no reset of its class and type definitions nor of its buffer offset, they
+ * are cleared reflectively, and reuse is disabled if those fields can not be found.
+ */
+class ReusableHessian2Output extends Hessian2Output {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReusableHessian2Output.class);
+
+    private static final Field CLASS_REFS_FIELD = getField("_classRefs", Map.class);
+
+    private static final Field TYPE_REFS_FIELD = getField("_typeRefs", Map.class);
+
+    private static final Field OFFSET_FIELD = getField("_offset", int.class);
+
+    ReusableHessian2Output(OutputStream os) {
+        super(os);
+    }
+
+    static boolean isSupported() {
+        return CLASS_REFS_FIELD != null && TYPE_REFS_FIELD != null && OFFSET_FIELD != null;
+    }
+
+    /**
+     * Forget everything written to the previous stream, including what is left in the buffer when a write failed.
+     */
+    void reset(OutputStream os) {
+        _os = os;
+        resetReferences();
+        clear(CLASS_REFS_FIELD);
+        clear(TYPE_REFS_FIELD);
+        try {
+            OFFSET_FIELD.setInt(this, 0);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private void clear(Field field) {
+        try {
+            Map map = (Map) field.get(this);
+            if (map != null) {
+                map.clear();
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private static Field getField(String name, Class<?> type) {
+        try {
+            Field field = Hessian2Output.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return type.isAssignableFrom(field.getType()) ? field : null;
+        } catch (Throwable t) {
+            logger.warn("Hessian2Output will not be reused, since its field " + name + " is not accessible: " + t.getMessage());
+            return null;
+        }
+    }
+}
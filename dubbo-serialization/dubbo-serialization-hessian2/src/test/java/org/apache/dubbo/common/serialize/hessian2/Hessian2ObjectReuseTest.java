@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.hessian2;
+
+import org.apache.dubbo.common.model.person.BigPerson;
+import org.apache.dubbo.common.model.person.FullAddress;
+import org.apache.dubbo.common.model.person.PersonInfo;
+import org.apache.dubbo.common.model.person.PersonStatus;
+import org.apache.dubbo.common.model.person.Phone;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Hessian2ObjectReuseTest {
+
+    @Test
+    public void testOutputReusedAfterCleanup() throws Exception {
+        BigPerson person = newPerson();
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        Hessian2ObjectOutput output = Hessian2ObjectOutput.obtain(first);
+        output.writeObject(person);
+        output.flushBuffer();
+        output.cleanup();
+
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        Assert.assertSame(output, Hessian2ObjectOutput.obtain(second));
+        output.writeObject(person);
+        output.flushBuffer();
+        output.cleanup();
+
+        // the class definition is written again, each message is readable by itself
+        Assert.assertArrayEquals(first.toByteArray(), second.toByteArray());
+        Assert.assertEquals(person, new Hessian2ObjectInput(new ByteArrayInputStream(second.toByteArray())).readObject(BigPerson.class));
+    }
+
+    @Test
+    public void testOutputReusedAfterFailedWrite() throws Exception {
+        BigPerson person = newPerson();
+        Hessian2ObjectOutput output = Hessian2ObjectOutput.obtain(new ByteArrayOutputStream());
+        // written into the buffer, but never flushed as the message failed
+        output.writeUTF("partial");
+        output.cleanup();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Assert.assertSame(output, Hessian2ObjectOutput.obtain(bytes));
+        output.writeObject(person);
+        output.flushBuffer();
+        output.cleanup();
+
+        Assert.assertArrayEquals(serialize(person), bytes.toByteArray());
+    }
+
+    @Test
+    public void testOutputNotReusedWhileInUse() throws Exception {
+        Hessian2ObjectOutput output = Hessian2ObjectOutput.obtain(new ByteArrayOutputStream());
+        Assert.assertNotSame(output, Hessian2ObjectOutput.obtain(new ByteArrayOutputStream()));
+    }
+
+    @Test
+    public void testInputReusedAfterCleanup() throws Exception {
+        BigPerson person = newPerson();
+        byte[] bytes = serialize(person, "tail");
+
+        Hessian2ObjectInput input = Hessian2ObjectInput.obtain(new ByteArrayInputStream(bytes));
+        Assert.assertEquals(person, input.readObject(BigPerson.class));
+        // leave the tail unread, as well as what the input has buffered
+        input.cleanup();
+
+        Assert.assertSame(input, Hessian2ObjectInput.obtain(new ByteArrayInputStream(bytes)));
+        Assert.assertEquals(person, input.readObject(BigPerson.class));
+        Assert.assertEquals("tail", input.readUTF());
+        input.cleanup();
+
+        Hessian2ObjectInput inUse = Hessian2ObjectInput.obtain(new ByteArrayInputStream(bytes));
+        Assert.assertNotSame(inUse, Hessian2ObjectInput.obtain(new ByteArrayInputStream(bytes)));
+    }
+
+    static byte[] serialize(Object value) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Hessian2ObjectOutput output = new Hessian2ObjectOutput(bytes);
+        output.writeObject(value);
+        output.flushBuffer();
+        return bytes.toByteArray();
+    }
+
+    static byte[] serialize(Object value, String tail) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Hessian2ObjectOutput output = new Hessian2ObjectOutput(bytes);
+        output.writeObject(value);
+        output.writeUTF(tail);
+        output.flushBuffer();
+        return bytes.toByteArray();
+    }
+
+    static BigPerson newPerson() {
+        BigPerson person = new BigPerson();
+        person.setPersonId("superman111");
+        person.setLoginName("superman");
+        person.setStatus(PersonStatus.ENABLED);
+        person.setEmail("sm@1.com");
+        person.setPenName("pname");
+        List<Phone> phones = new ArrayList<Phone>();
+        phones.add(new Phone("86", "0571", "87654321", "001"));
+        phones.add(new Phone("86", "0571", "87654322", "002"));
+        PersonInfo info = new PersonInfo();
+        info.setPhones(phones);
+        info.setFax(new Phone("86", "0571", "87654321", null));
+        info.setFullAddress(new FullAddress("CN", "zj", "3480", "wensanlu", "315000"));
+        info.setMobileNo("13584652131");
+        info.setMale(true);
+        info.setDepartment("b2b");
+        info.setHomepageUrl("www.capcom.com");
+        info.setJobTitle("qa");
+        info.setName("superman");
+        person.setInfoProfile(info);
+        return person;
+    }
+}
@@ -17,6 +17,9 @@
 package org.apache.dubbo.common.serialize.kryo.utils;
 
 import com.esotericsoftware.kryo.Kryo;
+import org.apache.dubbo.common.logger.Logger;
+import org.apache.dubbo.common.logger.LoggerFactory;
+import org.apache.dubbo.common.utils.ConfigUtils;
 
 /**
  * The kryo utils used by dubbo
@@ -24,7 +27,29 @@ import com.esotericsoftware.kryo.Kryo;
  * @since 2.6.0
  */
 public class KryoUtils {
-    private static AbstractKryoFactory kryoFactory = new ThreadLocalKryoFactory();
+
+    /**
+     * System property or dubbo.properties entry selecting how kryo instances are shared between threads:
+     * threadlocal (the default), pooled, lockfree or prototype
+     */
+    public static final String KRYO_FACTORY_KEY = "dubbo.serialization.kryo.factory";
+
+    private static final Logger logger = LoggerFactory.getLogger(KryoUtils.class);
+
+    private static AbstractKryoFactory kryoFactory = newKryoFactory(ConfigUtils.getProperty(KRYO_FACTORY_KEY, "threadlocal"));
+
+    static AbstractKryoFactory newKryoFactory(String name) {
+        if ("pooled".equals(name)) {
+            return new PooledKryoFactory();
+        } else if ("lockfree".equals(name)) {
+            return new LockFreePooledKryoFactory();
+        } else if ("prototype".equals(name)) {
+            return new PrototypeKryoFactory();
+        } else if (!"threadlocal".equals(name)) {
+            logger.warn("Unknown kryo factory " + name + ", expect threadlocal, pooled, lockfree or prototype, use threadlocal instead");
+        }
+        return new ThreadLocalKryoFactory();
+    }
 
     public static Kryo get() {
         return kryoFactory.getKryo();
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.kryo.utils;
+
+import com.esotericsoftware.kryo.Kryo;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Pool of kryo instances kept in a fixed number of slots which are taken and given back with a compare and set,
+ * unlike the synchronized queue of {@link PooledKryoFactory}. A thread starts looking from the slot of its id so
+ * that it mostly takes back the kryo it returned; a kryo returned while all the slots are taken is dropped.
+ */
+public class LockFreePooledKryoFactory extends AbstractKryoFactory {
+
+    private final AtomicReferenceArray<Kryo> slots;
+
+    private final int mask;
+
+    public LockFreePooledKryoFactory() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    public LockFreePooledKryoFactory(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        slots = new AtomicReferenceArray<Kryo>(size);
+        mask = size - 1;
+    }
+
+    @Override
+    public Kryo getKryo() {
+        int start = (int) Thread.currentThread().getId();
+        for (int i = 0; i <= mask; i++) {
+            int index = (start + i) & mask;
+            Kryo kryo = slots.get(index);
+            if (kryo != null && slots.compareAndSet(index, kryo, null)) {
+                return kryo;
+            }
+        }
+        return create();
+    }
+
+    @Override
+    public void returnKryo(Kryo kryo) {
+        int start = (int) Thread.currentThread().getId();
+        for (int i = 0; i <= mask; i++) {
+            int index = (start + i) & mask;
+            if (slots.get(index) == null && slots.compareAndSet(index, null, kryo)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the number of idle kryo instances
+     */
+    public int getIdleCount() {
+        int count = 0;
+        for (int i = 0; i <= mask; i++) {
+            if (slots.get(i) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.dubbo.common.serialize.kryo.utils;
+
+import com.esotericsoftware.kryo.Kryo;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LockFreePooledKryoFactoryTest {
+
+    @Test
+    public void testReuse() {
+        LockFreePooledKryoFactory factory = new LockFreePooledKryoFactory(4);
+        Kryo kryo = factory.getKryo();
+        factory.returnKryo(kryo);
+        Assert.assertEquals(1, factory.getIdleCount());
+        Assert.assertSame(kryo, factory.getKryo());
+        Assert.assertEquals(0, factory.getIdleCount());
+    }
+
+    @Test
+    public void testCapacity() {
+        LockFreePooledKryoFactory factory = new LockFreePooledKryoFactory(3);
+        Kryo[] kryos = new Kryo[6];
+        for (int i = 0; i < kryos.length; i++) {
+            kryos[i] = factory.getKryo();
+        }
+        for (Kryo kryo : kryos) {
+            factory.returnKryo(kryo);
+        }
+        // rounded up to a power of two, the extra instances are dropped
+        Assert.assertEquals(4, factory.getIdleCount());
+    }
+
+    @Test
+    public void testConcurrentBorrow() throws Exception {
+        final LockFreePooledKryoFactory factory = new LockFreePooledKryoFactory(8);
+        final Set<Kryo> borrowed = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<Kryo, Boolean>()));
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(8);
+        for (int t = 0; t < 8; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 2000; i++) {
+                            Kryo kryo = factory.getKryo();
+                            // an instance is never lent to two threads at once
+                            if (!borrowed.add(kryo)) {
+                                failures.incrementAndGet();
+                            }
+                            borrowed.remove(kryo);
+                            factory.returnKryo(kryo);
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }).start();
+        }
+        latch.await();
+        Assert.assertEquals(0, failures.get());
+        Assert.assertTrue(factory.getIdleCount() <= 8);
+    }
+
+    @Test
+    public void testNewKryoFactory() {
+        Assert.assertTrue(KryoUtils.newKryoFactory("lockfree") instanceof LockFreePooledKryoFactory);
+        Assert.assertTrue(KryoUtils.newKryoFactory("pooled") instanceof PooledKryoFactory);
+        Assert.assertTrue(KryoUtils.newKryoFactory("prototype") instanceof PrototypeKryoFactory);
+        Assert.assertTrue(KryoUtils.newKryoFactory("unknown") instanceof ThreadLocalKryoFactory);
+    }
+}